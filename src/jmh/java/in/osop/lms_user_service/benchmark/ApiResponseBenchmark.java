@@ -0,0 +1,40 @@
+package in.osop.lms_user_service.benchmark;
+
+import in.osop.lms_user_service.dto.ApiResponse;
+import in.osop.lms_user_service.dto.UserResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of wrapping a payload in ApiResponse, including its LocalDateTime.now() timestamp
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ApiResponseBenchmark {
+
+    private final UserResponse user = UserResponse.fromEntity(BenchmarkData.user(42));
+
+    @Benchmark
+    public ApiResponse<UserResponse> success() {
+        return ApiResponse.success(user, "User retrieved successfully");
+    }
+
+    @Benchmark
+    public LocalDateTime timestampOnly() {
+        return LocalDateTime.now();
+    }
+}
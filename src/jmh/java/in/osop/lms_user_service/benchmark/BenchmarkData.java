@@ -0,0 +1,50 @@
+package in.osop.lms_user_service.benchmark;
+
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Representative fixtures shared by the benchmarks
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static User user(long userId) {
+        LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 10, 30).plusSeconds(userId);
+        return User.builder()
+                .userId(userId)
+                .fullName("John Doe")
+                .phoneNumber("+91987654" + String.format("%04d", userId % 10_000))
+                .email("john.doe" + userId + "@example.com")
+                .courseName("Java Full Stack Development")
+                .status(User.UserStatus.ACTIVE)
+                .createdAt(createdAt)
+                .updatedAt(createdAt.plusDays(1))
+                .version(3L)
+                .build();
+    }
+
+    static List<UserResponse> userResponses(int count) {
+        List<UserResponse> responses = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            responses.add(UserResponse.fromEntity(user(i)));
+        }
+        return responses;
+    }
+
+    static UserRegistrationRequest registrationRequest() {
+        return UserRegistrationRequest.builder()
+                .fullName("John Doe")
+                .phoneNumber("+919876543210")
+                .email("  John.Doe@Example.COM ")
+                .courseName("Java Full Stack Development")
+                .build();
+    }
+}
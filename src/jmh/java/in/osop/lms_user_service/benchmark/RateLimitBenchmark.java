@@ -0,0 +1,89 @@
+package in.osop.lms_user_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.filter.ClientRateLimiter;
+import in.osop.lms_user_service.filter.RateLimitFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of the rate-limit filter on the admitted path
+ * One hot client (alone and contended by four threads) and requests spread over 10000 clients
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimitBenchmark {
+
+    private static final int CLIENTS = 10_000;
+    private static final FilterChain NO_OP = (request, response) -> { };
+
+    private RateLimitFilter filter;
+    private ClientRateLimiter limiter;
+    private String[] clients;
+
+    @Setup
+    public void setUp() {
+        // High enough that every request is admitted: the benchmark measures the bookkeeping, not rejections
+        limiter = new ClientRateLimiter(1e9, 1_000_000_000, CLIENTS * 2);
+        filter = new RateLimitFilter(limiter, new ClientRateLimiter(1e9, 1_000_000_000, CLIENTS * 2), "X-API-Key",
+                new ObjectMapper(), new SimpleMeterRegistry());
+        clients = new String[CLIENTS];
+        for (int i = 0; i < CLIENTS; i++) {
+            clients[i] = "client-" + i;
+            limiter.tryAcquire(clients[i]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+        final MockHttpServletRequest hot = request("203.0.113.7");
+        final MockHttpServletResponse response = new MockHttpServletResponse();
+
+        static MockHttpServletRequest request(String remoteAddr) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/42");
+            request.setRemoteAddr(remoteAddr);
+            return request;
+        }
+    }
+
+    @Benchmark
+    public void filterHotClient(Requests requests) throws Exception {
+        filter.doFilter(requests.hot, requests.response, NO_OP);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void filterHotClientContended(Requests requests) throws Exception {
+        filter.doFilter(requests.hot, requests.response, NO_OP);
+    }
+
+    @Benchmark
+    public long limiterHotClient() {
+        return limiter.tryAcquire("203.0.113.7");
+    }
+
+    @Benchmark
+    public long limiterManyClients() {
+        return limiter.tryAcquire(clients[ThreadLocalRandom.current().nextInt(CLIENTS)]);
+    }
+}
@@ -0,0 +1,119 @@
+package in.osop.lms_user_service.benchmark;
+
+import in.osop.lms_user_service.LmsUserServiceApplication;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.loadtest.SyntheticUserGenerator;
+import in.osop.lms_user_service.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity hydration versus constructor-expression projections for the read endpoints, on embedded H2
+ * Compare gc.alloc.rate.norm (bytes per request) between the entity and projection variants
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+    private static final String COURSE = "Java Programming";
+    private static final String EMAIL = SyntheticUserGenerator.email(42);
+    private static final Sort KEYSET_SORT = Sort.by("createdAt", "userId");
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private TransactionTemplate readOnlyTransaction;
+    private Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(LmsUserServiceApplication.class,
+                "--spring.profiles.active=test",
+                "--spring.main.web-application-type=none",
+                "--lms.user-cache.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.in.osop.lms_user_service=WARN");
+        new SyntheticUserGenerator(context.getBean(JdbcTemplate.class), 42L).generate(20_000);
+
+        userRepository = context.getBean(UserRepository.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(TransactionTemplate.class).getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+        pageable = PageRequest.of(5, pageSize, Sort.by("createdAt"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserResponse byIdEntity() {
+        return readOnlyTransaction.execute(status ->
+                UserResponse.fromEntity(userRepository.findById(42L).orElseThrow()));
+    }
+
+    @Benchmark
+    public UserResponse byIdProjection() {
+        return readOnlyTransaction.execute(status ->
+                userRepository.findRowById(42L).orElseThrow().toResponse());
+    }
+
+    @Benchmark
+    public UserResponse byEmailEntity() {
+        return readOnlyTransaction.execute(status ->
+                UserResponse.fromEntity(userRepository.findByEmail(EMAIL).orElseThrow()));
+    }
+
+    @Benchmark
+    public UserResponse byEmailProjection() {
+        return readOnlyTransaction.execute(status ->
+                userRepository.findRowByEmail(EMAIL).orElseThrow().toResponse());
+    }
+
+    @Benchmark
+    public Page<UserResponse> coursePageEntity() {
+        return readOnlyTransaction.execute(status ->
+                userRepository.findByCourseName(COURSE, pageable).map(UserResponse::fromEntity));
+    }
+
+    @Benchmark
+    public Page<UserResponse> coursePageProjection() {
+        return readOnlyTransaction.execute(status ->
+                userRepository.findResponsesByCourseName(COURSE, pageable));
+    }
+
+    @Benchmark
+    public List<UserResponse> courseKeysetPageProjection() {
+        return readOnlyTransaction.execute(status ->
+                userRepository.findCourseResponsePage(COURSE, Limit.of(pageSize + 1), KEYSET_SORT));
+    }
+}
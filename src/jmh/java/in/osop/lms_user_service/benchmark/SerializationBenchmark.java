@@ -0,0 +1,86 @@
+package in.osop.lms_user_service.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import in.osop.lms_user_service.config.JacksonConfig;
+import in.osop.lms_user_service.dto.ApiResponse;
+import in.osop.lms_user_service.dto.PageResponse;
+import in.osop.lms_user_service.dto.UserResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of Jackson serialization of list and single-user responses, configured as Spring Boot does
+ * Reflective: bean serializers and the raw PageImpl, as the list endpoints rendered before
+ * Fast: the hand-written serializers from JacksonConfig and the PageResponse envelope
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    private ObjectMapper reflectiveMapper;
+    private ObjectMapper fastMapper;
+    private ApiResponse<Page<UserResponse>> pageImplResponse;
+    private ApiResponse<PageResponse<UserResponse>> pageResponse;
+    private ApiResponse<UserResponse> userResponse;
+
+    @Setup
+    public void setUp() {
+        reflectiveMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        fastMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .modulesToInstall(JacksonConfig.responseModule())
+                .build();
+        Page<UserResponse> page = new PageImpl<>(BenchmarkData.userResponses(pageSize),
+                PageRequest.of(3, pageSize, Sort.by("createdAt").descending()), 2_000_000);
+        pageImplResponse = ApiResponse.success(page, "Users retrieved successfully");
+        pageResponse = ApiResponse.success(PageResponse.from(page), "Users retrieved successfully");
+        userResponse = ApiResponse.success(UserResponse.fromEntity(BenchmarkData.user(42)), "User retrieved successfully");
+    }
+
+    @Benchmark
+    public byte[] pageReflective() throws JsonProcessingException {
+        return reflectiveMapper.writeValueAsBytes(pageImplResponse);
+    }
+
+    @Benchmark
+    public byte[] pageFast() throws JsonProcessingException {
+        return fastMapper.writeValueAsBytes(pageResponse);
+    }
+
+    @Benchmark
+    public byte[] singleUserReflective() throws JsonProcessingException {
+        return reflectiveMapper.writeValueAsBytes(userResponse);
+    }
+
+    @Benchmark
+    public byte[] singleUserFast() throws JsonProcessingException {
+        return fastMapper.writeValueAsBytes(userResponse);
+    }
+}
@@ -0,0 +1,34 @@
+package in.osop.lms_user_service.benchmark;
+
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of copying a User entity into its response DTO
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserResponseMappingBenchmark {
+
+    private final User user = BenchmarkData.user(42);
+
+    @Benchmark
+    public UserResponse fromEntity() {
+        return UserResponse.fromEntity(user);
+    }
+}
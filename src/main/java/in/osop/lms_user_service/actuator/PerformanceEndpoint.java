@@ -0,0 +1,127 @@
+package in.osop.lms_user_service.actuator;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint summarising where request time goes
+ * GET /actuator/performance: service, repository and HTTP timers, Hibernate statistics and connection pool waits
+ */
+@Component
+@Endpoint(id = "performance")
+public class PerformanceEndpoint {
+
+    static final String SERVICE_TIMER = "lms.user.service";
+    static final String REPOSITORY_TIMER = "spring.data.repository.invocations";
+    static final String HTTP_TIMER = "http.server.requests";
+
+    private final MeterRegistry meterRegistry;
+    private final EntityManagerFactory entityManagerFactory;
+    private final long slowQueryThresholdMs;
+
+    public PerformanceEndpoint(MeterRegistry meterRegistry,
+                               EntityManagerFactory entityManagerFactory,
+                               @Value("${lms.slow-query.threshold-ms:200}") long slowQueryThresholdMs) {
+        this.meterRegistry = meterRegistry;
+        this.entityManagerFactory = entityManagerFactory;
+        this.slowQueryThresholdMs = slowQueryThresholdMs;
+    }
+
+    @ReadOperation
+    public Map<String, Object> performance() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("service", timers(SERVICE_TIMER));
+        report.put("repository", timers(REPOSITORY_TIMER));
+        report.put("http", timers(HTTP_TIMER));
+        report.put("hibernate", hibernateStatistics());
+        report.put("connectionPools", connectionPools());
+        report.put("slowQueryThresholdMs", slowQueryThresholdMs);
+        return report;
+    }
+
+    /**
+     * One entry per tag combination, slowest total time first
+     */
+    private List<Map<String, Object>> timers(String name) {
+        return meterRegistry.find(name).timers().stream()
+                .sorted(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed())
+                .map(this::describe)
+                .toList();
+    }
+
+    private Map<String, Object> describe(Timer timer) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        Map<String, String> tags = new TreeMap<>();
+        for (Tag tag : timer.getId().getTags()) {
+            tags.put(tag.getKey(), tag.getValue());
+        }
+        entry.put("tags", tags);
+        entry.put("count", timer.count());
+        entry.put("totalMs", timer.totalTime(TimeUnit.MILLISECONDS));
+        entry.put("meanMs", timer.mean(TimeUnit.MILLISECONDS));
+        entry.put("maxMs", timer.max(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+            entry.put(percentileKey(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return entry;
+    }
+
+    private Map<String, Object> hibernateStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> hibernate = new LinkedHashMap<>();
+        hibernate.put("enabled", statistics.isStatisticsEnabled());
+        hibernate.put("queryExecutionCount", statistics.getQueryExecutionCount());
+        hibernate.put("queryExecutionMaxTimeMs", statistics.getQueryExecutionMaxTime());
+        hibernate.put("slowestQuery", statistics.getQueryExecutionMaxTimeQueryString());
+        hibernate.put("prepareStatementCount", statistics.getPrepareStatementCount());
+        hibernate.put("entityLoadCount", statistics.getEntityLoadCount());
+        hibernate.put("entityFetchCount", statistics.getEntityFetchCount());
+        hibernate.put("entityInsertCount", statistics.getEntityInsertCount());
+        hibernate.put("entityUpdateCount", statistics.getEntityUpdateCount());
+        hibernate.put("entityDeleteCount", statistics.getEntityDeleteCount());
+        hibernate.put("flushCount", statistics.getFlushCount());
+        hibernate.put("transactionCount", statistics.getTransactionCount());
+        hibernate.put("sessionOpenCount", statistics.getSessionOpenCount());
+        return hibernate;
+    }
+
+    /**
+     * HikariCP gauges and the time callers waited to acquire a connection, per pool
+     */
+    private Map<String, Map<String, Object>> connectionPools() {
+        Map<String, Map<String, Object>> pools = new TreeMap<>();
+        for (String gauge : List.of("active", "idle", "pending", "max")) {
+            for (Gauge meter : meterRegistry.find("hikaricp.connections." + gauge).gauges()) {
+                pools.computeIfAbsent(meter.getId().getTag("pool"), pool -> new LinkedHashMap<>())
+                        .put(gauge, (long) meter.value());
+            }
+        }
+        for (Timer timer : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            pools.computeIfAbsent(timer.getId().getTag("pool"), pool -> new LinkedHashMap<>())
+                    .put("acquire", describe(timer));
+        }
+        return pools;
+    }
+
+    private static String percentileKey(double percentile) {
+        String digits = String.valueOf(percentile * 100).replaceAll("\\.0$", "").replace(".", "_");
+        return "p" + digits + "Ms";
+    }
+}
@@ -0,0 +1,105 @@
+package in.osop.lms_user_service.cache;
+
+import in.osop.lms_user_service.util.Hashing;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe Bloom filter over strings
+ * Answers "definitely absent" or "possibly present"; elements can be added but never removed
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final LongAdder setBits = new LongAdder();
+
+    /**
+     * Create a filter sized for the expected number of insertions
+     * @param expectedInsertions Number of elements the filter should hold
+     * @param falsePositiveRate Target false-positive probability at that size
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.min(Integer.MAX_VALUE - 8, (optimalBits + 63) >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitSize = (long) words << 6;
+        this.hashFunctions = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * Add an element
+     * @param value Element to add
+     */
+    public void put(String value) {
+        long hash = Hashing.hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            int combined = h1 + i * h2;
+            if (combined < 0) {
+                combined = ~combined;
+            }
+            setBit(combined % bitSize);
+        }
+    }
+
+    /**
+     * Check whether an element may have been added
+     * @param value Element to check
+     * @return false if the element was definitely never added
+     */
+    public boolean mightContain(String value) {
+        long hash = Hashing.hash64(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashFunctions; i++) {
+            int combined = h1 + i * h2;
+            if (combined < 0) {
+                combined = ~combined;
+            }
+            long index = combined % bitSize;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimated false-positive probability given the bits set so far
+     * @return Probability that an absent element is reported as present
+     */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) setBits.sum() / bitSize, hashFunctions);
+    }
+
+    /**
+     * Memory held by the bit array
+     * @return Size in bytes
+     */
+    public long memoryBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    private void setBit(long index) {
+        int word = (int) (index >>> 6);
+        long mask = 1L << index;
+        long current;
+        do {
+            current = bits.get(word);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(word, current, current | mask));
+        setBits.increment();
+    }
+}
@@ -0,0 +1,294 @@
+package in.osop.lms_user_service.cache;
+
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.repository.projection.CourseStatusCount;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory user counts per course and per status
+ *
+ * Seeded by one grouped query after startup, adjusted by the write paths after each commit and
+ * periodically reconciled against the database to heal drift (e.g. writes from other instances).
+ * Course names are keyed case-insensitively to match the database collation.
+ *
+ * A writing transaction holds the shared side of the commit lock from just before it commits until its
+ * adjustment is applied. Reconciliation takes the exclusive side only to open its snapshot, so every
+ * commit is either in the snapshot or among the adjustments carried over to the fresh counts, never both.
+ */
+@Component
+@Slf4j
+public class EnrollmentCounters {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate snapshotTransaction;
+    private final boolean enabled;
+
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private final ReentrantReadWriteLock commitLock = new ReentrantReadWriteLock();
+    private volatile Counts current;
+    private volatile Counts reconciling;
+
+    public EnrollmentCounters(UserRepository userRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${lms.enrollment-counters.enabled:true}") boolean enabled) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        // Read-write so it runs on the primary, whose commits the lock orders
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Seed the counters once the application has started
+     * Until then counts are read from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Replace the counters with fresh database counts
+     * Adjustments committed after the grouped query's snapshot are carried over to the new counts
+     */
+    @Scheduled(fixedDelayString = "${lms.enrollment-counters.reconcile-interval:PT5M}",
+               initialDelayString = "${lms.enrollment-counters.reconcile-interval:PT5M}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            if (!enabled) {
+                return;
+            }
+            Counts deltas = new Counts();
+            try {
+                List<CourseStatusCount> groups = snapshotTransaction.execute(status -> {
+                    commitLock.writeLock().lock();
+                    try {
+                        // The first consistent read fixes the snapshot while no counted write is committing
+                        userRepository.existsById(0L);
+                        reconciling = deltas;
+                    } finally {
+                        commitLock.writeLock().unlock();
+                    }
+                    return userRepository.countGroupedByCourseNameAndStatus();
+                });
+                Counts fresh = new Counts();
+                for (CourseStatusCount group : groups) {
+                    fresh.add(group.courseName(), group.status(), group.count());
+                }
+                Counts previous;
+                commitLock.writeLock().lock();
+                try {
+                    fresh.merge(deltas);
+                    previous = current;
+                    current = fresh;
+                    reconciling = null;
+                } finally {
+                    commitLock.writeLock().unlock();
+                }
+                if (previous != null) {
+                    logDrift(previous, fresh);
+                }
+            } catch (RuntimeException ex) {
+                log.error("Failed to reconcile enrollment counters", ex);
+            } finally {
+                reconciling = null;
+            }
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    /**
+     * @param courseName Course name
+     * @return Number of users in the course, or empty if the counters are not ready
+     */
+    public OptionalLong countByCourse(String courseName) {
+        Counts counts = current;
+        return counts == null ? OptionalLong.empty() : OptionalLong.of(counts.byCourse(courseName));
+    }
+
+    /**
+     * @param status User status
+     * @return Number of users with the status, or empty if the counters are not ready
+     */
+    public OptionalLong countByStatus(User.UserStatus status) {
+        Counts counts = current;
+        return counts == null ? OptionalLong.empty() : OptionalLong.of(counts.byStatus(status));
+    }
+
+    /**
+     * Count a new user once the current transaction commits
+     */
+    public void registeredAfterCommit(String courseName, User.UserStatus status) {
+        afterCommit(() -> apply(courseName, status, 1));
+    }
+
+    /**
+     * Move a user between course and/or status groups once the current transaction commits
+     */
+    public void changedAfterCommit(String previousCourseName, User.UserStatus previousStatus,
+                                   String courseName, User.UserStatus status) {
+        if (normalize(previousCourseName).equals(normalize(courseName)) && previousStatus == status) {
+            return;
+        }
+        afterCommit(() -> {
+            apply(previousCourseName, previousStatus, -1);
+            apply(courseName, status, 1);
+        });
+    }
+
+    /**
+     * Move users changed by a bulk statement to a new status once the current transaction commits
+     * @param previous Course and status of each changed user before the statement
+     * @param status New status
+     */
+    public void statusChangedAfterCommit(List<UserStatusKey> previous, User.UserStatus status) {
+        if (previous.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> previous.forEach(key -> {
+            apply(key.courseName(), key.status(), -1);
+            apply(key.courseName(), status, 1);
+        }));
+    }
+
+    /**
+     * Uncount a deleted user once the current transaction commits
+     */
+    public void removedAfterCommit(String courseName, User.UserStatus status) {
+        afterCommit(() -> apply(courseName, status, -1));
+    }
+
+    /**
+     * Uncount users removed by a bulk statement once the current transaction commits
+     * @param removed Course and status of each removed user
+     */
+    public void removedAfterCommit(List<UserStatusKey> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> removed.forEach(key -> apply(key.courseName(), key.status(), -1)));
+    }
+
+    /**
+     * Apply an adjustment once the current transaction commits, holding the commit lock across the commit
+     * Without a transaction the adjustment is applied immediately
+     */
+    private void afterCommit(Runnable adjustment) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commitLock.readLock().lock();
+            try {
+                adjustment.run();
+            } finally {
+                commitLock.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitLock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCommit() {
+                adjustment.run();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (locked) {
+                    locked = false;
+                    commitLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    private void apply(String courseName, User.UserStatus status, long delta) {
+        Counts counts = current;
+        if (counts != null) {
+            counts.add(courseName, status, delta);
+        }
+        Counts pending = reconciling;
+        if (pending != null) {
+            pending.add(courseName, status, delta);
+        }
+    }
+
+    private void logDrift(Counts previous, Counts fresh) {
+        for (User.UserStatus status : User.UserStatus.values()) {
+            long drift = fresh.byStatus(status) - previous.byStatus(status);
+            if (drift != 0) {
+                log.info("Enrollment counter for status {} corrected by {}", status, drift);
+            }
+        }
+    }
+
+    private static String normalize(String courseName) {
+        return courseName.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Striped counters per course and per status
+     */
+    private static final class Counts {
+
+        private final ConcurrentHashMap<String, LongAdder> courses = new ConcurrentHashMap<>();
+        private final Map<User.UserStatus, LongAdder> statuses = new EnumMap<>(User.UserStatus.class);
+
+        private Counts() {
+            for (User.UserStatus status : User.UserStatus.values()) {
+                statuses.put(status, new LongAdder());
+            }
+        }
+
+        private void add(String courseName, User.UserStatus status, long delta) {
+            courses.computeIfAbsent(normalize(courseName), key -> new LongAdder()).add(delta);
+            statuses.get(status).add(delta);
+        }
+
+        private long byCourse(String courseName) {
+            LongAdder adder = courses.get(normalize(courseName));
+            return adder == null ? 0 : adder.sum();
+        }
+
+        private long byStatus(User.UserStatus status) {
+            return statuses.get(status).sum();
+        }
+
+        private void merge(Counts other) {
+            other.courses.forEach((course, adder) ->
+                    courses.computeIfAbsent(course, key -> new LongAdder()).add(adder.sum()));
+            other.statuses.forEach((status, adder) -> statuses.get(status).add(adder.sum()));
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package in.osop.lms_user_service.cache;
+
+import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.repository.projection.UserContactKeys;
+import in.osop.lms_user_service.util.TransactionHooks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-memory Bloom filters of normalized emails and phone numbers
+ * Lets existence checks answer definite negatives without a database round-trip
+ *
+ * Removed or replaced values cannot be cleared from a Bloom filter, so they only raise the
+ * false-positive rate (never cause a false negative); the filters are rebuilt from a fresh
+ * scan once too many stale values or insertions beyond capacity have accumulated.
+ *
+ * A rebuild publishes the new filters to add() and then waits until every transaction that added a value
+ * before that point has completed, so a row the scan's snapshot misses was added to the new filters instead.
+ * The final swap excludes add(), so no value lands only in the discarded filters.
+ */
+@Component
+@Slf4j
+public class UserExistenceFilter {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final double staleRebuildRatio;
+    private final Duration rebuildWait;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    // add() holds the read lock while it reads and writes the filters; publishing and swapping take the write lock
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private volatile Filters current;
+    private volatile Filters building;
+    // Transactions with an add() not yet completed, by the epoch in which they added; a rebuild flips the epoch
+    private final LongAdder[] openAdds = {new LongAdder(), new LongAdder()};
+    private volatile int epoch;
+
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final Counter definiteNegatives;
+    private final Counter falsePositives;
+    private final Counter positives;
+
+    public UserExistenceFilter(UserRepository userRepository,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${lms.existence-filter.enabled:true}") boolean enabled,
+                               @Value("${lms.existence-filter.expected-insertions:2000000}") long expectedInsertions,
+                               @Value("${lms.existence-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${lms.existence-filter.stale-rebuild-ratio:0.1}") double staleRebuildRatio,
+                               @Value("${lms.existence-filter.rebuild-wait:PT30S}") Duration rebuildWait) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.staleRebuildRatio = staleRebuildRatio;
+        this.rebuildWait = rebuildWait;
+
+        this.definiteNegatives = Counter.builder("users.existence.filter.checks")
+                .tag("result", "definite_negative")
+                .description("Existence checks answered by the filter without a database query")
+                .register(meterRegistry);
+        this.positives = Counter.builder("users.existence.filter.checks")
+                .tag("result", "possible_positive")
+                .description("Existence checks the filter passed on to the database")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("users.existence.filter.false.positives")
+                .description("Possible positives the database reported as absent")
+                .register(meterRegistry);
+
+        for (String key : new String[] {"email", "phone"}) {
+            Gauge.builder("users.existence.filter.false.positive.rate", this,
+                            filter -> filter.expectedFalsePositiveRate(key))
+                    .tag("key", key)
+                    .description("Estimated false-positive probability of the filter")
+                    .register(meterRegistry);
+            Gauge.builder("users.existence.filter.memory", this, filter -> filter.memoryBytes(key))
+                    .tag("key", key)
+                    .baseUnit("bytes")
+                    .description("Memory used by the filter bit array")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Build the filters once the application has started
+     * Until then every check falls through to the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the filters when removals or growth have degraded their accuracy
+     */
+    @Scheduled(fixedDelayString = "${lms.existence-filter.rebuild-check-interval:PT10M}")
+    public void rebuildIfDegraded() {
+        if (!enabled) {
+            return;
+        }
+        Filters filters = current;
+        if (filters == null) {
+            // The initial build failed or was abandoned
+            rebuild();
+            return;
+        }
+        long inserted = filters.insertions.get();
+        if (staleEntries.get() > inserted * staleRebuildRatio || inserted > filters.capacity) {
+            log.info("Rebuilding existence filter: {} insertions, {} stale entries, capacity {}",
+                    inserted, staleEntries.get(), filters.capacity);
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild both filters from a streaming scan of the users table
+     * Values added while the scan runs go into both the old and the new filters
+     * @return Whether the new filters replaced the old ones
+     */
+    public boolean rebuild() {
+        // A lock rather than synchronized, so a virtual thread blocked on JDBC here does not pin its carrier
+        rebuildLock.lock();
+        try {
+            long startedAt = System.currentTimeMillis();
+            long userCount = userRepository.count();
+            Filters next = new Filters(Math.max(expectedInsertions, userCount * 2), falsePositiveRate);
+            long staleAtStart = staleEntries.get();
+            LongAdder earlierAdds;
+            swapLock.writeLock().lock();
+            try {
+                building = next;
+                earlierAdds = openAdds[epoch];
+                epoch ^= 1;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            try {
+                // The scan could miss the rows of transactions that added before `next` was published
+                if (!awaitCompletion(earlierAdds)) {
+                    log.warn("Existence filter rebuild abandoned: writes still open after {}, keeping the current filter",
+                            rebuildWait);
+                    return false;
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    try (Stream<UserContactKeys> keys = userRepository.streamAllContactKeys()) {
+                        keys.forEach(key -> next.add(key.email(), key.phoneNumber()));
+                    }
+                });
+                swapLock.writeLock().lock();
+                try {
+                    current = next;
+                    building = null;
+                } finally {
+                    swapLock.writeLock().unlock();
+                }
+                staleEntries.addAndGet(-staleAtStart);
+                log.info("Existence filter built with {} users in {} ms", next.insertions.get(),
+                        System.currentTimeMillis() - startedAt);
+                return true;
+            } catch (RuntimeException ex) {
+                log.error("Failed to build existence filter, existence checks will query the database", ex);
+                return false;
+            } finally {
+                building = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Record a newly registered or updated email and phone number
+     * Call inside the writing transaction, before it commits, so a committed row is never missing from the filter
+     */
+    public void add(String email, String phoneNumber) {
+        swapLock.readLock().lock();
+        try {
+            LongAdder open = openAdds[epoch];
+            open.increment();
+            TransactionHooks.afterCompletion(open::decrement);
+
+            Filters filters = current;
+            if (filters != null) {
+                filters.add(email, phoneNumber);
+            }
+            Filters pending = building;
+            if (pending != null) {
+                pending.add(email, phoneNumber);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Record that previously added values no longer belong to any user
+     * @param count Number of stale values
+     */
+    public void markStale(int count) {
+        staleEntries.addAndGet(count);
+    }
+
+    /**
+     * @param email Normalized email
+     * @return false if no user can have this email
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return filters == null || record(filters.emails.mightContain(email));
+    }
+
+    /**
+     * @param phoneNumber Normalized phone number
+     * @return false if no user can have this phone number
+     */
+    public boolean mightContainPhoneNumber(String phoneNumber) {
+        Filters filters = current;
+        return filters == null || record(filters.phoneNumbers.mightContain(phoneNumber));
+    }
+
+    /**
+     * Report that the database found no match for a value the filter passed through
+     */
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositives.increment();
+        }
+    }
+
+    private boolean awaitCompletion(LongAdder adds) {
+        long deadline = System.nanoTime() + rebuildWait.toNanos();
+        while (adds.sum() > 0) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(5);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean record(boolean mightContain) {
+        (mightContain ? positives : definiteNegatives).increment();
+        return mightContain;
+    }
+
+    private double expectedFalsePositiveRate(String key) {
+        Filters filters = current;
+        if (filters == null) {
+            return Double.NaN;
+        }
+        return (key.equals("email") ? filters.emails : filters.phoneNumbers).expectedFalsePositiveRate();
+    }
+
+    private double memoryBytes(String key) {
+        Filters filters = current;
+        if (filters == null) {
+            return 0;
+        }
+        return (key.equals("email") ? filters.emails : filters.phoneNumbers).memoryBytes();
+    }
+
+    private static final class Filters {
+
+        private final BloomFilter emails;
+        private final BloomFilter phoneNumbers;
+        private final long capacity;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Filters(long capacity, double falsePositiveRate) {
+            this.emails = new BloomFilter(capacity, falsePositiveRate);
+            this.phoneNumbers = new BloomFilter(capacity, falsePositiveRate);
+            this.capacity = capacity;
+        }
+
+        private void add(String email, String phoneNumber) {
+            emails.put(email);
+            phoneNumbers.put(phoneNumber);
+            insertions.incrementAndGet();
+        }
+    }
+}
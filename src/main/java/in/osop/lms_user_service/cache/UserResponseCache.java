@@ -0,0 +1,213 @@
+package in.osop.lms_user_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.repository.projection.UserRow;
+import in.osop.lms_user_service.util.TransactionHooks;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of UserResponse DTOs keyed by user ID, with an email to ID index
+ *
+ * Every entry carries the entity version it was read at. Writes record the committed version
+ * as a floor for the ID, so a reader that loaded an older row before the write committed can
+ * never put it back. Entries are refreshed or evicted only after the writing transaction commits.
+ * Writes made by other instances are not seen here and are bounded by the TTL.
+ */
+@Component
+public class UserResponseCache {
+
+    // Floors only need to outlive reads that were already in flight when a write committed
+    static final Duration VERSION_FLOOR_TTL = Duration.ofMinutes(1);
+
+    private final boolean enabled;
+    private final Cache<Long, VersionedUser> usersById;
+    private final Cache<String, Long> idsByEmail;
+    private final Cache<Long, Long> versionFloors;
+
+    @Autowired
+    public UserResponseCache(MeterRegistry meterRegistry,
+                             @Value("${lms.user-cache.enabled:true}") boolean enabled,
+                             @Value("${lms.user-cache.maximum-size:100000}") long maximumSize,
+                             @Value("${lms.user-cache.ttl:PT5M}") Duration ttl) {
+        this(meterRegistry, enabled, maximumSize, ttl, Ticker.systemTicker());
+    }
+
+    UserResponseCache(MeterRegistry meterRegistry, boolean enabled, long maximumSize, Duration ttl, Ticker ticker) {
+        this.enabled = enabled;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        this.versionFloors = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(VERSION_FLOOR_TTL)
+                .ticker(ticker)
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "users.by-email");
+    }
+
+    /**
+     * @param userId User ID
+     * @return Cached user, if present
+     */
+    public Optional<VersionedUser> getById(Long userId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(usersById.getIfPresent(userId));
+    }
+
+    /**
+     * @param email Normalized email
+     * @return Cached user, if present and still registered under that email
+     */
+    public Optional<VersionedUser> getByEmail(String email) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Long userId = idsByEmail.getIfPresent(email);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        VersionedUser cached = usersById.getIfPresent(userId);
+        if (cached == null || !email.equals(cached.user().getEmail())) {
+            idsByEmail.invalidate(email);
+            return Optional.empty();
+        }
+        return Optional.of(cached);
+    }
+
+    /**
+     * Cache a user loaded from the database
+     * Ignored when a newer version is already cached or has been written since
+     * @param user Entity as read
+     * @return The DTO built from the entity, or the newer cached one; empty when a write committed since the read
+     *         and nothing at least as new is cached, in which case the caller must re-read the user
+     */
+    public Optional<VersionedUser> put(User user) {
+        VersionedUser versioned = new VersionedUser(UserResponse.fromEntity(user), versionOf(user));
+        return enabled ? store(versioned) : Optional.of(versioned);
+    }
+
+    /**
+     * Cache a user row loaded from the database
+     * Ignored when a newer version is already cached or has been written since
+     * @param row Row as read
+     * @return The DTO built from the row, or the newer cached one; empty when a write committed since the read
+     *         and nothing at least as new is cached, in which case the caller must re-read the user
+     */
+    public Optional<VersionedUser> put(UserRow row) {
+        VersionedUser versioned = row.toVersionedUser();
+        return enabled ? store(versioned) : Optional.of(versioned);
+    }
+
+    /**
+     * Refresh the entry for a user once the current transaction commits
+     * @param user Entity after the write has been flushed
+     * @param previousEmail Email before the write, dropped from the index if it changed
+     */
+    public void refreshAfterCommit(User user, String previousEmail) {
+        if (!enabled) {
+            return;
+        }
+        refreshAfterCommit(new VersionedUser(UserResponse.fromEntity(user), versionOf(user)), previousEmail);
+    }
+
+    /**
+     * Refresh the entry for a user once the current transaction commits
+     * @param row Row as written by the current transaction, with its new version
+     */
+    public void refreshAfterCommit(UserRow row) {
+        if (!enabled) {
+            return;
+        }
+        refreshAfterCommit(row.toVersionedUser(), null);
+    }
+
+    /**
+     * Evict a deleted user once the current transaction commits
+     * @param userId User ID
+     */
+    public void evictAfterCommit(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            versionFloors.put(userId, Long.MAX_VALUE);
+            VersionedUser removed = usersById.asMap().remove(userId);
+            if (removed != null) {
+                idsByEmail.invalidate(removed.user().getEmail());
+            }
+        });
+    }
+
+    /**
+     * Evict users changed by a bulk statement once the current transaction commits
+     * Later reads re-cache them; reads that started before the commit cannot put back an older version
+     * @param versionsById Committed version per user ID
+     */
+    public void evictAfterCommit(Map<Long, Long> versionsById) {
+        if (!enabled || versionsById.isEmpty()) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> versionsById.forEach((userId, version) -> {
+            versionFloors.asMap().merge(userId, version, Math::max);
+            VersionedUser removed = usersById.asMap().remove(userId);
+            if (removed != null) {
+                idsByEmail.invalidate(removed.user().getEmail());
+            }
+        }));
+    }
+
+    private void refreshAfterCommit(VersionedUser versioned, String previousEmail) {
+        TransactionHooks.afterCommit(() -> {
+            if (previousEmail != null && !previousEmail.equals(versioned.user().getEmail())) {
+                idsByEmail.invalidate(previousEmail);
+            }
+            versionFloors.asMap().merge(versioned.user().getUserId(), versioned.version(), Math::max);
+            store(versioned);
+        });
+    }
+
+    private Optional<VersionedUser> store(VersionedUser versioned) {
+        Long userId = versioned.user().getUserId();
+        Long floor = versionFloors.getIfPresent(userId);
+        if (floor != null && versioned.version() < floor) {
+            VersionedUser cached = usersById.getIfPresent(userId);
+            return cached != null && cached.version() >= floor ? Optional.of(cached) : Optional.empty();
+        }
+        VersionedUser stored = usersById.asMap().merge(userId, versioned,
+                (existing, candidate) -> candidate.version() >= existing.version() ? candidate : existing);
+        if (stored == versioned) {
+            idsByEmail.put(versioned.user().getEmail(), userId);
+        }
+        return Optional.of(stored);
+    }
+
+    private static long versionOf(User user) {
+        return user.getVersion() == null ? 0L : user.getVersion();
+    }
+}
@@ -0,0 +1,74 @@
+package in.osop.lms_user_service.coalescing;
+
+import in.osop.lms_user_service.datasource.ReadYourWrites;
+import in.osop.lms_user_service.dto.VersionedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical lookups by ID, by email and of course counts into one database call each
+ *
+ * Only callers outside a transaction take part: inside one, a caller may have written the row it reads, and its
+ * uncommitted changes must neither be shared nor be hidden by a result read elsewhere. Neither do callers that must
+ * read from the primary after their own write, since the flight they would join may be reading a lagging replica.
+ * A follower may receive the result of a query that started shortly before it arrived, but never one that finished
+ * before it arrived.
+ */
+@Component
+public class LookupCoalescer {
+
+    private final boolean enabled;
+    private final ReadYourWrites readYourWrites;
+    private final SingleFlight<Long, VersionedUser> usersById;
+    private final SingleFlight<String, VersionedUser> usersByEmail;
+    private final SingleFlight<String, Long> countsByCourse;
+
+    public LookupCoalescer(MeterRegistry meterRegistry,
+                           @Value("${lms.lookup-coalescing.enabled:true}") boolean enabled,
+                           @Value("${lms.lookup-coalescing.timeout:PT5S}") Duration timeout,
+                           ObjectProvider<ReadYourWrites> readYourWrites) {
+        this.enabled = enabled;
+        this.readYourWrites = readYourWrites.getIfAvailable();
+        this.usersById = new SingleFlight<>("by-id", timeout, meterRegistry);
+        this.usersByEmail = new SingleFlight<>("by-email", timeout, meterRegistry);
+        this.countsByCourse = new SingleFlight<>("count-by-course", timeout, meterRegistry);
+    }
+
+    /**
+     * @param userId User ID
+     * @param lookup Loads the user
+     * @return The user loaded by this call or by the identical one in flight
+     */
+    public VersionedUser byId(Long userId, Supplier<VersionedUser> lookup) {
+        return coalescing() ? usersById.execute(userId, lookup) : lookup.get();
+    }
+
+    /**
+     * @param email Normalized email
+     * @param lookup Loads the user
+     * @return The user loaded by this call or by the identical one in flight
+     */
+    public VersionedUser byEmail(String email, Supplier<VersionedUser> lookup) {
+        return coalescing() ? usersByEmail.execute(email, lookup) : lookup.get();
+    }
+
+    /**
+     * @param courseName Trimmed course name
+     * @param count Counts the course's users
+     * @return The count made by this call or by the identical one in flight
+     */
+    public long countByCourse(String courseName, Supplier<Long> count) {
+        return coalescing() ? countsByCourse.execute(courseName, count) : count.get();
+    }
+
+    private boolean coalescing() {
+        return enabled && !TransactionSynchronizationManager.isActualTransactionActive()
+                && (readYourWrites == null || !readYourWrites.requiresPrimary());
+    }
+}
@@ -0,0 +1,101 @@
+package in.osop.lms_user_service.coalescing;
+
+import in.osop.lms_user_service.exception.ServiceBusyException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs at most one call per key at a time; callers arriving while it runs wait for its outcome instead
+ *
+ * The first caller (the leader) runs the call on its own thread. Followers receive the same value, or the same
+ * exception, or a ServiceBusyException once the timeout passes. The flight is removed before it completes, so a
+ * caller arriving after that starts a new call: nothing is kept once a call has finished.
+ */
+public class SingleFlight<K, V> {
+
+    private final String operation;
+    private final Duration timeout;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter executed;
+    private final Counter coalesced;
+    private final Counter timedOut;
+
+    public SingleFlight(String operation, Duration timeout, MeterRegistry meterRegistry) {
+        this.operation = operation;
+        this.timeout = timeout;
+        this.executed = Counter.builder("users.lookup.executed")
+                .description("Lookups that ran their own query")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("users.lookup.coalesced")
+                .description("Lookups answered by an identical lookup already in flight")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        this.timedOut = Counter.builder("users.lookup.coalesce.timeouts")
+                .description("Coalesced lookups that gave up waiting for the lookup in flight")
+                .tag("operation", operation)
+                .register(meterRegistry);
+        Gauge.builder("users.lookup.in-flight", inFlight, ConcurrentHashMap::size)
+                .description("Distinct lookups currently in flight")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the call, or join the identical call already in flight
+     * @param key Lookup key; equal keys must mean equal results
+     * @param call Lookup to run when none is in flight
+     * @return Result of the call that ran
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+
+        executed.increment();
+        V value;
+        try {
+            value = call.get();
+        } catch (RuntimeException | Error ex) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    private V await(CompletableFuture<V> flight) {
+        try {
+            return flight.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException ex) {
+            // Rethrow the leader's exception as is, so followers get the same error response
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            timedOut.increment();
+            throw new ServiceBusyException("Timed out waiting for an identical " + operation + " lookup");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for an identical " + operation + " lookup");
+        }
+    }
+}
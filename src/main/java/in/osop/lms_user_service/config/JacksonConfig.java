@@ -0,0 +1,35 @@
+package in.osop.lms_user_service.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import in.osop.lms_user_service.dto.ApiResponse;
+import in.osop.lms_user_service.dto.PageResponse;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.serialization.ApiResponseSerializer;
+import in.osop.lms_user_service.serialization.PageResponseSerializer;
+import in.osop.lms_user_service.serialization.UserResponseSerializer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Registers the hand-written serializers for the response types on Spring Boot's ObjectMapper
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module responseSerializationModule() {
+        return responseModule();
+    }
+
+    /**
+     * @return Module with the response serializers, for mappers built outside the context (benchmarks)
+     */
+    public static SimpleModule responseModule() {
+        SimpleModule module = new SimpleModule("lms-response-serializers");
+        module.addSerializer(ApiResponse.class, new ApiResponseSerializer());
+        module.addSerializer(PageResponse.class, new PageResponseSerializer());
+        module.addSerializer(UserResponse.class, new UserResponseSerializer());
+        return module;
+    }
+}
@@ -0,0 +1,49 @@
+package in.osop.lms_user_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.outbox.ApplicationEventUserChangePublisher;
+import in.osop.lms_user_service.outbox.FileUserChangePublisher;
+import in.osop.lms_user_service.outbox.OutboxRelay;
+import in.osop.lms_user_service.outbox.UserChangePublisher;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration for relaying user change events from the outbox table
+ * Active when lms.outbox.enabled=true; a UserChangePublisher bean of your own replaces the built-in stand-ins
+ */
+@Configuration
+@ConditionalOnProperty(name = "lms.outbox.enabled", havingValue = "true")
+public class OutboxConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(UserChangePublisher.class)
+    @ConditionalOnProperty(name = "lms.outbox.publisher", havingValue = "file")
+    public UserChangePublisher fileUserChangePublisher(
+            @Value("${lms.outbox.file.path:user-changes.jsonl}") String path, ObjectMapper objectMapper) {
+        return new FileUserChangePublisher(Path.of(path), objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(UserChangePublisher.class)
+    public UserChangePublisher applicationEventUserChangePublisher(ApplicationEventPublisher eventPublisher) {
+        return new ApplicationEventUserChangePublisher(eventPublisher);
+    }
+
+    @Bean
+    public OutboxRelay outboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   UserChangePublisher publisher, ObjectMapper objectMapper,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${lms.outbox.batch-size:500}") int batchSize) {
+        return new OutboxRelay(jdbcTemplate, transactionTemplate, publisher, objectMapper, meterRegistry, batchSize);
+    }
+}
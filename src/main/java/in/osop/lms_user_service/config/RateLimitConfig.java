@@ -0,0 +1,44 @@
+package in.osop.lms_user_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.filter.ClientRateLimiter;
+import in.osop.lms_user_service.filter.RateLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration for per-client admission control on the user API
+ * Active when lms.rate-limit.enabled=true; runs ahead of the concurrency limit so rejected clients never hold a permit
+ */
+@Configuration
+@ConditionalOnProperty(name = "lms.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimitFilter rateLimitFilter(
+            @Value("${lms.rate-limit.read.requests-per-second:50}") double readRate,
+            @Value("${lms.rate-limit.read.burst:100}") int readBurst,
+            @Value("${lms.rate-limit.write.requests-per-second:10}") double writeRate,
+            @Value("${lms.rate-limit.write.burst:20}") int writeBurst,
+            @Value("${lms.rate-limit.max-clients:100000}") int maxClients,
+            @Value("${lms.rate-limit.client-header:}") String clientHeader,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return new RateLimitFilter(
+                new ClientRateLimiter(readRate, readBurst, maxClients),
+                new ClientRateLimiter(writeRate, writeBurst, maxClients),
+                clientHeader, objectMapper, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.addUrlPatterns("/api/v1/users", "/api/v1/users/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+}
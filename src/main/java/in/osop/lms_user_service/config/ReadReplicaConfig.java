@@ -0,0 +1,77 @@
+package in.osop.lms_user_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import in.osop.lms_user_service.datasource.ReadYourWrites;
+import in.osop.lms_user_service.datasource.ReplicaLagMonitor;
+import in.osop.lms_user_service.datasource.ReplicaPool;
+import in.osop.lms_user_service.datasource.ReplicaRoutingDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration for routing read-only transactions to read replicas
+ * Active when lms.datasource.replicas.enabled=true; the primary pool is still configured through spring.datasource.*
+ */
+@Configuration
+@ConditionalOnProperty(name = "lms.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(
+            HikariDataSource primaryDataSource, Environment environment, MeterRegistry meterRegistry,
+            @Value("${lms.datasource.replicas.max-lag:PT5S}") Duration maxLag) {
+        // Pools start on first use, so an unreachable replica only keeps itself out of rotation
+        List<HikariDataSource> pools = Binder.get(environment)
+                .bind("lms.datasource.replicas.pools", Bindable.listOf(HikariDataSource.class))
+                .orElseThrow(() -> new IllegalStateException(
+                        "lms.datasource.replicas.enabled is set but no lms.datasource.replicas.pools are configured"));
+        List<ReplicaPool> replicas = new ArrayList<>(pools.size());
+        for (int i = 0; i < pools.size(); i++) {
+            HikariDataSource pool = pools.get(i);
+            if (pool.getPoolName() == null) {
+                pool.setPoolName("replica-" + i);
+            }
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(new ReplicaPool(pool.getPoolName(), pool));
+        }
+        return new ReplicaLagMonitor(primaryDataSource, replicas, maxLag, meterRegistry);
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(
+            @Value("${lms.datasource.replicas.read-your-writes-window:PT5S}") Duration window) {
+        return new ReadYourWrites(window);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor,
+                                 ReadYourWrites readYourWrites) {
+        ReplicaRoutingDataSource routing =
+                new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor, readYourWrites);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
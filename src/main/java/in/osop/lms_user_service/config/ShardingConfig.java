@@ -0,0 +1,151 @@
+package in.osop.lms_user_service.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import in.osop.lms_user_service.search.UserNameSource;
+import in.osop.lms_user_service.sharding.ShardRebalancer;
+import in.osop.lms_user_service.sharding.ShardRouter;
+import in.osop.lms_user_service.sharding.ShardedUserStore;
+import in.osop.lms_user_service.sharding.UserShard;
+import in.osop.lms_user_service.sharding.UserShardDirectory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Configuration for hash-sharded user storage
+ * Active when lms.sharding.enabled=true; users live on the lms.sharding.shards pools, while the primary
+ * (spring.datasource) keeps the shard directory and every other table
+ */
+@Configuration
+@ConditionalOnProperty(name = "lms.sharding.enabled", havingValue = "true")
+@Slf4j
+public class ShardingConfig {
+
+    // Features ShardedUserServiceImpl does not implement, with their defaults; enabling one with sharding is refused
+    static final Map<String, Boolean> UNSUPPORTED_FEATURES = Map.of(
+            "lms.user-cache.enabled", true,
+            "lms.existence-filter.enabled", true,
+            "lms.enrollment-counters.enabled", true,
+            "lms.soft-delete.enabled", false,
+            "lms.outbox.enabled", false);
+
+    @Bean
+    public ShardedUserStore shardedUserStore(
+            Environment environment, MeterRegistry meterRegistry,
+            @Value("${spring.flyway.locations:classpath:db/migration}") String[] migrationLocations,
+            @Value("${lms.sharding.max-merge-window:10000}") int maxMergeWindow) {
+        requireSupportedFeatures(environment);
+        List<HikariDataSource> pools = Binder.get(environment)
+                .bind("lms.sharding.shards", Bindable.listOf(HikariDataSource.class))
+                .orElseThrow(() -> new IllegalStateException(
+                        "lms.sharding.enabled is set but no lms.sharding.shards are configured"));
+        List<UserShard> shards = new ArrayList<>(pools.size());
+        for (int i = 0; i < pools.size(); i++) {
+            HikariDataSource pool = pools.get(i);
+            if (pool.getPoolName() == null) {
+                pool.setPoolName("shard-" + i);
+            }
+            pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            migrate(pool, migrationLocations);
+            shards.add(new UserShard(i, pool.getPoolName(), pool, new NamedParameterJdbcTemplate(pool),
+                    new TransactionTemplate(new DataSourceTransactionManager(pool))));
+        }
+        log.info("Sharding users across {} shards", shards.size());
+        return new ShardedUserStore(shards, maxMergeWindow);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardedUserStore shardedUserStore) {
+        return new ShardRouter(shardedUserStore.shards().size());
+    }
+
+    @Bean
+    public UserShardDirectory userShardDirectory(DataSource dataSource) {
+        return new UserShardDirectory(dataSource);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardedUserStore shardedUserStore, ShardRouter shardRouter,
+                                           UserShardDirectory userShardDirectory,
+                                           @Value("${lms.bulk-write.chunk-size:500}") int chunkSize) {
+        return new ShardRebalancer(shardedUserStore, shardRouter, userShardDirectory, chunkSize);
+    }
+
+    /**
+     * Builds the name index from the shards instead of the primary users table
+     */
+    @Bean
+    public UserNameSource shardedUserNameSource(ShardedUserStore shardedUserStore,
+                                                @Value("${lms.bulk-write.chunk-size:500}") int chunkSize) {
+        return action -> shardedUserStore.forEachNameKey(chunkSize, action);
+    }
+
+    /**
+     * Offline resharding: rebalances the shards (after importing the unsharded users table if asked to) and exits
+     */
+    @Bean
+    @ConditionalOnProperty(name = "lms.sharding.reshard.enabled", havingValue = "true")
+    public ApplicationRunner reshardRunner(
+            ShardRebalancer shardRebalancer, DataSource dataSource, ConfigurableApplicationContext context,
+            @Value("${lms.sharding.reshard.import-unsharded:false}") boolean importUnsharded) {
+        return args -> {
+            if (importUnsharded) {
+                shardRebalancer.importUnsharded(dataSource);
+            }
+            shardRebalancer.rebalance();
+            System.exit(SpringApplication.exit(context, () -> 0));
+        };
+    }
+
+    /**
+     * Fail startup rather than run with features the sharded service would silently skip
+     * @throws IllegalStateException naming every enabled feature that sharding does not support
+     */
+    static void requireSupportedFeatures(Environment environment) {
+        List<String> enabled = UNSUPPORTED_FEATURES.entrySet().stream()
+                .filter(feature -> environment.getProperty(feature.getKey(), Boolean.class, feature.getValue()))
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+        if (!enabled.isEmpty()) {
+            throw new IllegalStateException("lms.sharding.enabled does not support " + String.join(", ", enabled)
+                    + "; set " + enabled.stream().map(name -> name + "=false").collect(Collectors.joining(", ")));
+        }
+    }
+
+    // Shards get the same migrations as the primary, with {vendor} resolved from the shard's own JDBC URL
+    private static void migrate(HikariDataSource pool, String[] locations) {
+        String vendor = DatabaseDriver.fromJdbcUrl(pool.getJdbcUrl()).getId();
+        Flyway.configure()
+                .dataSource(pool)
+                .locations(Arrays.stream(locations)
+                        .map(location -> location.trim().replace("{vendor}", vendor))
+                        .toArray(String[]::new))
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+}
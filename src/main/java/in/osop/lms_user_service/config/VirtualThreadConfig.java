@@ -0,0 +1,40 @@
+package in.osop.lms_user_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.filter.ConcurrencyLimitFilter;
+import in.osop.lms_user_service.filter.ConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Configuration for the opt-in virtual-thread execution mode
+ * Active when spring.threads.virtual.enabled=true, which makes Tomcat run each request on a virtual thread
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public ConcurrencyLimiter requestConcurrencyLimiter(
+            @Value("${lms.virtual-threads.max-concurrent-requests:50}") int maxConcurrentRequests,
+            @Value("${lms.virtual-threads.acquire-timeout:PT2S}") Duration acquireTimeout) {
+        return new ConcurrencyLimiter(maxConcurrentRequests, acquireTimeout);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            ConcurrencyLimiter requestConcurrencyLimiter, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(requestConcurrencyLimiter, objectMapper, meterRegistry));
+        registration.addUrlPatterns("/api/v1/users", "/api/v1/users/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
@@ -1,9 +1,24 @@
 package in.osop.lms_user_service.controller;
 
 import in.osop.lms_user_service.dto.ApiResponse;
+import in.osop.lms_user_service.dto.BatchRegistrationResponse;
+import in.osop.lms_user_service.dto.BulkDeleteRequest;
+import in.osop.lms_user_service.dto.BulkDeleteResponse;
+import in.osop.lms_user_service.dto.BulkStatusUpdateRequest;
+import in.osop.lms_user_service.dto.BulkStatusUpdateResponse;
+import in.osop.lms_user_service.dto.CursorSlice;
+import in.osop.lms_user_service.dto.ExportFormat;
+import in.osop.lms_user_service.dto.PageResponse;
+import in.osop.lms_user_service.dto.QueuedRegistrationResponse;
+import in.osop.lms_user_service.dto.UserBatchRegistrationRequest;
+import in.osop.lms_user_service.dto.UserLookupRequest;
+import in.osop.lms_user_service.dto.UserLookupResponse;
 import in.osop.lms_user_service.dto.UserRegistrationRequest;
 import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
 import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.exception.PreconditionFailedException;
+import in.osop.lms_user_service.service.RegistrationQueueService;
 import in.osop.lms_user_service.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -12,10 +27,15 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.net.URI;
 import java.util.List;
 
 /**
@@ -30,19 +50,25 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final RegistrationQueueService registrationQueueService;
 
     /**
      * Register a new user
      * POST /api/v1/users
+     * Returns 201 with the user, or 202 with a tracking ID when the registration queue is enabled
      */
     @PostMapping
-    public ResponseEntity<ApiResponse<UserResponse>> registerUser(
+    public ResponseEntity<ApiResponse<Object>> registerUser(
             @Valid @RequestBody UserRegistrationRequest request) {
         
         log.info("Received user registration request for email: {}", request.getEmail());
+
+        if (registrationQueueService.isEnabled()) {
+            return queueRegistration(request);
+        }
         
         UserResponse userResponse = userService.registerUser(request);
-        ApiResponse<UserResponse> response = ApiResponse.success(
+        ApiResponse<Object> response = ApiResponse.success(
             userResponse, 
             "User registered successfully"
         );
@@ -50,37 +76,122 @@ public class UserController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /**
+     * Accept a registration for the background writer
+     * Returns 202 with a Location header pointing at the registration status
+     */
+    private ResponseEntity<ApiResponse<Object>> queueRegistration(UserRegistrationRequest request) {
+        QueuedRegistrationResponse queued = registrationQueueService.enqueue(request);
+        ApiResponse<Object> response = ApiResponse.success(
+            queued,
+            "User registration accepted"
+        );
+
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/v1/users/registrations/" + queued.getTrackingId()))
+                .body(response);
+    }
+
+    /**
+     * Get the status of a queued registration
+     * GET /api/v1/users/registrations/{trackingId}
+     */
+    @GetMapping("/registrations/{trackingId}")
+    public ResponseEntity<ApiResponse<QueuedRegistrationResponse>> getRegistrationStatus(
+            @PathVariable String trackingId) {
+
+        QueuedRegistrationResponse queued = registrationQueueService.getStatus(trackingId);
+        ApiResponse<QueuedRegistrationResponse> response = ApiResponse.success(
+            queued,
+            "Registration status retrieved successfully"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Register a batch of users
+     * POST /api/v1/users/batch
+     * Returns 201 when every user was created, 207 when some items conflicted
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<BatchRegistrationResponse>> registerUsers(
+            @Valid @RequestBody UserBatchRegistrationRequest request) {
+
+        log.info("Received batch registration request for {} users", request.getUsers().size());
+
+        BatchRegistrationResponse batchResponse = userService.registerUsers(request.getUsers());
+        ApiResponse<BatchRegistrationResponse> response = ApiResponse.success(
+            batchResponse,
+            "Batch registration completed"
+        );
+
+        HttpStatus status = batchResponse.getConflicts() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(response, status);
+    }
+
     /**
      * Get user by ID
      * GET /api/v1/users/{id}
+     * Returns a strong ETag; a matching If-None-Match is answered with 304 and no body
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<UserResponse>> getUserById(@PathVariable Long id, WebRequest webRequest) {
         log.debug("Fetching user with ID: {}", id);
-        
-        UserResponse userResponse = userService.getUserById(id);
+
+        VersionedUser user = userService.getUserById(id);
+        // Writes the ETag header for both outcomes
+        if (webRequest.checkNotModified(user.eTag())) {
+            return null;
+        }
+
         ApiResponse<UserResponse> response = ApiResponse.success(
-            userResponse, 
+            user.user(), 
             "User retrieved successfully"
         );
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().body(response);
     }
 
     /**
      * Get user by email
      * GET /api/v1/users/email/{email}
+     * Returns a strong ETag; a matching If-None-Match is answered with 304 and no body
      */
     @GetMapping("/email/{email}")
-    public ResponseEntity<ApiResponse<UserResponse>> getUserByEmail(@PathVariable String email) {
+    public ResponseEntity<ApiResponse<UserResponse>> getUserByEmail(@PathVariable String email, WebRequest webRequest) {
         log.debug("Fetching user with email: {}", email);
-        
-        UserResponse userResponse = userService.getUserByEmail(email);
+
+        VersionedUser user = userService.getUserByEmail(email);
+        // Writes the ETag header for both outcomes
+        if (webRequest.checkNotModified(user.eTag())) {
+            return null;
+        }
+
         ApiResponse<UserResponse> response = ApiResponse.success(
-            userResponse, 
+            user.user(), 
             "User retrieved successfully"
         );
         
+        return ResponseEntity.ok().body(response);
+    }
+
+    /**
+     * Look up many users by ID, email and/or phone number in one request
+     * POST /api/v1/users/lookup
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<ApiResponse<UserLookupResponse>> lookupUsers(
+            @Valid @RequestBody UserLookupRequest request) {
+
+        log.debug("Received user lookup request");
+
+        UserLookupResponse lookupResponse = userService.lookupUsers(request);
+        ApiResponse<UserLookupResponse> response = ApiResponse.success(
+            lookupResponse,
+            "User lookup completed"
+        );
+
         return ResponseEntity.ok(response);
     }
 
@@ -89,14 +200,16 @@ public class UserController {
      * GET /api/v1/users?page=0&size=10&sort=createdAt,desc
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<UserResponse>>> getAllUsers(
+    public ResponseEntity<ApiResponse<PageResponse<UserResponse>>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir) {
         
-        log.debug("Fetching all users - page: {}, size: {}, sortBy: {}, sortDir: {}", 
-                 page, size, sortBy, sortDir);
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching all users - page: {}, size: {}, sortBy: {}, sortDir: {}",
+                     page, size, sortBy, sortDir);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
                    Sort.by(sortBy).descending() : 
@@ -105,14 +218,39 @@ public class UserController {
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<UserResponse> users = userService.getAllUsers(pageable);
         
-        ApiResponse<Page<UserResponse>> response = ApiResponse.success(
-            users, 
+        ApiResponse<PageResponse<UserResponse>> response = ApiResponse.success(
+            PageResponse.from(users), 
             "Users retrieved successfully"
         );
         
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get all users with keyset pagination (no total count)
+     * GET /api/v1/users/cursor?size=10&sortDir=desc
+     * GET /api/v1/users/cursor?cursor={nextCursor}&size=10
+     */
+    @GetMapping("/cursor")
+    public ResponseEntity<ApiResponse<CursorSlice<UserResponse>>> getAllUsersByCursor(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching all users - cursor: {}, size: {}, sortDir: {}", cursor, size, sortDir);
+        }
+
+        CursorSlice<UserResponse> users = userService.getAllUsers(cursor, size, toDirection(sortDir));
+
+        ApiResponse<CursorSlice<UserResponse>> response = ApiResponse.success(
+            users,
+            "Users retrieved successfully"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Get users by course name
      * GET /api/v1/users/course/{courseName}
@@ -132,12 +270,33 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Export the roster of a course as a stream
+     * GET /api/v1/users/course/{courseName}/export?format=ndjson|csv
+     */
+    @GetMapping("/course/{courseName}/export")
+    public ResponseEntity<StreamingResponseBody> exportUsersByCourse(
+            @PathVariable String courseName,
+            @RequestParam(defaultValue = "ndjson") String format) {
+
+        log.info("Exporting roster for course: {} as {}", courseName, format);
+
+        ExportFormat exportFormat = ExportFormat.fromValue(format);
+        StreamingResponseBody body = outputStream -> userService.exportUsersByCourse(courseName, exportFormat, outputStream);
+        String fileName = courseName.trim().replaceAll("[^A-Za-z0-9._-]+", "_") + "-roster." + exportFormat.getFileExtension();
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .body(body);
+    }
+
     /**
      * Get users by course name with pagination
      * GET /api/v1/users/course/{courseName}/paginated?page=0&size=10
      */
     @GetMapping("/course/{courseName}/paginated")
-    public ResponseEntity<ApiResponse<Page<UserResponse>>> getUsersByCourseWithPagination(
+    public ResponseEntity<ApiResponse<PageResponse<UserResponse>>> getUsersByCourseWithPagination(
             @PathVariable String courseName,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
@@ -153,14 +312,37 @@ public class UserController {
         Pageable pageable = PageRequest.of(page, size, sort);
         Page<UserResponse> users = userService.getUsersByCourse(courseName, pageable);
         
-        ApiResponse<Page<UserResponse>> response = ApiResponse.success(
-            users, 
+        ApiResponse<PageResponse<UserResponse>> response = ApiResponse.success(
+            PageResponse.from(users), 
             "Users retrieved successfully for course: " + courseName
         );
         
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Get users by course name with keyset pagination (no total count)
+     * GET /api/v1/users/course/{courseName}/cursor?cursor={nextCursor}&size=10
+     */
+    @GetMapping("/course/{courseName}/cursor")
+    public ResponseEntity<ApiResponse<CursorSlice<UserResponse>>> getUsersByCourseByCursor(
+            @PathVariable String courseName,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "desc") String sortDir) {
+
+        log.debug("Fetching users for course: {} with cursor: {}", courseName, cursor);
+
+        CursorSlice<UserResponse> users = userService.getUsersByCourse(courseName, cursor, size, toDirection(sortDir));
+
+        ApiResponse<CursorSlice<UserResponse>> response = ApiResponse.success(
+            users,
+            "Users retrieved successfully for course: " + courseName
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Search users by name
      * GET /api/v1/users/search?name=john
@@ -180,43 +362,110 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Search users by name with ranked, paginated results
+     * GET /api/v1/users/search/ranked?name=john&page=0&size=20
+     */
+    @GetMapping("/search/ranked")
+    public ResponseEntity<ApiResponse<PageResponse<UserResponse>>> searchUsersByNameRanked(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+
+        if (log.isDebugEnabled()) {
+            log.debug("Ranked search of users by name: {} - page: {}, size: {}", name, page, size);
+        }
+
+        Page<UserResponse> users = userService.searchUsersByName(name, PageRequest.of(page, size));
+        ApiResponse<PageResponse<UserResponse>> response = ApiResponse.success(
+            PageResponse.from(users),
+            "Users search completed successfully"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Autocomplete users by name prefix
+     * GET /api/v1/users/search/autocomplete?prefix=jo&limit=10
+     */
+    @GetMapping("/search/autocomplete")
+    public ResponseEntity<ApiResponse<List<UserResponse>>> autocompleteUsersByName(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        log.debug("Autocompleting users by name prefix: {}", prefix);
+
+        List<UserResponse> users = userService.autocompleteUsersByName(prefix, limit);
+        ApiResponse<List<UserResponse>> response = ApiResponse.success(
+            users,
+            "Users autocomplete completed successfully"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Update user information
      * PUT /api/v1/users/{id}
+     * With If-Match, returns 412 unless the user is still at that ETag's version
      */
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<UserResponse>> updateUser(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UserRegistrationRequest request) {
         
         log.info("Updating user with ID: {}", id);
         
-        UserResponse userResponse = userService.updateUser(id, request);
+        VersionedUser user = userService.updateUser(id, request, expectedVersion(ifMatch, id));
         ApiResponse<UserResponse> response = ApiResponse.success(
-            userResponse, 
+            user.user(), 
             "User updated successfully"
         );
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().eTag(user.eTag()).body(response);
     }
 
     /**
      * Update user status
      * PATCH /api/v1/users/{id}/status?status=INACTIVE
+     * With If-Match, returns 412 unless the user is still at that ETag's version
      */
     @PatchMapping("/{id}/status")
     public ResponseEntity<ApiResponse<UserResponse>> updateUserStatus(
             @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestParam User.UserStatus status) {
         
         log.info("Updating status for user ID: {} to: {}", id, status);
         
-        UserResponse userResponse = userService.updateUserStatus(id, status);
+        VersionedUser user = userService.updateUserStatus(id, status, expectedVersion(ifMatch, id));
         ApiResponse<UserResponse> response = ApiResponse.success(
-            userResponse, 
+            user.user(), 
             "User status updated successfully"
         );
         
+        return ResponseEntity.ok().eTag(user.eTag()).body(response);
+    }
+
+    /**
+     * Change the status of many users by ID or by course
+     * PATCH /api/v1/users/status
+     * Applied in chunks that commit independently; the response reports affected-row counts
+     */
+    @PatchMapping("/status")
+    public ResponseEntity<ApiResponse<BulkStatusUpdateResponse>> updateUsersStatus(
+            @Valid @RequestBody BulkStatusUpdateRequest request) {
+
+        log.info("Received bulk status change request to: {}", request.getStatus());
+
+        BulkStatusUpdateResponse bulkResponse = userService.updateUsersStatus(request);
+        ApiResponse<BulkStatusUpdateResponse> response = ApiResponse.success(
+            bulkResponse,
+            "Bulk status change completed"
+        );
+
         return ResponseEntity.ok(response);
     }
 
@@ -234,6 +483,26 @@ public class UserController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Delete many users by ID or by course
+     * POST /api/v1/users/bulk-delete
+     * Applied in chunks that commit independently; the response reports affected-row counts
+     */
+    @PostMapping("/bulk-delete")
+    public ResponseEntity<ApiResponse<BulkDeleteResponse>> deleteUsers(
+            @Valid @RequestBody BulkDeleteRequest request) {
+
+        log.info("Received bulk delete request");
+
+        BulkDeleteResponse bulkResponse = userService.deleteUsers(request);
+        ApiResponse<BulkDeleteResponse> response = ApiResponse.success(
+            bulkResponse,
+            "Bulk delete completed"
+        );
+
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Check if user exists by email
      * GET /api/v1/users/exists/email/{email}
@@ -301,4 +570,24 @@ public class UserController {
         
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+
+    private static Sort.Direction toDirection(String sortDir) {
+        return sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+    }
+
+    /**
+     * Version required by an If-Match header
+     * @return The version, or null when the header is absent or "*"
+     */
+    private static Long expectedVersion(String ifMatch, Long userId) {
+        if (ifMatch == null || ifMatch.isBlank() || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        if (ifMatch.contains(",")) {
+            throw new IllegalArgumentException("If-Match must carry a single ETag");
+        }
+        return VersionedUser.versionOf(ifMatch.trim(), userId)
+                .orElseThrow(() -> new PreconditionFailedException(
+                        "If-Match does not identify a version of user " + userId));
+    }
+}
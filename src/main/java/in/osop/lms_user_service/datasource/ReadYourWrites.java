@@ -0,0 +1,86 @@
+package in.osop.lms_user_service.datasource;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+
+/**
+ * Keeps a client's reads on the primary for a short window after it committed a write
+ * The window travels in a cookie, so it holds across instances; within the writing request it holds from the commit on
+ */
+public class ReadYourWrites implements TransactionExecutionListener {
+
+    static final String COOKIE = "lms-read-primary";
+
+    private static final String PRIMARY_UNTIL = ReadYourWrites.class.getName() + ".PRIMARY_UNTIL";
+
+    private final Duration window;
+
+    public ReadYourWrites(Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, @Nullable Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || window.isZero()
+                || !(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(PRIMARY_UNTIL) != null) {
+            return;
+        }
+        long until = System.currentTimeMillis() + window.toMillis();
+        request.setAttribute(PRIMARY_UNTIL, until);
+
+        HttpServletResponse response = attributes.getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE, Long.toString(until));
+            cookie.setPath("/");
+            cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+        }
+    }
+
+    /**
+     * @return Whether the current request wrote, or carries a cookie from a recent write
+     */
+    public boolean requiresPrimary() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return false;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(PRIMARY_UNTIL) != null) {
+            return true;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                return isWithinWindow(cookie.getValue());
+            }
+        }
+        return false;
+    }
+
+    // Values further out than one window are forged or from a differently configured instance
+    private boolean isWithinWindow(String value) {
+        try {
+            long now = System.currentTimeMillis();
+            long until = Long.parseLong(value);
+            return until > now && until <= now + window.toMillis();
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package in.osop.lms_user_service.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks how far each replica is behind the primary through the replication_heartbeat row
+ * Every check reads the primary's beat and each replica's copy of it, then writes a new beat to the primary;
+ * the lag is the difference between the two beats, so it is measured in steps of the check interval.
+ * Replicas that are unreachable or behind by more than the maximum lag receive no reads until they catch up
+ */
+@Slf4j
+public class ReplicaLagMonitor implements DisposableBean {
+
+    private static final String SELECT_BEAT = "SELECT beat_millis FROM replication_heartbeat WHERE id = 1";
+    private static final String UPDATE_BEAT =
+            "UPDATE replication_heartbeat SET beat_millis = ? WHERE id = 1 AND beat_millis < ?";
+
+    private final JdbcTemplate primary;
+    private final List<ReplicaPool> replicas;
+    private final Map<String, JdbcTemplate> replicaTemplates = new HashMap<>();
+    private final Map<String, Long> lagMillis = new ConcurrentHashMap<>();
+    private final Duration maxLag;
+    private volatile List<ReplicaPool> available = List.of();
+
+    public ReplicaLagMonitor(DataSource primary, List<ReplicaPool> replicas, Duration maxLag,
+                             MeterRegistry meterRegistry) {
+        this.primary = new JdbcTemplate(primary);
+        this.replicas = List.copyOf(replicas);
+        this.maxLag = maxLag;
+        for (ReplicaPool replica : this.replicas) {
+            replicaTemplates.put(replica.name(), new JdbcTemplate(replica.dataSource()));
+            Gauge.builder("lms.datasource.replica.lag", this, monitor -> monitor.lagSeconds(replica.name()))
+                    .description("Replica lag behind the primary; NaN while the replica is unreachable")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return All configured replicas
+     */
+    public List<ReplicaPool> replicas() {
+        return replicas;
+    }
+
+    /**
+     * @return Replicas that passed the last check, empty before the first one
+     */
+    public List<ReplicaPool> availableReplicas() {
+        return available;
+    }
+
+    /**
+     * Measure the lag of every replica and advance the primary's heartbeat
+     * A round in which the primary cannot be read leaves the previous result in place
+     */
+    @Scheduled(fixedDelayString = "${lms.datasource.replicas.lag-check-interval:PT1S}")
+    public void check() {
+        Long primaryBeat;
+        try {
+            primaryBeat = primary.queryForObject(SELECT_BEAT, Long.class);
+        } catch (DataAccessException ex) {
+            log.warn("Cannot read the replication heartbeat from the primary: {}", ex.getMessage());
+            return;
+        }
+
+        List<ReplicaPool> nowAvailable = new ArrayList<>(replicas.size());
+        for (ReplicaPool replica : replicas) {
+            Long lag = measureLag(replica, primaryBeat);
+            boolean wasAvailable = available.contains(replica);
+            boolean isAvailable = lag != null && lag <= maxLag.toMillis();
+            if (isAvailable) {
+                nowAvailable.add(replica);
+            }
+            if (wasAvailable && !isAvailable) {
+                log.warn("Replica {} taken out of read rotation, lag: {} ms", replica.name(), lag);
+            } else if (!wasAvailable && isAvailable) {
+                log.info("Replica {} in read rotation, lag: {} ms", replica.name(), lag);
+            }
+        }
+        available = List.copyOf(nowAvailable);
+
+        long beat = System.currentTimeMillis();
+        try {
+            primary.update(UPDATE_BEAT, beat, beat);
+        } catch (DataAccessException ex) {
+            log.warn("Cannot write the replication heartbeat to the primary: {}", ex.getMessage());
+        }
+    }
+
+    private Long measureLag(ReplicaPool replica, long primaryBeat) {
+        try {
+            Long replicaBeat = replicaTemplates.get(replica.name()).queryForObject(SELECT_BEAT, Long.class);
+            long lag = replicaBeat == null ? Long.MAX_VALUE : Math.max(0, primaryBeat - replicaBeat);
+            lagMillis.put(replica.name(), lag);
+            return lag;
+        } catch (DataAccessException ex) {
+            lagMillis.remove(replica.name());
+            log.debug("Cannot read the replication heartbeat from replica {}: {}", replica.name(), ex.getMessage());
+            return null;
+        }
+    }
+
+    private double lagSeconds(String replica) {
+        Long lag = lagMillis.get(replica);
+        return lag == null ? Double.NaN : lag / 1000.0;
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.dataSource().close());
+    }
+}
@@ -0,0 +1,11 @@
+package in.osop.lms_user_service.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Connection pool of one read replica
+ * @param name Routing key and pool name, e.g. replica-0
+ * @param dataSource Hikari pool connected to the replica
+ */
+public record ReplicaPool(String name, HikariDataSource dataSource) {
+}
@@ -0,0 +1,49 @@
+package in.osop.lms_user_service.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica that is within the allowed lag, everything else to the primary
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the key is looked up at the first statement,
+ * once the transaction's read-only flag has been bound
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final ReadYourWrites readYourWrites;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaLagMonitor lagMonitor, ReadYourWrites readYourWrites) {
+        this.lagMonitor = lagMonitor;
+        this.readYourWrites = readYourWrites;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (ReplicaPool replica : lagMonitor.replicas()) {
+            targets.put(replica.name(), replica.dataSource());
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || readYourWrites.requiresPrimary()) {
+            return PRIMARY;
+        }
+        List<ReplicaPool> available = lagMonitor.availableReplicas();
+        if (available.isEmpty()) {
+            return PRIMARY;
+        }
+        return available.get(Math.floorMod(nextReplica.getAndIncrement(), available.size())).name();
+    }
+}
@@ -0,0 +1,48 @@
+package in.osop.lms_user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for batch registration results
+ * Reports a success or conflict outcome for every item of the batch, in request order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchRegistrationResponse {
+
+    private int total;
+    private int created;
+    private int conflicts;
+    private List<Item> results;
+
+    /**
+     * Outcome of a single batch item
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Item {
+
+        private int index;
+        private String email;
+        private Outcome outcome;
+        private String message;
+        private UserResponse user;
+    }
+
+    /**
+     * Batch item outcome enumeration
+     */
+    public enum Outcome {
+        CREATED,
+        CONFLICT
+    }
+}
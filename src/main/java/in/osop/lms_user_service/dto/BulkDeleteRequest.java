@@ -0,0 +1,30 @@
+package in.osop.lms_user_service.dto;
+
+import in.osop.lms_user_service.entity.User;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for bulk delete requests
+ * Targets either a list of user IDs or every user of a course, optionally only those in a given status
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkDeleteRequest {
+
+    @Size(max = 10000, message = "A bulk delete must not exceed 10000 user IDs")
+    private List<@NotNull Long> userIds;
+
+    @Size(min = 2, max = 100, message = "Course name must be between 2 and 100 characters")
+    private String courseName;
+
+    private User.UserStatus status;
+}
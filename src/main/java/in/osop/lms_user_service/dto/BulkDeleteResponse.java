@@ -0,0 +1,25 @@
+package in.osop.lms_user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for bulk delete results
+ * Skipped and not-found users are only reported for ID lists; a course filter only visits matching users
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkDeleteResponse {
+
+    private long deleted;
+    private long skipped;
+    private List<Long> notFound;
+    private int chunks;
+    private boolean softDelete;
+}
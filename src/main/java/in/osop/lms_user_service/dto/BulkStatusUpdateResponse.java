@@ -0,0 +1,26 @@
+package in.osop.lms_user_service.dto;
+
+import in.osop.lms_user_service.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for bulk status change results
+ * Unchanged and not-found users are only reported for ID lists; a course filter only visits matching users
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkStatusUpdateResponse {
+
+    private User.UserStatus status;
+    private long updated;
+    private long unchanged;
+    private List<Long> notFound;
+    private int chunks;
+}
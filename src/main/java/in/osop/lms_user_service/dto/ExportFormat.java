@@ -0,0 +1,41 @@
+package in.osop.lms_user_service.dto;
+
+/**
+ * Output formats supported by roster exports
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String fileExtension;
+
+    ExportFormat(String contentType, String fileExtension) {
+        this.contentType = contentType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Resolve a format from its case-insensitive name
+     * @param value Format name, e.g. "csv"
+     * @return Matching format
+     * @throws IllegalArgumentException if the format is not supported
+     */
+    public static ExportFormat fromValue(String value) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported export format: " + value + ". Use ndjson or csv");
+    }
+}
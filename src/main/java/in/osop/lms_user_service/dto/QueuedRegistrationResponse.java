@@ -0,0 +1,44 @@
+package in.osop.lms_user_service.dto;
+
+import in.osop.lms_user_service.entity.QueuedRegistration;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the status of a queued registration
+ * userId is set once the user has been created; message explains a rejection
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueuedRegistrationResponse {
+
+    private String trackingId;
+    private QueuedRegistration.Status status;
+    private String email;
+    private Long userId;
+    private String message;
+    private LocalDateTime enqueuedAt;
+    private LocalDateTime completedAt;
+
+    /**
+     * @param registration Queued registration
+     * @return Status DTO
+     */
+    public static QueuedRegistrationResponse fromEntity(QueuedRegistration registration) {
+        return QueuedRegistrationResponse.builder()
+                .trackingId(registration.getTrackingId())
+                .status(registration.getStatus())
+                .email(registration.getEmail())
+                .userId(registration.getUserId())
+                .message(registration.getMessage())
+                .enqueuedAt(registration.getEnqueuedAt())
+                .completedAt(registration.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,26 @@
+package in.osop.lms_user_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for batch user registration requests
+ * Wraps a cohort of registration requests validated individually
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserBatchRegistrationRequest {
+
+    @NotEmpty(message = "At least one user is required")
+    @Size(max = 1000, message = "A batch must not exceed 1000 users")
+    private List<@Valid UserRegistrationRequest> users;
+}
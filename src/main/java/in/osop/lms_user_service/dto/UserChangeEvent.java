@@ -0,0 +1,36 @@
+package in.osop.lms_user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a user change published from the outbox
+ * Events of one user are published in the order they were committed; user is null for deletions
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChangeEvent {
+
+    private long eventId;
+    private Type type;
+    private Long userId;
+    private long version;
+    private LocalDateTime occurredAt;
+    private UserResponse user;
+
+    /**
+     * User change type enumeration
+     */
+    public enum Type {
+        REGISTERED,
+        UPDATED,
+        STATUS_CHANGED,
+        DELETED
+    }
+}
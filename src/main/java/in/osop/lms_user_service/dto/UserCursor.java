@@ -0,0 +1,48 @@
+package in.osop.lms_user_service.dto;
+
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a keyset (seek) page over users ordered by (createdAt, userId)
+ * Exchanged with clients as an opaque URL-safe token
+ * @param createdAt Creation time of the last user returned
+ * @param userId ID of the last user returned
+ * @param direction Sort direction of the listing
+ */
+public record UserCursor(LocalDateTime createdAt, Long userId, Sort.Direction direction) {
+
+    private static final String VERSION = "v1";
+
+    /**
+     * Encode this position as an opaque token
+     * @return URL-safe token
+     */
+    public String encode() {
+        String raw = VERSION + "|" + direction.name() + "|" + createdAt + "|" + userId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token produced by {@link #encode()}
+     * @param token Opaque cursor token
+     * @return Decoded position
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static UserCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new UserCursor(LocalDateTime.parse(parts[2]), Long.valueOf(parts[3]), Sort.Direction.valueOf(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, ex);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package in.osop.lms_user_service.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for multi-get lookups
+ * Any combination of user IDs, emails and phone numbers, resolved in one request
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserLookupRequest {
+
+    @Size(max = 1000, message = "A lookup must not exceed 1000 user IDs")
+    private List<@NotNull Long> userIds;
+
+    @Size(max = 1000, message = "A lookup must not exceed 1000 emails")
+    private List<@NotBlank String> emails;
+
+    @Size(max = 1000, message = "A lookup must not exceed 1000 phone numbers")
+    private List<@NotBlank String> phoneNumbers;
+}
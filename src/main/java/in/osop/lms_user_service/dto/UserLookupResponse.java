@@ -0,0 +1,27 @@
+package in.osop.lms_user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for multi-get lookup results
+ * Found users are keyed by the value as it was sent; keys that matched no user are listed as missing
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserLookupResponse {
+
+    private Map<Long, UserResponse> byId;
+    private Map<String, UserResponse> byEmail;
+    private Map<String, UserResponse> byPhoneNumber;
+    private List<Long> missingIds;
+    private List<String> missingEmails;
+    private List<String> missingPhoneNumbers;
+}
@@ -0,0 +1,45 @@
+package in.osop.lms_user_service.dto;
+
+import java.util.Optional;
+
+/**
+ * A user response together with the entity version it was read at
+ * The version backs the strong ETag used for conditional GETs and If-Match updates
+ * @param user User response
+ * @param version Entity version (0 for rows written before versioning)
+ */
+public record VersionedUser(UserResponse user, long version) {
+
+    /**
+     * @return Strong ETag of this representation
+     */
+    public String eTag() {
+        return eTag(user.getUserId(), version);
+    }
+
+    /**
+     * @param userId User ID
+     * @param version Entity version
+     * @return Strong ETag, e.g. "42-3"
+     */
+    public static String eTag(Long userId, long version) {
+        return "\"" + userId + "-" + version + "\"";
+    }
+
+    /**
+     * @param eTag Strong ETag as sent by a client
+     * @param userId User the ETag must belong to
+     * @return The version it names, or empty if it is weak, malformed or belongs to another user
+     */
+    public static Optional<Long> versionOf(String eTag, Long userId) {
+        String prefix = "\"" + userId + "-";
+        if (!eTag.startsWith(prefix) || !eTag.endsWith("\"") || eTag.length() <= prefix.length() + 1) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Long.parseLong(eTag.substring(prefix.length(), eTag.length() - 1)));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package in.osop.lms_user_service.entity;
+
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * Registration accepted by the write-behind queue
+ * Stays QUEUED until the background writer has inserted the user (CREATED) or found a conflict (REJECTED)
+ * While QUEUED it is claimed by the instance holding it in memory, until that claim lapses
+ */
+@Entity
+@Table(name = "registration_queue",
+       indexes = @Index(name = "idx_registration_queue_status_enqueued_at", columnList = "status, enqueued_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class QueuedRegistration implements Persistable<String> {
+
+    @Id
+    @Column(name = "tracking_id", length = 36)
+    private String trackingId;
+
+    @Column(name = "full_name", nullable = false, length = 100)
+    private String fullName;
+
+    @Column(name = "phone_number", nullable = false, length = 15)
+    private String phoneNumber;
+
+    @Column(name = "email", nullable = false, length = 150)
+    private String email;
+
+    @Column(name = "course_name", nullable = false, length = 100)
+    private String courseName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private Status status;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "message")
+    private String message;
+
+    @Column(name = "enqueued_at", nullable = false)
+    private LocalDateTime enqueuedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    // Assigned IDs would otherwise make save() select before inserting
+    @Transient
+    private boolean persisted;
+
+    @Override
+    public String getId() {
+        return trackingId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+    /**
+     * @return Registration request to hand to the batch insert
+     */
+    public UserRegistrationRequest toRequest() {
+        return UserRegistrationRequest.builder()
+                .fullName(fullName)
+                .phoneNumber(phoneNumber)
+                .email(email)
+                .courseName(courseName)
+                .build();
+    }
+
+    /**
+     * Queued registration status enumeration
+     */
+    public enum Status {
+        QUEUED,
+        CREATED,
+        REJECTED
+    }
+}
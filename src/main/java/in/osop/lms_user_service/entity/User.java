@@ -10,6 +10,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -17,21 +18,32 @@ import java.time.LocalDateTime;
 /**
  * User entity representing a student/learner in the LMS system
  * Contains basic user information for course enrollment
+ * The schema is owned by the Flyway migrations in db/migration; constraints and indexes are listed here for reference
+ * Soft-deleted rows (deleted_at set) are excluded from every entity and JPQL query
  */
 @Entity
 @Table(name = "users", 
        uniqueConstraints = {
-           @UniqueConstraint(columnNames = "email"),
-           @UniqueConstraint(columnNames = "phone_number")
+           @UniqueConstraint(name = "uk_users_email", columnNames = "email"),
+           @UniqueConstraint(name = "uk_users_phone_number", columnNames = "phone_number")
+       },
+       indexes = {
+           @Index(name = "idx_users_created_at_user_id", columnList = "created_at, user_id"),
+           @Index(name = "idx_users_course_created_at_user_id", columnList = "course_name, created_at, user_id"),
+           @Index(name = "idx_users_course_status", columnList = "course_name, status"),
+           @Index(name = "idx_users_status", columnList = "status")
        })
+@SQLRestriction("deleted_at IS NULL")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class User {
 
+    // SEQUENCE (a users_seq table on MySQL) keeps Hibernate JDBC insert batching enabled; IDENTITY disables it
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(name = "user_id")
     private Long userId;
 
@@ -74,6 +86,9 @@ public class User {
     @Column(name = "version")
     private Long version;
 
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
     /**
      * User status enumeration
      */
@@ -2,6 +2,10 @@ package in.osop.lms_user_service.exception;
 
 import in.osop.lms_user_service.dto.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -11,6 +15,8 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -21,6 +27,10 @@ import java.util.Map;
 @Slf4j
 public class GlobalExceptionHandler {
 
+    // Unique keys on users and, with sharding, on the directory that keeps emails and phone numbers unique across shards
+    private static final List<String> USER_CONTACT_KEYS = List.of("uk_users_email", "uk_users_phone_number",
+            "uk_user_shard_directory_email", "uk_user_shard_directory_phone_number");
+
     /**
      * Handle ResourceNotFoundException
      */
@@ -47,6 +57,71 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.CONFLICT);
     }
 
+    /**
+     * Handle PreconditionFailedException (If-Match did not match the current version)
+     */
+    @ExceptionHandler(PreconditionFailedException.class)
+    public ResponseEntity<ApiResponse<Object>> handlePreconditionFailedException(
+            PreconditionFailedException ex, WebRequest request) {
+
+        log.warn("Precondition failed: {}", ex.getMessage());
+
+        ApiResponse<Object> response = ApiResponse.error(ex.getMessage(), request.getDescription(false));
+        return new ResponseEntity<>(response, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    /**
+     * Handle optimistic-lock failures (the user was changed by a concurrent request)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Object>> handleOptimisticLockingFailureException(
+            OptimisticLockingFailureException ex, WebRequest request) {
+
+        log.warn("Concurrent modification: {}", ex.getMessage());
+
+        ApiResponse<Object> response = ApiResponse.error(
+            "The user was modified by another request. Please reload and try again.",
+            request.getDescription(false)
+        );
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
+    /**
+     * Handle ServiceBusyException (a bounded queue is full)
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<ApiResponse<Object>> handleServiceBusyException(
+            ServiceBusyException ex, WebRequest request) {
+
+        log.warn("Service busy: {}", ex.getMessage());
+
+        ApiResponse<Object> response = ApiResponse.error(ex.getMessage(), request.getDescription(false));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(response);
+    }
+
+    /**
+     * Handle unique-key violations on a user's email or phone number that got past the duplicate checks
+     * (concurrent registrations or updates); any other integrity violation is an unexpected error
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse<Object>> handleDataIntegrityViolationException(
+            DataIntegrityViolationException ex, WebRequest request) {
+
+        if (!violatesUserContactKey(ex)) {
+            return handleGenericException(ex, request);
+        }
+
+        log.warn("Data integrity violation: {}", ex.getMostSpecificCause().getMessage());
+
+        ApiResponse<Object> response = ApiResponse.error(
+            "A user with this email or phone number already exists",
+            request.getDescription(false)
+        );
+        return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handle validation errors
      */
@@ -101,4 +176,20 @@ public class GlobalExceptionHandler {
         );
         return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
     }
-} 
\ No newline at end of file
+
+    /**
+     * @return true if the violated constraint is one of the email/phone unique keys, going by the constraint name
+     *         Hibernate extracted or else the driver message (which names the key on both H2 and MySQL)
+     */
+    private static boolean violatesUserContactKey(DataIntegrityViolationException ex) {
+        String constraint = null;
+        for (Throwable cause = ex; cause != null && constraint == null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                constraint = violation.getConstraintName();
+            }
+        }
+        String detail = (constraint != null ? constraint : String.valueOf(ex.getMostSpecificCause().getMessage()))
+                .toLowerCase(Locale.ROOT);
+        return USER_CONTACT_KEYS.stream().anyMatch(detail::contains);
+    }
+}
@@ -0,0 +1,11 @@
+package in.osop.lms_user_service.exception;
+
+/**
+ * Exception thrown when a conditional request (If-Match) does not match the current version of a resource
+ */
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package in.osop.lms_user_service.exception;
+
+/**
+ * Exception thrown when a request is shed because a bounded resource is full
+ * Answered with 503 and Retry-After
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,91 @@
+package in.osop.lms_user_service.filter;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per client key, kept as a single theoretical arrival time (GCRA) in an AtomicLong
+ * Admitting a request is a map lookup and one compare-and-set; no locks are taken once the client is known
+ */
+public class ClientRateLimiter {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxClients;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong overflow;
+
+    /**
+     * @param requestsPerSecond Sustained rate allowed per client
+     * @param burst Requests a client may make at once after being idle
+     * @param maxClients Clients tracked individually; further clients share one bucket until idle ones are evicted
+     */
+    public ClientRateLimiter(double requestsPerSecond, int burst, int maxClients) {
+        this(requestsPerSecond, burst, maxClients, System::nanoTime);
+    }
+
+    ClientRateLimiter(double requestsPerSecond, int burst, int maxClients, LongSupplier nanoClock) {
+        if (requestsPerSecond <= 0 || burst <= 0 || maxClients <= 0) {
+            throw new IllegalArgumentException("Rate, burst and maximum clients must be positive");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (Duration.ofSeconds(1).toNanos() / requestsPerSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+        this.maxClients = maxClients;
+        this.nanoClock = nanoClock;
+        this.overflow = new AtomicLong(nanoClock.getAsLong());
+    }
+
+    /**
+     * Take one token from the client's bucket
+     * @param client Client key
+     * @return 0 if the request is admitted, otherwise the nanoseconds until the client may retry
+     */
+    public long tryAcquire(String client) {
+        AtomicLong bucket = bucket(client);
+        long now = nanoClock.getAsLong();
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Forget clients whose bucket has refilled completely; they start full again on their next request
+     * A request racing the eviction may be charged to the evicted bucket, which at most grants one extra burst
+     * @return Number of clients evicted
+     */
+    public int evictIdle() {
+        long now = nanoClock.getAsLong();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+        return Math.max(0, before - buckets.size());
+    }
+
+    /**
+     * @return Number of clients currently tracked
+     */
+    public int clients() {
+        return buckets.size();
+    }
+
+    private AtomicLong bucket(String client) {
+        AtomicLong bucket = buckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxClients) {
+            return overflow;
+        }
+        return buckets.computeIfAbsent(client, key -> new AtomicLong(nanoClock.getAsLong()));
+    }
+}
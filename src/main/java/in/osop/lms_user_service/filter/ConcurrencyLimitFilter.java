@@ -0,0 +1,111 @@
+package in.osop.lms_user_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects requests with 503 when too many are already in flight
+ * With virtual threads there is no thread pool to bound concurrency, so this keeps an unbounded
+ * number of request threads from queueing on the connection pool
+ * Async requests, such as the streamed export, keep their permit until the async cycle completes
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final ConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(ConcurrencyLimiter limiter, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.rejected = Counter.builder("users.requests.concurrency.rejected")
+                .description("Requests rejected because the concurrency limit was reached")
+                .register(meterRegistry);
+        Gauge.builder("users.requests.concurrency.in.flight", limiter, ConcurrencyLimiter::inFlight)
+                .description("Requests currently holding a concurrency permit")
+                .register(meterRegistry);
+        Gauge.builder("users.requests.concurrency.waiting", limiter, ConcurrencyLimiter::waiting)
+                .description("Requests waiting for a concurrency permit")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean acquired;
+        try {
+            acquired = limiter.tryAcquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+
+        if (!acquired) {
+            rejected.increment();
+            log.warn("Concurrency limit reached, rejecting {} {}", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error("Service is busy. Please retry shortly.", "uri=" + request.getRequestURI()));
+            return;
+        }
+
+        boolean releaseNow = true;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // A streamed body (e.g. the CSV export) is still being written; hold the permit until it is done
+                request.getAsyncContext().addListener(new ReleaseOnComplete());
+                releaseNow = false;
+            }
+        } finally {
+            if (releaseNow) {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of an async request once the container completes it
+     * onComplete also follows a timeout or error, so it is the only place that releases
+     */
+    private class ReleaseOnComplete implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limiter.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A new async cycle replaces this listener list; carry the release over to it
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package in.osop.lms_user_service.filter;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of requests executing at once
+ * Callers wait up to a timeout for a permit; Semaphore parks rather than pins virtual threads
+ */
+public class ConcurrencyLimiter {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final Duration maxWait;
+
+    /**
+     * @param maxConcurrent Maximum number of concurrent holders
+     * @param maxWait Maximum time to wait for a permit
+     */
+    public ConcurrencyLimiter(int maxConcurrent, Duration maxWait) {
+        if (maxConcurrent <= 0) {
+            throw new IllegalArgumentException("Maximum concurrency must be positive");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWait = maxWait;
+    }
+
+    /**
+     * Wait for a permit
+     * @return true if a permit was acquired and must be released, false if the wait timed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean tryAcquire() throws InterruptedException {
+        return permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Return a permit obtained from {@link #tryAcquire()}
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @return Number of permits currently held
+     */
+    public int inFlight() {
+        return maxConcurrent - permits.availablePermits();
+    }
+
+    /**
+     * @return Number of callers waiting for a permit
+     */
+    public int waiting() {
+        return permits.getQueueLength();
+    }
+}
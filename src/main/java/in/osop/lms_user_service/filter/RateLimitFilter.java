@@ -0,0 +1,121 @@
+package in.osop.lms_user_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests with 429 when their client has used up its read or write budget
+ * Runs before the request reaches a connection, so one noisy client cannot drain the pool for the others
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final ClientRateLimiter readLimiter;
+    private final ClientRateLimiter writeLimiter;
+    private final String clientHeader;
+    private final ObjectMapper objectMapper;
+    private final Counter readAdmitted;
+    private final Counter readRejected;
+    private final Counter writeAdmitted;
+    private final Counter writeRejected;
+
+    /**
+     * @param clientHeader Header identifying the client, e.g. an API key set by the gateway; blank to key by remote address only
+     */
+    public RateLimitFilter(ClientRateLimiter readLimiter, ClientRateLimiter writeLimiter, String clientHeader,
+                           ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.readLimiter = readLimiter;
+        this.writeLimiter = writeLimiter;
+        this.clientHeader = clientHeader == null || clientHeader.isBlank() ? null : clientHeader;
+        this.objectMapper = objectMapper;
+        this.readAdmitted = counter(meterRegistry, "users.requests.rate.admitted", "read", "Requests admitted by the rate limit");
+        this.readRejected = counter(meterRegistry, "users.requests.rate.rejected", "read", "Requests rejected by the rate limit");
+        this.writeAdmitted = counter(meterRegistry, "users.requests.rate.admitted", "write", "Requests admitted by the rate limit");
+        this.writeRejected = counter(meterRegistry, "users.requests.rate.rejected", "write", "Requests rejected by the rate limit");
+        Gauge.builder("users.requests.rate.clients", readLimiter, ClientRateLimiter::clients)
+                .description("Clients with a rate-limit bucket")
+                .tag("budget", "read")
+                .register(meterRegistry);
+        Gauge.builder("users.requests.rate.clients", writeLimiter, ClientRateLimiter::clients)
+                .description("Clients with a rate-limit bucket")
+                .tag("budget", "write")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = isRead(request);
+        long waitNanos = (read ? readLimiter : writeLimiter).tryAcquire(clientKey(request));
+
+        if (waitNanos > 0) {
+            (read ? readRejected : writeRejected).increment();
+            // Debug only: a flooding client would otherwise flood the log as well
+            log.debug("Rate limit reached, rejecting {} {}", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ceilSeconds(waitNanos))));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(),
+                    ApiResponse.error("Too many requests. Please retry later.", "uri=" + request.getRequestURI()));
+            return;
+        }
+
+        (read ? readAdmitted : writeAdmitted).increment();
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Evict clients whose buckets are full again
+     */
+    @Scheduled(fixedDelayString = "${lms.rate-limit.idle-eviction-interval:PT1M}")
+    public void evictIdleClients() {
+        int evicted = readLimiter.evictIdle() + writeLimiter.evictIdle();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate-limit buckets", evicted);
+        }
+    }
+
+    // POST /lookup is a multi-get and draws on the read budget
+    private static boolean isRead(HttpServletRequest request) {
+        String method = request.getMethod();
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)
+                || request.getRequestURI().endsWith("/lookup");
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String key = request.getHeader(clientHeader);
+            if (key != null && !key.isEmpty()) {
+                return key;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static Counter counter(MeterRegistry registry, String name, String budget, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("budget", budget)
+                .register(registry);
+    }
+}
@@ -0,0 +1,86 @@
+package in.osop.lms_user_service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback turbo filter that caps INFO/DEBUG/TRACE events per call site (logger + message pattern) per second
+ * Runs before the event is created, so suppressed calls never format their message; WARN and ERROR always pass
+ */
+public class CallSiteRateLimitFilter extends TurboFilter {
+
+    private static final LongAdder SUPPRESSED = new LongAdder();
+
+    private final ConcurrentHashMap<String, Window> windows = new ConcurrentHashMap<>();
+
+    private String loggerPrefix = "";
+    private int permitsPerSecond = 10;
+    private int maxCallSites = 1_000;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (format == null
+                || level.isGreaterOrEqual(Level.WARN)
+                || !level.isGreaterOrEqual(logger.getEffectiveLevel())
+                || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+
+        Window window = windows.get(format);
+        if (window == null) {
+            if (windows.size() >= maxCallSites) {
+                return FilterReply.NEUTRAL;
+            }
+            window = windows.computeIfAbsent(format, key -> new Window());
+        }
+
+        if (window.tryAcquire(System.nanoTime() / 1_000_000_000L, permitsPerSecond)) {
+            return FilterReply.NEUTRAL;
+        }
+        SUPPRESSED.increment();
+        return FilterReply.DENY;
+    }
+
+    /**
+     * @return Events suppressed by every instance since startup
+     */
+    public static long suppressedCount() {
+        return SUPPRESSED.sum();
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+
+    public void setPermitsPerSecond(int permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public void setMaxCallSites(int maxCallSites) {
+        this.maxCallSites = maxCallSites;
+    }
+
+    /**
+     * Fixed one-second window; a racy reset at the boundary can let a few extra events through, which is acceptable
+     */
+    private static final class Window {
+
+        private volatile long second;
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire(long nowSecond, int permits) {
+            if (second != nowSecond) {
+                second = nowSecond;
+                count.set(0);
+            }
+            return count.incrementAndGet() <= permits;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package in.osop.lms_user_service.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the drop and suppression counts of the production logging pipeline
+ * The counters are static because Logback creates the appender and filter before the application context
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("logging.events.dropped", MeteredAsyncAppender.class,
+                        appender -> MeteredAsyncAppender.discardedCount())
+                .description("Log events dropped by the async appender")
+                .tag("reason", "discarded")
+                .register(registry);
+        FunctionCounter.builder("logging.events.dropped", MeteredAsyncAppender.class,
+                        appender -> MeteredAsyncAppender.queueFullCount())
+                .description("Log events dropped by the async appender")
+                .tag("reason", "queue_full")
+                .register(registry);
+        FunctionCounter.builder("logging.events.suppressed", CallSiteRateLimitFilter.class,
+                        filter -> CallSiteRateLimitFilter.suppressedCount())
+                .description("Log events suppressed by the per-call-site rate limit")
+                .register(registry);
+    }
+}
@@ -0,0 +1,49 @@
+package in.osop.lms_user_service.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logback AsyncAppender that counts the events it drops
+ * Discarded: INFO and below dropped once the queue passes the discarding threshold
+ * Queue full: any event dropped because the queue was full with neverBlock set (approximate, checked before the offer)
+ */
+public class MeteredAsyncAppender extends AsyncAppender {
+
+    private static final LongAdder DISCARDED = new LongAdder();
+    private static final LongAdder QUEUE_FULL = new LongAdder();
+
+    @Override
+    protected void append(ILoggingEvent event) {
+        if (isNeverBlock() && getRemainingCapacity() == 0 && !super.isDiscardable(event)) {
+            QUEUE_FULL.increment();
+        }
+        super.append(event);
+    }
+
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        // Only consulted once the queue is below the discarding threshold
+        boolean discardable = super.isDiscardable(event);
+        if (discardable) {
+            DISCARDED.increment();
+        }
+        return discardable;
+    }
+
+    /**
+     * @return Events discarded below the threshold since startup
+     */
+    public static long discardedCount() {
+        return DISCARDED.sum();
+    }
+
+    /**
+     * @return Events dropped on a full queue since startup
+     */
+    public static long queueFullCount() {
+        return QUEUE_FULL.sum();
+    }
+}
@@ -0,0 +1,24 @@
+package in.osop.lms_user_service.outbox;
+
+import in.osop.lms_user_service.dto.UserChangeEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+/**
+ * In-process stand-in: delivers each event as a Spring application event to @EventListener methods
+ * taking a UserChangeEvent, synchronously on the relay thread
+ */
+public class ApplicationEventUserChangePublisher implements UserChangePublisher {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ApplicationEventUserChangePublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void publish(List<UserChangeEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
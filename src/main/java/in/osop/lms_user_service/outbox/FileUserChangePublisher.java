@@ -0,0 +1,54 @@
+package in.osop.lms_user_service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.UserChangeEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * File-backed stand-in: appends each event as one JSON line and forces the batch to disk before returning
+ * A crash after the write but before the outbox rows are deleted repeats the batch, as with any at-least-once publisher
+ */
+public class FileUserChangePublisher implements UserChangePublisher {
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+
+    public FileUserChangePublisher(Path path, ObjectMapper objectMapper) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void publish(List<UserChangeEvent> events) {
+        try {
+            append(events);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not append " + events.size() + " user change events to " + path, ex);
+        }
+    }
+
+    private void append(List<UserChangeEvent> events) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            for (UserChangeEvent event : events) {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+            }
+            out.flush();
+            channel.force(false);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package in.osop.lms_user_service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.UserChangeEvent;
+import in.osop.lms_user_service.dto.UserResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Drains the user_outbox table to the publisher in event ID order, one batch per transaction
+ * The batch stays locked (FOR UPDATE) while it is published and is deleted in the same transaction, so relays on
+ * several instances take turns rather than publishing the same events; a failed publish rolls back and is retried
+ */
+@Slf4j
+public class OutboxRelay {
+
+    private static final String SELECT_BATCH = "SELECT event_id, event_type, user_id, version, payload, occurred_at "
+            + "FROM user_outbox ORDER BY event_id LIMIT ? FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserChangePublisher publisher;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Counter published;
+    private final Counter failures;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                       UserChangePublisher publisher, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                       int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("lms.outbox.batch-size must be positive");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.publisher = publisher;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.published = Counter.builder("users.outbox.published")
+                .description("User change events published from the outbox")
+                .register(meterRegistry);
+        this.failures = Counter.builder("users.outbox.publish.failures")
+                .description("Outbox batches that failed to publish and were left for the next run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publish everything currently in the outbox, stopping at the first failed batch
+     * @return Number of events published
+     */
+    @Scheduled(fixedDelayString = "${lms.outbox.relay-interval:PT1S}")
+    public int relay() {
+        int total = 0;
+        try {
+            int count;
+            do {
+                count = transactionTemplate.execute(tx -> publishBatch());
+                total += count;
+            } while (count == batchSize);
+        } catch (RuntimeException ex) {
+            failures.increment();
+            log.warn("Publishing user change events failed after {} events, retrying next run: {}",
+                    total, ex.getMessage());
+        }
+        return total;
+    }
+
+    private int publishBatch() {
+        List<UserChangeEvent> events = jdbcTemplate.query(SELECT_BATCH, this::mapEvent, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        publisher.publish(events);
+
+        List<Long> eventIds = events.stream().map(UserChangeEvent::getEventId).collect(Collectors.toList());
+        namedJdbcTemplate.update("DELETE FROM user_outbox WHERE event_id IN (:eventIds)",
+                new MapSqlParameterSource("eventIds", eventIds));
+        published.increment(events.size());
+        log.debug("Published {} user change events up to ID: {}", events.size(), eventIds.get(eventIds.size() - 1));
+        return events.size();
+    }
+
+    private UserChangeEvent mapEvent(ResultSet rs, int rowNum) throws SQLException {
+        String payload = rs.getString("payload");
+        return UserChangeEvent.builder()
+                .eventId(rs.getLong("event_id"))
+                .type(UserChangeEvent.Type.valueOf(rs.getString("event_type")))
+                .userId(rs.getLong("user_id"))
+                .version(rs.getLong("version"))
+                .occurredAt(rs.getTimestamp("occurred_at").toLocalDateTime())
+                .user(payload == null ? null : readUser(payload))
+                .build();
+    }
+
+    private UserResponse readUser(String payload) {
+        try {
+            return objectMapper.readValue(payload, UserResponse.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unreadable user change payload", ex);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package in.osop.lms_user_service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.UserChangeEvent;
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes user change events to the user_outbox table
+ * Must be called inside the transaction that makes the change: the JDBC insert joins it, so an event is
+ * committed if and only if its change is. One batched insert per call.
+ */
+@Component
+public class UserChangeOutbox {
+
+    private static final String INSERT = "INSERT INTO user_outbox (event_type, user_id, version, payload, occurred_at) "
+            + "VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+
+    public UserChangeOutbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                            @Value("${lms.outbox.enabled:false}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @return Whether changes are recorded; callers may skip work that only feeds the outbox when not
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Record registrations, updates or status changes with the users as they were written
+     */
+    public void append(UserChangeEvent.Type type, Collection<VersionedUser> users) {
+        if (!enabled || users.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(users.size());
+        for (VersionedUser user : users) {
+            rows.add(new Object[] {type.name(), user.user().getUserId(), user.version(), toJson(user), now});
+        }
+        insert(rows);
+    }
+
+    /**
+     * Record deletions of the locked users; the version is the one the deletion would have produced
+     */
+    public void appendDeleted(Collection<UserStatusKey> removed) {
+        if (!enabled || removed.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(removed.size());
+        for (UserStatusKey key : removed) {
+            long version = (key.version() == null ? 0L : key.version()) + 1;
+            rows.add(new Object[] {UserChangeEvent.Type.DELETED.name(), key.userId(), version, null, now});
+        }
+        insert(rows);
+    }
+
+    private void insert(List<Object[]> rows) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("User change events must be written in the transaction of the change");
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+
+    private String toJson(VersionedUser user) {
+        try {
+            return objectMapper.writeValueAsString(user.user());
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize user " + user.user().getUserId(), ex);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package in.osop.lms_user_service.outbox;
+
+import in.osop.lms_user_service.dto.UserChangeEvent;
+
+import java.util.List;
+
+/**
+ * Destination of the events drained from the outbox, e.g. a message broker
+ * Define a bean of this type to replace the configured stand-in (lms.outbox.publisher)
+ */
+public interface UserChangePublisher {
+
+    /**
+     * Deliver a batch of events in event ID order
+     * Delivery is at least once: if this throws, the whole batch stays in the outbox and is offered again
+     * Implementations wrap checked failures, e.g. in UncheckedIOException
+     * @param events Events to deliver
+     */
+    void publish(List<UserChangeEvent> events);
+}
@@ -0,0 +1,105 @@
+package in.osop.lms_user_service.repository;
+
+import in.osop.lms_user_service.entity.QueuedRegistration;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the write-behind registration queue
+ */
+@Repository
+public interface QueuedRegistrationRepository extends JpaRepository<QueuedRegistration, String> {
+
+    // Unclaimed, lapsed, or claimed by this instance before its current start (it lost them when it stopped)
+    String CLAIMABLE = "q.claimedAt IS NULL OR q.claimedAt < :before "
+            + "OR (q.claimedBy = :claimedBy AND q.claimedAt < :startedAt)";
+
+    /**
+     * Lock the given registrations that are still queued, in primary-key order
+     * Rows another writer has already completed are left out, so each registration is written once
+     * @param trackingIds Tracking IDs
+     * @param status Status to match (QUEUED)
+     * @return Locked registrations
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT q FROM QueuedRegistration q WHERE q.trackingId IN :trackingIds AND q.status = :status "
+            + "ORDER BY q.trackingId")
+    List<QueuedRegistration> lockByTrackingIdInAndStatus(@Param("trackingIds") Collection<String> trackingIds,
+                                                         @Param("status") QueuedRegistration.Status status);
+
+    /**
+     * Find registrations that are unclaimed, whose claim was last renewed before the cutoff, or that the
+     * claiming instance itself claimed before it last started, oldest first
+     * @param status Status to match (QUEUED)
+     * @param before Claim cutoff
+     * @param claimedBy Claiming instance
+     * @param startedAt Start of the claiming instance
+     * @param limit Maximum number of rows
+     * @return Registrations
+     */
+    @Query("SELECT q FROM QueuedRegistration q WHERE q.status = :status AND (" + CLAIMABLE + ") ORDER BY q.enqueuedAt")
+    List<QueuedRegistration> findClaimableBefore(@Param("status") QueuedRegistration.Status status,
+                                                 @Param("before") LocalDateTime before,
+                                                 @Param("claimedBy") String claimedBy,
+                                                 @Param("startedAt") LocalDateTime startedAt,
+                                                 Limit limit);
+
+    /**
+     * Claim a registration if it is still unclaimed, its claim was last renewed before the cutoff, or the
+     * claiming instance itself claimed it before it last started
+     * Of several instances claiming the same row, exactly one updates it
+     * @param trackingId Tracking ID
+     * @param status Status to match (QUEUED)
+     * @param claimedBy Claiming instance
+     * @param claimedAt Claim time
+     * @param before Claim cutoff
+     * @param startedAt Start of the claiming instance
+     * @return 1 if claimed, 0 otherwise
+     */
+    @Modifying
+    @Query("UPDATE QueuedRegistration q SET q.claimedBy = :claimedBy, q.claimedAt = :claimedAt "
+            + "WHERE q.trackingId = :trackingId AND q.status = :status AND (" + CLAIMABLE + ")")
+    int claim(@Param("trackingId") String trackingId,
+              @Param("status") QueuedRegistration.Status status,
+              @Param("claimedBy") String claimedBy,
+              @Param("claimedAt") LocalDateTime claimedAt,
+              @Param("before") LocalDateTime before,
+              @Param("startedAt") LocalDateTime startedAt);
+
+    /**
+     * Renew the claims an instance still holds on the given registrations
+     * @param trackingIds Tracking IDs
+     * @param status Status to match (QUEUED)
+     * @param claimedBy Claiming instance
+     * @param claimedAt Renewal time
+     * @return Number of claims renewed
+     */
+    @Modifying
+    @Query("UPDATE QueuedRegistration q SET q.claimedAt = :claimedAt "
+            + "WHERE q.trackingId IN :trackingIds AND q.status = :status AND q.claimedBy = :claimedBy")
+    int renewClaims(@Param("trackingIds") Collection<String> trackingIds,
+                    @Param("status") QueuedRegistration.Status status,
+                    @Param("claimedBy") String claimedBy,
+                    @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Delete completed registrations
+     * @param status Status to keep (QUEUED)
+     * @param before Completion cutoff
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM QueuedRegistration q WHERE q.status <> :status AND q.completedAt < :before")
+    int deleteCompletedBefore(@Param("status") QueuedRegistration.Status status,
+                              @Param("before") LocalDateTime before);
+}
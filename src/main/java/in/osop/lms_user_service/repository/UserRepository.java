@@ -1,15 +1,33 @@
 package in.osop.lms_user_service.repository;
 
+import in.osop.lms_user_service.dto.UserResponse;
 import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.repository.projection.CourseStatusCount;
+import in.osop.lms_user_service.repository.projection.UserContactKeys;
+import in.osop.lms_user_service.repository.projection.UserNameKey;
+import in.osop.lms_user_service.repository.projection.UserRow;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for User entity
@@ -18,6 +36,20 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    /**
+     * Constructor expression for read-only queries that return UserResponse rows directly,
+     * skipping entity hydration and the dirty-checking snapshot
+     */
+    String USER_RESPONSE = "new in.osop.lms_user_service.dto.UserResponse(u.userId, u.fullName, u.phoneNumber, "
+            + "u.email, u.courseName, u.status, u.createdAt, u.updatedAt)";
+
+    // Strictly after / before (createdAt, userId) in keyset order
+    String KEYSET_AFTER = "u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.userId > :userId)";
+    String KEYSET_BEFORE = "u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.userId < :userId)";
+
+    String USER_ROW = "new in.osop.lms_user_service.repository.projection.UserRow(u.userId, u.fullName, "
+            + "u.phoneNumber, u.email, u.courseName, u.status, u.createdAt, u.updatedAt, u.version)";
+
     /**
      * Find user by email address
      * @param email User email
@@ -33,18 +65,78 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByPhoneNumber(String phoneNumber);
 
     /**
-     * Check if user exists by email
+     * Check if the email is taken
+     * Native, so soft-deleted rows count too: the unique key still covers them until they are purged
      * @param email User email
      * @return true if exists, false otherwise
      */
-    boolean existsByEmail(String email);
+    default boolean existsByEmail(String email) {
+        return countByEmailIncludingDeleted(email) > 0;
+    }
 
     /**
-     * Check if user exists by phone number
+     * Check if the phone number is taken
+     * Native, so soft-deleted rows count too: the unique key still covers them until they are purged
      * @param phoneNumber User phone number
      * @return true if exists, false otherwise
      */
-    boolean existsByPhoneNumber(String phoneNumber);
+    default boolean existsByPhoneNumber(String phoneNumber) {
+        return countByPhoneNumberIncludingDeleted(phoneNumber) > 0;
+    }
+
+    /**
+     * @param email User email
+     * @return Number of rows with the email, soft-deleted ones included (0 or 1)
+     */
+    @Query(value = "SELECT COUNT(*) FROM users WHERE email = :email", nativeQuery = true)
+    long countByEmailIncludingDeleted(@Param("email") String email);
+
+    /**
+     * @param phoneNumber User phone number
+     * @return Number of rows with the phone number, soft-deleted ones included (0 or 1)
+     */
+    @Query(value = "SELECT COUNT(*) FROM users WHERE phone_number = :phoneNumber", nativeQuery = true)
+    long countByPhoneNumberIncludingDeleted(@Param("phoneNumber") String phoneNumber);
+
+    /**
+     * Find which of the given emails are already taken, soft-deleted users included
+     * @param emails Normalized email addresses
+     * @return Subset of the given emails that already exist
+     */
+    @Query(value = "SELECT email FROM users WHERE email IN (:emails)", nativeQuery = true)
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /**
+     * Find which of the given phone numbers are already taken, soft-deleted users included
+     * @param phoneNumbers Normalized phone numbers
+     * @return Subset of the given phone numbers that already exist
+     */
+    @Query(value = "SELECT phone_number FROM users WHERE phone_number IN (:phoneNumbers)", nativeQuery = true)
+    Set<String> findExistingPhoneNumbers(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
+    /**
+     * Stream the email and phone number of every user
+     * Forward-only read with a bounded fetch size; must be consumed inside a transaction and closed
+     * @return Stream of contact keys
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new in.osop.lms_user_service.repository.projection.UserContactKeys(u.email, u.phoneNumber) FROM User u")
+    Stream<UserContactKeys> streamAllContactKeys();
+
+    /**
+     * Stream the ID and full name of every user
+     * Forward-only read with a bounded fetch size; must be consumed inside a transaction and closed
+     * @return Stream of name keys
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new in.osop.lms_user_service.repository.projection.UserNameKey(u.userId, u.fullName) FROM User u")
+    Stream<UserNameKey> streamAllNameKeys();
 
     /**
      * Find users by course name
@@ -53,6 +145,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByCourseName(String courseName);
 
+    /**
+     * Stream the users of a course in (createdAt, userId) order
+     * Forward-only read with a bounded fetch size; must be consumed inside a transaction and closed
+     * @param courseName Course name
+     * @return Stream of user rows enrolled in the course
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE u.courseName = :courseName ORDER BY u.createdAt, u.userId")
+    Stream<UserResponse> streamResponsesByCourseName(@Param("courseName") String courseName);
+
     /**
      * Find users by status
      * @param status User status
@@ -68,6 +170,77 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Page<User> findByCourseName(String courseName, Pageable pageable);
 
+    /**
+     * First keyset page of all users (no offset, no count query)
+     * @param limit Page size plus one, to tell whether there is a next page
+     * @param sort Sort on (createdAt, userId)
+     * @return Users in keyset order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u")
+    List<UserResponse> findResponsePage(Limit limit, Sort sort);
+
+    /**
+     * Keyset page of all users after the given position, in ascending order
+     * @param createdAt Creation time of the last user already returned
+     * @param userId ID of the last user already returned
+     * @param limit Page size plus one, to tell whether there is a next page
+     * @param sort Ascending sort on (createdAt, userId)
+     * @return Users in keyset order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE " + KEYSET_AFTER)
+    List<UserResponse> findResponsePageAfter(@Param("createdAt") LocalDateTime createdAt, @Param("userId") Long userId,
+                                             Limit limit, Sort sort);
+
+    /**
+     * Keyset page of all users before the given position, in descending order
+     * @param createdAt Creation time of the last user already returned
+     * @param userId ID of the last user already returned
+     * @param limit Page size plus one, to tell whether there is a next page
+     * @param sort Descending sort on (createdAt, userId)
+     * @return Users in keyset order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE " + KEYSET_BEFORE)
+    List<UserResponse> findResponsePageBefore(@Param("createdAt") LocalDateTime createdAt, @Param("userId") Long userId,
+                                              Limit limit, Sort sort);
+
+    /**
+     * First keyset page of a course's users (no offset, no count query)
+     * @param courseName Course name
+     * @param limit Page size plus one, to tell whether there is a next page
+     * @param sort Sort on (createdAt, userId)
+     * @return Users in keyset order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE u.courseName = :courseName")
+    List<UserResponse> findCourseResponsePage(@Param("courseName") String courseName, Limit limit, Sort sort);
+
+    /**
+     * Keyset page of a course's users after the given position, in ascending order
+     * @param courseName Course name
+     * @param createdAt Creation time of the last user already returned
+     * @param userId ID of the last user already returned
+     * @param limit Page size plus one, to tell whether there is a next page
+     * @param sort Ascending sort on (createdAt, userId)
+     * @return Users in keyset order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE u.courseName = :courseName AND (" + KEYSET_AFTER + ")")
+    List<UserResponse> findCourseResponsePageAfter(@Param("courseName") String courseName,
+                                                   @Param("createdAt") LocalDateTime createdAt,
+                                                   @Param("userId") Long userId, Limit limit, Sort sort);
+
+    /**
+     * Keyset page of a course's users before the given position, in descending order
+     * @param courseName Course name
+     * @param createdAt Creation time of the last user already returned
+     * @param userId ID of the last user already returned
+     * @param limit Page size plus one, to tell whether there is a next page
+     * @param sort Descending sort on (createdAt, userId)
+     * @return Users in keyset order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE u.courseName = :courseName AND (" + KEYSET_BEFORE + ")")
+    List<UserResponse> findCourseResponsePageBefore(@Param("courseName") String courseName,
+                                                    @Param("createdAt") LocalDateTime createdAt,
+                                                    @Param("userId") Long userId, Limit limit, Sort sort);
+
     /**
      * Find users by full name containing (case-insensitive search)
      * @param fullName Full name or part of it
@@ -75,6 +248,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     List<User> findByFullNameContainingIgnoreCase(String fullName);
 
+    /**
+     * Find user rows by full name containing (case-insensitive search) with pagination
+     * Full table scan; only used while the in-memory name index is unavailable
+     * @param fullName Full name or part of it
+     * @param pageable Pagination information
+     * @return Page of user rows matching the name
+     */
+    @Query(value = "SELECT " + USER_RESPONSE + " FROM User u "
+            + "WHERE UPPER(u.fullName) LIKE UPPER(CONCAT('%', :#{escape(#fullName)}, '%')) ESCAPE :#{escapeCharacter()}",
+            countQuery = "SELECT COUNT(u) FROM User u "
+            + "WHERE UPPER(u.fullName) LIKE UPPER(CONCAT('%', :#{escape(#fullName)}, '%')) ESCAPE :#{escapeCharacter()}")
+    Page<UserResponse> findResponsesByFullNameContaining(@Param("fullName") String fullName, Pageable pageable);
+
     /**
      * Custom query to find users by course name and status
      * @param courseName Course name
@@ -98,4 +284,198 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return Number of users with the specified status
      */
     long countByStatus(User.UserStatus status);
-} 
\ No newline at end of file
+
+    /**
+     * Count users grouped by course name and status in a single query
+     * @return Count per (course name, status) group
+     */
+    @Query("SELECT new in.osop.lms_user_service.repository.projection.CourseStatusCount(u.courseName, u.status, COUNT(u)) "
+            + "FROM User u GROUP BY u.courseName, u.status")
+    List<CourseStatusCount> countGroupedByCourseNameAndStatus();
+
+    /**
+     * Find a user row by ID without loading a managed entity
+     * @param userId User ID
+     * @return Optional user row with its version
+     */
+    @Query("SELECT " + USER_ROW + " FROM User u WHERE u.userId = :userId")
+    Optional<UserRow> findRowById(@Param("userId") Long userId);
+
+    /**
+     * Find a user row by email without loading a managed entity
+     * @param email User email
+     * @return Optional user row with its version
+     */
+    @Query("SELECT " + USER_ROW + " FROM User u WHERE u.email = :email")
+    Optional<UserRow> findRowByEmail(@Param("email") String email);
+
+    /**
+     * Find user rows by ID
+     * @param userIds User IDs
+     * @return User rows, in no particular order
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE u.userId IN :userIds")
+    List<UserResponse> findResponsesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Find user rows with their versions by ID
+     * @param userIds User IDs
+     * @return User rows, in no particular order
+     */
+    @Query("SELECT " + USER_ROW + " FROM User u WHERE u.userId IN :userIds")
+    List<UserRow> findRowsByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Find user rows with their versions by email
+     * @param emails Normalized email addresses
+     * @return User rows, in no particular order
+     */
+    @Query("SELECT " + USER_ROW + " FROM User u WHERE u.email IN :emails")
+    List<UserRow> findRowsByEmailIn(@Param("emails") Collection<String> emails);
+
+    /**
+     * Find user rows with their versions by phone number
+     * @param phoneNumbers Normalized phone numbers
+     * @return User rows, in no particular order
+     */
+    @Query("SELECT " + USER_ROW + " FROM User u WHERE u.phoneNumber IN :phoneNumbers")
+    List<UserRow> findRowsByPhoneNumberIn(@Param("phoneNumbers") Collection<String> phoneNumbers);
+
+    /**
+     * Find all user rows with pagination
+     * @param pageable Pagination information
+     * @return Page of user rows
+     */
+    @Query(value = "SELECT " + USER_RESPONSE + " FROM User u",
+            countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserResponse> findAllResponses(Pageable pageable);
+
+    /**
+     * Find user rows by course name
+     * @param courseName Course name
+     * @return User rows enrolled in the course
+     */
+    @Query("SELECT " + USER_RESPONSE + " FROM User u WHERE u.courseName = :courseName")
+    List<UserResponse> findResponsesByCourseName(@Param("courseName") String courseName);
+
+    /**
+     * Find user rows by course name with pagination
+     * @param courseName Course name
+     * @param pageable Pagination information
+     * @return Page of user rows
+     */
+    @Query(value = "SELECT " + USER_RESPONSE + " FROM User u WHERE u.courseName = :courseName",
+            countQuery = "SELECT COUNT(u) FROM User u WHERE u.courseName = :courseName")
+    Page<UserResponse> findResponsesByCourseName(@Param("courseName") String courseName, Pageable pageable);
+
+    /**
+     * Lock a user row for a status change (SELECT ... FOR UPDATE)
+     * @param userId User ID
+     * @return Optional user row with its version
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT " + USER_ROW + " FROM User u WHERE u.userId = :userId")
+    Optional<UserRow> lockRowById(@Param("userId") Long userId);
+
+    /**
+     * Lock user rows by ID for a bulk status change, in primary-key order to avoid lock-order deadlocks
+     * @param userIds User IDs
+     * @return Course, status and version of every existing user
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new in.osop.lms_user_service.repository.projection.UserStatusKey(u.userId, u.courseName, u.status, u.version) "
+            + "FROM User u WHERE u.userId IN :userIds ORDER BY u.userId")
+    List<UserStatusKey> lockStatusKeysByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Lock the next users of a course that a bulk status change would modify, in primary-key order
+     * @param courseName Course name
+     * @param status Target status; users already in it are skipped
+     * @param currentStatus Only users currently in this status, or null for any
+     * @param afterUserId Keyset position (exclusive)
+     * @param limit Chunk size
+     * @return Course, status and version of the locked users
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new in.osop.lms_user_service.repository.projection.UserStatusKey(u.userId, u.courseName, u.status, u.version) "
+            + "FROM User u WHERE u.courseName = :courseName AND u.status <> :status "
+            + "AND (:currentStatus IS NULL OR u.status = :currentStatus) AND u.userId > :afterUserId ORDER BY u.userId")
+    List<UserStatusKey> lockStatusKeysByCourseName(@Param("courseName") String courseName,
+                                                   @Param("status") User.UserStatus status,
+                                                   @Param("currentStatus") User.UserStatus currentStatus,
+                                                   @Param("afterUserId") Long afterUserId,
+                                                   Limit limit);
+
+    /**
+     * Set the status of many users in one statement, bumping the @Version column like an entity update would
+     * Bypasses the persistence context, which is flushed before and cleared after the statement
+     * @param userIds User IDs
+     * @param status New status; users already in it are not touched
+     * @param updatedAt Update timestamp
+     * @return Number of rows changed
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.status = :status, u.version = COALESCE(u.version, 0) + 1, u.updatedAt = :updatedAt "
+            + "WHERE u.userId IN :userIds AND u.status <> :status")
+    int updateStatusByUserIdIn(@Param("userIds") Collection<Long> userIds,
+                               @Param("status") User.UserStatus status,
+                               @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Lock the next users of a course for a bulk delete, in primary-key order
+     * @param courseName Course name
+     * @param status Only users in this status, or null for any
+     * @param afterUserId Keyset position (exclusive)
+     * @param limit Chunk size
+     * @return Course, status and version of the locked users
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new in.osop.lms_user_service.repository.projection.UserStatusKey(u.userId, u.courseName, u.status, u.version) "
+            + "FROM User u WHERE u.courseName = :courseName AND (:status IS NULL OR u.status = :status) "
+            + "AND u.userId > :afterUserId ORDER BY u.userId")
+    List<UserStatusKey> lockStatusKeysByCourseNameAndStatus(@Param("courseName") String courseName,
+                                                            @Param("status") User.UserStatus status,
+                                                            @Param("afterUserId") Long afterUserId,
+                                                            Limit limit);
+
+    /**
+     * Delete many users in one statement
+     * @param userIds User IDs
+     * @return Number of rows deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM User u WHERE u.userId IN :userIds")
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Soft-delete many users in one statement; the rows stay until purged and keep their email and phone number reserved
+     * @param userIds User IDs
+     * @param deletedAt Deletion timestamp
+     * @return Number of rows marked deleted
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE User u SET u.deletedAt = :deletedAt, u.version = COALESCE(u.version, 0) + 1, u.updatedAt = :deletedAt "
+            + "WHERE u.userId IN :userIds")
+    int softDeleteByUserIdIn(@Param("userIds") Collection<Long> userIds,
+                             @Param("deletedAt") LocalDateTime deletedAt);
+
+    /**
+     * Find soft-deleted users due for purging
+     * Native because soft-deleted rows are invisible to entity queries; scans, as deleted_at is not indexed
+     * @param cutoff Deleted before this time
+     * @param limit Maximum number of IDs
+     * @return User IDs
+     */
+    @Query(value = "SELECT user_id FROM users WHERE deleted_at < :cutoff LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findSoftDeletedUserIdsBefore(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+
+    /**
+     * Permanently remove soft-deleted users
+     * @param userIds User IDs
+     * @return Number of rows removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM users WHERE user_id IN (:userIds) AND deleted_at IS NOT NULL", nativeQuery = true)
+    int purgeSoftDeletedByUserIdIn(@Param("userIds") Collection<Long> userIds);
+}
@@ -0,0 +1,9 @@
+package in.osop.lms_user_service.repository.projection;
+
+import in.osop.lms_user_service.entity.User;
+
+/**
+ * Number of users per (course, status) group
+ */
+public record CourseStatusCount(String courseName, User.UserStatus status, long count) {
+}
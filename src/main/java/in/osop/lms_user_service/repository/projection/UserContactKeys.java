@@ -0,0 +1,8 @@
+package in.osop.lms_user_service.repository.projection;
+
+/**
+ * Projection of the unique contact columns of a user
+ * Used for bulk scans that don't need the full entity
+ */
+public record UserContactKeys(String email, String phoneNumber) {
+}
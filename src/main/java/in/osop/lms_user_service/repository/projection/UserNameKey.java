@@ -0,0 +1,8 @@
+package in.osop.lms_user_service.repository.projection;
+
+/**
+ * Projection of a user's ID and full name
+ * Used to build the in-memory name search index
+ */
+public record UserNameKey(Long userId, String fullName) {
+}
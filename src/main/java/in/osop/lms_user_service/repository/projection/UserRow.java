@@ -0,0 +1,33 @@
+package in.osop.lms_user_service.repository.projection;
+
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a user's response fields plus the row version
+ * Read without hydrating a managed entity; the version lets the response cache order concurrent reads and writes
+ */
+public record UserRow(Long userId, String fullName, String phoneNumber, String email, String courseName,
+                      User.UserStatus status, LocalDateTime createdAt, LocalDateTime updatedAt, Long version) {
+
+    /**
+     * @param newStatus Status written by a conditional update
+     * @param newUpdatedAt Timestamp written with it
+     * @return The row as the update left it, one version later
+     */
+    public UserRow withStatus(User.UserStatus newStatus, LocalDateTime newUpdatedAt) {
+        return new UserRow(userId, fullName, phoneNumber, email, courseName, newStatus, createdAt, newUpdatedAt,
+                (version == null ? 0L : version) + 1);
+    }
+
+    public UserResponse toResponse() {
+        return new UserResponse(userId, fullName, phoneNumber, email, courseName, status, createdAt, updatedAt);
+    }
+
+    public VersionedUser toVersionedUser() {
+        return new VersionedUser(toResponse(), version == null ? 0L : version);
+    }
+}
@@ -0,0 +1,9 @@
+package in.osop.lms_user_service.repository.projection;
+
+import in.osop.lms_user_service.entity.User;
+
+/**
+ * ID, course, status and version of a user row, as locked before a bulk status change
+ */
+public record UserStatusKey(Long userId, String courseName, User.UserStatus status, Long version) {
+}
@@ -0,0 +1,333 @@
+package in.osop.lms_user_service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted trigram index over user names supporting substring and word-prefix search
+ *
+ * Each name is lower-cased, whitespace-collapsed and indexed as the trigrams of "  name ",
+ * plus a "  x" trigram for the first letter of every later word. Queries of three or more
+ * characters use their own trigrams (substring match); shorter queries use the padded
+ * word-start trigram (word-prefix match). Candidates from the posting list intersection are
+ * verified against the stored name, so results are exact. Every candidate is scored, so totals are
+ * exact and ranking is global; only the best offset + limit matches are kept while scanning.
+ *
+ * Documents are append-only: renames and deletes leave tombstones that are skipped at query
+ * time and dropped by rebuilding the index.
+ *
+ * A new index starts in loading mode: rows from the bulk scan go through {@link #load} and never
+ * override a user that a live write has already put or removed, since the scan may have read an
+ * older snapshot of that row.
+ */
+public class NameTrigramIndex {
+
+    private static final Comparator<Match> RANKING = Comparator.comparingInt(Match::score).reversed()
+            .thenComparingInt(Match::length)
+            .thenComparingLong(Match::userId);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> documentsByUserId = new HashMap<>();
+    private long[] userIds = new long[1024];
+    private String[] names = new String[1024];
+    private int documentCount;
+    private int deletedCount;
+    private Set<Long> writtenDuringLoad = new HashSet<>();
+
+    /**
+     * Index or re-index the name of a user
+     * @param userId User ID
+     * @param fullName Full name as stored
+     */
+    public void put(long userId, String fullName) {
+        String name = normalize(fullName);
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(userId);
+            }
+            index(userId, name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index a user read by the bulk scan, unless a live write has already touched it
+     * @param userId User ID
+     * @param fullName Full name as read by the scan
+     */
+    public void load(long userId, String fullName) {
+        String name = normalize(fullName);
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad == null || !writtenDuringLoad.contains(userId)) {
+                index(userId, name);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Leave loading mode once the bulk scan is complete
+     */
+    public void finishLoad() {
+        lock.writeLock().lock();
+        try {
+            writtenDuringLoad = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a user from the index
+     * @param userId User ID
+     */
+    public void remove(long userId) {
+        lock.writeLock().lock();
+        try {
+            if (writtenDuringLoad != null) {
+                writtenDuringLoad.add(userId);
+            }
+            Integer existing = documentsByUserId.remove(userId);
+            if (existing != null) {
+                tombstone(existing);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Search names by substring (or word prefix), ranked by match quality
+     * @param query Search text
+     * @param wordPrefixOnly Only match names where a word starts with the query
+     * @param offset Number of ranked matches to skip
+     * @param limit Maximum number of matches to return
+     * @return Ranked user IDs and the number of matches
+     */
+    public SearchResult search(String query, boolean wordPrefixOnly, int offset, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || limit <= 0) {
+            return new SearchResult(List.of(), 0);
+        }
+        int window = (int) Math.min(Integer.MAX_VALUE - 8, (long) offset + limit);
+        String wordNeedle = " " + needle;
+        long[] queryTrigrams = queryTrigrams(needle);
+
+        lock.readLock().lock();
+        try {
+            IntList[] lists = new IntList[queryTrigrams.length];
+            for (int i = 0; i < queryTrigrams.length; i++) {
+                lists[i] = postings.get(queryTrigrams[i]);
+                if (lists[i] == null) {
+                    return new SearchResult(List.of(), 0);
+                }
+            }
+            Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+
+            // Worst kept match at the head, so a better one can replace it
+            PriorityQueue<Match> best = new PriorityQueue<>(Math.min(window, 1024), RANKING.reversed());
+            int totalMatches = 0;
+            IntList smallest = lists[0];
+            for (int i = 0; i < smallest.size(); i++) {
+                int document = smallest.get(i);
+                if (userIds[document] == 0 || !inAll(lists, document)) {
+                    continue;
+                }
+                int score = score(names[document], needle, wordNeedle, wordPrefixOnly);
+                if (score < 0) {
+                    continue;
+                }
+                totalMatches++;
+                Match match = new Match(userIds[document], score, names[document].length());
+                if (best.size() < window) {
+                    best.add(match);
+                } else if (RANKING.compare(match, best.peek()) < 0) {
+                    best.poll();
+                    best.add(match);
+                }
+            }
+
+            List<Match> ranked = new ArrayList<>(best);
+            ranked.sort(RANKING);
+            List<Long> page = ranked.stream()
+                    .skip(offset)
+                    .map(Match::userId)
+                    .toList();
+            return new SearchResult(page, totalMatches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of live indexed users
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return Number of tombstoned documents still held by the index
+     */
+    public int deletedCount() {
+        lock.readLock().lock();
+        try {
+            return deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ranked user IDs for a page of search results
+     * @param userIds Matching user IDs, best match first
+     * @param totalMatches Number of matches in the whole index
+     */
+    public record SearchResult(List<Long> userIds, int totalMatches) {
+    }
+
+    private record Match(long userId, int score, int length) {
+    }
+
+    /**
+     * Rank a verified candidate: exact name, name prefix, word prefix, then plain substring
+     * @return Score, or -1 if the name does not match
+     */
+    private static int score(String name, String needle, String wordNeedle, boolean wordPrefixOnly) {
+        if (name.equals(needle)) {
+            return 3;
+        }
+        if (name.startsWith(needle)) {
+            return 2;
+        }
+        if (name.contains(wordNeedle)) {
+            return 1;
+        }
+        if (!wordPrefixOnly && needle.length() >= 3 && name.contains(needle)) {
+            return 0;
+        }
+        return -1;
+    }
+
+    private static boolean inAll(IntList[] lists, int document) {
+        for (int i = 1; i < lists.length; i++) {
+            if (!lists[i].contains(document)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(long userId, String name) {
+        Integer existing = documentsByUserId.get(userId);
+        if (existing != null) {
+            if (names[existing].equals(name)) {
+                return;
+            }
+            tombstone(existing);
+        }
+        int document = append(userId, name);
+        documentsByUserId.put(userId, document);
+        for (long trigram : documentTrigrams(name)) {
+            postings.computeIfAbsent(trigram, key -> new IntList()).add(document);
+        }
+    }
+
+    private int append(long userId, String name) {
+        if (documentCount == userIds.length) {
+            userIds = Arrays.copyOf(userIds, documentCount * 2);
+            names = Arrays.copyOf(names, documentCount * 2);
+        }
+        userIds[documentCount] = userId;
+        names[documentCount] = name;
+        return documentCount++;
+    }
+
+    private void tombstone(int document) {
+        userIds[document] = 0;
+        deletedCount++;
+    }
+
+    static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] documentTrigrams(String name) {
+        String padded = "  " + name + " ";
+        List<Long> trigrams = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(pack(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+        }
+        for (int i = 1; i < name.length(); i++) {
+            if (name.charAt(i - 1) == ' ') {
+                trigrams.add(pack(' ', ' ', name.charAt(i)));
+            }
+        }
+        return trigrams.stream().distinct().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long[] queryTrigrams(String needle) {
+        if (needle.length() == 1) {
+            return new long[] {pack(' ', ' ', needle.charAt(0))};
+        }
+        if (needle.length() == 2) {
+            return new long[] {pack(' ', needle.charAt(0), needle.charAt(1))};
+        }
+        long[] trigrams = new long[needle.length() - 2];
+        for (int i = 0; i < trigrams.length; i++) {
+            trigrams[i] = pack(needle.charAt(i), needle.charAt(i + 1), needle.charAt(i + 2));
+        }
+        return Arrays.stream(trigrams).distinct().toArray();
+    }
+
+    private static long pack(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    /**
+     * Growable, ascending list of document numbers
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean contains(int value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+    }
+}
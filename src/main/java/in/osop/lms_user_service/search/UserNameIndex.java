@@ -0,0 +1,187 @@
+package in.osop.lms_user_service.search;
+
+import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.repository.projection.UserNameKey;
+import in.osop.lms_user_service.util.TransactionHooks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Name search engine backed by an in-memory trigram index over users.full_name
+ * Built from a streaming scan after startup and kept current by the write paths; a UserNameSource bean
+ * replaces the scan of the primary users table
+ */
+@Component
+@Slf4j
+public class UserNameIndex {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserNameSource nameSource;
+    private final boolean enabled;
+    private final int maxResultWindow;
+    private final double tombstoneRebuildRatio;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile NameTrigramIndex current;
+    private volatile NameTrigramIndex building;
+
+    public UserNameIndex(UserRepository userRepository,
+                         TransactionTemplate transactionTemplate,
+                         ObjectProvider<UserNameSource> nameSource,
+                         @Value("${lms.name-search.enabled:true}") boolean enabled,
+                         @Value("${lms.name-search.max-result-window:10000}") int maxResultWindow,
+                         @Value("${lms.name-search.tombstone-rebuild-ratio:0.2}") double tombstoneRebuildRatio) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.nameSource = nameSource.getIfAvailable(() -> this::scanUsersTable);
+        this.enabled = enabled;
+        this.maxResultWindow = maxResultWindow;
+        this.tombstoneRebuildRatio = tombstoneRebuildRatio;
+    }
+
+    /**
+     * Build the index once the application has started
+     * Until then searches fall back to the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Compact the index once renames and deletes have left too many tombstones
+     */
+    @Scheduled(fixedDelayString = "${lms.name-search.rebuild-check-interval:PT10M}")
+    public void rebuildIfFragmented() {
+        NameTrigramIndex index = current;
+        if (enabled && index != null && index.deletedCount() > index.size() * tombstoneRebuildRatio) {
+            log.info("Rebuilding name index: {} live users, {} tombstones", index.size(), index.deletedCount());
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the index from a streaming scan of the users table (or the configured name source)
+     * Writes committed while the scan runs are applied to both the old and the new index
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long startedAt = System.currentTimeMillis();
+            NameTrigramIndex next = new NameTrigramIndex();
+            building = next;
+            try {
+                nameSource.forEachName(key -> next.load(key.userId(), key.fullName()));
+                next.finishLoad();
+                current = next;
+                log.info("Name index built with {} users in {} ms", next.size(), System.currentTimeMillis() - startedAt);
+            } catch (RuntimeException ex) {
+                log.error("Failed to build name index, name search will query the database", ex);
+            } finally {
+                building = null;
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * @return true once the index has been built and can answer searches
+     */
+    public boolean isReady() {
+        return current != null;
+    }
+
+    /**
+     * Index a user's name once the current transaction commits
+     * @param userId User ID
+     * @param fullName Full name
+     */
+    public void putAfterCommit(Long userId, String fullName) {
+        TransactionHooks.afterCommit(() -> apply(index -> index.put(userId, fullName)));
+    }
+
+    /**
+     * Remove a user once the current transaction commits
+     * @param userId User ID
+     */
+    public void removeAfterCommit(Long userId) {
+        TransactionHooks.afterCommit(() -> apply(index -> index.remove(userId)));
+    }
+
+    /**
+     * Remove users once the current transaction commits
+     * @param userIds User IDs
+     */
+    public void removeAfterCommit(Collection<Long> userIds) {
+        TransactionHooks.afterCommit(() -> apply(index -> userIds.forEach(index::remove)));
+    }
+
+    /**
+     * Ranked substring search
+     * @param query Search text
+     * @param offset Number of ranked matches to skip
+     * @param limit Maximum number of matches to return
+     * @return Ranked user IDs, or empty results when the index is not ready
+     * @throws IllegalArgumentException if the page reaches past the result window
+     */
+    public NameTrigramIndex.SearchResult search(String query, int offset, int limit) {
+        if ((long) offset + limit > maxResultWindow) {
+            throw new IllegalArgumentException(
+                    "Name search pages are limited to the first " + maxResultWindow + " matches; refine the query");
+        }
+        NameTrigramIndex index = current;
+        if (index == null) {
+            return new NameTrigramIndex.SearchResult(List.of(), 0);
+        }
+        return index.search(query, false, offset, limit);
+    }
+
+    /**
+     * Word-prefix search for autocomplete
+     * @param prefix Typed prefix
+     * @param limit Maximum number of matches to return
+     * @return Ranked user IDs, or empty results when the index is not ready
+     */
+    public NameTrigramIndex.SearchResult autocomplete(String prefix, int limit) {
+        NameTrigramIndex index = current;
+        if (index == null) {
+            return new NameTrigramIndex.SearchResult(List.of(), 0);
+        }
+        return index.search(prefix, true, 0, Math.min(limit, maxResultWindow));
+    }
+
+    private void scanUsersTable(Consumer<UserNameKey> action) {
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<UserNameKey> keys = userRepository.streamAllNameKeys()) {
+                keys.forEach(action);
+            }
+        });
+    }
+
+    private void apply(Consumer<NameTrigramIndex> change) {
+        NameTrigramIndex index = current;
+        if (index != null) {
+            change.accept(index);
+        }
+        NameTrigramIndex pending = building;
+        if (pending != null) {
+            change.accept(pending);
+        }
+    }
+}
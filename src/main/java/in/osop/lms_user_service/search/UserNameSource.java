@@ -0,0 +1,20 @@
+package in.osop.lms_user_service.search;
+
+import in.osop.lms_user_service.repository.projection.UserNameKey;
+
+import java.util.function.Consumer;
+
+/**
+ * Where the name index reads every user's name from when it is (re)built
+ * Define a bean of this type to replace the scan of the primary users table, e.g. with sharded storage
+ */
+@FunctionalInterface
+public interface UserNameSource {
+
+    /**
+     * Visit the ID and name of every live user
+     * May call the action from several threads at once
+     * @param action Called once per user
+     */
+    void forEachName(Consumer<UserNameKey> action);
+}
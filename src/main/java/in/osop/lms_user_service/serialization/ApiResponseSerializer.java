@@ -0,0 +1,47 @@
+package in.osop.lms_user_service.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import in.osop.lms_user_service.dto.ApiResponse;
+
+import java.io.IOException;
+
+/**
+ * Writes the ApiResponse envelope directly; the data payload goes through the serializer registered for its type
+ */
+@SuppressWarnings("rawtypes")
+public class ApiResponseSerializer extends StdSerializer<ApiResponse> {
+
+    private static final SerializableString SUCCESS = new SerializedString("success");
+    private static final SerializableString MESSAGE = new SerializedString("message");
+    private static final SerializableString DATA = new SerializedString("data");
+    private static final SerializableString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializableString PATH = new SerializedString("path");
+
+    public ApiResponseSerializer() {
+        super(ApiResponse.class);
+    }
+
+    @Override
+    public void serialize(ApiResponse response, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(response);
+        gen.writeFieldName(SUCCESS);
+        gen.writeBoolean(response.isSuccess());
+        gen.writeFieldName(MESSAGE);
+        gen.writeString(response.getMessage());
+        gen.writeFieldName(DATA);
+        if (response.getData() == null) {
+            gen.writeNull();
+        } else {
+            provider.defaultSerializeValue(response.getData(), gen);
+        }
+        gen.writeFieldName(TIMESTAMP);
+        JsonTimestamps.write(response.getTimestamp(), gen, provider);
+        gen.writeFieldName(PATH);
+        gen.writeString(response.getPath());
+        gen.writeEndObject();
+    }
+}
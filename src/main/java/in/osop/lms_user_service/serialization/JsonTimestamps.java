@@ -0,0 +1,100 @@
+package in.osop.lms_user_service.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+
+/**
+ * Writes LocalDateTime values in the ISO_LOCAL_DATE_TIME form Jackson's JavaTimeModule produces
+ * The "yyyy-MM-ddTHH:mm:ss" prefix of the latest second written is cached, which covers the
+ * ApiResponse timestamp of every response issued within the same second
+ */
+final class JsonTimestamps {
+
+    private static final int PREFIX_LENGTH = 19;
+
+    private static volatile CachedPrefix lastPrefix = new CachedPrefix(Long.MIN_VALUE, new char[PREFIX_LENGTH]);
+
+    private JsonTimestamps() {
+    }
+
+    /**
+     * Falls back to the mapper's own LocalDateTime serializer when dates are configured as numeric timestamps
+     * @param value Timestamp to write, may be null
+     * @param gen Generator positioned where the value goes
+     * @param provider Provider of the calling serializer
+     */
+    static void write(LocalDateTime value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (value == null) {
+            gen.writeNull();
+            return;
+        }
+        if (provider.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)) {
+            provider.defaultSerializeValue(value, gen);
+            return;
+        }
+        int year = value.getYear();
+        if (year < 0 || year > 9999) {
+            gen.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(value));
+            return;
+        }
+        char[] buffer = new char[PREFIX_LENGTH + 10];
+        long second = value.toLocalDate().toEpochDay() * 86_400L + value.toLocalTime().toSecondOfDay();
+        CachedPrefix cached = lastPrefix;
+        if (cached.second() == second) {
+            System.arraycopy(cached.chars(), 0, buffer, 0, PREFIX_LENGTH);
+        } else {
+            formatPrefix(value, buffer);
+            // Only moves forward, so older createdAt/updatedAt values do not evict the current second
+            if (second > cached.second()) {
+                lastPrefix = new CachedPrefix(second, Arrays.copyOf(buffer, PREFIX_LENGTH));
+            }
+        }
+        int length = appendFraction(value.getNano(), buffer);
+        gen.writeString(buffer, 0, length);
+    }
+
+    private static void formatPrefix(LocalDateTime value, char[] chars) {
+        digits(value.getYear(), 4, chars, 0);
+        chars[4] = '-';
+        digits(value.getMonthValue(), 2, chars, 5);
+        chars[7] = '-';
+        digits(value.getDayOfMonth(), 2, chars, 8);
+        chars[10] = 'T';
+        digits(value.getHour(), 2, chars, 11);
+        chars[13] = ':';
+        digits(value.getMinute(), 2, chars, 14);
+        chars[16] = ':';
+        digits(value.getSecond(), 2, chars, 17);
+    }
+
+    // Same as appendFraction(NANO_OF_SECOND, 0, 9, true): omitted when zero, trailing zeros dropped
+    private static int appendFraction(int nano, char[] buffer) {
+        if (nano == 0) {
+            return PREFIX_LENGTH;
+        }
+        int digits = 9;
+        while (nano % 10 == 0) {
+            nano /= 10;
+            digits--;
+        }
+        buffer[PREFIX_LENGTH] = '.';
+        digits(nano, digits, buffer, PREFIX_LENGTH + 1);
+        return PREFIX_LENGTH + 1 + digits;
+    }
+
+    private static void digits(int value, int width, char[] buffer, int offset) {
+        for (int i = offset + width - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private record CachedPrefix(long second, char[] chars) {
+    }
+}
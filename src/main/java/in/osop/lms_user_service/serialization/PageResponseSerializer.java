@@ -0,0 +1,71 @@
+package in.osop.lms_user_service.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import in.osop.lms_user_service.dto.PageResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the page envelope directly; the content serializer is resolved once per page, not per element
+ */
+@SuppressWarnings("rawtypes")
+public class PageResponseSerializer extends StdSerializer<PageResponse> {
+
+    private static final SerializableString CONTENT = new SerializedString("content");
+    private static final SerializableString PAGE = new SerializedString("page");
+    private static final SerializableString SIZE = new SerializedString("size");
+    private static final SerializableString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializableString TOTAL_PAGES = new SerializedString("totalPages");
+    private static final SerializableString HAS_NEXT = new SerializedString("hasNext");
+
+    public PageResponseSerializer() {
+        super(PageResponse.class);
+    }
+
+    @Override
+    public void serialize(PageResponse page, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(page);
+        gen.writeFieldName(CONTENT);
+        writeContent(page.getContent(), gen, provider);
+        gen.writeFieldName(PAGE);
+        gen.writeNumber(page.getPage());
+        gen.writeFieldName(SIZE);
+        gen.writeNumber(page.getSize());
+        gen.writeFieldName(TOTAL_ELEMENTS);
+        gen.writeNumber(page.getTotalElements());
+        gen.writeFieldName(TOTAL_PAGES);
+        gen.writeNumber(page.getTotalPages());
+        gen.writeFieldName(HAS_NEXT);
+        gen.writeBoolean(page.isHasNext());
+        gen.writeEndObject();
+    }
+
+    private static void writeContent(List<?> content, JsonGenerator gen, SerializerProvider provider)
+            throws IOException {
+        if (content == null) {
+            gen.writeNull();
+            return;
+        }
+        gen.writeStartArray(content, content.size());
+        Class<?> elementType = null;
+        JsonSerializer<Object> elementSerializer = null;
+        for (Object element : content) {
+            if (element == null) {
+                gen.writeNull();
+                continue;
+            }
+            if (element.getClass() != elementType) {
+                elementType = element.getClass();
+                elementSerializer = provider.findTypedValueSerializer(elementType, true, null);
+            }
+            elementSerializer.serialize(element, gen, provider);
+        }
+        gen.writeEndArray();
+    }
+}
@@ -0,0 +1,55 @@
+package in.osop.lms_user_service.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import in.osop.lms_user_service.dto.UserResponse;
+
+import java.io.IOException;
+
+/**
+ * Writes UserResponse field by field, in the order and form of the reflective bean serializer
+ */
+public class UserResponseSerializer extends StdSerializer<UserResponse> {
+
+    private static final SerializableString USER_ID = new SerializedString("userId");
+    private static final SerializableString FULL_NAME = new SerializedString("fullName");
+    private static final SerializableString PHONE_NUMBER = new SerializedString("phoneNumber");
+    private static final SerializableString EMAIL = new SerializedString("email");
+    private static final SerializableString COURSE_NAME = new SerializedString("courseName");
+    private static final SerializableString STATUS = new SerializedString("status");
+    private static final SerializableString CREATED_AT = new SerializedString("createdAt");
+    private static final SerializableString UPDATED_AT = new SerializedString("updatedAt");
+
+    public UserResponseSerializer() {
+        super(UserResponse.class);
+    }
+
+    @Override
+    public void serialize(UserResponse user, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject(user);
+        gen.writeFieldName(USER_ID);
+        if (user.getUserId() == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(user.getUserId());
+        }
+        gen.writeFieldName(FULL_NAME);
+        gen.writeString(user.getFullName());
+        gen.writeFieldName(PHONE_NUMBER);
+        gen.writeString(user.getPhoneNumber());
+        gen.writeFieldName(EMAIL);
+        gen.writeString(user.getEmail());
+        gen.writeFieldName(COURSE_NAME);
+        gen.writeString(user.getCourseName());
+        gen.writeFieldName(STATUS);
+        gen.writeString(user.getStatus() == null ? null : user.getStatus().name());
+        gen.writeFieldName(CREATED_AT);
+        JsonTimestamps.write(user.getCreatedAt(), gen, provider);
+        gen.writeFieldName(UPDATED_AT);
+        JsonTimestamps.write(user.getUpdatedAt(), gen, provider);
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,29 @@
+package in.osop.lms_user_service.service;
+
+import in.osop.lms_user_service.dto.QueuedRegistrationResponse;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+
+/**
+ * Service interface for asynchronous (write-behind) registration
+ */
+public interface RegistrationQueueService {
+
+    /**
+     * @return Whether POST /api/v1/users registers through the queue
+     */
+    boolean isEnabled();
+
+    /**
+     * Reserve the email and phone number, persist the registration and queue it for the background writer
+     * @param request User registration request
+     * @return Queued registration with its tracking ID
+     */
+    QueuedRegistrationResponse enqueue(UserRegistrationRequest request);
+
+    /**
+     * Get the status of a queued registration
+     * @param trackingId Tracking ID returned by enqueue
+     * @return Queued registration status
+     */
+    QueuedRegistrationResponse getStatus(String trackingId);
+}
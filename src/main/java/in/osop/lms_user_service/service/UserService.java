@@ -1,11 +1,24 @@
 package in.osop.lms_user_service.service;
 
+import in.osop.lms_user_service.dto.BatchRegistrationResponse;
+import in.osop.lms_user_service.dto.BulkDeleteRequest;
+import in.osop.lms_user_service.dto.BulkDeleteResponse;
+import in.osop.lms_user_service.dto.BulkStatusUpdateRequest;
+import in.osop.lms_user_service.dto.BulkStatusUpdateResponse;
+import in.osop.lms_user_service.dto.CursorSlice;
+import in.osop.lms_user_service.dto.ExportFormat;
+import in.osop.lms_user_service.dto.UserLookupRequest;
+import in.osop.lms_user_service.dto.UserLookupResponse;
 import in.osop.lms_user_service.dto.UserRegistrationRequest;
 import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
 import in.osop.lms_user_service.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 /**
@@ -21,19 +34,34 @@ public interface UserService {
      */
     UserResponse registerUser(UserRegistrationRequest request);
 
+    /**
+     * Register a batch of users in a single transaction
+     * Items that conflict with existing users or earlier items of the batch are skipped
+     * @param requests User registration requests
+     * @return Per-item success or conflict results
+     */
+    BatchRegistrationResponse registerUsers(List<UserRegistrationRequest> requests);
+
     /**
      * Get user by ID
      * @param userId User ID
-     * @return UserResponse
+     * @return UserResponse with its version
      */
-    UserResponse getUserById(Long userId);
+    VersionedUser getUserById(Long userId);
 
     /**
      * Get user by email
      * @param email User email
-     * @return UserResponse
+     * @return UserResponse with its version
+     */
+    VersionedUser getUserByEmail(String email);
+
+    /**
+     * Resolve many users by ID, email and/or phone number at once
+     * @param request Keys to look up
+     * @return Found users keyed by input, plus the keys that matched no user
      */
-    UserResponse getUserByEmail(String email);
+    UserLookupResponse lookupUsers(UserLookupRequest request);
 
     /**
      * Get all users with pagination
@@ -42,6 +70,15 @@ public interface UserService {
      */
     Page<UserResponse> getAllUsers(Pageable pageable);
 
+    /**
+     * Get all users with keyset pagination on (createdAt, userId)
+     * @param cursor Cursor returned with the previous slice, or null for the first slice
+     * @param size Maximum number of users to return
+     * @param direction Sort direction for the first slice; later slices keep the cursor's direction
+     * @return Slice of UserResponse with the next cursor
+     */
+    CursorSlice<UserResponse> getAllUsers(String cursor, int size, Sort.Direction direction);
+
     /**
      * Get users by course name
      * @param courseName Course name
@@ -57,28 +94,75 @@ public interface UserService {
      */
     Page<UserResponse> getUsersByCourse(String courseName, Pageable pageable);
 
+    /**
+     * Get users by course name with keyset pagination on (createdAt, userId)
+     * @param courseName Course name
+     * @param cursor Cursor returned with the previous slice, or null for the first slice
+     * @param size Maximum number of users to return
+     * @param direction Sort direction for the first slice; later slices keep the cursor's direction
+     * @return Slice of UserResponse with the next cursor
+     */
+    CursorSlice<UserResponse> getUsersByCourse(String courseName, String cursor, int size, Sort.Direction direction);
+
+    /**
+     * Stream the roster of a course to an output stream
+     * Users are read and written one at a time, so memory use does not grow with the course size
+     * @param courseName Course name
+     * @param format Output format
+     * @param outputStream Destination of the export
+     * @return Number of users written
+     * @throws IOException if writing to the output stream fails
+     */
+    long exportUsersByCourse(String courseName, ExportFormat format, OutputStream outputStream) throws IOException;
+
     /**
      * Search users by name
      * @param name Full name or part of it
-     * @return List of UserResponse
+     * @return Best matching users, at most 100
      */
     List<UserResponse> searchUsersByName(String name);
 
+    /**
+     * Search users by name with ranked, paginated results
+     * Exact matches rank first, then name prefixes, word prefixes and other substrings
+     * @param name Full name or part of it
+     * @param pageable Pagination information (sort is ignored; results are ranked)
+     * @return Page of UserResponse
+     */
+    Page<UserResponse> searchUsersByName(String name, Pageable pageable);
+
+    /**
+     * Autocomplete users whose name has a word starting with the prefix
+     * @param prefix Typed prefix
+     * @param limit Maximum number of suggestions
+     * @return Best matching users
+     */
+    List<UserResponse> autocompleteUsersByName(String prefix, int limit);
+
     /**
      * Update user information
      * @param userId User ID
      * @param request Updated user information
-     * @return UserResponse with updated details
+     * @param expectedVersion Version the caller last read (from If-Match), or null for an unconditional update
+     * @return UserResponse with updated details and the new version
      */
-    UserResponse updateUser(Long userId, UserRegistrationRequest request);
+    VersionedUser updateUser(Long userId, UserRegistrationRequest request, Long expectedVersion);
 
     /**
      * Update user status
      * @param userId User ID
      * @param status New status
-     * @return UserResponse with updated status
+     * @param expectedVersion Version the caller last read (from If-Match), or null for an unconditional update
+     * @return UserResponse with updated status and the new version
+     */
+    VersionedUser updateUserStatus(Long userId, User.UserStatus status, Long expectedVersion);
+
+    /**
+     * Change the status of many users, committing chunk by chunk
+     * @param request User IDs or a course filter, the new status and an optional current-status condition
+     * @return Affected-row counts
      */
-    UserResponse updateUserStatus(Long userId, User.UserStatus status);
+    BulkStatusUpdateResponse updateUsersStatus(BulkStatusUpdateRequest request);
 
     /**
      * Delete user by ID
@@ -86,6 +170,14 @@ public interface UserService {
      */
     void deleteUser(Long userId);
 
+    /**
+     * Delete many users, committing chunk by chunk
+     * Soft-deletes instead when lms.soft-delete.enabled is set
+     * @param request User IDs or a course filter, and an optional status condition
+     * @return Affected-row counts
+     */
+    BulkDeleteResponse deleteUsers(BulkDeleteRequest request);
+
     /**
      * Check if user exists by email
      * @param email User email
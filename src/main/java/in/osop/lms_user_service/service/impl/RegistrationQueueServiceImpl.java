@@ -0,0 +1,384 @@
+package in.osop.lms_user_service.service.impl;
+
+import in.osop.lms_user_service.dto.BatchRegistrationResponse;
+import in.osop.lms_user_service.dto.QueuedRegistrationResponse;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.entity.QueuedRegistration;
+import in.osop.lms_user_service.exception.DuplicateResourceException;
+import in.osop.lms_user_service.exception.ResourceNotFoundException;
+import in.osop.lms_user_service.exception.ServiceBusyException;
+import in.osop.lms_user_service.repository.QueuedRegistrationRepository;
+import in.osop.lms_user_service.service.RegistrationQueueService;
+import in.osop.lms_user_service.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind registration: requests are reserved in memory and persisted to registration_queue,
+ * then inserted into users by one background writer in batches
+ *
+ * A permit is held from enqueue until the writer has completed the registration, which bounds the
+ * registrations held in memory; without a permit the request is shed with 503.
+ *
+ * Each instance claims the rows it holds in memory (claimed_by, claimed_at) and renews the claims on every
+ * recovery run. Rows whose claim has lapsed for longer than the lease (left by a crash, or queued before
+ * claims existed) are claimed and picked up again by recover(); rows other live instances hold are left alone.
+ * An instance with a stable lms.registration-queue.instance-id takes back the rows it claimed before it
+ * restarted on its first recovery run, without waiting for the lease.
+ */
+@Service
+@Slf4j
+public class RegistrationQueueServiceImpl implements RegistrationQueueService {
+
+    private final QueuedRegistrationRepository queueRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration lease;
+    private final Duration retention;
+    private final String instanceId;
+    // Claims this instance made before this time belong to an earlier run of it; truncated to the column precision
+    private final LocalDateTime startedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    private final Semaphore permits;
+    private final BlockingQueue<Pending> queue;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Map<String, String> reservedEmails = new ConcurrentHashMap<>();
+    private final Map<String, String> reservedPhoneNumbers = new ConcurrentHashMap<>();
+    private final Counter rejected;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public RegistrationQueueServiceImpl(QueuedRegistrationRepository queueRepository,
+                                        UserService userService,
+                                        TransactionTemplate transactionTemplate,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${lms.registration-queue.enabled:false}") boolean enabled,
+                                        @Value("${lms.registration-queue.capacity:10000}") int capacity,
+                                        @Value("${lms.registration-queue.batch-size:200}") int batchSize,
+                                        @Value("${lms.registration-queue.recovery-interval:PT30S}") Duration recoveryInterval,
+                                        @Value("${lms.registration-queue.lease:PT2M}") Duration lease,
+                                        @Value("${lms.registration-queue.retention:P1D}") Duration retention,
+                                        @Value("${lms.registration-queue.instance-id:}") String instanceId) {
+        // Claims are renewed once per recovery interval, so a shorter lease would lapse on live instances
+        if (lease.compareTo(recoveryInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("lms.registration-queue.lease must be at least twice "
+                    + "lms.registration-queue.recovery-interval");
+        }
+        this.queueRepository = queueRepository;
+        this.userService = userService;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.lease = lease;
+        this.retention = retention;
+        this.instanceId = instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        this.permits = new Semaphore(capacity);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.rejected = Counter.builder("users.registration.queue.rejected")
+                .description("Registrations shed with 503 because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("users.registration.queue.pending", pending, Map::size)
+                .description("Accepted registrations the writer has not completed yet")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public QueuedRegistrationResponse enqueue(UserRegistrationRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException("The registration queue is disabled");
+        }
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many registrations in progress. Please retry shortly.");
+        }
+
+        Pending entry = new Pending(UUID.randomUUID().toString(),
+                request.getEmail().toLowerCase().trim(), request.getPhoneNumber().trim());
+        boolean queued = false;
+        try {
+            reserve(entry);
+            LocalDateTime now = LocalDateTime.now();
+            QueuedRegistration registration = queueRepository.save(QueuedRegistration.builder()
+                    .trackingId(entry.trackingId())
+                    .fullName(request.getFullName().trim())
+                    .phoneNumber(entry.phoneNumber())
+                    .email(entry.email())
+                    .courseName(request.getCourseName().trim())
+                    .status(QueuedRegistration.Status.QUEUED)
+                    .enqueuedAt(now)
+                    .claimedBy(instanceId)
+                    .claimedAt(now)
+                    .build());
+            pending.put(entry.trackingId(), entry);
+            queue.add(entry);
+            queued = true;
+            log.debug("Queued registration {} for email: {}", entry.trackingId(), entry.email());
+            return QueuedRegistrationResponse.fromEntity(registration);
+        } finally {
+            if (!queued) {
+                release(entry);
+            }
+        }
+    }
+
+    @Override
+    public QueuedRegistrationResponse getStatus(String trackingId) {
+        return queueRepository.findById(trackingId)
+                .map(QueuedRegistrationResponse::fromEntity)
+                .orElseThrow(() -> new ResourceNotFoundException("Registration not found with tracking ID: " + trackingId));
+    }
+
+    /**
+     * Start the background writer once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        writer = Thread.ofPlatform().name("registration-writer").daemon().start(this::drain);
+    }
+
+    /**
+     * Stop the writer after its current batch; registrations still queued stay in registration_queue
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (writer != null) {
+            writer.join(Duration.ofSeconds(10));
+        }
+    }
+
+    /**
+     * Renew the claims on the registrations this instance holds, then claim and queue again the registrations
+     * whose claim has lapsed for longer than the lease, e.g. after another instance crashed, and those this
+     * instance claimed before it restarted
+     * @return Number of registrations recovered
+     */
+    @Scheduled(fixedDelayString = "${lms.registration-queue.recovery-interval:PT30S}")
+    public int recover() {
+        if (!enabled) {
+            return 0;
+        }
+        renewClaims();
+
+        int free = permits.availablePermits();
+        if (free == 0) {
+            return 0;
+        }
+        int recovered = 0;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime lapsedBefore = now.minus(lease);
+            List<QueuedRegistration> abandoned = queueRepository.findClaimableBefore(
+                    QueuedRegistration.Status.QUEUED, lapsedBefore, instanceId, startedAt, Limit.of(free));
+            for (QueuedRegistration registration : abandoned) {
+                if (pending.containsKey(registration.getTrackingId()) || !permits.tryAcquire()) {
+                    continue;
+                }
+                Integer claimed = transactionTemplate.execute(tx -> queueRepository.claim(registration.getTrackingId(),
+                        QueuedRegistration.Status.QUEUED, instanceId, now, lapsedBefore, startedAt));
+                if (claimed == null || claimed == 0) {
+                    // Another instance claimed it first
+                    permits.release();
+                    continue;
+                }
+                Pending entry = new Pending(registration.getTrackingId(),
+                        registration.getEmail(), registration.getPhoneNumber());
+                // Conflicts between recovered rows are left to the writer's batch checks
+                reservedEmails.putIfAbsent(entry.email(), entry.trackingId());
+                reservedPhoneNumbers.putIfAbsent(entry.phoneNumber(), entry.trackingId());
+                pending.put(entry.trackingId(), entry);
+                queue.add(entry);
+                recovered++;
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to recover queued registrations after {} recovered", recovered, ex);
+        }
+
+        if (recovered > 0) {
+            log.info("Recovered {} queued registrations", recovered);
+        }
+        return recovered;
+    }
+
+    /**
+     * Delete completed registrations once their retention period has passed
+     * @return Number of rows deleted
+     */
+    @Scheduled(fixedDelayString = "${lms.registration-queue.purge-interval:PT1H}",
+               initialDelayString = "${lms.registration-queue.purge-interval:PT1H}")
+    public int purgeCompleted() {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        try {
+            Integer deleted = transactionTemplate.execute(tx ->
+                    queueRepository.deleteCompletedBefore(QueuedRegistration.Status.QUEUED, cutoff));
+            return deleted == null ? 0 : deleted;
+        } catch (RuntimeException ex) {
+            log.error("Failed to purge completed registrations before {}", cutoff, ex);
+            return 0;
+        }
+    }
+
+    private void renewClaims() {
+        List<String> held = List.copyOf(pending.keySet());
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (int from = 0; from < held.size(); from += batchSize) {
+                List<String> chunk = held.subList(from, Math.min(from + batchSize, held.size()));
+                transactionTemplate.executeWithoutResult(tx -> queueRepository.renewClaims(
+                        chunk, QueuedRegistration.Status.QUEUED, instanceId, now));
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to renew claims on {} queued registrations", held.size(), ex);
+        }
+    }
+
+    private void reserve(Pending entry) {
+        if (reservedEmails.putIfAbsent(entry.email(), entry.trackingId()) != null) {
+            throw new DuplicateResourceException("A registration with email " + entry.email() + " is already queued");
+        }
+        if (reservedPhoneNumbers.putIfAbsent(entry.phoneNumber(), entry.trackingId()) != null) {
+            throw new DuplicateResourceException(
+                    "A registration with phone number " + entry.phoneNumber() + " is already queued");
+        }
+        // Answered by the existence filter unless the value may already be registered
+        if (userService.existsByEmail(entry.email())) {
+            throw new DuplicateResourceException("User with email " + entry.email() + " already exists");
+        }
+        if (userService.existsByPhoneNumber(entry.phoneNumber())) {
+            throw new DuplicateResourceException("User with phone number " + entry.phoneNumber() + " already exists");
+        }
+    }
+
+    private void release(Pending entry) {
+        reservedEmails.remove(entry.email(), entry.trackingId());
+        reservedPhoneNumbers.remove(entry.phoneNumber(), entry.trackingId());
+        pending.remove(entry.trackingId());
+        permits.release();
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Pending first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // A failed batch is retried item by item, so one bad registration cannot hold back the others
+    private void write(List<Pending> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> register(trackingIds(batch)));
+        } catch (RuntimeException ex) {
+            log.warn("Registration batch of {} failed, writing one by one: {}", batch.size(), ex.getMessage());
+            for (Pending entry : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(tx -> register(List.of(entry.trackingId())));
+                } catch (RuntimeException itemEx) {
+                    log.error("Queued registration {} failed", entry.trackingId(), itemEx);
+                    reject(entry.trackingId());
+                }
+            }
+        } finally {
+            batch.forEach(this::release);
+        }
+    }
+
+    private void register(List<String> trackingIds) {
+        // Rows another instance claimed after this instance's claim lapsed are now that instance's to write
+        List<QueuedRegistration> registrations = queueRepository
+                .lockByTrackingIdInAndStatus(trackingIds, QueuedRegistration.Status.QUEUED).stream()
+                .filter(registration -> instanceId.equals(registration.getClaimedBy()))
+                .toList();
+        if (registrations.isEmpty()) {
+            return;
+        }
+
+        BatchRegistrationResponse result = userService.registerUsers(
+                registrations.stream().map(QueuedRegistration::toRequest).toList());
+        LocalDateTime completedAt = LocalDateTime.now();
+        for (BatchRegistrationResponse.Item item : result.getResults()) {
+            QueuedRegistration registration = registrations.get(item.getIndex());
+            boolean created = item.getOutcome() == BatchRegistrationResponse.Outcome.CREATED;
+            registration.setStatus(created ? QueuedRegistration.Status.CREATED : QueuedRegistration.Status.REJECTED);
+            registration.setUserId(created ? item.getUser().getUserId() : null);
+            registration.setMessage(item.getMessage());
+            registration.setCompletedAt(completedAt);
+        }
+        log.info("Wrote {} queued registrations: {} created, {} rejected",
+                registrations.size(), result.getCreated(), result.getConflicts());
+    }
+
+    // Left QUEUED for recovery if even this fails (e.g. the database is down)
+    private void reject(String trackingId) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> queueRepository
+                    .lockByTrackingIdInAndStatus(List.of(trackingId), QueuedRegistration.Status.QUEUED).stream()
+                    .filter(registration -> instanceId.equals(registration.getClaimedBy()))
+                    .forEach(registration -> {
+                        registration.setStatus(QueuedRegistration.Status.REJECTED);
+                        registration.setMessage("Registration could not be completed. Please register again.");
+                        registration.setCompletedAt(LocalDateTime.now());
+                    }));
+        } catch (RuntimeException ex) {
+            log.error("Failed to reject queued registration {}", trackingId, ex);
+        }
+    }
+
+    private static List<String> trackingIds(List<Pending> batch) {
+        return batch.stream().map(Pending::trackingId).toList();
+    }
+
+    private record Pending(String trackingId, String email, String phoneNumber) {
+    }
+}
@@ -0,0 +1,851 @@
+package in.osop.lms_user_service.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.coalescing.LookupCoalescer;
+import in.osop.lms_user_service.dto.BatchRegistrationResponse;
+import in.osop.lms_user_service.dto.BulkDeleteRequest;
+import in.osop.lms_user_service.dto.BulkDeleteResponse;
+import in.osop.lms_user_service.dto.BulkStatusUpdateRequest;
+import in.osop.lms_user_service.dto.BulkStatusUpdateResponse;
+import in.osop.lms_user_service.dto.CursorSlice;
+import in.osop.lms_user_service.dto.ExportFormat;
+import in.osop.lms_user_service.dto.UserCursor;
+import in.osop.lms_user_service.dto.UserLookupRequest;
+import in.osop.lms_user_service.dto.UserLookupResponse;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.exception.DuplicateResourceException;
+import in.osop.lms_user_service.exception.PreconditionFailedException;
+import in.osop.lms_user_service.exception.ResourceNotFoundException;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import in.osop.lms_user_service.search.NameTrigramIndex;
+import in.osop.lms_user_service.search.UserNameIndex;
+import in.osop.lms_user_service.service.UserService;
+import in.osop.lms_user_service.sharding.ShardRouter;
+import in.osop.lms_user_service.sharding.ShardedUserStore;
+import in.osop.lms_user_service.sharding.UserShardDirectory;
+import in.osop.lms_user_service.util.TransactionHooks;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToIntBiFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * UserService over hash-sharded storage, used instead of UserServiceImpl when lms.sharding.enabled=true
+ * Users are placed by the hash of their email; the shard directory on the primary resolves IDs and phone numbers.
+ * Writes span the directory and one or two shards without a distributed transaction: the directory is written
+ * first and rolled back by hand when the shard write fails. Keyset pages are merged from every shard by
+ * (createdAt, userId), name search uses one in-memory index loaded from all shards, and bulk changes lock and
+ * write chunk by chunk in a transaction per shard. The user cache, existence filter, counters, soft deletes and the
+ * change outbox are not implemented; ShardingConfig refuses to start with any of them enabled.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "lms.sharding.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+@Timed("lms.user.service")
+public class ShardedUserServiceImpl implements UserService {
+
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_AUTOCOMPLETE_RESULTS = 20;
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
+    private final ShardedUserStore store;
+    private final ShardRouter router;
+    private final UserShardDirectory directory;
+    private final ObjectMapper objectMapper;
+    private final LookupCoalescer lookupCoalescer;
+    private final UserNameIndex nameIndex;
+
+    @Value("${lms.bulk-write.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Override
+    public UserResponse registerUser(UserRegistrationRequest request) {
+        log.info("Registering new user with email: {}", request.getEmail());
+
+        String email = request.getEmail().toLowerCase().trim();
+        String phoneNumber = request.getPhoneNumber().trim();
+        if (directory.existsByEmail(email)) {
+            log.warn("Attempt to register user with existing email: {}", request.getEmail());
+            throw new DuplicateResourceException("User with email " + request.getEmail() + " already exists");
+        }
+        if (directory.existsByPhoneNumber(phoneNumber)) {
+            log.warn("Attempt to register user with existing phone number: {}", request.getPhoneNumber());
+            throw new DuplicateResourceException("User with phone number " + request.getPhoneNumber() + " already exists");
+        }
+
+        int shard = router.shardOf(email);
+        User user = newUser(directory.register(email, phoneNumber, shard), request, email, phoneNumber);
+        insertOrUnregister(Map.of(shard, List.of(user)));
+        nameIndex.putAfterCommit(user.getUserId(), user.getFullName());
+        log.info("Successfully registered user with ID: {} and email: {} on shard {}", user.getUserId(), email, shard);
+
+        return UserResponse.fromEntity(user);
+    }
+
+    @Override
+    public BatchRegistrationResponse registerUsers(List<UserRegistrationRequest> requests) {
+        log.info("Registering batch of {} users", requests.size());
+
+        List<String> emails = requests.stream()
+                .map(request -> request.getEmail().toLowerCase().trim())
+                .collect(Collectors.toList());
+        List<String> phoneNumbers = requests.stream()
+                .map(request -> request.getPhoneNumber().trim())
+                .collect(Collectors.toList());
+        Set<String> existingEmails = directory.findExistingEmails(new HashSet<>(emails));
+        Set<String> existingPhoneNumbers = directory.findExistingPhoneNumbers(new HashSet<>(phoneNumbers));
+
+        Set<String> batchEmails = new HashSet<>();
+        Set<String> batchPhoneNumbers = new HashSet<>();
+        BatchRegistrationResponse.Item[] results = new BatchRegistrationResponse.Item[requests.size()];
+        Map<Integer, List<User>> newUsersByShard = new TreeMap<>();
+        Map<Long, Integer> indexesById = new HashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            String email = emails.get(i);
+            String phoneNumber = phoneNumbers.get(i);
+
+            String conflict = null;
+            if (existingEmails.contains(email)) {
+                conflict = "User with email " + email + " already exists";
+            } else if (existingPhoneNumbers.contains(phoneNumber)) {
+                conflict = "User with phone number " + phoneNumber + " already exists";
+            } else if (batchEmails.contains(email)) {
+                conflict = "Email " + email + " appears more than once in the batch";
+            } else if (batchPhoneNumbers.contains(phoneNumber)) {
+                conflict = "Phone number " + phoneNumber + " appears more than once in the batch";
+            }
+
+            int shard = router.shardOf(email);
+            Long userId = null;
+            if (conflict == null) {
+                try {
+                    userId = directory.register(email, phoneNumber, shard);
+                } catch (DuplicateKeyException ex) {
+                    // Registered concurrently since the existence check
+                    conflict = "User with email " + email + " or phone number " + phoneNumber + " already exists";
+                }
+            }
+
+            if (conflict != null) {
+                results[i] = BatchRegistrationResponse.Item.builder()
+                        .index(i)
+                        .email(email)
+                        .outcome(BatchRegistrationResponse.Outcome.CONFLICT)
+                        .message(conflict)
+                        .build();
+                continue;
+            }
+
+            batchEmails.add(email);
+            batchPhoneNumbers.add(phoneNumber);
+            User user = newUser(userId, requests.get(i), email, phoneNumber);
+            newUsersByShard.computeIfAbsent(shard, key -> new ArrayList<>()).add(user);
+            indexesById.put(userId, i);
+        }
+
+        insertOrUnregister(newUsersByShard);
+        newUsersByShard.values().stream().flatMap(List::stream).forEach(user -> {
+            nameIndex.putAfterCommit(user.getUserId(), user.getFullName());
+            int index = indexesById.get(user.getUserId());
+            results[index] = BatchRegistrationResponse.Item.builder()
+                    .index(index)
+                    .email(user.getEmail())
+                    .outcome(BatchRegistrationResponse.Outcome.CREATED)
+                    .message("User registered successfully")
+                    .user(UserResponse.fromEntity(user))
+                    .build();
+        });
+
+        int created = indexesById.size();
+        log.info("Batch registration completed: {} created, {} conflicts", created, requests.size() - created);
+
+        return BatchRegistrationResponse.builder()
+                .total(requests.size())
+                .created(created)
+                .conflicts(requests.size() - created)
+                .results(List.of(results))
+                .build();
+    }
+
+    @Override
+    public VersionedUser getUserById(Long userId) {
+        log.debug("Fetching user with ID: {}", userId);
+
+        return lookupCoalescer.byId(userId, () -> {
+            User user = findById(userId);
+            return new VersionedUser(UserResponse.fromEntity(user), user.getVersion());
+        });
+    }
+
+    @Override
+    public VersionedUser getUserByEmail(String email) {
+        log.debug("Fetching user with email: {}", email);
+
+        String normalizedEmail = email.toLowerCase().trim();
+        return lookupCoalescer.byEmail(normalizedEmail, () -> {
+            User user = store.findByEmail(router.shardOf(normalizedEmail), normalizedEmail)
+                    .orElseThrow(() -> {
+                        log.warn("User not found with email: {}", normalizedEmail);
+                        return new ResourceNotFoundException("User not found with email: " + normalizedEmail);
+                    });
+            return new VersionedUser(UserResponse.fromEntity(user), user.getVersion());
+        });
+    }
+
+    @Override
+    public UserLookupResponse lookupUsers(UserLookupRequest request) {
+        List<Long> userIds = request.getUserIds() == null ? List.of() : request.getUserIds();
+        List<String> emails = request.getEmails() == null ? List.of() : request.getEmails();
+        List<String> phoneNumbers = request.getPhoneNumbers() == null ? List.of() : request.getPhoneNumbers();
+        if (userIds.isEmpty() && emails.isEmpty() && phoneNumbers.isEmpty()) {
+            throw new IllegalArgumentException("Provide at least one user ID, email or phone number");
+        }
+        log.debug("Looking up {} IDs, {} emails and {} phone numbers", userIds.size(), emails.size(), phoneNumbers.size());
+
+        // IDs and phone numbers are placed through the directory, emails by their hash; then one IN query per shard
+        Map<Long, UserResponse> byId = resolve(userIds, UnaryOperator.identity(), this::findByUserIdIn, User::getUserId);
+        Map<String, UserResponse> byEmail = resolve(emails, email -> email.toLowerCase().trim(),
+                this::findByEmailIn, User::getEmail);
+        Map<String, UserResponse> byPhoneNumber = resolve(phoneNumbers, String::trim,
+                chunk -> findByUserIdIn(directory.findByPhoneNumberIn(chunk).stream()
+                        .map(UserShardDirectory.Entry::userId)
+                        .collect(Collectors.toList())),
+                User::getPhoneNumber);
+
+        return UserLookupResponse.builder()
+                .byId(byId)
+                .byEmail(byEmail)
+                .byPhoneNumber(byPhoneNumber)
+                .missingIds(missing(userIds, byId))
+                .missingEmails(missing(emails, byEmail))
+                .missingPhoneNumbers(missing(phoneNumbers, byPhoneNumber))
+                .build();
+    }
+
+    @Override
+    public Page<UserResponse> getAllUsers(Pageable pageable) {
+        log.debug("Fetching all users with pagination: {}", pageable);
+
+        return store.findAll(pageable).map(UserResponse::fromEntity);
+    }
+
+    @Override
+    public CursorSlice<UserResponse> getAllUsers(String cursor, int size, Sort.Direction direction) {
+        log.debug("Fetching all users after cursor: {} with size: {}", cursor, size);
+
+        UserCursor position = decodeCursor(cursor);
+        Sort.Direction sortDirection = position != null ? position.direction() : direction;
+        List<User> users = store.findAllAfter(position == null ? null : position.createdAt(),
+                position == null ? null : position.userId(), sortDirection, limitOf(size) + 1);
+        return toCursorSlice(users, size, sortDirection);
+    }
+
+    @Override
+    public List<UserResponse> getUsersByCourse(String courseName) {
+        log.debug("Fetching users for course: {}", courseName);
+
+        List<UserResponse> users = new ArrayList<>();
+        store.forEachByCourseName(courseName.trim(), bulkChunkSize, user -> users.add(UserResponse.fromEntity(user)));
+        return users;
+    }
+
+    @Override
+    public Page<UserResponse> getUsersByCourse(String courseName, Pageable pageable) {
+        log.debug("Fetching users for course: {} with pagination: {}", courseName, pageable);
+
+        return store.findByCourseName(courseName.trim(), pageable).map(UserResponse::fromEntity);
+    }
+
+    @Override
+    public CursorSlice<UserResponse> getUsersByCourse(String courseName, String cursor, int size,
+                                                      Sort.Direction direction) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching users for course: {} after cursor: {} with size: {}", courseName, cursor, size);
+        }
+
+        UserCursor position = decodeCursor(cursor);
+        Sort.Direction sortDirection = position != null ? position.direction() : direction;
+        List<User> users = store.findByCourseNameAfter(courseName.trim(), position == null ? null : position.createdAt(),
+                position == null ? null : position.userId(), sortDirection, limitOf(size) + 1);
+        return toCursorSlice(users, size, sortDirection);
+    }
+
+    @Override
+    public long exportUsersByCourse(String courseName, ExportFormat format, OutputStream outputStream)
+            throws IOException {
+        log.info("Exporting roster for course: {} as {}", courseName, format);
+
+        long count;
+        // Per-shard keyset chunks are merged by user ID as the writer consumes them
+        try (UserRosterWriter writer = new UserRosterWriter(format, outputStream, objectMapper)) {
+            count = store.forEachByCourseName(courseName.trim(), bulkChunkSize,
+                    user -> writer.write(UserResponse.fromEntity(user)));
+        }
+
+        log.info("Exported {} users for course: {}", count, courseName);
+        return count;
+    }
+
+    @Override
+    public List<UserResponse> searchUsersByName(String name) {
+        log.debug("Searching users by name: {}", name);
+
+        return searchUsersByName(name, PageRequest.of(0, MAX_SEARCH_RESULTS)).getContent();
+    }
+
+    @Override
+    public Page<UserResponse> searchUsersByName(String name, Pageable pageable) {
+        log.debug("Searching users by name: {} with pagination: {}", name, pageable);
+
+        if (!nameIndex.isReady()) {
+            Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+            return store.findByFullNameContaining(name.trim(), unsorted).map(UserResponse::fromEntity);
+        }
+
+        NameTrigramIndex.SearchResult result =
+                nameIndex.search(name, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findAllInOrder(result.userIds()), pageable, result.totalMatches());
+    }
+
+    @Override
+    public List<UserResponse> autocompleteUsersByName(String prefix, int limit) {
+        log.debug("Autocompleting users by name prefix: {}", prefix);
+
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_AUTOCOMPLETE_RESULTS));
+        if (!nameIndex.isReady()) {
+            return store.findByFullNameContaining(prefix.trim(), PageRequest.of(0, boundedLimit))
+                    .map(UserResponse::fromEntity)
+                    .getContent();
+        }
+
+        return findAllInOrder(nameIndex.autocomplete(prefix, boundedLimit).userIds());
+    }
+
+    @Override
+    public VersionedUser updateUser(Long userId, UserRegistrationRequest request, Long expectedVersion) {
+        log.info("Updating user with ID: {}", userId);
+
+        UserShardDirectory.Entry entry = findEntry(userId);
+        User existingUser = store.findById(entry.shard(), userId)
+                .orElseThrow(() -> notFound(userId));
+        long currentVersion = existingUser.getVersion();
+        requireVersion(userId, expectedVersion, currentVersion);
+
+        String newEmail = request.getEmail().toLowerCase().trim();
+        String newPhoneNumber = request.getPhoneNumber().trim();
+        if (!existingUser.getEmail().equals(newEmail) && directory.existsByEmail(newEmail)) {
+            log.warn("Attempt to update user with existing email: {}", request.getEmail());
+            throw new DuplicateResourceException("User with email " + request.getEmail() + " already exists");
+        }
+        if (!existingUser.getPhoneNumber().equals(newPhoneNumber) && directory.existsByPhoneNumber(newPhoneNumber)) {
+            log.warn("Attempt to update user with existing phone number: {}", request.getPhoneNumber());
+            throw new DuplicateResourceException("User with phone number " + request.getPhoneNumber() + " already exists");
+        }
+
+        User updatedUser = existingUser.toBuilder()
+                .fullName(request.getFullName().trim())
+                .phoneNumber(newPhoneNumber)
+                .email(newEmail)
+                .courseName(request.getCourseName().trim())
+                .updatedAt(LocalDateTime.now())
+                .version(currentVersion + 1)
+                .build();
+        int shard = router.shardOf(newEmail);
+        UserShardDirectory.Entry updatedEntry = new UserShardDirectory.Entry(userId, newEmail, newPhoneNumber, shard);
+        if (!updatedEntry.equals(entry)) {
+            // Claims the new email and phone number; a concurrent claim fails here with a duplicate key
+            directory.update(updatedEntry);
+        }
+
+        boolean written = false;
+        try {
+            if (shard == entry.shard()) {
+                written = store.update(shard, updatedUser, currentVersion) == 1;
+            } else {
+                // The email now hashes elsewhere: copy the row over, then remove the original if it is unchanged
+                log.info("Moving user ID: {} from shard {} to shard {}", userId, entry.shard(), shard);
+                store.insert(shard, List.of(updatedUser));
+                written = store.deleteByUserIdAndVersion(entry.shard(), userId, currentVersion) == 1;
+                if (!written) {
+                    store.deleteByUserIdIn(shard, List.of(userId));
+                }
+            }
+        } finally {
+            if (!written && !updatedEntry.equals(entry)) {
+                directory.update(entry);
+            }
+        }
+        if (!written) {
+            throw new OptimisticLockingFailureException("User " + userId + " was modified concurrently");
+        }
+        nameIndex.putAfterCommit(userId, updatedUser.getFullName());
+
+        log.info("Successfully updated user with ID: {}", userId);
+        return new VersionedUser(UserResponse.fromEntity(updatedUser), updatedUser.getVersion());
+    }
+
+    @Override
+    public VersionedUser updateUserStatus(Long userId, User.UserStatus status, Long expectedVersion) {
+        log.info("Updating status for user ID: {} to: {}", userId, status);
+
+        int shard = findEntry(userId).shard();
+        User user = store.findById(shard, userId).orElseThrow(() -> notFound(userId));
+        long currentVersion = user.getVersion();
+        requireVersion(userId, expectedVersion, currentVersion);
+
+        if (user.getStatus() == status) {
+            log.info("User ID: {} already has status: {}", userId, status);
+            return new VersionedUser(UserResponse.fromEntity(user), currentVersion);
+        }
+
+        User updatedUser = user.toBuilder()
+                .status(status)
+                .updatedAt(LocalDateTime.now())
+                .version(currentVersion + 1)
+                .build();
+        if (store.update(shard, updatedUser, currentVersion) == 0) {
+            throw new OptimisticLockingFailureException("User " + userId + " was modified concurrently");
+        }
+        log.info("Successfully updated status for user ID: {}", userId);
+
+        return new VersionedUser(UserResponse.fromEntity(updatedUser), updatedUser.getVersion());
+    }
+
+    @Override
+    public BulkStatusUpdateResponse updateUsersStatus(BulkStatusUpdateRequest request) {
+        User.UserStatus status = request.getStatus();
+        User.UserStatus currentStatus = request.getCurrentStatus();
+        ChunkTotals totals;
+        if (targetsUserIds(request.getUserIds(), request.getCourseName())) {
+            log.info("Changing status of {} users to: {}", request.getUserIds().size(), status);
+            totals = forEachUserIdChunk(request.getUserIds(),
+                    (shard, locked) -> applyStatus(shard, locked, status, currentStatus));
+        } else {
+            String courseName = request.getCourseName().trim();
+            log.info("Changing status of users in course: {} to: {}", courseName, status);
+            totals = forEachCourseChunk(
+                    (shard, afterUserId) -> store.lockStatusKeysByCourseName(
+                            shard, courseName, status, currentStatus, afterUserId, bulkChunkSize),
+                    (shard, locked) -> applyStatus(shard, locked, status, currentStatus));
+        }
+
+        log.info("Bulk status change to {} completed: {} updated, {} unchanged, {} not found in {} chunks",
+                status, totals.affected(), totals.unaffected(), totals.notFound().size(), totals.chunks());
+        return BulkStatusUpdateResponse.builder()
+                .status(status)
+                .updated(totals.affected())
+                .unchanged(totals.unaffected())
+                .notFound(totals.notFound())
+                .chunks(totals.chunks())
+                .build();
+    }
+
+    @Override
+    public void deleteUser(Long userId) {
+        log.info("Deleting user with ID: {}", userId);
+
+        // Sharded storage always deletes rows; the directory entry goes last, keeping the email reserved until then
+        UserShardDirectory.Entry entry = findEntry(userId);
+        int deleted = store.deleteByUserIdIn(entry.shard(), List.of(userId));
+        directory.deleteByUserIdIn(List.of(userId));
+        if (deleted == 0) {
+            throw notFound(userId);
+        }
+        nameIndex.removeAfterCommit(userId);
+
+        log.info("Successfully deleted user with ID: {}", userId);
+    }
+
+    @Override
+    public BulkDeleteResponse deleteUsers(BulkDeleteRequest request) {
+        User.UserStatus status = request.getStatus();
+        ChunkTotals totals;
+        if (targetsUserIds(request.getUserIds(), request.getCourseName())) {
+            log.info("Deleting {} users", request.getUserIds().size());
+            totals = forEachUserIdChunk(request.getUserIds(), (shard, locked) -> removeUsers(shard, locked.stream()
+                    .filter(key -> status == null || key.status() == status)
+                    .collect(Collectors.toList())));
+        } else {
+            String courseName = request.getCourseName().trim();
+            log.info("Deleting users in course: {} with status: {}", courseName, status);
+            totals = forEachCourseChunk(
+                    (shard, afterUserId) -> store.lockStatusKeysByCourseNameAndStatus(
+                            shard, courseName, status, afterUserId, bulkChunkSize),
+                    this::removeUsers);
+        }
+
+        log.info("Bulk delete completed: {} deleted, {} skipped, {} not found in {} chunks", totals.affected(),
+                totals.unaffected(), totals.notFound().size(), totals.chunks());
+        return BulkDeleteResponse.builder()
+                .deleted(totals.affected())
+                .skipped(totals.unaffected())
+                .notFound(totals.notFound())
+                .chunks(totals.chunks())
+                .softDelete(false)
+                .build();
+    }
+
+    @Override
+    public boolean existsByEmail(String email) {
+        return directory.existsByEmail(email.toLowerCase().trim());
+    }
+
+    @Override
+    public boolean existsByPhoneNumber(String phoneNumber) {
+        return directory.existsByPhoneNumber(phoneNumber.trim());
+    }
+
+    @Override
+    public long getUserCountByCourse(String courseName) {
+        String trimmedCourseName = courseName.trim();
+        return lookupCoalescer.countByCourse(trimmedCourseName, () -> store.countByCourseName(trimmedCourseName));
+    }
+
+    @Override
+    public long getUserCountByStatus(User.UserStatus status) {
+        return store.countByStatus(status);
+    }
+
+    private static User newUser(long userId, UserRegistrationRequest request, String email, String phoneNumber) {
+        LocalDateTime now = LocalDateTime.now();
+        return User.builder()
+                .userId(userId)
+                .fullName(request.getFullName().trim())
+                .phoneNumber(phoneNumber)
+                .email(email)
+                .courseName(request.getCourseName().trim())
+                .status(User.UserStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .version(0L)
+                .build();
+    }
+
+    /**
+     * Insert new users shard by shard; if any shard fails, remove what was inserted and release the directory entries
+     */
+    private void insertOrUnregister(Map<Integer, List<User>> usersByShard) {
+        List<Integer> inserted = new ArrayList<>();
+        try {
+            for (Map.Entry<Integer, List<User>> shard : usersByShard.entrySet()) {
+                store.insert(shard.getKey(), shard.getValue());
+                inserted.add(shard.getKey());
+            }
+        } catch (RuntimeException ex) {
+            log.error("Shard insert failed, releasing {} directory entries", usersByShard.values().stream()
+                    .mapToInt(List::size).sum());
+            for (int shard : inserted) {
+                store.deleteByUserIdIn(shard, userIds(usersByShard.get(shard)));
+            }
+            usersByShard.values().forEach(users -> directory.deleteByUserIdIn(userIds(users)));
+            throw ex;
+        }
+    }
+
+    private User findById(Long userId) {
+        return store.findById(findEntry(userId).shard(), userId).orElseThrow(() -> notFound(userId));
+    }
+
+    private UserShardDirectory.Entry findEntry(Long userId) {
+        return directory.findByUserId(userId).orElseThrow(() -> notFound(userId));
+    }
+
+    private List<User> findByUserIdIn(List<Long> userIds) {
+        Map<Integer, List<Long>> byShard = directory.findByUserIdIn(userIds).stream()
+                .collect(Collectors.groupingBy(UserShardDirectory.Entry::shard,
+                        Collectors.mapping(UserShardDirectory.Entry::userId, Collectors.toList())));
+        List<User> users = new ArrayList<>();
+        byShard.forEach((shard, ids) -> users.addAll(store.findByUserIdIn(shard, ids)));
+        return users;
+    }
+
+    private List<User> findByEmailIn(List<String> emails) {
+        Map<Integer, List<String>> byShard = emails.stream().collect(Collectors.groupingBy(router::shardOf));
+        List<User> users = new ArrayList<>();
+        byShard.forEach((shard, shardEmails) -> users.addAll(store.findByEmailIn(shard, shardEmails)));
+        return users;
+    }
+
+    /**
+     * Resolve lookup keys with chunked finder calls
+     * @return Found users keyed by the input value, in input order
+     */
+    private static <K> Map<K, UserResponse> resolve(List<K> inputs, UnaryOperator<K> normalizer,
+                                                    Function<List<K>, List<User>> finder, Function<User, K> keyOf) {
+        if (inputs.isEmpty()) {
+            return Map.of();
+        }
+
+        List<K> keys = inputs.stream().map(normalizer).distinct().collect(Collectors.toList());
+        Map<K, UserResponse> found = new HashMap<>();
+        for (int from = 0; from < keys.size(); from += LOOKUP_CHUNK_SIZE) {
+            for (User user : finder.apply(keys.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, keys.size())))) {
+                found.put(keyOf.apply(user), UserResponse.fromEntity(user));
+            }
+        }
+
+        Map<K, UserResponse> byInput = new LinkedHashMap<>();
+        for (K input : inputs) {
+            UserResponse user = found.get(normalizer.apply(input));
+            if (user != null) {
+                byInput.put(input, user);
+            }
+        }
+        return byInput;
+    }
+
+    private static <K> List<K> missing(List<K> inputs, Map<K, UserResponse> found) {
+        return inputs.stream()
+                .filter(input -> !found.containsKey(input))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static void requireVersion(Long userId, Long expectedVersion, long currentVersion) {
+        if (expectedVersion != null && expectedVersion != currentVersion) {
+            log.warn("Version mismatch for user ID: {} (expected {}, current {})", userId, expectedVersion, currentVersion);
+            throw new PreconditionFailedException(
+                    "User " + userId + " has been modified since version " + expectedVersion);
+        }
+    }
+
+    private static List<Long> userIds(List<User> users) {
+        return users.stream().map(User::getUserId).collect(Collectors.toList());
+    }
+
+    private static ResourceNotFoundException notFound(Long userId) {
+        log.warn("User not found with ID: {}", userId);
+        return new ResourceNotFoundException("User not found with ID: " + userId);
+    }
+
+    private static boolean targetsUserIds(List<Long> userIds, String courseName) {
+        boolean byIds = userIds != null && !userIds.isEmpty();
+        boolean byCourse = courseName != null && !courseName.isBlank();
+        if (byIds == byCourse) {
+            throw new IllegalArgumentException("Provide either userIds or courseName");
+        }
+        return byIds;
+    }
+
+    /**
+     * Place the listed users through the directory and, chunk by chunk, lock them and apply an action in one
+     * transaction per shard; every shard transaction counts as a chunk
+     * @param action Applied to the locked users of a shard, returns the number of rows it changed
+     */
+    private ChunkTotals forEachUserIdChunk(List<Long> requestedIds,
+                                           ToIntBiFunction<Integer, List<UserStatusKey>> action) {
+        List<Long> userIds = requestedIds.stream().distinct().sorted().collect(Collectors.toList());
+        long locked = 0;
+        long affected = 0;
+        List<Long> notFound = new ArrayList<>();
+        int chunks = 0;
+
+        for (int from = 0; from < userIds.size(); from += bulkChunkSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + bulkChunkSize, userIds.size()));
+            Map<Integer, List<Long>> byShard = directory.findByUserIdIn(chunk).stream()
+                    .collect(Collectors.groupingBy(UserShardDirectory.Entry::shard, TreeMap::new,
+                            Collectors.mapping(UserShardDirectory.Entry::userId, Collectors.toList())));
+
+            Set<Long> found = new HashSet<>();
+            for (Map.Entry<Integer, List<Long>> shardIds : byShard.entrySet()) {
+                int shard = shardIds.getKey();
+                LockedChunk result = lockAndApply(shard,
+                        () -> store.lockStatusKeysByUserIdIn(shard, shardIds.getValue()), action);
+                result.locked().forEach(key -> found.add(key.userId()));
+                locked += result.locked().size();
+                affected += result.affected();
+                chunks++;
+            }
+            chunk.stream().filter(userId -> !found.contains(userId)).forEach(notFound::add);
+        }
+        return new ChunkTotals(locked, affected, notFound, chunks);
+    }
+
+    /**
+     * Walk the users of a course on every shard in parallel, each shard chunk by chunk in primary-key order,
+     * locking a chunk and applying an action to it in one transaction
+     * @param lockAfter Locks the next chunk of a shard after the given user ID
+     * @param action Applied to the locked users of a chunk, returns the number of rows it changed
+     */
+    private ChunkTotals forEachCourseChunk(BiFunction<Integer, Long, List<UserStatusKey>> lockAfter,
+                                           ToIntBiFunction<Integer, List<UserStatusKey>> action) {
+        List<ChunkTotals> perShard = store.scatter(target -> {
+            int shard = target.index();
+            long locked = 0;
+            long affected = 0;
+            int chunks = 0;
+            long afterUserId = 0L;
+
+            while (true) {
+                long position = afterUserId;
+                LockedChunk result = lockAndApply(shard, () -> lockAfter.apply(shard, position), action);
+                if (result.locked().isEmpty()) {
+                    break;
+                }
+                locked += result.locked().size();
+                affected += result.affected();
+                chunks++;
+                afterUserId = result.locked().get(result.locked().size() - 1).userId();
+                if (result.locked().size() < bulkChunkSize) {
+                    break;
+                }
+            }
+            return new ChunkTotals(locked, affected, List.of(), chunks);
+        });
+
+        return new ChunkTotals(
+                perShard.stream().mapToLong(ChunkTotals::locked).sum(),
+                perShard.stream().mapToLong(ChunkTotals::affected).sum(),
+                List.of(),
+                perShard.stream().mapToInt(ChunkTotals::chunks).sum());
+    }
+
+    private LockedChunk lockAndApply(int shard, Supplier<List<UserStatusKey>> lock,
+                                     ToIntBiFunction<Integer, List<UserStatusKey>> action) {
+        return store.shards().get(shard).transactionTemplate().execute(tx -> {
+            List<UserStatusKey> locked = lock.get();
+            return new LockedChunk(locked, locked.isEmpty() ? 0 : action.applyAsInt(shard, locked));
+        });
+    }
+
+    /**
+     * Change the status of the locked users that need it with one UPDATE, inside the shard transaction
+     * @return Number of rows changed
+     */
+    private int applyStatus(int shard, List<UserStatusKey> locked, User.UserStatus status,
+                            User.UserStatus currentStatus) {
+        List<Long> userIds = locked.stream()
+                .filter(key -> key.status() != status)
+                .filter(key -> currentStatus == null || key.status() == currentStatus)
+                .map(UserStatusKey::userId)
+                .collect(Collectors.toList());
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+
+        int updated = store.updateStatusByUserIdIn(shard, userIds, status, LocalDateTime.now());
+        log.debug("Changed status of {} of {} locked users on shard {} to: {}", updated, locked.size(), shard, status);
+        return updated;
+    }
+
+    /**
+     * Delete the locked users with one statement, inside the shard transaction
+     * The directory entries are removed once the shard commits, keeping the emails reserved until then
+     * @return Number of rows removed
+     */
+    private int removeUsers(int shard, List<UserStatusKey> locked) {
+        if (locked.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> userIds = locked.stream().map(UserStatusKey::userId).collect(Collectors.toList());
+        int removed = store.deleteByUserIdIn(shard, userIds);
+        TransactionHooks.afterCommit(() -> directory.deleteByUserIdIn(userIds));
+        nameIndex.removeAfterCommit(userIds);
+        log.debug("Removed {} of {} locked users on shard {}", removed, locked.size(), shard);
+        return removed;
+    }
+
+    /**
+     * Load users by ID through the directory, keeping the order of the given IDs
+     */
+    private List<UserResponse> findAllInOrder(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, User> usersById = findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+        return userIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .map(UserResponse::fromEntity)
+                .collect(Collectors.toList());
+    }
+
+    private static UserCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+    }
+
+    private static int limitOf(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    /**
+     * @param users Up to size + 1 users; the extra one only tells that another page follows
+     */
+    private static CursorSlice<UserResponse> toCursorSlice(List<User> users, int size, Sort.Direction direction) {
+        boolean hasNext = users.size() > size;
+        List<UserResponse> content = users.stream()
+                .limit(size)
+                .map(UserResponse::fromEntity)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasNext) {
+            UserResponse last = content.get(content.size() - 1);
+            nextCursor = new UserCursor(last.getCreatedAt(), last.getUserId(), direction).encode();
+        }
+
+        return CursorSlice.<UserResponse>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Users locked by one shard chunk and the number of rows its statement changed
+     */
+    private record LockedChunk(List<UserStatusKey> locked, int affected) {
+    }
+
+    /**
+     * Totals over all chunks of a bulk operation
+     */
+    private record ChunkTotals(long locked, long affected, List<Long> notFound, int chunks) {
+
+        long unaffected() {
+            return locked - affected;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package in.osop.lms_user_service.service.impl;
+
+import in.osop.lms_user_service.cache.UserExistenceFilter;
+import in.osop.lms_user_service.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background removal of soft-deleted users once their retention period has passed
+ * Rows are removed in small chunks, each in its own short transaction, so a large purge never holds locks for long
+ */
+@Component
+@Slf4j
+public class SoftDeletePurger {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UserExistenceFilter existenceFilter;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public SoftDeletePurger(UserRepository userRepository,
+                            TransactionTemplate transactionTemplate,
+                            UserExistenceFilter existenceFilter,
+                            @Value("${lms.soft-delete.enabled:false}") boolean enabled,
+                            @Value("${lms.soft-delete.retention:P7D}") Duration retention,
+                            @Value("${lms.bulk-write.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.existenceFilter = existenceFilter;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Permanently remove users soft-deleted longer ago than the retention period
+     * @return Number of users removed
+     */
+    @Scheduled(fixedDelayString = "${lms.soft-delete.purge-interval:PT1H}",
+               initialDelayString = "${lms.soft-delete.purge-interval:PT1H}")
+    public long purge() {
+        if (!enabled) {
+            return 0;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        long purged = 0;
+        try {
+            while (true) {
+                Integer removed = transactionTemplate.execute(tx -> {
+                    List<Long> userIds = userRepository.findSoftDeletedUserIdsBefore(cutoff, chunkSize);
+                    return userIds.isEmpty() ? 0 : userRepository.purgeSoftDeletedByUserIdIn(userIds);
+                });
+                if (removed == null || removed == 0) {
+                    break;
+                }
+                // Only now are the emails and phone numbers free again
+                existenceFilter.markStale(removed);
+                purged += removed;
+            }
+        } catch (RuntimeException ex) {
+            log.error("Failed to purge soft-deleted users after {} removed", purged, ex);
+        }
+
+        if (purged > 0) {
+            log.info("Purged {} users soft-deleted before {}", purged, cutoff);
+        }
+        return purged;
+    }
+}
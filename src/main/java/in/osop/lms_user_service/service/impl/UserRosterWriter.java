@@ -0,0 +1,105 @@
+package in.osop.lms_user_service.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.ExportFormat;
+import in.osop.lms_user_service.dto.UserResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes users one at a time as NDJSON lines or CSV rows
+ * Nothing is accumulated in memory beyond the output buffer
+ */
+class UserRosterWriter implements AutoCloseable {
+
+    private static final String CSV_HEADER =
+            "userId,fullName,phoneNumber,email,courseName,status,createdAt,updatedAt";
+
+    private final ExportFormat format;
+    private final JsonGenerator jsonGenerator;
+    private final BufferedWriter csvWriter;
+
+    UserRosterWriter(ExportFormat format, OutputStream outputStream, ObjectMapper objectMapper) throws IOException {
+        this.format = format;
+        if (format == ExportFormat.NDJSON) {
+            this.jsonGenerator = objectMapper.getFactory().createGenerator(outputStream);
+            this.jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated explicitly, not by Jackson's default root value separator
+            this.jsonGenerator.setRootValueSeparator(null);
+            this.csvWriter = null;
+        } else {
+            this.jsonGenerator = null;
+            this.csvWriter = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            this.csvWriter.write(CSV_HEADER);
+            this.csvWriter.write('\n');
+        }
+    }
+
+    /**
+     * Write a single user
+     * @param user User to write
+     */
+    void write(UserResponse user) {
+        try {
+            if (format == ExportFormat.NDJSON) {
+                jsonGenerator.writeObject(user);
+                jsonGenerator.writeRaw('\n');
+            } else {
+                csvWriter.write(String.valueOf(user.getUserId()));
+                csvWriter.write(',');
+                writeCsvField(user.getFullName());
+                csvWriter.write(',');
+                writeCsvField(user.getPhoneNumber());
+                csvWriter.write(',');
+                writeCsvField(user.getEmail());
+                csvWriter.write(',');
+                writeCsvField(user.getCourseName());
+                csvWriter.write(',');
+                writeCsvField(user.getStatus() == null ? null : user.getStatus().name());
+                csvWriter.write(',');
+                writeCsvField(user.getCreatedAt() == null ? null : user.getCreatedAt().toString());
+                csvWriter.write(',');
+                writeCsvField(user.getUpdatedAt() == null ? null : user.getUpdatedAt().toString());
+                csvWriter.write('\n');
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (jsonGenerator != null) {
+            jsonGenerator.close();
+        } else {
+            csvWriter.flush();
+        }
+    }
+
+    /**
+     * Write a field, quoting it (RFC 4180) when it contains a separator, quote or line break
+     */
+    private void writeCsvField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuoting = false;
+        for (int i = 0; i < value.length() && !needsQuoting; i++) {
+            char c = value.charAt(i);
+            needsQuoting = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuoting) {
+            csvWriter.write(value);
+            return;
+        }
+        csvWriter.write('"');
+        csvWriter.write(value.replace("\"", "\"\""));
+        csvWriter.write('"');
+    }
+}
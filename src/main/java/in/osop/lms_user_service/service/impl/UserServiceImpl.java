@@ -1,21 +1,71 @@
 package in.osop.lms_user_service.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.cache.EnrollmentCounters;
+import in.osop.lms_user_service.cache.UserExistenceFilter;
+import in.osop.lms_user_service.cache.UserResponseCache;
+import in.osop.lms_user_service.coalescing.LookupCoalescer;
+import in.osop.lms_user_service.dto.BatchRegistrationResponse;
+import in.osop.lms_user_service.dto.BulkDeleteRequest;
+import in.osop.lms_user_service.dto.BulkDeleteResponse;
+import in.osop.lms_user_service.dto.BulkStatusUpdateRequest;
+import in.osop.lms_user_service.dto.BulkStatusUpdateResponse;
+import in.osop.lms_user_service.dto.CursorSlice;
+import in.osop.lms_user_service.dto.ExportFormat;
+import in.osop.lms_user_service.dto.UserLookupRequest;
+import in.osop.lms_user_service.dto.UserLookupResponse;
 import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserChangeEvent;
+import in.osop.lms_user_service.dto.UserCursor;
 import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
 import in.osop.lms_user_service.entity.User;
 import in.osop.lms_user_service.exception.DuplicateResourceException;
+import in.osop.lms_user_service.exception.PreconditionFailedException;
 import in.osop.lms_user_service.exception.ResourceNotFoundException;
+import in.osop.lms_user_service.outbox.UserChangeOutbox;
 import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.repository.projection.UserRow;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import in.osop.lms_user_service.search.NameTrigramIndex;
+import in.osop.lms_user_service.search.UserNameIndex;
 import in.osop.lms_user_service.service.UserService;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.UnaryOperator;
+import java.util.Set;
+import java.util.Iterator;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Implementation of UserService interface
@@ -25,9 +75,29 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
+@Timed("lms.user.service")
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_AUTOCOMPLETE_RESULTS = 20;
+    private static final int LOOKUP_CHUNK_SIZE = 500;
+
     private final UserRepository userRepository;
+    private final UserExistenceFilter existenceFilter;
+    private final UserResponseCache userCache;
+    private final UserNameIndex nameIndex;
+    private final EnrollmentCounters enrollmentCounters;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final UserChangeOutbox changeOutbox;
+    private final LookupCoalescer lookupCoalescer;
+
+    @Value("${lms.bulk-write.chunk-size:500}")
+    private int bulkChunkSize;
+
+    @Value("${lms.soft-delete.enabled:false}")
+    private boolean softDelete;
 
     @Override
     public UserResponse registerUser(UserRegistrationRequest request) {
@@ -55,38 +125,190 @@ public class UserServiceImpl implements UserService {
                 .build();
 
         // Save user
+        existenceFilter.add(user.getEmail(), user.getPhoneNumber());
         User savedUser = userRepository.save(user);
+        nameIndex.putAfterCommit(savedUser.getUserId(), savedUser.getFullName());
+        enrollmentCounters.registeredAfterCommit(savedUser.getCourseName(), savedUser.getStatus());
+        UserResponse response = UserResponse.fromEntity(savedUser);
+        changeOutbox.append(UserChangeEvent.Type.REGISTERED, List.of(new VersionedUser(response, savedUser.getVersion())));
         log.info("Successfully registered user with ID: {} and email: {}", savedUser.getUserId(), savedUser.getEmail());
 
-        return UserResponse.fromEntity(savedUser);
+        return response;
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public UserResponse getUserById(Long userId) {
+    public BatchRegistrationResponse registerUsers(List<UserRegistrationRequest> requests) {
+        log.info("Registering batch of {} users", requests.size());
+
+        List<String> emails = requests.stream()
+                .map(request -> request.getEmail().toLowerCase().trim())
+                .collect(Collectors.toList());
+        List<String> phoneNumbers = requests.stream()
+                .map(request -> request.getPhoneNumber().trim())
+                .collect(Collectors.toList());
+
+        // One set-based lookup per unique column instead of two exists queries per user
+        Set<String> existingEmails = userRepository.findExistingEmails(new HashSet<>(emails));
+        Set<String> existingPhoneNumbers = userRepository.findExistingPhoneNumbers(new HashSet<>(phoneNumbers));
+
+        Set<String> batchEmails = new HashSet<>();
+        Set<String> batchPhoneNumbers = new HashSet<>();
+        BatchRegistrationResponse.Item[] results = new BatchRegistrationResponse.Item[requests.size()];
+        List<User> newUsers = new ArrayList<>();
+        List<Integer> newUserIndexes = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            UserRegistrationRequest request = requests.get(i);
+            String email = emails.get(i);
+            String phoneNumber = phoneNumbers.get(i);
+
+            String conflict = null;
+            if (existingEmails.contains(email)) {
+                conflict = "User with email " + email + " already exists";
+            } else if (existingPhoneNumbers.contains(phoneNumber)) {
+                conflict = "User with phone number " + phoneNumber + " already exists";
+            } else if (batchEmails.contains(email)) {
+                conflict = "Email " + email + " appears more than once in the batch";
+            } else if (batchPhoneNumbers.contains(phoneNumber)) {
+                conflict = "Phone number " + phoneNumber + " appears more than once in the batch";
+            }
+
+            if (conflict != null) {
+                results[i] = BatchRegistrationResponse.Item.builder()
+                        .index(i)
+                        .email(email)
+                        .outcome(BatchRegistrationResponse.Outcome.CONFLICT)
+                        .message(conflict)
+                        .build();
+                continue;
+            }
+
+            batchEmails.add(email);
+            batchPhoneNumbers.add(phoneNumber);
+            existenceFilter.add(email, phoneNumber);
+            newUsers.add(User.builder()
+                    .fullName(request.getFullName().trim())
+                    .phoneNumber(phoneNumber)
+                    .email(email)
+                    .courseName(request.getCourseName().trim())
+                    .status(User.UserStatus.ACTIVE)
+                    .build());
+            newUserIndexes.add(i);
+        }
+
+        // Inserts are grouped into JDBC batches on flush (hibernate.jdbc.batch_size)
+        List<User> savedUsers = userRepository.saveAllAndFlush(newUsers);
+        List<VersionedUser> registered = new ArrayList<>(savedUsers.size());
+        for (int i = 0; i < savedUsers.size(); i++) {
+            int index = newUserIndexes.get(i);
+            User savedUser = savedUsers.get(i);
+            nameIndex.putAfterCommit(savedUser.getUserId(), savedUser.getFullName());
+            enrollmentCounters.registeredAfterCommit(savedUser.getCourseName(), savedUser.getStatus());
+            UserResponse response = UserResponse.fromEntity(savedUser);
+            registered.add(new VersionedUser(response, savedUser.getVersion()));
+            results[index] = BatchRegistrationResponse.Item.builder()
+                    .index(index)
+                    .email(savedUser.getEmail())
+                    .outcome(BatchRegistrationResponse.Outcome.CREATED)
+                    .message("User registered successfully")
+                    .user(response)
+                    .build();
+        }
+        changeOutbox.append(UserChangeEvent.Type.REGISTERED, registered);
+
+        log.info("Batch registration completed: {} created, {} conflicts",
+                savedUsers.size(), requests.size() - savedUsers.size());
+
+        return BatchRegistrationResponse.builder()
+                .total(requests.size())
+                .created(savedUsers.size())
+                .conflicts(requests.size() - savedUsers.size())
+                .results(List.of(results))
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public VersionedUser getUserById(Long userId) {
         log.debug("Fetching user with ID: {}", userId);
-        
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    log.warn("User not found with ID: {}", userId);
-                    return new ResourceNotFoundException("User not found with ID: " + userId);
-                });
 
-        return UserResponse.fromEntity(user);
+        // Cache hits are served without opening a transaction
+        Optional<VersionedUser> cached = userCache.getById(userId);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Concurrent misses for the same ID share one load
+        return lookupCoalescer.byId(userId, () -> {
+            // findById allocates less than the findRowById projection (ReadPathBenchmark: 12.6 vs 15.2 KB/op), and
+            // repository reads are read-only sessions (no snapshot)
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> {
+                        log.warn("User not found with ID: {}", userId);
+                        return new ResourceNotFoundException("User not found with ID: " + userId);
+                    });
+            // A write committed while this read ran and nothing as new is cached: read the primary instead
+            return userCache.put(user).orElseGet(() -> readPrimary(() -> userRepository.findRowById(userId))
+                    .map(UserRow::toVersionedUser)
+                    .orElseThrow(() -> new ResourceNotFoundException("User not found with ID: " + userId)));
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public UserResponse getUserByEmail(String email) {
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public VersionedUser getUserByEmail(String email) {
         log.debug("Fetching user with email: {}", email);
-        
-        User user = userRepository.findByEmail(email.toLowerCase().trim())
-                .orElseThrow(() -> {
-                    log.warn("User not found with email: {}", email);
-                    return new ResourceNotFoundException("User not found with email: " + email);
-                });
 
-        return UserResponse.fromEntity(user);
+        String normalizedEmail = email.toLowerCase().trim();
+        Optional<VersionedUser> cached = userCache.getByEmail(normalizedEmail);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        return lookupCoalescer.byEmail(normalizedEmail, () -> {
+            UserRow row = userRepository.findRowByEmail(normalizedEmail)
+                    .orElseThrow(() -> {
+                        log.warn("User not found with email: {}", normalizedEmail);
+                        return new ResourceNotFoundException("User not found with email: " + normalizedEmail);
+                    });
+            // A newer cached version may have moved to another email, so only the version read here is trusted
+            return userCache.put(row)
+                    .filter(current -> current.version() == row.toVersionedUser().version())
+                    .orElseGet(() -> readPrimary(() -> userRepository.findRowByEmail(normalizedEmail))
+                            .map(UserRow::toVersionedUser)
+                            .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + normalizedEmail)));
+        });
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+    public UserLookupResponse lookupUsers(UserLookupRequest request) {
+        List<Long> userIds = request.getUserIds() == null ? List.of() : request.getUserIds();
+        List<String> emails = request.getEmails() == null ? List.of() : request.getEmails();
+        List<String> phoneNumbers = request.getPhoneNumbers() == null ? List.of() : request.getPhoneNumbers();
+        if (userIds.isEmpty() && emails.isEmpty() && phoneNumbers.isEmpty()) {
+            throw new IllegalArgumentException("Provide at least one user ID, email or phone number");
+        }
+        log.debug("Looking up {} IDs, {} emails and {} phone numbers", userIds.size(), emails.size(), phoneNumbers.size());
+
+        // Cache hits first; the misses are resolved with one IN query per chunk and key type
+        Map<Long, UserResponse> byId = resolve(userIds, UnaryOperator.identity(),
+                userId -> userCache.getById(userId).map(VersionedUser::user),
+                userRepository::findRowsByUserIdIn, UserRow::userId);
+        Map<String, UserResponse> byEmail = resolve(emails, email -> email.toLowerCase().trim(),
+                email -> userCache.getByEmail(email).map(VersionedUser::user),
+                userRepository::findRowsByEmailIn, UserRow::email);
+        Map<String, UserResponse> byPhoneNumber = resolve(phoneNumbers, String::trim,
+                phoneNumber -> Optional.empty(), userRepository::findRowsByPhoneNumberIn, UserRow::phoneNumber);
+
+        return UserLookupResponse.builder()
+                .byId(byId)
+                .byEmail(byEmail)
+                .byPhoneNumber(byPhoneNumber)
+                .missingIds(missing(userIds, byId))
+                .missingEmails(missing(emails, byEmail))
+                .missingPhoneNumbers(missing(phoneNumbers, byPhoneNumber))
+                .build();
     }
 
     @Override
@@ -94,8 +316,24 @@ public class UserServiceImpl implements UserService {
     public Page<UserResponse> getAllUsers(Pageable pageable) {
         log.debug("Fetching all users with pagination: {}", pageable);
         
-        Page<User> users = userRepository.findAll(pageable);
-        return users.map(UserResponse::fromEntity);
+        return userRepository.findAllResponses(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<UserResponse> getAllUsers(String cursor, int size, Sort.Direction direction) {
+        log.debug("Fetching all users after cursor: {} with size: {}", cursor, size);
+
+        UserCursor position = decodeCursor(cursor);
+        Sort.Direction sortDirection = position != null ? position.direction() : direction;
+        Limit limit = Limit.of(limitOf(size) + 1);
+        Sort sort = keysetSort(sortDirection);
+        List<UserResponse> users = position == null
+                ? userRepository.findResponsePage(limit, sort)
+                : sortDirection.isAscending()
+                        ? userRepository.findResponsePageAfter(position.createdAt(), position.userId(), limit, sort)
+                        : userRepository.findResponsePageBefore(position.createdAt(), position.userId(), limit, sort);
+        return toCursorSlice(users, size, sortDirection);
     }
 
     @Override
@@ -103,10 +341,7 @@ public class UserServiceImpl implements UserService {
     public List<UserResponse> getUsersByCourse(String courseName) {
         log.debug("Fetching users for course: {}", courseName);
         
-        List<User> users = userRepository.findByCourseName(courseName.trim());
-        return users.stream()
-                .map(UserResponse::fromEntity)
-                .collect(Collectors.toList());
+        return userRepository.findResponsesByCourseName(courseName.trim());
     }
 
     @Override
@@ -114,23 +349,92 @@ public class UserServiceImpl implements UserService {
     public Page<UserResponse> getUsersByCourse(String courseName, Pageable pageable) {
         log.debug("Fetching users for course: {} with pagination: {}", courseName, pageable);
         
-        Page<User> users = userRepository.findByCourseName(courseName.trim(), pageable);
-        return users.map(UserResponse::fromEntity);
+        return userRepository.findResponsesByCourseName(courseName.trim(), pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorSlice<UserResponse> getUsersByCourse(String courseName, String cursor, int size,
+                                                      Sort.Direction direction) {
+        if (log.isDebugEnabled()) {
+            log.debug("Fetching users for course: {} after cursor: {} with size: {}", courseName, cursor, size);
+        }
+
+        UserCursor position = decodeCursor(cursor);
+        Sort.Direction sortDirection = position != null ? position.direction() : direction;
+        String course = courseName.trim();
+        Limit limit = Limit.of(limitOf(size) + 1);
+        Sort sort = keysetSort(sortDirection);
+        List<UserResponse> users = position == null
+                ? userRepository.findCourseResponsePage(course, limit, sort)
+                : sortDirection.isAscending()
+                        ? userRepository.findCourseResponsePageAfter(
+                                course, position.createdAt(), position.userId(), limit, sort)
+                        : userRepository.findCourseResponsePageBefore(
+                                course, position.createdAt(), position.userId(), limit, sort);
+        return toCursorSlice(users, size, sortDirection);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long exportUsersByCourse(String courseName, ExportFormat format, OutputStream outputStream)
+            throws IOException {
+        log.info("Exporting roster for course: {} as {}", courseName, format);
+
+        long count = 0;
+        // Rows are projected straight into DTOs, so nothing accumulates in the persistence context
+        try (Stream<UserResponse> users = userRepository.streamResponsesByCourseName(courseName.trim());
+             UserRosterWriter writer = new UserRosterWriter(format, outputStream, objectMapper)) {
+            Iterator<UserResponse> iterator = users.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next());
+                count++;
+            }
+        }
+
+        log.info("Exported {} users for course: {}", count, courseName);
+        return count;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<UserResponse> searchUsersByName(String name) {
         log.debug("Searching users by name: {}", name);
-        
-        List<User> users = userRepository.findByFullNameContainingIgnoreCase(name.trim());
-        return users.stream()
-                .map(UserResponse::fromEntity)
-                .collect(Collectors.toList());
+
+        return searchUsersByName(name, PageRequest.of(0, MAX_SEARCH_RESULTS)).getContent();
     }
 
     @Override
-    public UserResponse updateUser(Long userId, UserRegistrationRequest request) {
+    @Transactional(readOnly = true)
+    public Page<UserResponse> searchUsersByName(String name, Pageable pageable) {
+        log.debug("Searching users by name: {} with pagination: {}", name, pageable);
+
+        if (!nameIndex.isReady()) {
+            Pageable unsorted = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+            return userRepository.findResponsesByFullNameContaining(name.trim(), unsorted);
+        }
+
+        NameTrigramIndex.SearchResult result =
+                nameIndex.search(name, (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(findAllInOrder(result.userIds()), pageable, result.totalMatches());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserResponse> autocompleteUsersByName(String prefix, int limit) {
+        log.debug("Autocompleting users by name prefix: {}", prefix);
+
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_AUTOCOMPLETE_RESULTS));
+        if (!nameIndex.isReady()) {
+            return userRepository.findResponsesByFullNameContaining(prefix.trim(), PageRequest.of(0, boundedLimit))
+                    .getContent();
+        }
+
+        return findAllInOrder(nameIndex.autocomplete(prefix, boundedLimit).userIds());
+    }
+
+    @Override
+    public VersionedUser updateUser(Long userId, UserRegistrationRequest request, Long expectedVersion) {
         log.info("Updating user with ID: {}", userId);
 
         User existingUser = userRepository.findById(userId)
@@ -138,6 +442,8 @@ public class UserServiceImpl implements UserService {
                     log.warn("User not found with ID: {}", userId);
                     return new ResourceNotFoundException("User not found with ID: " + userId);
                 });
+        // A write between this read and the flush is still caught by the @Version check on UPDATE
+        requireVersion(userId, expectedVersion, existingUser.getVersion());
 
         // Check for duplicate email (excluding current user)
         if (!existingUser.getEmail().equals(request.getEmail().toLowerCase().trim()) &&
@@ -153,69 +459,450 @@ public class UserServiceImpl implements UserService {
             throw new DuplicateResourceException("User with phone number " + request.getPhoneNumber() + " already exists");
         }
 
+        String previousEmail = existingUser.getEmail();
+        String previousCourseName = existingUser.getCourseName();
+        String newEmail = request.getEmail().toLowerCase().trim();
+        String newPhoneNumber = request.getPhoneNumber().trim();
+        if (!existingUser.getEmail().equals(newEmail) || !existingUser.getPhoneNumber().equals(newPhoneNumber)) {
+            existenceFilter.add(newEmail, newPhoneNumber);
+            existenceFilter.markStale(1);
+        }
+
         // Update user fields
         existingUser.setFullName(request.getFullName().trim());
-        existingUser.setPhoneNumber(request.getPhoneNumber().trim());
-        existingUser.setEmail(request.getEmail().toLowerCase().trim());
+        existingUser.setPhoneNumber(newPhoneNumber);
+        existingUser.setEmail(newEmail);
         existingUser.setCourseName(request.getCourseName().trim());
 
-        User updatedUser = userRepository.save(existingUser);
+        // Flush so the incremented version is known before the cache entry is refreshed
+        User updatedUser = userRepository.saveAndFlush(existingUser);
+        userCache.refreshAfterCommit(updatedUser, previousEmail);
+        nameIndex.putAfterCommit(updatedUser.getUserId(), updatedUser.getFullName());
+        enrollmentCounters.changedAfterCommit(previousCourseName, updatedUser.getStatus(),
+                updatedUser.getCourseName(), updatedUser.getStatus());
+        VersionedUser result = new VersionedUser(UserResponse.fromEntity(updatedUser), updatedUser.getVersion());
+        changeOutbox.append(UserChangeEvent.Type.UPDATED, List.of(result));
         log.info("Successfully updated user with ID: {}", updatedUser.getUserId());
 
-        return UserResponse.fromEntity(updatedUser);
+        return result;
     }
 
     @Override
-    public UserResponse updateUserStatus(Long userId, User.UserStatus status) {
+    public VersionedUser updateUserStatus(Long userId, User.UserStatus status, Long expectedVersion) {
         log.info("Updating status for user ID: {} to: {}", userId, status);
 
-        User user = userRepository.findById(userId)
+        // Lock the row, then flip the status with a conditional UPDATE; no entity is hydrated or dirty-checked
+        UserRow row = userRepository.lockRowById(userId)
                 .orElseThrow(() -> {
                     log.warn("User not found with ID: {}", userId);
                     return new ResourceNotFoundException("User not found with ID: " + userId);
                 });
+        requireVersion(userId, expectedVersion, row.version());
 
-        user.setStatus(status);
-        User updatedUser = userRepository.save(user);
-        log.info("Successfully updated status for user ID: {}", updatedUser.getUserId());
+        if (row.status() == status) {
+            log.info("User ID: {} already has status: {}", userId, status);
+            return row.toVersionedUser();
+        }
+
+        UserRow updatedRow = row.withStatus(status, LocalDateTime.now());
+        userRepository.updateStatusByUserIdIn(List.of(userId), status, updatedRow.updatedAt());
+        userCache.refreshAfterCommit(updatedRow);
+        enrollmentCounters.changedAfterCommit(row.courseName(), row.status(), row.courseName(), status);
+        VersionedUser result = updatedRow.toVersionedUser();
+        changeOutbox.append(UserChangeEvent.Type.STATUS_CHANGED, List.of(result));
+        log.info("Successfully updated status for user ID: {}", userId);
+
+        return result;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkStatusUpdateResponse updateUsersStatus(BulkStatusUpdateRequest request) {
+        User.UserStatus status = request.getStatus();
+        User.UserStatus currentStatus = request.getCurrentStatus();
+        ChunkTotals totals;
+        if (targetsUserIds(request.getUserIds(), request.getCourseName())) {
+            log.info("Changing status of {} users to: {}", request.getUserIds().size(), status);
+            totals = forEachUserIdChunk(request.getUserIds(), locked -> applyStatus(locked, status, currentStatus));
+        } else {
+            String courseName = request.getCourseName().trim();
+            log.info("Changing status of users in course: {} to: {}", courseName, status);
+            totals = forEachCourseChunk(
+                    afterUserId -> userRepository.lockStatusKeysByCourseName(
+                            courseName, status, currentStatus, afterUserId, Limit.of(bulkChunkSize)),
+                    locked -> applyStatus(locked, status, currentStatus));
+        }
 
-        return UserResponse.fromEntity(updatedUser);
+        log.info("Bulk status change to {} completed: {} updated, {} unchanged, {} not found in {} chunks",
+                status, totals.affected(), totals.unaffected(), totals.notFound().size(), totals.chunks());
+        return BulkStatusUpdateResponse.builder()
+                .status(status)
+                .updated(totals.affected())
+                .unchanged(totals.unaffected())
+                .notFound(totals.notFound())
+                .chunks(totals.chunks())
+                .build();
     }
 
     @Override
     public void deleteUser(Long userId) {
         log.info("Deleting user with ID: {}", userId);
 
-        if (!userRepository.existsById(userId)) {
+        // Lock only the columns the counters need, then remove the row with one statement; no entity is loaded
+        List<UserStatusKey> locked = userRepository.lockStatusKeysByUserIdIn(List.of(userId));
+        if (locked.isEmpty() || removeUsers(locked) == 0) {
             log.warn("User not found with ID: {}", userId);
             throw new ResourceNotFoundException("User not found with ID: " + userId);
         }
 
-        userRepository.deleteById(userId);
-        log.info("Successfully deleted user with ID: {}", userId);
+        log.info("Successfully {} user with ID: {}", softDelete ? "soft-deleted" : "deleted", userId);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public BulkDeleteResponse deleteUsers(BulkDeleteRequest request) {
+        User.UserStatus status = request.getStatus();
+        ChunkTotals totals;
+        if (targetsUserIds(request.getUserIds(), request.getCourseName())) {
+            log.info("Deleting {} users", request.getUserIds().size());
+            totals = forEachUserIdChunk(request.getUserIds(), locked -> removeUsers(locked.stream()
+                    .filter(key -> status == null || key.status() == status)
+                    .collect(Collectors.toList())));
+        } else {
+            String courseName = request.getCourseName().trim();
+            log.info("Deleting users in course: {} with status: {}", courseName, status);
+            totals = forEachCourseChunk(
+                    afterUserId -> userRepository.lockStatusKeysByCourseNameAndStatus(
+                            courseName, status, afterUserId, Limit.of(bulkChunkSize)),
+                    this::removeUsers);
+        }
+
+        log.info("Bulk delete completed: {} {}, {} skipped, {} not found in {} chunks", totals.affected(),
+                softDelete ? "soft-deleted" : "deleted", totals.unaffected(), totals.notFound().size(), totals.chunks());
+        return BulkDeleteResponse.builder()
+                .deleted(totals.affected())
+                .skipped(totals.unaffected())
+                .notFound(totals.notFound())
+                .chunks(totals.chunks())
+                .softDelete(softDelete)
+                .build();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean existsByEmail(String email) {
-        return userRepository.existsByEmail(email.toLowerCase().trim());
+        String normalizedEmail = email.toLowerCase().trim();
+
+        // Definite negatives are answered in memory, without opening a transaction
+        if (!existenceFilter.mightContainEmail(normalizedEmail)) {
+            return false;
+        }
+
+        boolean exists = userRepository.existsByEmail(normalizedEmail);
+        if (!exists) {
+            existenceFilter.recordFalsePositive();
+        }
+        return exists;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public boolean existsByPhoneNumber(String phoneNumber) {
-        return userRepository.existsByPhoneNumber(phoneNumber.trim());
+        String normalizedPhoneNumber = phoneNumber.trim();
+
+        if (!existenceFilter.mightContainPhoneNumber(normalizedPhoneNumber)) {
+            return false;
+        }
+
+        boolean exists = userRepository.existsByPhoneNumber(normalizedPhoneNumber);
+        if (!exists) {
+            existenceFilter.recordFalsePositive();
+        }
+        return exists;
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public long getUserCountByCourse(String courseName) {
-        return userRepository.countByCourseName(courseName.trim());
+        OptionalLong count = enrollmentCounters.countByCourse(courseName);
+        if (count.isPresent()) {
+            return count.getAsLong();
+        }
+        String trimmedCourseName = courseName.trim();
+        return lookupCoalescer.countByCourse(trimmedCourseName,
+                () -> userRepository.countByCourseName(trimmedCourseName));
     }
 
     @Override
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public long getUserCountByStatus(User.UserStatus status) {
-        return userRepository.countByStatus(status);
+        OptionalLong count = enrollmentCounters.countByStatus(status);
+        return count.isPresent() ? count.getAsLong() : userRepository.countByStatus(status);
+    }
+
+    private static void requireVersion(Long userId, Long expectedVersion, Long currentVersion) {
+        long current = currentVersion == null ? 0L : currentVersion;
+        if (expectedVersion != null && expectedVersion != current) {
+            log.warn("Version mismatch for user ID: {} (expected {}, current {})", userId, expectedVersion, current);
+            throw new PreconditionFailedException(
+                    "User " + userId + " has been modified since version " + expectedVersion);
+        }
+    }
+
+    private static boolean targetsUserIds(List<Long> userIds, String courseName) {
+        boolean byIds = userIds != null && !userIds.isEmpty();
+        boolean byCourse = courseName != null && !courseName.isBlank();
+        if (byIds == byCourse) {
+            throw new IllegalArgumentException("Provide either userIds or courseName");
+        }
+        return byIds;
+    }
+
+    /**
+     * Lock the listed users chunk by chunk and apply an action to each chunk, each in its own transaction
+     * @param action Applied to the locked users of a chunk, returns the number of rows it changed
+     */
+    private ChunkTotals forEachUserIdChunk(List<Long> requestedIds, ToIntFunction<List<UserStatusKey>> action) {
+        List<Long> userIds = requestedIds.stream().distinct().sorted().collect(Collectors.toList());
+        long locked = 0;
+        long affected = 0;
+        List<Long> notFound = new ArrayList<>();
+        int chunks = 0;
+
+        for (int from = 0; from < userIds.size(); from += bulkChunkSize) {
+            List<Long> chunk = userIds.subList(from, Math.min(from + bulkChunkSize, userIds.size()));
+            LockedChunk result = transactionTemplate.execute(tx ->
+                    applyToLocked(userRepository.lockStatusKeysByUserIdIn(chunk), action));
+
+            Set<Long> found = result.locked().stream().map(UserStatusKey::userId).collect(Collectors.toSet());
+            chunk.stream().filter(userId -> !found.contains(userId)).forEach(notFound::add);
+            locked += result.locked().size();
+            affected += result.affected();
+            chunks++;
+        }
+        return new ChunkTotals(locked, affected, notFound, chunks);
+    }
+
+    /**
+     * Lock the users of a course chunk by chunk in primary-key order and apply an action to each chunk,
+     * each in its own transaction
+     * @param lockAfter Locks the next chunk after the given user ID
+     * @param action Applied to the locked users of a chunk, returns the number of rows it changed
+     */
+    private ChunkTotals forEachCourseChunk(LongFunction<List<UserStatusKey>> lockAfter,
+                                           ToIntFunction<List<UserStatusKey>> action) {
+        long locked = 0;
+        long affected = 0;
+        int chunks = 0;
+        long afterUserId = 0L;
+
+        while (true) {
+            long position = afterUserId;
+            LockedChunk result = transactionTemplate.execute(tx -> applyToLocked(lockAfter.apply(position), action));
+            if (result.locked().isEmpty()) {
+                break;
+            }
+            locked += result.locked().size();
+            affected += result.affected();
+            chunks++;
+            afterUserId = result.locked().get(result.locked().size() - 1).userId();
+            if (result.locked().size() < bulkChunkSize) {
+                break;
+            }
+        }
+        return new ChunkTotals(locked, affected, List.of(), chunks);
+    }
+
+    private static LockedChunk applyToLocked(List<UserStatusKey> locked, ToIntFunction<List<UserStatusKey>> action) {
+        return new LockedChunk(locked, locked.isEmpty() ? 0 : action.applyAsInt(locked));
+    }
+
+    /**
+     * Change the status of the locked users that need it with one UPDATE, inside the chunk's transaction
+     * @return Number of rows changed
+     */
+    private int applyStatus(List<UserStatusKey> locked, User.UserStatus status, User.UserStatus currentStatus) {
+        List<UserStatusKey> changing = locked.stream()
+                .filter(key -> key.status() != status)
+                .filter(key -> currentStatus == null || key.status() == currentStatus)
+                .collect(Collectors.toList());
+        if (changing.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> userIds = changing.stream().map(UserStatusKey::userId).collect(Collectors.toList());
+        int updated = userRepository.updateStatusByUserIdIn(userIds, status, LocalDateTime.now());
+
+        Map<Long, Long> versionsById = changing.stream().collect(Collectors.toMap(
+                UserStatusKey::userId, key -> (key.version() == null ? 0L : key.version()) + 1));
+        userCache.evictAfterCommit(versionsById);
+        enrollmentCounters.statusChangedAfterCommit(changing, status);
+        if (changeOutbox.isEnabled()) {
+            // The bulk UPDATE touched no entities, so read back the rows it wrote for the event payloads
+            changeOutbox.append(UserChangeEvent.Type.STATUS_CHANGED, userRepository.findRowsByUserIdIn(userIds).stream()
+                    .map(UserRow::toVersionedUser)
+                    .collect(Collectors.toList()));
+        }
+        log.debug("Changed status of {} of {} locked users to: {}", updated, locked.size(), status);
+
+        return updated;
+    }
+
+    /**
+     * Delete (or soft-delete) the locked users with one statement, inside the current transaction
+     * @return Number of rows removed
+     */
+    private int removeUsers(List<UserStatusKey> locked) {
+        if (locked.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> userIds = locked.stream().map(UserStatusKey::userId).collect(Collectors.toList());
+        int removed;
+        if (softDelete) {
+            // The rows keep their email and phone number until purged, so the existence filter stays valid
+            removed = userRepository.softDeleteByUserIdIn(userIds, LocalDateTime.now());
+        } else {
+            removed = userRepository.deleteByUserIdIn(userIds);
+            existenceFilter.markStale(removed);
+        }
+
+        enrollmentCounters.removedAfterCommit(locked);
+        userCache.evictAfterCommit(userIds.stream()
+                .collect(Collectors.toMap(Function.identity(), userId -> Long.MAX_VALUE)));
+        nameIndex.removeAfterCommit(userIds);
+        changeOutbox.appendDeleted(locked);
+        log.debug("Removed {} of {} locked users", removed, locked.size());
+
+        return removed;
+    }
+
+    /**
+     * Resolve lookup keys from the cache, then the misses with chunked IN queries
+     * @return Found users keyed by the input value, in input order
+     */
+    private <K> Map<K, UserResponse> resolve(List<K> inputs, UnaryOperator<K> normalizer,
+                                             Function<K, Optional<UserResponse>> cached,
+                                             Function<List<K>, List<UserRow>> finder,
+                                             Function<UserRow, K> keyOf) {
+        if (inputs.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<K, UserResponse> found = new HashMap<>();
+        List<K> misses = new ArrayList<>();
+        for (K key : inputs.stream().map(normalizer).distinct().collect(Collectors.toList())) {
+            cached.apply(key).ifPresentOrElse(user -> found.put(key, user), () -> misses.add(key));
+        }
+        List<K> stale = new ArrayList<>();
+        for (int from = 0; from < misses.size(); from += LOOKUP_CHUNK_SIZE) {
+            for (UserRow row : finder.apply(misses.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, misses.size())))) {
+                long version = row.toVersionedUser().version();
+                userCache.put(row)
+                        .filter(current -> current.version() == version)
+                        .ifPresentOrElse(current -> found.put(keyOf.apply(row), current.user()),
+                                () -> stale.add(keyOf.apply(row)));
+            }
+        }
+        // Rows read before a write committed are read again on the primary
+        for (int from = 0; from < stale.size(); from += LOOKUP_CHUNK_SIZE) {
+            List<K> chunk = stale.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, stale.size()));
+            for (UserRow row : readPrimary(() -> finder.apply(chunk))) {
+                found.put(keyOf.apply(row), row.toResponse());
+            }
+        }
+
+        Map<K, UserResponse> byInput = new LinkedHashMap<>();
+        for (K input : inputs) {
+            UserResponse user = found.get(normalizer.apply(input));
+            if (user != null) {
+                byInput.put(input, user);
+            }
+        }
+        return byInput;
+    }
+
+    /**
+     * Run a read in a read-write transaction, which routes it to the primary when replicas are enabled
+     * Used when the cache has seen a committed write that the first read missed
+     */
+    private <T> T readPrimary(Supplier<T> read) {
+        return transactionTemplate.execute(tx -> read.get());
+    }
+
+    private static <K> List<K> missing(List<K> inputs, Map<K, UserResponse> found) {
+        return inputs.stream()
+                .filter(input -> !found.containsKey(input))
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    private static UserCursor decodeCursor(String cursor) {
+        return cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+    }
+
+    private static int limitOf(int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return size;
+    }
+
+    /**
+     * Sort on (createdAt, userId); userId makes the order total so the keyset is unique
+     */
+    private static Sort keysetSort(Sort.Direction direction) {
+        return Sort.by(direction, "createdAt", "userId");
+    }
+
+    // One row beyond the page tells whether there is a next page
+    private static CursorSlice<UserResponse> toCursorSlice(List<UserResponse> users, int size,
+                                                           Sort.Direction direction) {
+        boolean hasNext = users.size() > size;
+        List<UserResponse> content = hasNext ? users.subList(0, size) : users;
+
+        String nextCursor = null;
+        if (hasNext) {
+            UserResponse last = content.get(content.size() - 1);
+            nextCursor = new UserCursor(last.getCreatedAt(), last.getUserId(), direction).encode();
+        }
+
+        return CursorSlice.<UserResponse>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Load users by ID in one query, keeping the order of the given IDs
+     */
+    private List<UserResponse> findAllInOrder(List<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UserResponse> usersById = userRepository.findResponsesByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(UserResponse::getUserId, Function.identity()));
+        return userIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Users locked by one bulk chunk and the number of rows its statement changed
+     */
+    private record LockedChunk(List<UserStatusKey> locked, int affected) {
+    }
+
+    /**
+     * Totals over all chunks of a bulk operation
+     */
+    private record ChunkTotals(long locked, long affected, List<Long> notFound, int chunks) {
+
+        long unaffected() {
+            return locked - affected;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,154 @@
+package in.osop.lms_user_service.sharding;
+
+import in.osop.lms_user_service.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Offline resharding: moves every user to the shard its email hashes to under the current shard count
+ * Run with the service stopped (see ShardingConfig). Each chunk is copied to its target shard, re-pointed in the
+ * directory and only then deleted from its source, so an interrupted run loses nothing and can simply be repeated
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private final ShardedUserStore store;
+    private final ShardRouter router;
+    private final UserShardDirectory directory;
+    private final int chunkSize;
+
+    public ShardRebalancer(ShardedUserStore store, ShardRouter router, UserShardDirectory directory, int chunkSize) {
+        this.store = store;
+        this.router = router;
+        this.directory = directory;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Copy the users table of an unsharded database onto the shards and into the directory
+     * The source rows are left in place; users already copied by an earlier run are skipped
+     * @param source Database holding the unsharded users table (normally the primary)
+     * @return Totals of the import
+     */
+    public Result importUnsharded(DataSource source) {
+        NamedParameterJdbcTemplate sourceJdbc = new NamedParameterJdbcTemplate(source);
+        long scanned = 0;
+        long moved = 0;
+        long afterUserId = 0L;
+        List<User> chunk;
+        do {
+            chunk = ShardedUserStore.findChunk(sourceJdbc, afterUserId, chunkSize);
+            scanned += chunk.size();
+            moved += copy(byTargetShard(chunk));
+            if (!chunk.isEmpty()) {
+                afterUserId = chunk.get(chunk.size() - 1).getUserId();
+            }
+        } while (chunk.size() == chunkSize);
+
+        log.info("Imported {} of {} unsharded users", moved, scanned);
+        return new Result(scanned, moved, 0);
+    }
+
+    /**
+     * Move misplaced users to their shard, then drop directory entries whose user no longer exists
+     * @return Totals of the run
+     */
+    public Result rebalance() {
+        long scanned = 0;
+        long moved = 0;
+        for (UserShard shard : store.shards()) {
+            long afterUserId = 0L;
+            List<User> chunk;
+            do {
+                chunk = store.findChunk(shard.index(), afterUserId, chunkSize);
+                scanned += chunk.size();
+                Map<Integer, List<User>> misplaced = byTargetShard(chunk);
+                misplaced.remove(shard.index());
+                moved += copy(misplaced);
+                store.deleteByUserIdIn(shard.index(), misplaced.values().stream()
+                        .flatMap(List::stream)
+                        .map(User::getUserId)
+                        .collect(Collectors.toList()));
+                if (!chunk.isEmpty()) {
+                    afterUserId = chunk.get(chunk.size() - 1).getUserId();
+                }
+            } while (chunk.size() == chunkSize);
+            log.info("Rebalanced shard {}: {} users scanned, {} moved so far", shard.name(), scanned, moved);
+        }
+
+        long orphans = 0;
+        for (UserShard shard : store.shards()) {
+            orphans += pruneOrphans(shard.index());
+        }
+        log.info("Rebalance completed: {} users scanned, {} moved, {} orphaned directory entries removed",
+                scanned, moved, orphans);
+        return new Result(scanned, moved, orphans);
+    }
+
+    private Map<Integer, List<User>> byTargetShard(List<User> users) {
+        Map<Integer, List<User>> byShard = new TreeMap<>();
+        for (User user : users) {
+            byShard.computeIfAbsent(router.shardOf(user.getEmail()), shard -> new ArrayList<>()).add(user);
+        }
+        return byShard;
+    }
+
+    /**
+     * Insert the users into their target shards (skipping any already there) and point the directory at them
+     * @return Number of users copied or re-pointed
+     */
+    private long copy(Map<Integer, List<User>> byShard) {
+        long copied = 0;
+        for (Map.Entry<Integer, List<User>> target : byShard.entrySet()) {
+            int shard = target.getKey();
+            List<User> users = target.getValue();
+            Set<Long> present = store.findExistingUserIds(shard, users.stream().map(User::getUserId).collect(Collectors.toList()));
+            store.insert(shard, users.stream().filter(user -> !present.contains(user.getUserId())).collect(Collectors.toList()));
+            for (User user : users) {
+                directory.put(new UserShardDirectory.Entry(user.getUserId(), user.getEmail(), user.getPhoneNumber(), shard));
+            }
+            copied += users.size();
+        }
+        return copied;
+    }
+
+    /**
+     * Entries left by a registration that failed between the directory insert and the shard insert
+     */
+    private long pruneOrphans(int shard) {
+        long pruned = 0;
+        long afterUserId = 0L;
+        List<UserShardDirectory.Entry> entries;
+        do {
+            entries = directory.findByShard(shard, afterUserId, chunkSize);
+            if (entries.isEmpty()) {
+                break;
+            }
+            List<Long> userIds = entries.stream().map(UserShardDirectory.Entry::userId).collect(Collectors.toList());
+            Set<Long> present = store.findExistingUserIds(shard, userIds);
+            Set<Long> orphaned = new HashSet<>(userIds);
+            orphaned.removeAll(present);
+            pruned += directory.deleteByUserIdIn(orphaned);
+            afterUserId = userIds.get(userIds.size() - 1);
+        } while (entries.size() == chunkSize);
+        return pruned;
+    }
+
+    /**
+     * Totals of a resharding run
+     * @param scanned Users read
+     * @param moved Users copied to another shard (or into the shards, for an import)
+     * @param orphansRemoved Directory entries removed because their user did not exist
+     */
+    public record Result(long scanned, long moved, long orphansRemoved) {
+    }
+}
@@ -0,0 +1,50 @@
+package in.osop.lms_user_service.sharding;
+
+import in.osop.lms_user_service.util.Hashing;
+
+/**
+ * Maps a normalized email to a shard with jump consistent hashing over a 64-bit hash of the email
+ * The hash is fixed (see Hashing.hash64), so placement is stable across JVMs and releases;
+ * growing from n to n + 1 shards moves only about 1 / (n + 1) of the users, all of them to the new shard
+ */
+public class ShardRouter {
+
+    private final int shardCount;
+
+    /**
+     * @param shardCount Number of shards
+     */
+    public ShardRouter(int shardCount) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Shard count must be positive");
+        }
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * @param normalizedEmail Lower-cased, trimmed email
+     * @return Shard index in [0, shardCount)
+     */
+    public int shardOf(String normalizedEmail) {
+        return jumpConsistentHash(Hashing.hash64(normalizedEmail), shardCount);
+    }
+
+    /**
+     * @return Number of shards
+     */
+    public int shardCount() {
+        return shardCount;
+    }
+
+    // Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpConsistentHash(long key, int buckets) {
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            key = key * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+}
@@ -0,0 +1,602 @@
+package in.osop.lms_user_service.sharding;
+
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.repository.projection.UserNameKey;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Plain-JDBC access to the users tables of all shards; closes the shard pools on shutdown
+ * Single-user operations go to one shard; listings and counts fan out to every shard in parallel and are merged here
+ */
+public class ShardedUserStore implements DisposableBean {
+
+    private static final String COLUMNS = "user_id, full_name, phone_number, email, course_name, status, "
+            + "created_at, updated_at, version, deleted_at";
+    private static final String LIVE = "deleted_at IS NULL";
+
+    private static final Map<String, SortColumn> SORT_COLUMNS = Map.of(
+            "userId", new SortColumn("user_id", Comparator.comparing(User::getUserId)),
+            "fullName", new SortColumn("full_name", Comparator.comparing(User::getFullName, String.CASE_INSENSITIVE_ORDER)),
+            "phoneNumber", new SortColumn("phone_number", Comparator.comparing(User::getPhoneNumber)),
+            "email", new SortColumn("email", Comparator.comparing(User::getEmail, String.CASE_INSENSITIVE_ORDER)),
+            "courseName", new SortColumn("course_name", Comparator.comparing(User::getCourseName, String.CASE_INSENSITIVE_ORDER)),
+            "status", new SortColumn("status", Comparator.comparing(User::getStatus)),
+            "createdAt", new SortColumn("created_at", Comparator.comparing(User::getCreatedAt)),
+            "updatedAt", new SortColumn("updated_at", Comparator.comparing(User::getUpdatedAt)));
+
+    private static final RowMapper<User> USER = (rs, rowNum) -> User.builder()
+            .userId(rs.getLong("user_id"))
+            .fullName(rs.getString("full_name"))
+            .phoneNumber(rs.getString("phone_number"))
+            .email(rs.getString("email"))
+            .courseName(rs.getString("course_name"))
+            .status(User.UserStatus.valueOf(rs.getString("status")))
+            .createdAt(toLocalDateTime(rs.getTimestamp("created_at")))
+            .updatedAt(toLocalDateTime(rs.getTimestamp("updated_at")))
+            .version(rs.getLong("version"))
+            .deletedAt(toLocalDateTime(rs.getTimestamp("deleted_at")))
+            .build();
+
+    private static final RowMapper<UserStatusKey> USER_STATUS_KEY = (rs, rowNum) -> new UserStatusKey(
+            rs.getLong("user_id"), rs.getString("course_name"), User.UserStatus.valueOf(rs.getString("status")),
+            rs.getObject("version", Long.class));
+
+    private final List<UserShard> shards;
+    private final int maxMergeWindow;
+    private final ExecutorService fanOut = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * @param shards Shards in index order
+     * @param maxMergeWindow Largest offset + page size a sharded listing may request from each shard
+     */
+    public ShardedUserStore(List<UserShard> shards, int maxMergeWindow) {
+        this.shards = List.copyOf(shards);
+        this.maxMergeWindow = maxMergeWindow;
+    }
+
+    /**
+     * @return Shards in index order
+     */
+    public List<UserShard> shards() {
+        return shards;
+    }
+
+    /**
+     * Run a task against every shard in parallel
+     * @return Per-shard results in shard order
+     */
+    public <T> List<T> scatter(Function<UserShard, T> task) {
+        List<CompletableFuture<T>> futures = shards.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> task.apply(shard), fanOut))
+                .toList();
+        try {
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Insert users with their IDs already allocated, in one JDBC batch
+     */
+    public void insert(int shard, List<User> users) {
+        if (users.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = users.stream().map(ShardedUserStore::parameters).toArray(SqlParameterSource[]::new);
+        UserShard target = shards.get(shard);
+        target.transactionTemplate().executeWithoutResult(tx -> target.jdbc().batchUpdate("INSERT INTO users (" + COLUMNS + ") VALUES (:userId, :fullName, "
+                + ":phoneNumber, :email, :courseName, :status, :createdAt, :updatedAt, :version, :deletedAt)", batch));
+    }
+
+    /**
+     * @return The live user with the ID on the shard
+     */
+    public Optional<User> findById(int shard, long userId) {
+        return findByUserIdIn(shard, List.of(userId)).stream().findFirst();
+    }
+
+    /**
+     * @return The live user with the normalized email on the shard
+     */
+    public Optional<User> findByEmail(int shard, String email) {
+        return findByEmailIn(shard, List.of(email)).stream().findFirst();
+    }
+
+    /**
+     * @return Live users on the shard among the given IDs
+     */
+    public List<User> findByUserIdIn(int shard, Collection<Long> userIds) {
+        return findIn(shard, "user_id", userIds);
+    }
+
+    /**
+     * @return Live users on the shard among the given normalized emails
+     */
+    public List<User> findByEmailIn(int shard, Collection<String> emails) {
+        return findIn(shard, "email", emails);
+    }
+
+    /**
+     * @return IDs of the given users that have a row on the shard, soft-deleted rows included
+     */
+    public Set<Long> findExistingUserIds(int shard, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(shards.get(shard).jdbc().queryForList(
+                "SELECT user_id FROM users WHERE user_id IN (:userIds)",
+                new MapSqlParameterSource("userIds", userIds), Long.class));
+    }
+
+    /**
+     * Write a user's fields if its version is unchanged, incrementing the version
+     * @return Number of rows updated (0 if the user was changed or deleted meanwhile)
+     */
+    public int update(int shard, User user, long expectedVersion) {
+        return shards.get(shard).jdbc().update("UPDATE users SET full_name = :fullName, phone_number = :phoneNumber, "
+                        + "email = :email, course_name = :courseName, status = :status, updated_at = :updatedAt, "
+                        + "version = COALESCE(version, 0) + 1 "
+                        + "WHERE user_id = :userId AND COALESCE(version, 0) = :expectedVersion AND " + LIVE,
+                parameters(user).addValue("expectedVersion", expectedVersion));
+    }
+
+    /**
+     * @return Number of rows deleted
+     */
+    public int deleteByUserIdIn(int shard, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return shards.get(shard).jdbc().update("DELETE FROM users WHERE user_id IN (:userIds)",
+                new MapSqlParameterSource("userIds", userIds));
+    }
+
+    /**
+     * Delete a user if its version is unchanged (the source side of a shard move)
+     * @return Number of rows deleted
+     */
+    public int deleteByUserIdAndVersion(int shard, long userId, long expectedVersion) {
+        return shards.get(shard).jdbc().update(
+                "DELETE FROM users WHERE user_id = :userId AND COALESCE(version, 0) = :expectedVersion",
+                new MapSqlParameterSource().addValue("userId", userId).addValue("expectedVersion", expectedVersion));
+    }
+
+    /**
+     * Lock live users on the shard by ID for a bulk change, in primary-key order to avoid lock-order deadlocks
+     * Must run inside a transaction of the shard
+     * @return Course, status and version of every user found
+     */
+    public List<UserStatusKey> lockStatusKeysByUserIdIn(int shard, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return List.of();
+        }
+        return shards.get(shard).jdbc().query("SELECT user_id, course_name, status, version FROM users "
+                        + "WHERE user_id IN (:userIds) AND " + LIVE + " ORDER BY user_id FOR UPDATE",
+                new MapSqlParameterSource("userIds", userIds), USER_STATUS_KEY);
+    }
+
+    /**
+     * Lock the next live users of a course on the shard that a bulk status change would modify, in primary-key order
+     * Must run inside a transaction of the shard
+     * @param status Target status; users already in it are skipped
+     * @param currentStatus Only users currently in this status, or null for any
+     * @param afterUserId Keyset position (exclusive)
+     */
+    public List<UserStatusKey> lockStatusKeysByCourseName(int shard, String courseName, User.UserStatus status,
+                                                          User.UserStatus currentStatus, long afterUserId, int limit) {
+        String where = " AND status <> :status" + (currentStatus == null ? "" : " AND status = :currentStatus");
+        return lockCourseChunk(shard, where, new MapSqlParameterSource()
+                .addValue("courseName", courseName)
+                .addValue("status", status.name())
+                .addValue("currentStatus", currentStatus == null ? null : currentStatus.name()),
+                afterUserId, limit);
+    }
+
+    /**
+     * Lock the next live users of a course on the shard for a bulk delete, in primary-key order
+     * Must run inside a transaction of the shard
+     * @param status Only users in this status, or null for any
+     * @param afterUserId Keyset position (exclusive)
+     */
+    public List<UserStatusKey> lockStatusKeysByCourseNameAndStatus(int shard, String courseName, User.UserStatus status,
+                                                                   long afterUserId, int limit) {
+        return lockCourseChunk(shard, status == null ? "" : " AND status = :status",
+                new MapSqlParameterSource()
+                        .addValue("courseName", courseName)
+                        .addValue("status", status == null ? null : status.name()),
+                afterUserId, limit);
+    }
+
+    /**
+     * Set the status of many users on the shard in one statement, incrementing their versions
+     * @param status New status; users already in it are not touched
+     * @return Number of rows changed
+     */
+    public int updateStatusByUserIdIn(int shard, Collection<Long> userIds, User.UserStatus status,
+                                      LocalDateTime updatedAt) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return shards.get(shard).jdbc().update("UPDATE users SET status = :status, updated_at = :updatedAt, "
+                        + "version = COALESCE(version, 0) + 1 WHERE user_id IN (:userIds) AND status <> :status AND " + LIVE,
+                new MapSqlParameterSource()
+                        .addValue("userIds", userIds)
+                        .addValue("status", status.name())
+                        .addValue("updatedAt", updatedAt));
+    }
+
+    /**
+     * One chunk of a shard's rows in user ID order, soft-deleted ones included (resharding)
+     */
+    public List<User> findChunk(int shard, long afterUserId, int limit) {
+        return findChunk(shards.get(shard).jdbc(), afterUserId, limit);
+    }
+
+    /**
+     * One chunk of any users table with this schema in user ID order, soft-deleted rows included
+     */
+    static List<User> findChunk(NamedParameterJdbcTemplate jdbc, long afterUserId, int limit) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM users WHERE user_id > :afterUserId ORDER BY user_id LIMIT :limit",
+                new MapSqlParameterSource().addValue("afterUserId", afterUserId).addValue("limit", limit), USER);
+    }
+
+    /**
+     * A page of all users, merged from every shard
+     */
+    public Page<User> findAll(Pageable pageable) {
+        return findPage("", new MapSqlParameterSource(), pageable);
+    }
+
+    /**
+     * A page of a course's users, merged from every shard
+     */
+    public Page<User> findByCourseName(String courseName, Pageable pageable) {
+        return findPage(" AND course_name = :courseName", new MapSqlParameterSource("courseName", courseName), pageable);
+    }
+
+    /**
+     * Keyset page of all users ordered by (createdAt, userId), merged from every shard
+     * @param afterCreatedAt Creation time of the last user already returned, or null for the first page
+     * @param afterUserId ID of the last user already returned, or null for the first page
+     * @param limit Maximum number of users to return
+     */
+    public List<User> findAllAfter(LocalDateTime afterCreatedAt, Long afterUserId, Sort.Direction direction, int limit) {
+        return findKeysetPage("", new MapSqlParameterSource(), afterCreatedAt, afterUserId, direction, limit);
+    }
+
+    /**
+     * Keyset page of a course's users ordered by (createdAt, userId), merged from every shard
+     * @param afterCreatedAt Creation time of the last user already returned, or null for the first page
+     * @param afterUserId ID of the last user already returned, or null for the first page
+     * @param limit Maximum number of users to return
+     */
+    public List<User> findByCourseNameAfter(String courseName, LocalDateTime afterCreatedAt, Long afterUserId,
+                                            Sort.Direction direction, int limit) {
+        return findKeysetPage(" AND course_name = :courseName", new MapSqlParameterSource("courseName", courseName),
+                afterCreatedAt, afterUserId, direction, limit);
+    }
+
+    /**
+     * A page of users whose name contains the text (case-insensitive), merged from every shard
+     * Used while the name index is not ready
+     */
+    public Page<User> findByFullNameContaining(String fullName, Pageable pageable) {
+        String pattern = "%" + fullName.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return findPage(" AND UPPER(full_name) LIKE UPPER(:pattern) ESCAPE '!'",
+                new MapSqlParameterSource("pattern", pattern), pageable);
+    }
+
+    /**
+     * Visit the ID and name of every live user, reading all shards in parallel in keyset chunks
+     * @param chunkSize Rows fetched from a shard per query
+     * @param action Called once per user, from several threads at once
+     */
+    public void forEachNameKey(int chunkSize, Consumer<UserNameKey> action) {
+        scatter(shard -> {
+            long afterUserId = 0;
+            while (true) {
+                List<UserNameKey> chunk = shard.jdbc().query("SELECT user_id, full_name FROM users WHERE " + LIVE
+                                + " AND user_id > :afterUserId ORDER BY user_id LIMIT :limit",
+                        new MapSqlParameterSource().addValue("afterUserId", afterUserId).addValue("limit", chunkSize),
+                        (rs, rowNum) -> new UserNameKey(rs.getLong("user_id"), rs.getString("full_name")));
+                chunk.forEach(action);
+                if (chunk.size() < chunkSize) {
+                    return chunk.size();
+                }
+                afterUserId = chunk.get(chunk.size() - 1).userId();
+            }
+        });
+    }
+
+    /**
+     * Visit all users of a course in user ID order
+     * Each shard is read in keyset chunks and the chunks are merged as they are consumed, so at most one chunk per
+     * shard is held at a time
+     * @param chunkSize Rows fetched from a shard per query
+     * @param action Called once per user
+     * @return Number of users visited
+     */
+    public long forEachByCourseName(String courseName, int chunkSize, Consumer<User> action) {
+        List<Iterator<User>> perShard = shards.stream()
+                .map(shard -> (Iterator<User>) new ChunkIterator(shard.jdbc(), " AND course_name = :courseName",
+                        new MapSqlParameterSource("courseName", courseName), chunkSize))
+                .toList();
+        Iterator<User> users = merge(perShard, SORT_COLUMNS.get("userId").comparator());
+        long count = 0;
+        while (users.hasNext()) {
+            action.accept(users.next());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return Live users of the course on all shards
+     */
+    public long countByCourseName(String courseName) {
+        return count(" AND course_name = :courseName", new MapSqlParameterSource("courseName", courseName));
+    }
+
+    /**
+     * @return Live users with the status on all shards
+     */
+    public long countByStatus(User.UserStatus status) {
+        return count(" AND status = :status", new MapSqlParameterSource("status", status.name()));
+    }
+
+    @Override
+    public void destroy() {
+        fanOut.shutdown();
+        shards.forEach(shard -> shard.dataSource().close());
+    }
+
+    /**
+     * Every shard returns its first offset + size rows in page order; a k-way merge of those lists then
+     * yields the global page, and the total is the sum of the per-shard counts
+     */
+    private Page<User> findPage(String where, MapSqlParameterSource params, Pageable pageable) {
+        long window = pageable.getOffset() + pageable.getPageSize();
+        if (window > maxMergeWindow) {
+            throw new IllegalArgumentException("Page too deep for a sharded listing: page * size + size must not exceed "
+                    + maxMergeWindow);
+        }
+
+        Sort sort = pageable.getSort().and(Sort.by("userId"));
+        String orderBy = orderBy(sort);
+        MapSqlParameterSource pageParams = new MapSqlParameterSource(params.getValues()).addValue("limit", window);
+        List<List<User>> perShard = scatter(shard -> shard.jdbc().query("SELECT " + COLUMNS + " FROM users WHERE "
+                + LIVE + where + " ORDER BY " + orderBy + " LIMIT :limit", pageParams, USER));
+        long total = count(where, params);
+
+        List<User> content = merge(perShard, comparator(sort), (int) pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    /**
+     * Every shard returns its first limit rows after the keyset position; the merge of those lists in
+     * (createdAt, userId) order then yields the global page
+     */
+    private List<User> findKeysetPage(String where, MapSqlParameterSource params, LocalDateTime afterCreatedAt,
+                                      Long afterUserId, Sort.Direction direction, int limit) {
+        String after = "";
+        MapSqlParameterSource pageParams = new MapSqlParameterSource(params.getValues()).addValue("limit", limit);
+        if (afterCreatedAt != null && afterUserId != null) {
+            String comparison = direction.isAscending() ? ">" : "<";
+            after = " AND (created_at " + comparison + " :afterCreatedAt OR (created_at = :afterCreatedAt AND user_id "
+                    + comparison + " :afterUserId))";
+            pageParams.addValue("afterCreatedAt", afterCreatedAt).addValue("afterUserId", afterUserId);
+        }
+
+        Sort sort = Sort.by(direction, "createdAt", "userId");
+        String query = "SELECT " + COLUMNS + " FROM users WHERE " + LIVE + where + after + " ORDER BY " + orderBy(sort)
+                + " LIMIT :limit";
+        List<List<User>> perShard = scatter(shard -> shard.jdbc().query(query, pageParams, USER));
+        return merge(perShard, comparator(sort), 0, limit);
+    }
+
+    private List<UserStatusKey> lockCourseChunk(int shard, String where, MapSqlParameterSource params,
+                                                long afterUserId, int limit) {
+        return shards.get(shard).jdbc().query("SELECT user_id, course_name, status, version FROM users "
+                        + "WHERE course_name = :courseName AND " + LIVE + where + " AND user_id > :afterUserId "
+                        + "ORDER BY user_id LIMIT :limit FOR UPDATE",
+                params.addValue("afterUserId", afterUserId).addValue("limit", limit), USER_STATUS_KEY);
+    }
+
+    private long count(String where, MapSqlParameterSource params) {
+        return scatter(shard -> shard.jdbc().queryForObject(
+                "SELECT COUNT(*) FROM users WHERE " + LIVE + where, params, Long.class))
+                .stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    private List<User> findIn(int shard, String column, Collection<?> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        return shards.get(shard).jdbc().query("SELECT " + COLUMNS + " FROM users WHERE " + column + " IN (:values) AND "
+                + LIVE, new MapSqlParameterSource("values", values), USER);
+    }
+
+    /**
+     * K-way merge of lists each sorted by the comparator
+     * @return The rows from offset to offset + limit of the merged order
+     */
+    static <T> List<T> merge(List<List<T>> sortedLists, Comparator<? super T> comparator, int offset, int limit) {
+        Iterator<T> merged = merge(sortedLists.stream().map(List::iterator).toList(), comparator);
+        for (int skipped = 0; skipped < offset && merged.hasNext(); skipped++) {
+            merged.next();
+        }
+        List<T> page = new ArrayList<>(Math.min(limit, 1024));
+        while (merged.hasNext() && page.size() < limit) {
+            page.add(merged.next());
+        }
+        return page;
+    }
+
+    /**
+     * Lazy k-way merge of iterators each sorted by the comparator; an iterator is only advanced when its head is taken
+     */
+    static <T> Iterator<T> merge(List<? extends Iterator<T>> sortedIterators, Comparator<? super T> comparator) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sortedIterators.size()),
+                (a, b) -> comparator.compare(a.value(), b.value()));
+        for (Iterator<T> iterator : sortedIterators) {
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), iterator));
+            }
+        }
+        return new Iterator<>() {
+
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest().hasNext()) {
+                    heads.add(new Head<>(head.rest().next(), head.rest()));
+                }
+                return head.value();
+            }
+        };
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> terms = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            terms.add(sortColumn(order.getProperty()).column() + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        return String.join(", ", terms);
+    }
+
+    // Mirrors the ORDER BY; string columns compare case-insensitively like the default MySQL collations
+    private static Comparator<User> comparator(Sort sort) {
+        Comparator<User> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<User> next = sortColumn(order.getProperty()).comparator();
+            next = order.isAscending() ? next : next.reversed();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static SortColumn sortColumn(String property) {
+        SortColumn column = SORT_COLUMNS.get(property);
+        if (column == null) {
+            throw new IllegalArgumentException("Unsupported sort property: " + property);
+        }
+        return column;
+    }
+
+    private static MapSqlParameterSource parameters(User user) {
+        return new MapSqlParameterSource()
+                .addValue("userId", user.getUserId())
+                .addValue("fullName", user.getFullName())
+                .addValue("phoneNumber", user.getPhoneNumber())
+                .addValue("email", user.getEmail())
+                .addValue("courseName", user.getCourseName())
+                .addValue("status", user.getStatus().name())
+                .addValue("createdAt", user.getCreatedAt())
+                .addValue("updatedAt", user.getUpdatedAt())
+                .addValue("version", user.getVersion())
+                .addValue("deletedAt", user.getDeletedAt());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private record SortColumn(String column, Comparator<User> comparator) {
+    }
+
+    private record Head<T>(T value, Iterator<T> rest) {
+    }
+
+    /**
+     * Live rows of one shard in user ID order, fetched a chunk at a time as the iteration reaches the end of the
+     * previous chunk
+     */
+    private static final class ChunkIterator implements Iterator<User> {
+
+        private final NamedParameterJdbcTemplate jdbc;
+        private final String where;
+        private final MapSqlParameterSource params;
+        private final int chunkSize;
+        private List<User> chunk = List.of();
+        private int position;
+        private boolean exhausted;
+
+        ChunkIterator(NamedParameterJdbcTemplate jdbc, String where, MapSqlParameterSource params, int chunkSize) {
+            this.jdbc = jdbc;
+            this.where = where;
+            this.params = params;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (position < chunk.size()) {
+                return true;
+            }
+            if (exhausted) {
+                return false;
+            }
+            long afterUserId = chunk.isEmpty() ? 0 : chunk.get(chunk.size() - 1).getUserId();
+            chunk = jdbc.query("SELECT " + COLUMNS + " FROM users WHERE " + LIVE + where
+                            + " AND user_id > :afterUserId ORDER BY user_id LIMIT :limit",
+                    new MapSqlParameterSource(params.getValues())
+                            .addValue("afterUserId", afterUserId)
+                            .addValue("limit", chunkSize),
+                    USER);
+            position = 0;
+            exhausted = chunk.size() < chunkSize;
+            return !chunk.isEmpty();
+        }
+
+        @Override
+        public User next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.get(position++);
+        }
+    }
+}
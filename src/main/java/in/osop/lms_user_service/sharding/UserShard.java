@@ -0,0 +1,17 @@
+package in.osop.lms_user_service.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One shard database holding a users table with the same schema as the primary
+ * @param index Shard index, as returned by ShardRouter
+ * @param name Pool name, for logs and metrics
+ * @param dataSource Connection pool of the shard
+ * @param jdbc JDBC access to the shard
+ * @param transactionTemplate Local transactions on the shard
+ */
+public record UserShard(int index, String name, HikariDataSource dataSource, NamedParameterJdbcTemplate jdbc,
+                        TransactionTemplate transactionTemplate) {
+}
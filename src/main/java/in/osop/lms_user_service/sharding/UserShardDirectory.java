@@ -0,0 +1,185 @@
+package in.osop.lms_user_service.sharding;
+
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Global user directory on the primary database: user ID, email and phone number to shard
+ * Lookups by ID and phone number go through it, as the email is the only key the shard can be computed from;
+ * its primary key allocates user IDs and its unique keys keep emails and phone numbers unique across shards
+ */
+public class UserShardDirectory {
+
+    private static final String COLUMNS = "user_id, email, phone_number, shard";
+    private static final RowMapper<Entry> ENTRY = (rs, rowNum) -> new Entry(
+            rs.getLong("user_id"), rs.getString("email"), rs.getString("phone_number"), rs.getInt("shard"));
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    /**
+     * @param dataSource Primary (non-sharded) database
+     */
+    public UserShardDirectory(DataSource dataSource) {
+        this.jdbc = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * Allocate a user ID and record the user's shard
+     * @return New user ID
+     * @throws org.springframework.dao.DuplicateKeyException if the email or phone number is already taken
+     */
+    public long register(String email, String phoneNumber, int shard) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbc.update("INSERT INTO user_shard_directory (email, phone_number, shard) VALUES (:email, :phoneNumber, :shard)",
+                new MapSqlParameterSource()
+                        .addValue("email", email)
+                        .addValue("phoneNumber", phoneNumber)
+                        .addValue("shard", shard),
+                keyHolder, new String[] {"user_id"});
+        return keyHolder.getKeyAs(Number.class).longValue();
+    }
+
+    /**
+     * Insert or replace the entry of an existing user ID (resharding and imports)
+     */
+    public void put(Entry entry) {
+        MapSqlParameterSource params = parameters(entry);
+        if (jdbc.update("UPDATE user_shard_directory SET email = :email, phone_number = :phoneNumber, shard = :shard "
+                + "WHERE user_id = :userId", params) == 0) {
+            jdbc.update("INSERT INTO user_shard_directory (" + COLUMNS + ") "
+                    + "VALUES (:userId, :email, :phoneNumber, :shard)", params);
+        }
+    }
+
+    /**
+     * Change the email, phone number and shard of a user
+     * @return Number of entries updated
+     * @throws org.springframework.dao.DuplicateKeyException if the new email or phone number is already taken
+     */
+    public int update(Entry entry) {
+        return jdbc.update("UPDATE user_shard_directory SET email = :email, phone_number = :phoneNumber, shard = :shard "
+                + "WHERE user_id = :userId", parameters(entry));
+    }
+
+    /**
+     * @return Number of entries deleted
+     */
+    public int deleteByUserIdIn(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return 0;
+        }
+        return jdbc.update("DELETE FROM user_shard_directory WHERE user_id IN (:userIds)",
+                new MapSqlParameterSource("userIds", userIds));
+    }
+
+    /**
+     * @return Entry of the user, or empty if the ID is unknown
+     */
+    public Optional<Entry> findByUserId(long userId) {
+        return findByUserIdIn(List.of(userId)).stream().findFirst();
+    }
+
+    /**
+     * @return Entries of the known user IDs among the given ones
+     */
+    public List<Entry> findByUserIdIn(Collection<Long> userIds) {
+        return findIn("user_id", userIds);
+    }
+
+    /**
+     * @return Entries of the given normalized phone numbers that are registered
+     */
+    public List<Entry> findByPhoneNumberIn(Collection<String> phoneNumbers) {
+        return findIn("phone_number", phoneNumbers);
+    }
+
+    /**
+     * @return Entries of the given normalized emails that are registered
+     */
+    public List<Entry> findByEmailIn(Collection<String> emails) {
+        return findIn("email", emails);
+    }
+
+    /**
+     * @param email Normalized email
+     * @return true if a user on any shard has the email
+     */
+    public boolean existsByEmail(String email) {
+        return !findByEmailIn(List.of(email)).isEmpty();
+    }
+
+    /**
+     * @param phoneNumber Normalized phone number
+     * @return true if a user on any shard has the phone number
+     */
+    public boolean existsByPhoneNumber(String phoneNumber) {
+        return !findByPhoneNumberIn(List.of(phoneNumber)).isEmpty();
+    }
+
+    /**
+     * @return Emails of the given ones that are taken
+     */
+    public Set<String> findExistingEmails(Collection<String> emails) {
+        Set<String> existing = new HashSet<>();
+        findByEmailIn(emails).forEach(entry -> existing.add(entry.email()));
+        return existing;
+    }
+
+    /**
+     * @return Phone numbers of the given ones that are taken
+     */
+    public Set<String> findExistingPhoneNumbers(Collection<String> phoneNumbers) {
+        Set<String> existing = new HashSet<>();
+        findByPhoneNumberIn(phoneNumbers).forEach(entry -> existing.add(entry.phoneNumber()));
+        return existing;
+    }
+
+    /**
+     * One page of a shard's entries in user ID order
+     */
+    public List<Entry> findByShard(int shard, long afterUserId, int limit) {
+        return jdbc.query("SELECT " + COLUMNS + " FROM user_shard_directory "
+                        + "WHERE shard = :shard AND user_id > :afterUserId ORDER BY user_id LIMIT :limit",
+                new MapSqlParameterSource()
+                        .addValue("shard", shard)
+                        .addValue("afterUserId", afterUserId)
+                        .addValue("limit", limit),
+                ENTRY);
+    }
+
+    private List<Entry> findIn(String column, Collection<?> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        return jdbc.query("SELECT " + COLUMNS + " FROM user_shard_directory WHERE " + column + " IN (:values)",
+                new MapSqlParameterSource("values", values), ENTRY);
+    }
+
+    private static MapSqlParameterSource parameters(Entry entry) {
+        return new MapSqlParameterSource()
+                .addValue("userId", entry.userId())
+                .addValue("email", entry.email())
+                .addValue("phoneNumber", entry.phoneNumber())
+                .addValue("shard", entry.shard());
+    }
+
+    /**
+     * Directory entry of one user
+     * @param userId User ID
+     * @param email Normalized email
+     * @param phoneNumber Normalized phone number
+     * @param shard Index of the shard holding the user
+     */
+    public record Entry(long userId, String email, String phoneNumber, int shard) {
+    }
+}
@@ -0,0 +1,32 @@
+package in.osop.lms_user_service.util;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stable non-cryptographic hashing shared by shard placement and the in-memory filters
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes followed by the MurmurHash3 finalizer for better bit dispersion
+     * The result is fixed across JVMs and releases, so it may be used for persistent placement
+     * @param value Value to hash
+     * @return 64-bit hash
+     */
+    public static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
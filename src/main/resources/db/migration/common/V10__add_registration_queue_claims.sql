@@ -0,0 +1,4 @@
+-- Ownership of queued registrations: the instance holding a row in memory claims it and renews claimed_at,
+-- and other instances recover only rows whose claim has lapsed (rows queued before this migration have none)
+ALTER TABLE registration_queue ADD COLUMN claimed_by VARCHAR(36) NULL;
+ALTER TABLE registration_queue ADD COLUMN claimed_at DATETIME(6) NULL;
@@ -0,0 +1,15 @@
+-- Baseline: the users table as previously created by Hibernate schema auto-update
+CREATE TABLE users (
+    user_id      BIGINT       NOT NULL,
+    full_name    VARCHAR(100) NOT NULL,
+    phone_number VARCHAR(15)  NOT NULL,
+    email        VARCHAR(150) NOT NULL,
+    course_name  VARCHAR(100) NOT NULL,
+    status       ENUM('ACTIVE', 'INACTIVE', 'SUSPENDED', 'PENDING_VERIFICATION') NOT NULL,
+    created_at   DATETIME(6)  NOT NULL,
+    updated_at   DATETIME(6)  NOT NULL,
+    version      BIGINT,
+    PRIMARY KEY (user_id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_phone_number UNIQUE (phone_number)
+);
@@ -0,0 +1,5 @@
+-- findByCourseNameAndStatus, countByCourseName and the grouped (course, status) count
+CREATE INDEX idx_users_course_status ON users (course_name, status);
+
+-- findByStatus and countByStatus
+CREATE INDEX idx_users_status ON users (status);
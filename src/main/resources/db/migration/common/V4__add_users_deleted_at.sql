@@ -0,0 +1,4 @@
+-- Soft delete: rows with deleted_at set are hidden from every entity query and purged in the background
+-- Deliberately not indexed: every query filters on deleted_at IS NULL, which matches almost all rows, and an
+-- index on it competes with the course/status indexes; the infrequent purge scans with non-locking reads instead
+ALTER TABLE users ADD COLUMN deleted_at DATETIME(6) NULL;
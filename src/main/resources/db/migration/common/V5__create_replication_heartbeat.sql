@@ -0,0 +1,9 @@
+-- Replication heartbeat: instances with read replicas enabled advance beat_millis on the primary every
+-- lag check and read it back from each replica; the difference is the replica's lag
+CREATE TABLE replication_heartbeat (
+    id          INT    NOT NULL,
+    beat_millis BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO replication_heartbeat (id, beat_millis) VALUES (1, 0);
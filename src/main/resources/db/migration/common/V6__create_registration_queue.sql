@@ -0,0 +1,18 @@
+-- Write-behind registration queue: accepted registrations are stored here before the background writer
+-- inserts them into users, so queued items survive a restart; completed rows keep the outcome for status lookups
+CREATE TABLE registration_queue (
+    tracking_id  VARCHAR(36)  NOT NULL,
+    full_name    VARCHAR(100) NOT NULL,
+    phone_number VARCHAR(15)  NOT NULL,
+    email        VARCHAR(150) NOT NULL,
+    course_name  VARCHAR(100) NOT NULL,
+    status       ENUM('QUEUED', 'CREATED', 'REJECTED') NOT NULL,
+    user_id      BIGINT       NULL,
+    message      VARCHAR(255) NULL,
+    enqueued_at  DATETIME(6)  NOT NULL,
+    completed_at DATETIME(6)  NULL,
+    PRIMARY KEY (tracking_id)
+);
+
+-- Recovery of orphaned QUEUED rows and purge of completed ones
+CREATE INDEX idx_registration_queue_status_enqueued_at ON registration_queue (status, enqueued_at);
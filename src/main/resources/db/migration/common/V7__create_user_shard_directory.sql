@@ -0,0 +1,15 @@
+-- Shard directory: with sharding enabled it lives on the primary database and maps every user to the shard
+-- holding its row; the primary key allocates user IDs and the unique keys keep emails and phone numbers
+-- unique across shards. Shards are migrated with the same scripts, so the table also exists (unused) on them
+CREATE TABLE user_shard_directory (
+    user_id      BIGINT       NOT NULL AUTO_INCREMENT,
+    email        VARCHAR(150) NOT NULL,
+    phone_number VARCHAR(15)  NOT NULL,
+    shard        INT          NOT NULL,
+    PRIMARY KEY (user_id),
+    CONSTRAINT uk_user_shard_directory_email UNIQUE (email),
+    CONSTRAINT uk_user_shard_directory_phone_number UNIQUE (phone_number)
+);
+
+-- Orphan checks and rebalancing scan one shard's entries at a time
+CREATE INDEX idx_user_shard_directory_shard_user_id ON user_shard_directory (shard, user_id);
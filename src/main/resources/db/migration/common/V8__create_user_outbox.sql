@@ -0,0 +1,11 @@
+-- Transactional outbox: a row per user change, inserted in the transaction that made the change and deleted
+-- by the relay once published. event_id gives the publishing order; payload is the user as JSON (null on delete)
+CREATE TABLE user_outbox (
+    event_id    BIGINT        NOT NULL AUTO_INCREMENT,
+    event_type  ENUM('REGISTERED', 'UPDATED', 'STATUS_CHANGED', 'DELETED') NOT NULL,
+    user_id     BIGINT        NOT NULL,
+    version     BIGINT        NOT NULL,
+    payload     VARCHAR(2000) NULL,
+    occurred_at DATETIME(6)   NOT NULL,
+    PRIMARY KEY (event_id)
+);
@@ -0,0 +1,2 @@
+-- Increment matches the allocationSize of the users_seq generator on User
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
@@ -0,0 +1,4 @@
+-- Keyset pagination over all users and per course
+-- Builds that still ran Hibernate schema auto-update may have created these already
+CREATE INDEX IF NOT EXISTS idx_users_created_at_user_id ON users (created_at, user_id);
+CREATE INDEX IF NOT EXISTS idx_users_course_created_at_user_id ON users (course_name, created_at, user_id);
@@ -0,0 +1,6 @@
+-- Runs after every migrate: keep users_seq a full allocation block (50) past user_id values written without it
+ALTER SEQUENCE users_seq RESTART WITH (
+    SELECT GREATEST(
+        (SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE LOWER(SEQUENCE_NAME) = 'users_seq'),
+        COALESCE(MAX(user_id), 0) + 51)
+    FROM users);
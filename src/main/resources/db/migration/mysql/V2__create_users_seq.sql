@@ -0,0 +1,12 @@
+-- MySQL has no sequences; Hibernate emulates users_seq with a single-row table
+CREATE TABLE IF NOT EXISTS users_seq (
+    next_val BIGINT
+);
+
+INSERT INTO users_seq (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM users_seq);
+
+-- Rows created before ids came from users_seq used AUTO_INCREMENT; move the sequence
+-- a full allocation block (50) past them so the pooled optimizer never hands out a used id
+UPDATE users_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(user_id), 0) + 51 FROM users));
@@ -0,0 +1,20 @@
+-- Keyset pagination over all users and per course
+-- Builds that still ran Hibernate schema auto-update may have created these already;
+-- MySQL has no CREATE INDEX IF NOT EXISTS, so each index is created only when missing
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'users'
+                 AND index_name = 'idx_users_created_at_user_id') = 0,
+              'CREATE INDEX idx_users_created_at_user_id ON users (created_at, user_id)',
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF((SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'users'
+                 AND index_name = 'idx_users_course_created_at_user_id') = 0,
+              'CREATE INDEX idx_users_course_created_at_user_id ON users (course_name, created_at, user_id)',
+              'DO 0');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
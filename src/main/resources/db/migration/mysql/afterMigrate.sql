@@ -0,0 +1,4 @@
+-- Runs after every migrate: keep users_seq a full allocation block (50) past user_id values written without it,
+-- e.g. by an older build that still used AUTO_INCREMENT; never moves the sequence back
+UPDATE users_seq
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(user_id), 0) + 51 FROM users));
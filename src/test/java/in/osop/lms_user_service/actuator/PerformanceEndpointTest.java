@@ -0,0 +1,75 @@
+package in.osop.lms_user_service.actuator;
+
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Payload of /actuator/performance after real traffic: service, repository and HTTP timers with percentiles,
+ * Hibernate statistics and connection pool figures
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_performance;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.hikari.pool-name=performance-pool",
+        "lms.slow-query.threshold-ms=150"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class PerformanceEndpointTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void reportsWhereTheTimeOfServedRequestsWent() throws Exception {
+        UserResponse user = userService.registerUser(UserRegistrationRequest.builder()
+                .fullName("Timed User")
+                .email("timed@example.com")
+                .phoneNumber("9700000001")
+                .courseName("Java Programming")
+                .build());
+        mvc.perform(get("/api/v1/users/{id}", user.getUserId())).andExpect(status().isOk());
+        mvc.perform(get("/api/v1/users/cursor")).andExpect(status().isOk());
+
+        mvc.perform(get("/actuator/performance").with(httpBasic("admin", "admin123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.service[?(@.tags.method == 'getUserById')].count", hasItem(1)))
+                .andExpect(jsonPath("$.service[?(@.tags.method == 'registerUser')].count", hasItem(1)))
+                .andExpect(jsonPath("$.service[0]", hasKey("p95Ms")))
+                .andExpect(jsonPath("$.service[0]", hasKey("p99Ms")))
+                .andExpect(jsonPath("$.repository[?(@.tags.method == 'findResponsePage')].count", hasItem(1)))
+                .andExpect(jsonPath("$.http[?(@.tags.uri == '/api/v1/users/{id}')].tags.status", hasItem("200")))
+                .andExpect(jsonPath("$.http[?(@.tags.uri == '/api/v1/users/cursor')].count", hasItem(1)))
+                .andExpect(jsonPath("$.hibernate.enabled").value(true))
+                .andExpect(jsonPath("$.hibernate.entityInsertCount", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.hibernate.queryExecutionCount", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.connectionPools.performance-pool.max").value(20))
+                .andExpect(jsonPath("$.connectionPools.performance-pool.acquire.count", greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.connectionPools.performance-pool.acquire.p99Ms", notNullValue()))
+                .andExpect(jsonPath("$.slowQueryThresholdMs").value(150));
+    }
+
+    @Test
+    void requiresAuthentication() throws Exception {
+        mvc.perform(get("/actuator/performance"))
+                .andExpect(status().isUnauthorized());
+    }
+}
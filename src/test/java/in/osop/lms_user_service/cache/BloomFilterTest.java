@@ -0,0 +1,58 @@
+package in.osop.lms_user_service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Bloom filter sizing, absence of false negatives and the false-positive rate at the sized capacity
+ */
+class BloomFilterTest {
+
+    @Test
+    void neverReportsAnAddedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetAtCapacity() {
+        BloomFilter filter = new BloomFilter(50_000, 0.01);
+        for (int i = 0; i < 50_000; i++) {
+            filter.put("member" + i);
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("stranger" + i)) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / probes;
+        assertThat(observed).isLessThan(0.015);
+        assertThat(filter.expectedFalsePositiveRate()).isBetween(0.005, 0.015);
+    }
+
+    @Test
+    void sizesTheBitArrayFromInsertionsAndRate() {
+        // m = -n ln p / (ln 2)^2 = 9,585,059 bits for n = 1,000,000 and p = 0.01, rounded up to whole longs
+        assertThat(new BloomFilter(1_000_000, 0.01).memoryBytes()).isEqualTo(149_767 * Long.BYTES);
+        assertThat(new BloomFilter(1_000_000, 0.001).memoryBytes())
+                .isGreaterThan(new BloomFilter(1_000_000, 0.01).memoryBytes());
+        assertThat(new BloomFilter(1_000, 0.01).expectedFalsePositiveRate()).isZero();
+    }
+
+    @Test
+    void rejectsInvalidSizing() {
+        assertThatThrownBy(() -> new BloomFilter(0, 0.01)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new BloomFilter(100, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
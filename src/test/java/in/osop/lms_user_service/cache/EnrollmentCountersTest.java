@@ -0,0 +1,179 @@
+package in.osop.lms_user_service.cache;
+
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.repository.projection.CourseStatusCount;
+import in.osop.lms_user_service.repository.projection.UserStatusKey;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Counter adjustments and reconciliation against a users "table" read through a snapshot
+ * fixed by the first query of the reconcile transaction
+ */
+class EnrollmentCountersTest {
+
+    private final List<CourseStatusCount> committed = new CopyOnWriteArrayList<>();
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EnrollmentCounters counters =
+            new EnrollmentCounters(userRepository, mock(PlatformTransactionManager.class), true);
+    private volatile List<CourseStatusCount> snapshot;
+    private volatile Runnable duringGroupedQuery = () -> { };
+
+    EnrollmentCountersTest() {
+        when(userRepository.existsById(0L)).thenAnswer(invocation -> {
+            snapshot = List.copyOf(committed);
+            return false;
+        });
+        when(userRepository.countGroupedByCourseNameAndStatus()).thenAnswer(invocation -> {
+            duringGroupedQuery.run();
+            Map<List<Object>, Long> groups = snapshot.stream().collect(Collectors.groupingBy(
+                    row -> List.of(row.courseName(), row.status()),
+                    Collectors.summingLong(CourseStatusCount::count)));
+            return groups.entrySet().stream()
+                    .map(group -> new CourseStatusCount((String) group.getKey().get(0),
+                            (User.UserStatus) group.getKey().get(1), group.getValue()))
+                    .toList();
+        });
+    }
+
+    @Test
+    void countsAreUnavailableUntilReconciled() {
+        assertThat(counters.countByCourse("Java")).isEmpty();
+
+        counters.reconcile();
+
+        assertThat(counters.countByCourse("Java")).hasValue(0);
+        assertThat(counters.countByStatus(User.UserStatus.ACTIVE)).hasValue(0);
+    }
+
+    @Test
+    void registerStatusChangeAndDeleteAdjustCounts() {
+        counters.reconcile();
+
+        counters.registeredAfterCommit("Java", User.UserStatus.ACTIVE);
+        counters.registeredAfterCommit("java ", User.UserStatus.ACTIVE);
+        counters.registeredAfterCommit("Python", User.UserStatus.ACTIVE);
+        assertThat(counters.countByCourse("JAVA")).hasValue(2);
+        assertThat(counters.countByStatus(User.UserStatus.ACTIVE)).hasValue(3);
+
+        counters.changedAfterCommit("Python", User.UserStatus.ACTIVE, "Java", User.UserStatus.INACTIVE);
+        assertThat(counters.countByCourse("Java")).hasValue(3);
+        assertThat(counters.countByCourse("Python")).hasValue(0);
+        assertThat(counters.countByStatus(User.UserStatus.INACTIVE)).hasValue(1);
+
+        counters.statusChangedAfterCommit(List.of(
+                new UserStatusKey(1L, "Java", User.UserStatus.ACTIVE, 0L),
+                new UserStatusKey(2L, "Java", User.UserStatus.ACTIVE, 0L)), User.UserStatus.SUSPENDED);
+        assertThat(counters.countByStatus(User.UserStatus.ACTIVE)).hasValue(0);
+        assertThat(counters.countByStatus(User.UserStatus.SUSPENDED)).hasValue(2);
+        assertThat(counters.countByCourse("Java")).hasValue(3);
+
+        counters.removedAfterCommit("Java", User.UserStatus.INACTIVE);
+        counters.removedAfterCommit(List.of(new UserStatusKey(1L, "Java", User.UserStatus.SUSPENDED, 1L)));
+        assertThat(counters.countByCourse("Java")).hasValue(1);
+        assertThat(counters.countByStatus(User.UserStatus.INACTIVE)).hasValue(0);
+        assertThat(counters.countByStatus(User.UserStatus.SUSPENDED)).hasValue(1);
+    }
+
+    @Test
+    void reconcileHealsWritesThatWereNotCounted() {
+        counters.reconcile();
+        committed.add(new CourseStatusCount("Java", User.UserStatus.ACTIVE, 4));
+        assertThat(counters.countByCourse("Java")).hasValue(0);
+
+        counters.reconcile();
+
+        assertThat(counters.countByCourse("Java")).hasValue(4);
+        assertThat(counters.countByStatus(User.UserStatus.ACTIVE)).hasValue(4);
+    }
+
+    @Test
+    void writeCommittedDuringTheGroupedQueryIsCarriedOver() {
+        committed.add(new CourseStatusCount("Java", User.UserStatus.ACTIVE, 1));
+        counters.reconcile();
+        duringGroupedQuery = () -> {
+            committed.add(new CourseStatusCount("Java", User.UserStatus.ACTIVE, 1));
+            counters.registeredAfterCommit("Java", User.UserStatus.ACTIVE);
+        };
+
+        counters.reconcile();
+
+        assertThat(counters.countByCourse("Java")).hasValue(2);
+    }
+
+    @Test
+    void writeCommittingAsTheSnapshotOpensIsCountedOnce() throws Exception {
+        counters.reconcile();
+        CommittingWrite write = CommittingWrite.start(
+                () -> counters.registeredAfterCommit("Java", User.UserStatus.ACTIVE),
+                () -> committed.add(new CourseStatusCount("Java", User.UserStatus.ACTIVE, 1)));
+
+        CompletableFuture<Void> reconciled = CompletableFuture.runAsync(counters::reconcile);
+        Thread.sleep(200);
+        assertThat(reconciled).as("snapshot must not open while a counted write is committing").isNotDone();
+
+        write.complete();
+        reconciled.get(10, TimeUnit.SECONDS);
+
+        assertThat(counters.countByCourse("Java")).hasValue(1);
+        assertThat(counters.countByStatus(User.UserStatus.ACTIVE)).hasValue(1);
+    }
+
+    /**
+     * A writing transaction on its own thread that has committed in the database and not yet run its
+     * after-commit callbacks
+     */
+    private static final class CommittingWrite {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        static CommittingWrite start(Runnable hooks, Runnable databaseCommit) throws Exception {
+            CommittingWrite write = new CommittingWrite();
+            CountDownLatch committedInDatabase = new CountDownLatch(1);
+            new Thread(() -> {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    hooks.run();
+                    List<TransactionSynchronization> synchronizations =
+                            TransactionSynchronizationManager.getSynchronizations();
+                    TransactionSynchronizationUtils.triggerBeforeCommit(false);
+                    databaseCommit.run();
+                    committedInDatabase.countDown();
+                    write.release.await();
+                    TransactionSynchronizationUtils.invokeAfterCommit(synchronizations);
+                    TransactionSynchronizationUtils.invokeAfterCompletion(
+                            synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+                    write.done.complete(null);
+                } catch (InterruptedException ex) {
+                    write.done.completeExceptionally(ex);
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }).start();
+            committedInDatabase.await();
+            return write;
+        }
+
+        void complete() throws Exception {
+            release.countDown();
+            done.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
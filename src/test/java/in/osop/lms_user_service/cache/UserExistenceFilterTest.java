@@ -0,0 +1,138 @@
+package in.osop.lms_user_service.cache;
+
+import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.repository.projection.UserContactKeys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Existence filter add and rebuild paths against a users "table" whose scan sees only committed rows
+ */
+class UserExistenceFilterTest {
+
+    private final List<UserContactKeys> committed = new CopyOnWriteArrayList<>();
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    UserExistenceFilterTest() {
+        when(userRepository.count()).thenAnswer(invocation -> (long) committed.size());
+        when(userRepository.streamAllContactKeys()).thenAnswer(invocation -> List.copyOf(committed).stream());
+    }
+
+    @Test
+    void rebuildLoadsUsersAndAnswersDefiniteNegatives() {
+        committed.add(new UserContactKeys("a@example.com", "9000000001"));
+        UserExistenceFilter filter = filter(Duration.ofSeconds(5));
+
+        assertThat(filter.mightContainEmail("b@example.com")).as("before the first build").isTrue();
+        assertThat(filter.rebuild()).isTrue();
+
+        assertThat(filter.mightContainEmail("a@example.com")).isTrue();
+        assertThat(filter.mightContainPhoneNumber("9000000001")).isTrue();
+        assertThat(filter.mightContainEmail("b@example.com")).isFalse();
+
+        filter.add("b@example.com", "9000000002");
+        assertThat(filter.mightContainEmail("b@example.com")).isTrue();
+    }
+
+    @Test
+    void valuesAddedDuringTheScanSurviveTheSwap() {
+        UserExistenceFilter filter = filter(Duration.ofSeconds(5));
+        when(userRepository.streamAllContactKeys()).thenAnswer(invocation -> {
+            filter.add("during@example.com", "9000000003");
+            return List.copyOf(committed).stream();
+        });
+
+        assertThat(filter.rebuild()).isTrue();
+        assertThat(filter.mightContainEmail("during@example.com")).isTrue();
+    }
+
+    @Test
+    void rebuildWaitsForWritesThatAddedBeforeItStarted() throws Exception {
+        UserExistenceFilter filter = filter(Duration.ofSeconds(10));
+        filter.rebuild();
+        OpenWrite write = OpenWrite.start(filter, "open@example.com", "9000000004");
+
+        CompletableFuture<Boolean> rebuilt = CompletableFuture.supplyAsync(filter::rebuild);
+        Thread.sleep(200);
+        assertThat(rebuilt).as("scan must not start while the write is open").isNotDone();
+
+        committed.add(new UserContactKeys("open@example.com", "9000000004"));
+        write.complete();
+
+        assertThat(rebuilt.get(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(filter.mightContainEmail("open@example.com")).isTrue();
+    }
+
+    @Test
+    void rebuildIsAbandonedWhenEarlierWritesStayOpen() throws Exception {
+        UserExistenceFilter filter = filter(Duration.ofMillis(100));
+        filter.rebuild();
+        OpenWrite write = OpenWrite.start(filter, "slow@example.com", "9000000005");
+
+        assertThat(filter.rebuild()).isFalse();
+        assertThat(filter.mightContainEmail("slow@example.com")).as("kept in the current filter").isTrue();
+
+        write.complete();
+        assertThat(filter.rebuild()).isTrue();
+    }
+
+    private UserExistenceFilter filter(Duration rebuildWait) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        return new UserExistenceFilter(userRepository, transactionTemplate, new SimpleMeterRegistry(),
+                true, 1_000, 0.01, 0.1, rebuildWait);
+    }
+
+    /**
+     * A writing transaction on its own thread that has called add() and not yet completed
+     */
+    private static final class OpenWrite {
+
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        static OpenWrite start(UserExistenceFilter filter, String email, String phoneNumber) throws Exception {
+            OpenWrite write = new OpenWrite();
+            CountDownLatch added = new CountDownLatch(1);
+            new Thread(() -> {
+                TransactionSynchronizationManager.initSynchronization();
+                try {
+                    filter.add(email, phoneNumber);
+                    added.countDown();
+                    write.release.await();
+                    List<TransactionSynchronization> synchronizations =
+                            TransactionSynchronizationManager.getSynchronizations();
+                    TransactionSynchronizationUtils.invokeAfterCompletion(
+                            synchronizations, TransactionSynchronization.STATUS_COMMITTED);
+                    write.done.complete(null);
+                } catch (InterruptedException ex) {
+                    write.done.completeExceptionally(ex);
+                } finally {
+                    TransactionSynchronizationManager.clearSynchronization();
+                }
+            }).start();
+            added.await();
+            return write;
+        }
+
+        void complete() throws Exception {
+            release.countDown();
+            done.get(10, TimeUnit.SECONDS);
+        }
+    }
+}
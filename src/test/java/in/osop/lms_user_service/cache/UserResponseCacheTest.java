@@ -0,0 +1,104 @@
+package in.osop.lms_user_service.cache;
+
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Version floors: a read that loaded a row before a write committed must not put the older version back
+ * Outside a transaction the after-commit hooks run immediately
+ */
+class UserResponseCacheTest {
+
+    private static final long USER_ID = 1L;
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final UserResponseCache cache = new UserResponseCache(
+            new SimpleMeterRegistry(), true, 1_000, Duration.ofMinutes(5), nanos::get);
+
+    @Test
+    void keepsTheNewestVersion() {
+        cache.put(user(2, "a@example.com"));
+        assertThat(cache.put(user(1, "a@example.com"))).map(VersionedUser::version).hasValue(2L);
+
+        assertThat(cache.getById(USER_ID)).map(VersionedUser::version).hasValue(2L);
+        assertThat(cache.getByEmail("a@example.com")).map(VersionedUser::version).hasValue(2L);
+    }
+
+    @Test
+    void rejectsOlderVersionAfterBulkEviction() {
+        cache.put(user(1, "a@example.com"));
+        cache.evictAfterCommit(Map.of(USER_ID, 3L));
+        assertThat(cache.getById(USER_ID)).isEmpty();
+
+        // Loaded before the write committed; the caller is told to re-read instead of getting version 2 back
+        assertThat(cache.put(user(2, "a@example.com"))).isEmpty();
+        assertThat(cache.getById(USER_ID)).isEmpty();
+
+        cache.put(user(3, "a@example.com"));
+        assertThat(cache.getById(USER_ID)).map(VersionedUser::version).hasValue(3L);
+    }
+
+    @Test
+    void rejectsAnyVersionAfterDeletion() {
+        cache.put(user(4, "a@example.com"));
+        cache.evictAfterCommit(USER_ID);
+
+        assertThat(cache.put(user(4, "a@example.com"))).isEmpty();
+        assertThat(cache.getById(USER_ID)).isEmpty();
+        assertThat(cache.getByEmail("a@example.com")).isEmpty();
+    }
+
+    @Test
+    void olderReadAfterARefreshReturnsTheRefreshedEntry() {
+        cache.refreshAfterCommit(user(3, "a@example.com"), "a@example.com");
+
+        assertThat(cache.put(user(2, "a@example.com"))).map(VersionedUser::version).hasValue(3L);
+    }
+
+    @Test
+    void floorsExpire() {
+        cache.evictAfterCommit(Map.of(USER_ID, 3L));
+        cache.put(user(2, "a@example.com"));
+        assertThat(cache.getById(USER_ID)).isEmpty();
+
+        nanos.addAndGet(UserResponseCache.VERSION_FLOOR_TTL.plusSeconds(1).toNanos());
+        cache.put(user(2, "a@example.com"));
+        assertThat(cache.getById(USER_ID)).map(VersionedUser::version).hasValue(2L);
+    }
+
+    @Test
+    void refreshMovesTheEmailIndex() {
+        cache.put(user(1, "old@example.com"));
+        cache.refreshAfterCommit(user(2, "new@example.com"), "old@example.com");
+
+        assertThat(cache.getByEmail("old@example.com")).isEmpty();
+        assertThat(cache.getByEmail("new@example.com")).map(VersionedUser::version).hasValue(2L);
+
+        cache.put(user(1, "old@example.com"));
+        assertThat(cache.getByEmail("new@example.com")).map(VersionedUser::version).hasValue(2L);
+    }
+
+    private static User user(long version, String email) {
+        LocalDateTime now = LocalDateTime.now();
+        return User.builder()
+                .userId(USER_ID)
+                .fullName("Cached User")
+                .email(email)
+                .phoneNumber("9000000001")
+                .courseName("Java Programming")
+                .status(User.UserStatus.ACTIVE)
+                .createdAt(now)
+                .updatedAt(now)
+                .version(version)
+                .build();
+    }
+}
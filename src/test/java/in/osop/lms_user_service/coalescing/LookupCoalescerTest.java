@@ -0,0 +1,67 @@
+package in.osop.lms_user_service.coalescing;
+
+import in.osop.lms_user_service.datasource.ReadYourWrites;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Which callers the lookup coalescer lets share an in-flight lookup
+ */
+class LookupCoalescerTest {
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5));
+    private final LookupCoalescer coalescer = new LookupCoalescer(new SimpleMeterRegistry(), true, Duration.ofSeconds(10),
+            new StaticListableBeanFactory(Map.of("readYourWrites", readYourWrites)).getBeanProvider(ReadYourWrites.class));
+
+    @AfterEach
+    void shutDown() {
+        RequestContextHolder.resetRequestAttributes();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void callerThatMustReadThePrimaryDoesNotJoinAFlightInProgress() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<Long> leader = executor.submit(() -> coalescer.countByCourse("Java", () -> {
+            leaderStarted.countDown();
+            await(release);
+            return 1L;
+        }));
+        assertThat(leaderStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie("lms-read-primary", Long.toString(System.currentTimeMillis() + 4_000)));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThat(coalescer.countByCourse("Java", () -> 2L)).isEqualTo(2L);
+
+        release.countDown();
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo(1L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
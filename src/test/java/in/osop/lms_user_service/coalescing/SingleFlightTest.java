@@ -0,0 +1,121 @@
+package in.osop.lms_user_service.coalescing;
+
+import in.osop.lms_user_service.exception.ResourceNotFoundException;
+import in.osop.lms_user_service.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Sharing of results and failures between concurrent identical calls
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void shutDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallersShareOneCall() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", Duration.ofSeconds(10), registry);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        List<Future<Integer>> results = submitAll(() -> flight.execute("key", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return 42;
+        }));
+        awaitFollowers(CALLERS - 1);
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        assertThat(calls).hasValue(1);
+        assertThat(flight.execute("key", () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    void followersReceiveTheLeadersException() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", Duration.ofSeconds(10), registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<Integer>> results = submitAll(() -> flight.execute("key", () -> {
+            await(release);
+            throw new ResourceNotFoundException("missing");
+        }));
+        awaitFollowers(CALLERS - 1);
+        release.countDown();
+
+        for (Future<Integer> result : results) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(ResourceNotFoundException.class);
+        }
+    }
+
+    @Test
+    void followersGiveUpAfterTheTimeout() throws Exception {
+        SingleFlight<String, Integer> flight = new SingleFlight<>("test", Duration.ofMillis(50), registry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<Integer> leader = executor.submit(() -> flight.execute("key", () -> {
+            await(release);
+            return 1;
+        }));
+        while (registry.get("users.lookup.in-flight").gauge().value() < 1) {
+            Thread.onSpinWait();
+        }
+
+        assertThatThrownBy(() -> flight.execute("key", () -> 2)).isInstanceOf(ServiceBusyException.class);
+        assertThat(flight.execute("other", () -> 3)).isEqualTo(3);
+        release.countDown();
+        assertThat(leader.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(registry.get("users.lookup.coalesce.timeouts").counter().count()).isEqualTo(1.0);
+    }
+
+    private List<Future<Integer>> submitAll(Supplier<Integer> call) {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(call::get));
+        }
+        return results;
+    }
+
+    private void awaitFollowers(int followers) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get("users.lookup.coalesced").counter().count() < followers && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(registry.get("users.lookup.coalesced").counter().count()).isEqualTo(followers);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
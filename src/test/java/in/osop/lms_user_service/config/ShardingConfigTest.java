@@ -0,0 +1,48 @@
+package in.osop.lms_user_service.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Startup refuses sharding together with features the sharded service does not implement
+ */
+class ShardingConfigTest {
+
+    @Test
+    void defaultsAreRefusedUntilTheCachesAreSwitchedOff() {
+        assertThatThrownBy(() -> ShardingConfig.requireSupportedFeatures(new MockEnvironment()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("lms.enrollment-counters.enabled, lms.existence-filter.enabled, lms.user-cache.enabled;");
+    }
+
+    @Test
+    void softDeleteIsRefused() {
+        MockEnvironment environment = supported().withProperty("lms.soft-delete.enabled", "true");
+
+        assertThatThrownBy(() -> ShardingConfig.requireSupportedFeatures(environment))
+                .hasMessageContaining("lms.soft-delete.enabled=false");
+    }
+
+    @Test
+    void outboxIsRefusedBecauseNoShardedWriteRecordsChanges() {
+        MockEnvironment environment = supported().withProperty("lms.outbox.enabled", "true");
+
+        assertThatThrownBy(() -> ShardingConfig.requireSupportedFeatures(environment))
+                .hasMessageContaining("lms.outbox.enabled=false");
+    }
+
+    @Test
+    void supportedConfigurationStarts() {
+        assertThatCode(() -> ShardingConfig.requireSupportedFeatures(supported())).doesNotThrowAnyException();
+    }
+
+    private static MockEnvironment supported() {
+        return new MockEnvironment()
+                .withProperty("lms.user-cache.enabled", "false")
+                .withProperty("lms.existence-filter.enabled", "false")
+                .withProperty("lms.enrollment-counters.enabled", "false");
+    }
+}
@@ -0,0 +1,153 @@
+package in.osop.lms_user_service.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Keyset listings: walking every page in both directions, the last page, and cursors the service did not issue
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_cursor;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class UserControllerCursorTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void cursorsWalkACourseInKeysetOrderAndStopAtTheLastPage() throws Exception {
+        List<Long> ids = registerAll("Cursor Walk", 5);
+
+        assertThat(walk("Cursor Walk", "asc", 2)).isEqualTo(ids);
+        assertThat(walk("Cursor Walk", "desc", 2)).isEqualTo(ids.reversed());
+    }
+
+    @Test
+    void fullLastPageHasNoNextCursor() throws Exception {
+        List<Long> ids = registerAll("Cursor Exact", 4);
+
+        String cursor = page("Cursor Exact", null, "asc", 2)
+                .andExpect(jsonPath("$.data.size").value(2))
+                .andExpect(jsonPath("$.data.hasNext").value(true))
+                .andReturn().getResponse().getContentAsString();
+        page("Cursor Exact", JsonPath.read(cursor, "$.data.nextCursor"), "asc", 2)
+                .andExpect(jsonPath("$.data.content[0].userId").value(ids.get(2)))
+                .andExpect(jsonPath("$.data.content[1].userId").value(ids.get(3)))
+                .andExpect(jsonPath("$.data.hasNext").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void emptyCourseIsASingleEmptyPage() throws Exception {
+        page("Cursor Nobody", null, "asc", 10)
+                .andExpect(jsonPath("$.data.content").isEmpty())
+                .andExpect(jsonPath("$.data.size").value(0))
+                .andExpect(jsonPath("$.data.hasNext").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void cursorKeepsTheDirectionItWasIssuedFor() throws Exception {
+        List<Long> ids = registerAll("Cursor Direction", 3);
+
+        String first = page("Cursor Direction", null, "desc", 1)
+                .andReturn().getResponse().getContentAsString();
+        page("Cursor Direction", JsonPath.read(first, "$.data.nextCursor"), "asc", 1)
+                .andExpect(jsonPath("$.data.content[0].userId").value(ids.get(1)));
+    }
+
+    @Test
+    void cursorsTheServiceDidNotIssueAreBadRequests() throws Exception {
+        for (String cursor : new String[] {
+                "not a cursor!",
+                token("v2|ASC|2026-01-01T00:00|1"),
+                token("v1|SIDEWAYS|2026-01-01T00:00|1"),
+                token("v1|ASC|yesterday|1"),
+                token("v1|ASC|2026-01-01T00:00|one"),
+                token("v1|ASC|2026-01-01T00:00")}) {
+            mvc.perform(get("/api/v1/users/cursor").param("cursor", cursor))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false));
+            page("Cursor Walk", cursor, "asc", 2)
+                    .andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    void pageSizeOutsideTheLimitIsABadRequest() throws Exception {
+        mvc.perform(get("/api/v1/users/cursor").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/v1/users/cursor").param("size", "100000"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<Long> walk(String course, String sortDir, int size) throws Exception {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            String body = page(course, cursor, sortDir, size)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            List<Number> ids = JsonPath.read(body, "$.data.content[*].userId");
+            ids.forEach(id -> seen.add(id.longValue()));
+            cursor = JsonPath.read(body, "$.data.nextCursor");
+            assertThat((Boolean) JsonPath.read(body, "$.data.hasNext")).isEqualTo(cursor != null);
+        } while (cursor != null);
+        return seen;
+    }
+
+    private ResultActions page(String course, String cursor, String sortDir, int size) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/v1/users/course/{course}/cursor", course)
+                .param("sortDir", sortDir)
+                .param("size", String.valueOf(size));
+        return mvc.perform(cursor == null ? request : request.param("cursor", cursor));
+    }
+
+    private List<Long> registerAll(String course, int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int n = SEQUENCE.incrementAndGet();
+            UserResponse user = userService.registerUser(UserRegistrationRequest.builder()
+                    .fullName("Cursor User")
+                    .email("cursor" + n + "@example.com")
+                    .phoneNumber(String.valueOf(9_500_000_000L + n))
+                    .courseName(course)
+                    .build());
+            ids.add(user.getUserId());
+        }
+        return ids;
+    }
+
+    private static String token(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,158 @@
+package in.osop.lms_user_service.controller;
+
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Conditional requests on single users: ETags on reads, If-None-Match answered with 304, and If-Match
+ * preconditions on updates
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_etag;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class UserControllerETagTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void matchingIfNoneMatchIsNotModified() throws Exception {
+        UserResponse user = register();
+        String eTag = "\"" + user.getUserId() + "-0\"";
+
+        mvc.perform(get("/api/v1/users/{id}", user.getUserId()))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, eTag));
+        mvc.perform(get("/api/v1/users/{id}", user.getUserId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+        mvc.perform(get("/api/v1/users/email/{email}", user.getEmail().toUpperCase())
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, eTag));
+    }
+
+    @Test
+    void changedUserIsSentAgainWithItsNewETag() throws Exception {
+        UserResponse user = register();
+        String stale = "\"" + user.getUserId() + "-0\"";
+        mvc.perform(patch("/api/v1/users/{id}/status", user.getUserId()).param("status", "INACTIVE"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + user.getUserId() + "-1\""));
+
+        mvc.perform(get("/api/v1/users/{id}", user.getUserId()).header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"" + user.getUserId() + "-1\""))
+                .andExpect(jsonPath("$.data.status").value("INACTIVE"));
+        mvc.perform(get("/api/v1/users/email/{email}", user.getEmail()).header(HttpHeaders.IF_NONE_MATCH, stale))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"" + user.getUserId() + "-1\""));
+    }
+
+    @Test
+    void conditionalReadOfAMissingUserIsNotFound() throws Exception {
+        mvc.perform(get("/api/v1/users/{id}", 999_999L).header(HttpHeaders.IF_NONE_MATCH, "\"999999-0\""))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void currentIfMatchAppliesTheUpdate() throws Exception {
+        UserResponse user = register();
+
+        mvc.perform(put("/api/v1/users/{id}", user.getUserId())
+                        .header(HttpHeaders.IF_MATCH, "\"" + user.getUserId() + "-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(user, "Renamed User")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + user.getUserId() + "-1\""))
+                .andExpect(jsonPath("$.data.fullName").value("Renamed User"));
+        mvc.perform(patch("/api/v1/users/{id}/status", user.getUserId())
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .param("status", "SUSPENDED"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void staleIfMatchIsPreconditionFailed() throws Exception {
+        UserResponse user = register();
+        String stale = "\"" + user.getUserId() + "-0\"";
+        userService.updateUserStatus(user.getUserId(), User.UserStatus.INACTIVE, 0L);
+
+        mvc.perform(put("/api/v1/users/{id}", user.getUserId())
+                        .header(HttpHeaders.IF_MATCH, stale)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(user, "Lost Update")))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(patch("/api/v1/users/{id}/status", user.getUserId())
+                        .header(HttpHeaders.IF_MATCH, stale)
+                        .param("status", "ACTIVE"))
+                .andExpect(status().isPreconditionFailed());
+        mvc.perform(get("/api/v1/users/{id}", user.getUserId()))
+                .andExpect(jsonPath("$.data.fullName").value("ETag User"))
+                .andExpect(jsonPath("$.data.status").value("INACTIVE"));
+    }
+
+    @Test
+    void malformedIfMatchIsRejected() throws Exception {
+        UserResponse user = register();
+        Long userId = user.getUserId();
+
+        for (String ifMatch : new String[] {"W/\"" + userId + "-0\"", "\"" + (userId + 1) + "-0\"",
+                userId + "-0", "\"" + userId + "-\"", "\"" + userId + "-x\""}) {
+            mvc.perform(patch("/api/v1/users/{id}/status", userId)
+                            .header(HttpHeaders.IF_MATCH, ifMatch)
+                            .param("status", "INACTIVE"))
+                    .andExpect(status().isPreconditionFailed());
+        }
+        mvc.perform(patch("/api/v1/users/{id}/status", userId)
+                        .header(HttpHeaders.IF_MATCH, "\"" + userId + "-0\", \"" + userId + "-1\"")
+                        .param("status", "INACTIVE"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get("/api/v1/users/{id}", userId))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + userId + "-0\""));
+    }
+
+    private UserResponse register() {
+        int n = SEQUENCE.incrementAndGet();
+        return userService.registerUser(UserRegistrationRequest.builder()
+                .fullName("ETag User")
+                .email("etag" + n + "@example.com")
+                .phoneNumber(String.valueOf(9_400_000_000L + n))
+                .courseName("Java Programming")
+                .build());
+    }
+
+    private static String json(UserResponse user, String fullName) {
+        return """
+                {"fullName": "%s", "email": "%s", "phoneNumber": "%s", "courseName": "%s"}
+                """.formatted(fullName, user.getEmail(), user.getPhoneNumber(), user.getCourseName());
+    }
+}
@@ -0,0 +1,158 @@
+package in.osop.lms_user_service.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.filter.ConcurrencyLimiter;
+import in.osop.lms_user_service.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Streamed roster exports: CSV and NDJSON content, and the concurrency permit held while the body is written
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_export;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.threads.virtual.enabled=true",
+        "lms.virtual-threads.max-concurrent-requests=1",
+        "lms.virtual-threads.acquire-timeout=PT0S"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class UserControllerExportTest {
+
+    private static final String CSV_HEADER = "userId,fullName,phoneNumber,email,courseName,status,createdAt,updatedAt";
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ConcurrencyLimiter requestConcurrencyLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void csvExportWritesAHeaderAndOneQuotedRowPerEnrolledUser() throws Exception {
+        String course = "Intro, \"Part\" One";
+        UserResponse first = register("First Learner", course);
+        UserResponse second = register("Second Learner", course);
+        register("Other Learner", "Export Elsewhere");
+
+        String[] lines = export(course, "csv")
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"Intro_Part_One-roster.csv\""))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertThat(lines[0]).isEqualTo(CSV_HEADER);
+        assertThat(lines).hasSize(3).contains(
+                csvRow(first, "\"Intro, \"\"Part\"\" One\""),
+                csvRow(second, "\"Intro, \"\"Part\"\" One\""));
+    }
+
+    @Test
+    void ndjsonExportWritesOneUserObjectPerLine() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ids.add(register("Json Learner", "Export NDJSON").getUserId());
+        }
+
+        String body = export("Export NDJSON", "ndjson")
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(body).endsWith("\n");
+        List<Long> exported = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            JsonNode user = objectMapper.readTree(line);
+            assertThat(user.get("courseName").asText()).isEqualTo("Export NDJSON");
+            exported.add(user.get("userId").asLong());
+        }
+        assertThat(exported).containsExactlyInAnyOrderElementsOf(ids);
+    }
+
+    @Test
+    void emptyCourseExportsOnlyTheCsvHeader() throws Exception {
+        export("Export Nobody", "csv")
+                .andExpect(content().string(CSV_HEADER + "\n"));
+        export("Export Nobody", "ndjson")
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void unsupportedFormatIsABadRequest() throws Exception {
+        mvc.perform(get("/api/v1/users/course/{course}/export", "Export CSV").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+        assertThat(requestConcurrencyLimiter.inFlight()).isZero();
+    }
+
+    @Test
+    void exportHoldsItsPermitUntilTheStreamIsWritten() throws Exception {
+        register("Permit Learner", "Export Permit");
+
+        MvcResult started = mvc.perform(get("/api/v1/users/course/{course}/export", "Export Permit"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(requestConcurrencyLimiter.inFlight()).isEqualTo(1);
+        mvc.perform(get("/api/v1/users/course/{course}/export", "Export Permit"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+
+        mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+
+        assertThat(requestConcurrencyLimiter.inFlight()).isZero();
+        export("Export Permit", "ndjson");
+    }
+
+    private ResultActions export(String course, String format) throws Exception {
+        MvcResult started = mvc.perform(get("/api/v1/users/course/{course}/export", course).param("format", format))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk());
+    }
+
+    private UserResponse register(String fullName, String course) {
+        int n = SEQUENCE.incrementAndGet();
+        return userService.registerUser(UserRegistrationRequest.builder()
+                .fullName(fullName)
+                .email("export" + n + "@example.com")
+                .phoneNumber(String.valueOf(9_600_000_000L + n))
+                .courseName(course)
+                .build());
+    }
+
+    private String csvRow(UserResponse registered, String courseNameField) {
+        UserResponse user = userService.getUserById(registered.getUserId()).user();
+        return String.join(",", String.valueOf(user.getUserId()), user.getFullName(), user.getPhoneNumber(),
+                user.getEmail(), courseNameField, user.getStatus().name(),
+                user.getCreatedAt().toString(), user.getUpdatedAt().toString());
+    }
+}
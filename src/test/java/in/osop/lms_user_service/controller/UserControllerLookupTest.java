@@ -0,0 +1,150 @@
+package in.osop.lms_user_service.controller;
+
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Multi-get lookups: keys as sent, missing keys, chunked queries for cache misses, cache hits without queries,
+ * and request validation
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_lookup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class UserControllerLookupTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void resolvesEachKeyTypeAndListsWhatMatchedNoUser() throws Exception {
+        UserResponse first = register();
+        UserResponse second = register();
+        String sentEmail = "  " + second.getEmail().toUpperCase() + " ";
+
+        lookup("""
+                {"userIds": [%d, 999999, %d], "emails": ["%s", "nobody@example.com"],
+                 "phoneNumbers": ["%s", "0000000000", "0000000000"]}
+                """.formatted(first.getUserId(), first.getUserId(), sentEmail, second.getPhoneNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.byId", aMapWithSize(1)))
+                .andExpect(jsonPath("$.data.byId['" + first.getUserId() + "'].email").value(first.getEmail()))
+                .andExpect(jsonPath("$.data.byEmail['" + sentEmail + "'].userId").value(second.getUserId()))
+                .andExpect(jsonPath("$.data.byPhoneNumber['" + second.getPhoneNumber() + "'].userId")
+                        .value(second.getUserId()))
+                .andExpect(jsonPath("$.data.missingIds", contains(999999)))
+                .andExpect(jsonPath("$.data.missingEmails", contains("nobody@example.com")))
+                .andExpect(jsonPath("$.data.missingPhoneNumbers", contains("0000000000")));
+    }
+
+    @Test
+    void cacheMissesAreReadWithOneQueryPerChunkAndHitsWithNone() throws Exception {
+        List<UserResponse> users = List.of(register(), register(), register());
+        List<Long> userIds = new ArrayList<>();
+        for (long id = 1_000_000; userIds.size() < 997; id++) {
+            userIds.add(id);
+        }
+        users.forEach(user -> userIds.add(user.getUserId()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        statistics.clear();
+        lookupIds(userIds)
+                .andExpect(jsonPath("$.data.byId", aMapWithSize(3)))
+                .andExpect(jsonPath("$.data.missingIds", hasSize(997)));
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(2);
+
+        statistics.clear();
+        lookupIds(users.stream().map(UserResponse::getUserId).collect(Collectors.toList()))
+                .andExpect(jsonPath("$.data.byId", aMapWithSize(3)));
+        assertThat(statistics.getQueryExecutionCount()).isZero();
+    }
+
+    @Test
+    void lookupsReflectCommittedUpdatesAndDeletes() throws Exception {
+        UserResponse changed = register();
+        UserResponse deleted = register();
+        lookupIds(List.of(changed.getUserId(), deleted.getUserId()))
+                .andExpect(jsonPath("$.data.byId['" + changed.getUserId() + "'].status").value("ACTIVE"));
+
+        userService.updateUserStatus(changed.getUserId(), User.UserStatus.SUSPENDED, null);
+        userService.deleteUser(deleted.getUserId());
+
+        lookupIds(List.of(changed.getUserId(), deleted.getUserId()))
+                .andExpect(jsonPath("$.data.byId['" + changed.getUserId() + "'].status").value("SUSPENDED"))
+                .andExpect(jsonPath("$.data.missingIds", contains(deleted.getUserId().intValue())));
+        lookup("""
+                {"emails": ["%s", "%s"]}
+                """.formatted(changed.getEmail(), deleted.getEmail()))
+                .andExpect(jsonPath("$.data.byEmail['" + changed.getEmail() + "'].status").value("SUSPENDED"))
+                .andExpect(jsonPath("$.data.missingEmails", contains(deleted.getEmail())));
+    }
+
+    @Test
+    void invalidLookupsAreBadRequests() throws Exception {
+        List<Long> tooMany = new ArrayList<>();
+        for (long id = 1; id <= 1001; id++) {
+            tooMany.add(id);
+        }
+
+        lookup("{}").andExpect(status().isBadRequest());
+        lookup("{\"userIds\": [], \"emails\": []}").andExpect(status().isBadRequest());
+        lookup("{\"emails\": [\" \"]}").andExpect(status().isBadRequest());
+        lookup("{\"userIds\": [1, null]}").andExpect(status().isBadRequest());
+        lookupIds(tooMany).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions lookupIds(List<Long> userIds) throws Exception {
+        return lookup("{\"userIds\": " + userIds + "}");
+    }
+
+    private ResultActions lookup(String json) throws Exception {
+        return mvc.perform(post("/api/v1/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json));
+    }
+
+    private UserResponse register() {
+        int n = SEQUENCE.incrementAndGet();
+        return userService.registerUser(UserRegistrationRequest.builder()
+                .fullName("Lookup User")
+                .email("lookup" + n + "@example.com")
+                .phoneNumber(String.valueOf(9_800_000_000L + n))
+                .courseName("Java Programming")
+                .build());
+    }
+}
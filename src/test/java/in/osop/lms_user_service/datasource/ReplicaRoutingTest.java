@@ -0,0 +1,150 @@
+package in.osop.lms_user_service.datasource;
+
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.service.UserService;
+import jakarta.servlet.http.Cookie;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routing between two embedded H2 databases standing in for the primary and one replica
+ * Replication is simulated by copying rows and the heartbeat into the replica; the replica's copy of each user
+ * carries a different name, so every read shows which database answered it
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.datasource.replicas.enabled=true",
+        "lms.datasource.replicas.pools[0].jdbc-url=" + ReplicaRoutingTest.REPLICA_URL,
+        "lms.datasource.replicas.pools[0].username=sa",
+        "lms.datasource.replicas.lag-check-interval=PT1H",
+        "lms.user-cache.enabled=false"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:lms_replica;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    private static final String REPLICA_NAME = "Replica Copy";
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private static JdbcTemplate replicaJdbc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @BeforeAll
+    static void createReplicaSchema() {
+        DriverManagerDataSource replica = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure()
+                .dataSource(replica)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .load()
+                .migrate();
+        replicaJdbc = new JdbcTemplate(replica);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToAnUpToDateReplica() {
+        UserResponse user = insertAndReplicate();
+        catchUpReplica();
+
+        assertThat(userService.getUserByEmail(user.getEmail()).user().getFullName()).isEqualTo(REPLICA_NAME);
+
+        userService.updateUserStatus(user.getUserId(), User.UserStatus.INACTIVE, null);
+        assertThat(statusOf(jdbcTemplate, user.getUserId())).isEqualTo("INACTIVE");
+        assertThat(statusOf(replicaJdbc, user.getUserId())).isEqualTo("ACTIVE");
+        // The test method runs as one request, which has now written
+        assertThat(userService.getUserByEmail(user.getEmail()).user().getStatus()).isEqualTo(User.UserStatus.INACTIVE);
+    }
+
+    @Test
+    void replicaBehindMaxLagFallsBackToPrimary() {
+        UserResponse user = insertAndReplicate();
+        catchUpReplica();
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_millis = beat_millis - 60000");
+        lagMonitor.check();
+
+        assertThat(lagMonitor.availableReplicas()).isEmpty();
+        assertThat(userService.getUserByEmail(user.getEmail()).user().getFullName()).isEqualTo(user.getFullName());
+    }
+
+    @Test
+    void clientReadsItsOwnWriteFromPrimary() throws Exception {
+        UserResponse user = insertAndReplicate();
+        catchUpReplica();
+
+        Cookie readPrimary = mvc.perform(patch("/api/v1/users/{id}/status", user.getUserId())
+                        .param("status", "SUSPENDED"))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(ReadYourWrites.COOKIE))
+                .andReturn().getResponse().getCookie(ReadYourWrites.COOKIE);
+
+        mvc.perform(get("/api/v1/users/email/{email}", user.getEmail()).cookie(readPrimary))
+                .andExpect(jsonPath("$.data.status").value("SUSPENDED"));
+        mvc.perform(get("/api/v1/users/email/{email}", user.getEmail()))
+                .andExpect(jsonPath("$.data.status").value("ACTIVE"))
+                .andExpect(jsonPath("$.data.fullName").value(REPLICA_NAME));
+    }
+
+    private UserResponse insertAndReplicate() {
+        int n = SEQUENCE.incrementAndGet();
+        UserResponse user = UserResponse.builder()
+                .userId(900_000L + n)
+                .fullName("Primary User")
+                .phoneNumber("+9155500000" + String.format("%02d", n))
+                .email("replica" + n + "@example.com")
+                .courseName("Java Programming")
+                .status(User.UserStatus.ACTIVE)
+                .build();
+        insert(jdbcTemplate, user, user.getFullName());
+        insert(replicaJdbc, user, REPLICA_NAME);
+        return user;
+    }
+
+    private static void insert(JdbcTemplate jdbc, UserResponse user, String fullName) {
+        jdbc.update("INSERT INTO users (user_id, full_name, phone_number, email, course_name, status,"
+                        + " created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                user.getUserId(), fullName, user.getPhoneNumber(), user.getEmail(), user.getCourseName(),
+                user.getStatus().name(), LocalDateTime.now(), LocalDateTime.now());
+    }
+
+    private void catchUpReplica() {
+        Long beat = jdbcTemplate.queryForObject("SELECT beat_millis FROM replication_heartbeat", Long.class);
+        replicaJdbc.update("UPDATE replication_heartbeat SET beat_millis = ?", beat);
+        lagMonitor.check();
+        assertThat(lagMonitor.availableReplicas()).hasSize(1);
+    }
+
+    private static String statusOf(JdbcTemplate jdbc, Long userId) {
+        return jdbc.queryForObject("SELECT status FROM users WHERE user_id = ?", String.class, userId);
+    }
+}
@@ -0,0 +1,28 @@
+package in.osop.lms_user_service.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Strong ETags built from and parsed back to user versions
+ */
+class VersionedUserTest {
+
+    @Test
+    void eTagRoundTripsToItsVersion() {
+        String eTag = VersionedUser.eTag(42L, 3);
+
+        assertThat(eTag).isEqualTo("\"42-3\"");
+        assertThat(VersionedUser.versionOf(eTag, 42L)).hasValue(3L);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"W/\"42-3\"", "\"43-3\"", "\"4-3\"", "42-3", "\"42-3", "\"42-\"", "\"42-x\"",
+            "\"42-3-1\"", "\"42-99999999999999999999\"", "\"\""})
+    void weakMalformedOrForeignETagsNameNoVersion(String eTag) {
+        assertThat(VersionedUser.versionOf(eTag, 42L)).isEmpty();
+    }
+}
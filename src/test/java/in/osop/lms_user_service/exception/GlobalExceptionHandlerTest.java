@@ -0,0 +1,59 @@
+package in.osop.lms_user_service.exception;
+
+import in.osop.lms_user_service.dto.ApiResponse;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integrity violations: only the email and phone unique keys are reported as a conflict
+ */
+class GlobalExceptionHandlerTest {
+
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+    private final ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/v1/users"));
+
+    @Test
+    void uniqueKeyOnEmailOrPhoneIsAConflict() {
+        DataIntegrityViolationException byConstraintName = new DataIntegrityViolationException("insert failed",
+                new ConstraintViolationException("insert failed", new SQLException("duplicate"), "uk_users_email"));
+        DataIntegrityViolationException byDriverMessage = new DuplicateKeyException("insert failed", new SQLException(
+                "Duplicate entry '9100000000' for key 'users.uk_users_phone_number'", "23000", 1062));
+        DataIntegrityViolationException onDirectory = new DuplicateKeyException("insert failed", new SQLException(
+                "Unique index or primary key violation: \"PUBLIC.UK_USER_SHARD_DIRECTORY_EMAIL_INDEX_A ON "
+                        + "PUBLIC.USER_SHARD_DIRECTORY(EMAIL)\"", "23505"));
+
+        assertThat(handler.handleDataIntegrityViolationException(byConstraintName, request).getStatusCode())
+                .isEqualTo(HttpStatus.CONFLICT);
+        assertThat(handler.handleDataIntegrityViolationException(byDriverMessage, request).getStatusCode())
+                .isEqualTo(HttpStatus.CONFLICT);
+        assertThat(handler.handleDataIntegrityViolationException(onDirectory, request).getStatusCode())
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void otherIntegrityViolationsAreUnexpectedErrors() {
+        DataIntegrityViolationException notNull = new DataIntegrityViolationException("insert failed",
+                new ConstraintViolationException("insert failed",
+                        new SQLException("NULL not allowed for column \"EMAIL\"", "23502"), null));
+        DataIntegrityViolationException tooLong = new DataIntegrityViolationException("insert failed",
+                new SQLException("Data too long for column 'email' at row 1", "22001", 1406));
+        DataIntegrityViolationException outbox = new DuplicateKeyException("insert failed",
+                new SQLException("Duplicate entry '42' for key 'user_outbox.PRIMARY'", "23000", 1062));
+
+        for (DataIntegrityViolationException ex : new DataIntegrityViolationException[] {notNull, tooLong, outbox}) {
+            ResponseEntity<ApiResponse<Object>> response = handler.handleDataIntegrityViolationException(ex, request);
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+            assertThat(response.getBody().getMessage()).doesNotContain("already exists");
+        }
+    }
+}
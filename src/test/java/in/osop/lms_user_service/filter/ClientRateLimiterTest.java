@@ -0,0 +1,56 @@
+package in.osop.lms_user_service.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Token bucket behaviour of the rate limiter against a hand-driven clock
+ */
+class ClientRateLimiterTest {
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.SECONDS.toNanos(100));
+
+    @Test
+    void admitsBurstThenRefillsAtTheConfiguredRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 5, 100, clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("a")).isZero();
+        }
+        long wait = limiter.tryAcquire("a");
+        assertThat(wait).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        clock.addAndGet(wait);
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+    }
+
+    @Test
+    void clientsHaveSeparateBuckets() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 100, clock::get);
+
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("a")).isPositive();
+        assertThat(limiter.tryAcquire("b")).isZero();
+    }
+
+    @Test
+    void clientsBeyondTheLimitShareOneBucketUntilIdleOnesAreEvicted() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 2, clock::get);
+
+        assertThat(limiter.tryAcquire("a")).isZero();
+        assertThat(limiter.tryAcquire("b")).isZero();
+        assertThat(limiter.tryAcquire("c")).isZero();
+        assertThat(limiter.tryAcquire("d")).isPositive();
+        assertThat(limiter.clients()).isEqualTo(2);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.evictIdle()).isEqualTo(2);
+        assertThat(limiter.tryAcquire("d")).isZero();
+        assertThat(limiter.clients()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,58 @@
+package in.osop.lms_user_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Permit accounting of the concurrency filter for synchronous and async (streamed) requests
+ */
+class ConcurrencyLimitFilterTest {
+
+    private final ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, Duration.ZERO);
+    private final ConcurrencyLimitFilter filter =
+            new ConcurrencyLimitFilter(limiter, new ObjectMapper().findAndRegisterModules(), new SimpleMeterRegistry());
+
+    @Test
+    void synchronousRequestReleasesItsPermitWhenTheChainReturns() throws Exception {
+        filter.doFilter(request(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void asyncRequestHoldsItsPermitUntilTheBodyIsWritten() throws Exception {
+        MockHttpServletRequest request = request();
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse resp) {
+                req.startAsync();
+            }
+        }));
+
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(request(), rejected, new MockFilterChain());
+        assertThat(rejected.getStatus()).isEqualTo(503);
+
+        request.getAsyncContext().complete();
+
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/users/export");
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
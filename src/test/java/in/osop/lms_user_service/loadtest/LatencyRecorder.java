@@ -0,0 +1,65 @@
+package in.osop.lms_user_service.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-worker latency samples keyed by endpoint
+ * Not thread-safe; each load worker owns one and the runner merges them at the end
+ */
+class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new HashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean error) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(latencyNanos, error);
+    }
+
+    Map<String, Samples> samples() {
+        return samples;
+    }
+
+    /**
+     * Growable array of latencies plus an error count
+     */
+    static class Samples {
+
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long latencyNanos, boolean error) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        void addAll(Samples other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(latencies.length * 2, size + other.size));
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            errors += other.errors;
+        }
+
+        int count() {
+            return size;
+        }
+
+        long errors() {
+            return errors;
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(latencies, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package in.osop.lms_user_service.loadtest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-endpoint throughput and latency percentiles for one workload run
+ */
+record LoadReport(String workload, Duration elapsed, List<EndpointStats> endpoints) {
+
+    static LoadReport from(String workload, Duration elapsed, List<LatencyRecorder> recorders) {
+        Map<String, LatencyRecorder.Samples> merged = new TreeMap<>();
+        for (LatencyRecorder recorder : recorders) {
+            recorder.samples().forEach((endpoint, samples) ->
+                    merged.computeIfAbsent(endpoint, key -> new LatencyRecorder.Samples()).addAll(samples));
+        }
+
+        double seconds = elapsed.toNanos() / 1e9;
+        List<EndpointStats> endpoints = new ArrayList<>();
+        merged.forEach((endpoint, samples) -> {
+            long[] sorted = samples.sorted();
+            endpoints.add(new EndpointStats(
+                    endpoint,
+                    samples.count(),
+                    samples.errors(),
+                    samples.count() / seconds,
+                    percentileMillis(sorted, 0.50),
+                    percentileMillis(sorted, 0.99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6));
+        });
+        return new LoadReport(workload, elapsed, endpoints);
+    }
+
+    long totalRequests() {
+        return endpoints.stream().mapToLong(EndpointStats::requests).sum();
+    }
+
+    long totalErrors() {
+        return endpoints.stream().mapToLong(EndpointStats::errors).sum();
+    }
+
+    /**
+     * Render the report as a fixed-width table
+     * @return formatted report
+     */
+    String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%n=== %s: %d requests in %.1fs (%.0f req/s) ===%n",
+                workload, totalRequests(), elapsed.toNanos() / 1e9, totalRequests() / (elapsed.toNanos() / 1e9)));
+        out.append(String.format("%-28s %9s %7s %10s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "max ms"));
+        for (EndpointStats stats : endpoints) {
+            out.append(String.format("%-28s %9d %7d %10.0f %9.2f %9.2f %9.2f%n",
+                    stats.endpoint(), stats.requests(), stats.errors(), stats.throughput(),
+                    stats.p50Millis(), stats.p99Millis(), stats.maxMillis()));
+        }
+        return out.toString();
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    record EndpointStats(String endpoint, long requests, long errors, double throughput,
+                         double p50Millis, double p99Millis, double maxMillis) {
+    }
+}
@@ -0,0 +1,71 @@
+package in.osop.lms_user_service.loadtest;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Closed-loop load driver: a fixed number of workers call the workload back to back
+ * Requests go through the full MVC and security filter chain in-process, with no sockets
+ */
+class LoadRunner {
+
+    private final MockMvc mockMvc;
+    private final int threads;
+    private final Duration warmup;
+    private final Duration duration;
+
+    LoadRunner(MockMvc mockMvc, int threads, Duration warmup, Duration duration) {
+        this.mockMvc = mockMvc;
+        this.threads = threads;
+        this.warmup = warmup;
+        this.duration = duration;
+    }
+
+    /**
+     * Run the workload for the warmup period unrecorded, then for the measured duration
+     * @param workload workload to run
+     * @return per-endpoint report for the measured period
+     */
+    LoadReport run(Workload workload) throws Exception {
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long measureEnd = measureStart + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<LatencyRecorder>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> drive(workload, measureStart, measureEnd)));
+            }
+            List<LatencyRecorder> recorders = new ArrayList<>(threads);
+            for (Future<LatencyRecorder> worker : workers) {
+                recorders.add(worker.get());
+            }
+            return LoadReport.from(workload.name(), duration, recorders);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LatencyRecorder drive(Workload workload, long measureStart, long measureEnd) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        while (now < measureEnd) {
+            Workload.Step step = workload.pick(random);
+            int status = step.operation().execute(mockMvc, random);
+            long finished = System.nanoTime();
+            if (now >= measureStart) {
+                recorder.record(step.endpoint(), finished - now, !step.success().test(status));
+            }
+            now = finished;
+        }
+        return recorder;
+    }
+}
@@ -0,0 +1,18 @@
+package in.osop.lms_user_service.loadtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Baseline: Tomcat's platform thread pool, no concurrency limiter
+ */
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=false",
+        "spring.datasource.url=jdbc:h2:mem:thread_model_platform;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+class PlatformThreadLoadTest extends ThreadModelLoadTest {
+
+    @Override
+    String threadModel() {
+        return "platform-threads";
+    }
+}
@@ -0,0 +1,81 @@
+package in.osop.lms_user_service.loadtest;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * DataSource whose statements sleep before each query, standing in for a MySQL round-trip
+ * The sleep happens while the caller holds its pooled connection, so the pool bounds throughput
+ * the same way it does in production; latency is zero until set, which keeps startup and seeding fast
+ */
+class SlowDataSource extends DelegatingDataSource {
+
+    private volatile long latencyMillis;
+
+    SlowDataSource(DataSource target) {
+        super(target);
+    }
+
+    void setLatency(Duration latency) {
+        this.latencyMillis = latency.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return result instanceof Statement statement && method.getName().endsWith("Statement")
+                    ? proxy(method.getReturnType(), statement, (statementProxy, statementMethod, statementArgs) -> {
+                        if (statementMethod.getName().startsWith("execute")) {
+                            sleep();
+                        }
+                        return invoke(statement, statementMethod, statementArgs);
+                    })
+                    : result;
+        });
+    }
+
+    private void sleep() throws SQLException {
+        long millis = latencyMillis;
+        if (millis == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted during simulated query latency", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SlowDataSource.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
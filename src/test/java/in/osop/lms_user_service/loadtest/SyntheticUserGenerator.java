@@ -0,0 +1,119 @@
+package in.osop.lms_user_service.loadtest;
+
+import in.osop.lms_user_service.entity.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Bulk generator for synthetic users, spread across courses and statuses
+ * Writes straight through JDBC batches so millions of rows load in seconds
+ */
+public class SyntheticUserGenerator {
+
+    static final List<String> COURSES = List.of(
+            "Java Programming", "Python Data Science", "Web Development", "Machine Learning",
+            "Cloud Computing", "DevOps Fundamentals", "Cyber Security", "Mobile Development",
+            "Database Design", "Data Structures", "System Design", "Digital Marketing",
+            "UI UX Design", "Blockchain Basics", "Game Development", "Networking Essentials");
+
+    static final List<String> FIRST_NAMES = List.of(
+            "Aarav", "Priya", "Rahul", "Ananya", "Vikram", "Sneha", "Arjun", "Kavya", "Rohan", "Meera",
+            "John", "Jane", "Michael", "Sarah", "David", "Emily", "James", "Olivia", "Daniel", "Sophia");
+
+    static final List<String> LAST_NAMES = List.of(
+            "Sharma", "Patel", "Singh", "Kumar", "Gupta", "Reddy", "Iyer", "Nair", "Das", "Mehta",
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Miller", "Davis", "Wilson", "Taylor", "Clark");
+
+    private static final String INSERT_SQL =
+            "INSERT INTO users (user_id, full_name, phone_number, email, course_name, status, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private static final int BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long seed;
+
+    public SyntheticUserGenerator(JdbcTemplate jdbcTemplate, long seed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seed = seed;
+    }
+
+    /**
+     * Insert users 1..count with creation times spread evenly over the past year
+     * and move users_seq past them so registrations through the API do not collide
+     * @param count number of users to insert
+     */
+    public void generate(int count) {
+        Random random = new Random(seed);
+        LocalDateTime start = LocalDateTime.now().minusYears(1);
+        long stepMillis = Math.max(1, Duration.ofDays(365).toMillis() / Math.max(1, count));
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 1; i <= count; i++) {
+            Timestamp createdAt = Timestamp.valueOf(start.plusNanos(i * stepMillis * 1_000_000L));
+            batch.add(new Object[] {
+                    (long) i,
+                    fullName(random),
+                    phoneNumber(i),
+                    email(i),
+                    COURSES.get(random.nextInt(COURSES.size())),
+                    status(random).name(),
+                    createdAt,
+                    createdAt
+            });
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+
+        // Leave a full allocation block of headroom for the pooled optimizer
+        jdbcTemplate.execute("ALTER SEQUENCE users_seq RESTART WITH " + (count + 101));
+    }
+
+    /**
+     * Email of the i-th generated user
+     * @param i user index, starting at 1
+     * @return email address
+     */
+    public static String email(long i) {
+        return "user" + i + "@loadtest.example.com";
+    }
+
+    /**
+     * Phone number of the i-th generated user
+     * @param i user index, starting at 1
+     * @return phone number
+     */
+    public static String phoneNumber(long i) {
+        return String.format("+91%010d", i);
+    }
+
+    private static String fullName(Random random) {
+        return FIRST_NAMES.get(random.nextInt(FIRST_NAMES.size())) + " "
+                + LAST_NAMES.get(random.nextInt(LAST_NAMES.size()));
+    }
+
+    private static User.UserStatus status(Random random) {
+        int roll = random.nextInt(100);
+        if (roll < 70) {
+            return User.UserStatus.ACTIVE;
+        }
+        if (roll < 85) {
+            return User.UserStatus.INACTIVE;
+        }
+        if (roll < 95) {
+            return User.UserStatus.PENDING_VERIFICATION;
+        }
+        return User.UserStatus.SUSPENDED;
+    }
+}
@@ -0,0 +1,147 @@
+package in.osop.lms_user_service.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Throughput of GET /api/v1/users/{id} over real HTTP while every query holds its pooled
+ * connection for a simulated MySQL round-trip
+ * Subclasses run the same workload on Tomcat platform threads and on virtual threads behind the
+ * configured concurrency limiter, so the two reports in the log are the before/after comparison
+ * Run with: mvn -P loadtest test -Dtest='*ThreadLoadTest' [-Dlms.loadtest.clients=400 -Dlms.loadtest.db-latency-ms=20]
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        // Per-request log lines would dominate the measured latency
+        "logging.level.in.osop.lms_user_service.controller=WARN",
+        "logging.level.in.osop.lms_user_service.service=ERROR",
+        "logging.level.in.osop.lms_user_service.exception=ERROR",
+        // Every lookup has to reach the pool, as a cache miss does in production
+        "lms.user-cache.enabled=false"
+})
+@ActiveProfiles("test")
+@Import(ThreadModelLoadTest.SlowJdbcConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+abstract class ThreadModelLoadTest {
+
+    private static final String BASE = "/api/v1/users";
+
+    private static final int USERS = Integer.getInteger("lms.loadtest.thread-model.users", 10_000);
+    private static final int CLIENTS = Integer.getInteger("lms.loadtest.clients", 400);
+    private static final Duration DB_LATENCY = Duration.ofMillis(Long.getLong("lms.loadtest.db-latency-ms", 20));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("lms.loadtest.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("lms.loadtest.duration-seconds", 15));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+
+    @BeforeAll
+    void generateDataset() {
+        new SyntheticUserGenerator(jdbcTemplate, 42L).generate(USERS);
+        ((SlowDataSource) dataSource).setLatency(DB_LATENCY);
+    }
+
+    /**
+     * Name of the thread model under test, used as the report's workload name
+     */
+    abstract String threadModel();
+
+    @Test
+    void lookupsUnderBlockingDbLoad() throws Exception {
+        long measureStart = System.nanoTime() + WARMUP.toNanos();
+        long measureEnd = measureStart + DURATION.toNanos();
+
+        // Virtual client threads so that the driver is never the bottleneck
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<LatencyRecorder>> clients = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                clients.add(executor.submit(() -> drive(measureStart, measureEnd)));
+            }
+            List<LatencyRecorder> recorders = new ArrayList<>(CLIENTS);
+            for (Future<LatencyRecorder> worker : clients) {
+                recorders.add(worker.get());
+            }
+
+            LoadReport report = LoadReport.from(threadModel(), DURATION, recorders);
+            log.info("{} clients, {} ms per query, {} users\n{}",
+                    CLIENTS, DB_LATENCY.toMillis(), USERS, report.format());
+            // Rejections (503) are reported as errors, not failed: shedding load is the limiter's job
+            assertThat(report.totalRequests()).isPositive();
+        }
+    }
+
+    private LatencyRecorder drive(long measureStart, long measureEnd) throws Exception {
+        LatencyRecorder recorder = new LatencyRecorder();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.nanoTime();
+        while (now < measureEnd) {
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + BASE + "/" + random.nextLong(1, USERS + 1L))).GET().build();
+            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            long finished = System.nanoTime();
+            if (now >= measureStart) {
+                recorder.record(status == 503 ? "GET /{id} (rejected)" : "GET /{id}", finished - now, status != 200);
+            }
+            now = finished;
+        }
+        return recorder;
+    }
+
+    /**
+     * Wraps the Hikari pool so that queries sleep while holding their pooled connection
+     */
+    @TestConfiguration
+    static class SlowJdbcConfig {
+
+        @Bean
+        static BeanPostProcessor slowDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource target && !(bean instanceof SlowDataSource)
+                            ? new SlowDataSource(target)
+                            : bean;
+                }
+            };
+        }
+    }
+}
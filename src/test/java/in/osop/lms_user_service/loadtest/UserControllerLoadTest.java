@@ -0,0 +1,182 @@
+package in.osop.lms_user_service.loadtest;
+
+import in.osop.lms_user_service.cache.EnrollmentCounters;
+import in.osop.lms_user_service.cache.UserExistenceFilter;
+import in.osop.lms_user_service.search.UserNameIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * End-to-end load tests for UserController against embedded H2 in MySQL mode
+ * Run with: mvn -P loadtest test [-Dlms.loadtest.users=1000000 -Dlms.loadtest.threads=16]
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(properties = {
+        // Per-request log lines would dominate the measured latency
+        "logging.level.in.osop.lms_user_service.controller=WARN",
+        "logging.level.in.osop.lms_user_service.service=ERROR",
+        "logging.level.in.osop.lms_user_service.exception=ERROR"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserControllerLoadTest {
+
+    private static final String BASE = "/api/v1/users";
+
+    private static final int USERS = Integer.getInteger("lms.loadtest.users", 200_000);
+    private static final int THREADS = Integer.getInteger("lms.loadtest.threads", 8);
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("lms.loadtest.warmup-seconds", 5));
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("lms.loadtest.duration-seconds", 15));
+
+    private final AtomicLong registrations = new AtomicLong();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserExistenceFilter existenceFilter;
+
+    @Autowired
+    private UserNameIndex nameIndex;
+
+    @Autowired
+    private EnrollmentCounters enrollmentCounters;
+
+    private LoadRunner runner;
+
+    @BeforeAll
+    void generateDataset() {
+        long started = System.nanoTime();
+        new SyntheticUserGenerator(jdbcTemplate, 42L).generate(USERS);
+        log.info("Generated {} synthetic users in {} ms", USERS, (System.nanoTime() - started) / 1_000_000);
+
+        // The in-memory structures were built on startup against an empty table
+        existenceFilter.rebuild();
+        nameIndex.rebuild();
+        enrollmentCounters.reconcile();
+
+        runner = new LoadRunner(mockMvc, THREADS, WARMUP, DURATION);
+    }
+
+    @Test
+    void lookupHeavy() throws Exception {
+        Workload workload = new Workload("lookup-heavy")
+                .step("GET /{id}", 50, (mvc, random) ->
+                        status(mvc, BASE + "/" + randomUserId(random)))
+                .step("GET /email/{email}", 25, (mvc, random) ->
+                        status(mvc, BASE + "/email/" + SyntheticUserGenerator.email(randomUserId(random))))
+                .step("GET /exists/email/{email}", 15, (mvc, random) ->
+                        status(mvc, BASE + "/exists/email/" + SyntheticUserGenerator.email(random.nextLong(1, USERS * 2L))))
+                .step("GET /count/course/{course}", 10, (mvc, random) ->
+                        status(mvc, BASE + "/count/course/" + randomCourse(random)));
+
+        report(runner.run(workload));
+    }
+
+    @Test
+    void registrationStorm() throws Exception {
+        Workload workload = new Workload("registration-storm")
+                .step("POST /", 70, (mvc, random) ->
+                        postStatus(mvc, BASE, registrationJson(random, registrations.incrementAndGet())))
+                .step("POST / (duplicate)", 20, (mvc, random) ->
+                        postStatus(mvc, BASE, duplicateRegistrationJson(random)), status -> status == 409)
+                .step("POST /batch", 10, (mvc, random) -> {
+                    StringJoiner users = new StringJoiner(",", "{\"users\":[", "]}");
+                    for (int i = 0; i < 20; i++) {
+                        users.add(registrationJson(random, registrations.incrementAndGet()));
+                    }
+                    return postStatus(mvc, BASE + "/batch", users.toString());
+                });
+
+        report(runner.run(workload));
+    }
+
+    @Test
+    void listingAndSearch() throws Exception {
+        Workload workload = new Workload("listing-and-search")
+                .step("GET / (offset page)", 20, (mvc, random) ->
+                        status(mvc, BASE + "?size=20&page=" + random.nextInt(50)))
+                .step("GET /cursor", 20, (mvc, random) ->
+                        status(mvc, BASE + "/cursor?size=20&sortDir=" + (random.nextBoolean() ? "asc" : "desc")))
+                .step("GET /course/{c}/paginated", 15, (mvc, random) ->
+                        status(mvc, BASE + "/course/" + randomCourse(random) + "/paginated?size=20&page=" + random.nextInt(20)))
+                .step("GET /course/{c}/cursor", 15, (mvc, random) ->
+                        status(mvc, BASE + "/course/" + randomCourse(random) + "/cursor?size=20"))
+                .step("GET /search/ranked", 20, (mvc, random) ->
+                        status(mvc, BASE + "/search/ranked?size=20&name=" + randomNameQuery(random)))
+                .step("GET /search/autocomplete", 10, (mvc, random) ->
+                        status(mvc, BASE + "/search/autocomplete?prefix=" + randomNameQuery(random).substring(0, 3)));
+
+        report(runner.run(workload));
+    }
+
+    private void report(LoadReport report) {
+        log.info(report.format());
+        assertThat(report.totalRequests()).isPositive();
+        assertThat(report.totalErrors()).isZero();
+    }
+
+    private static int status(MockMvc mvc, String uri) throws Exception {
+        return mvc.perform(get(uri)).andReturn().getResponse().getStatus();
+    }
+
+    private static int postStatus(MockMvc mvc, String uri, String json) throws Exception {
+        return mvc.perform(post(uri).contentType(MediaType.APPLICATION_JSON).content(json))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private static long randomUserId(ThreadLocalRandom random) {
+        return random.nextLong(1, USERS + 1L);
+    }
+
+    private static String randomCourse(ThreadLocalRandom random) {
+        return SyntheticUserGenerator.COURSES.get(random.nextInt(SyntheticUserGenerator.COURSES.size()));
+    }
+
+    private static String randomNameQuery(ThreadLocalRandom random) {
+        return random.nextBoolean()
+                ? SyntheticUserGenerator.FIRST_NAMES.get(random.nextInt(SyntheticUserGenerator.FIRST_NAMES.size()))
+                : SyntheticUserGenerator.LAST_NAMES.get(random.nextInt(SyntheticUserGenerator.LAST_NAMES.size()));
+    }
+
+    private static String registrationJson(ThreadLocalRandom random, long sequence) {
+        // +92 keeps storm phone numbers disjoint from the generated +91 dataset
+        return userJson(randomNameQuery(random) + " Load", String.format("+92%010d", sequence),
+                "storm" + sequence + "@loadtest.example.com", randomCourse(random));
+    }
+
+    private static String duplicateRegistrationJson(ThreadLocalRandom random) {
+        long existing = randomUserId(random);
+        return userJson("Duplicate User", SyntheticUserGenerator.phoneNumber(existing),
+                SyntheticUserGenerator.email(existing), randomCourse(random));
+    }
+
+    private static String userJson(String fullName, String phoneNumber, String email, String courseName) {
+        return "{\"fullName\":\"" + fullName + "\",\"phoneNumber\":\"" + phoneNumber
+                + "\",\"email\":\"" + email + "\",\"courseName\":\"" + courseName + "\"}";
+    }
+}
@@ -0,0 +1,18 @@
+package in.osop.lms_user_service.loadtest;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Virtual threads behind the concurrency limiter as configured in application.properties
+ */
+@TestPropertySource(properties = {
+        "spring.threads.virtual.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:thread_model_virtual;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+})
+class VirtualThreadLoadTest extends ThreadModelLoadTest {
+
+    @Override
+    String threadModel() {
+        return "virtual-threads";
+    }
+}
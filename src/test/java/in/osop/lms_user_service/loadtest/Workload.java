@@ -0,0 +1,74 @@
+package in.osop.lms_user_service.loadtest;
+
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * A named, weighted mix of endpoint calls
+ * Each load worker repeatedly picks a step by weight and executes it
+ */
+class Workload {
+
+    private final String name;
+    private final List<Step> steps = new ArrayList<>();
+    private int totalWeight;
+
+    Workload(String name) {
+        this.name = name;
+    }
+
+    String name() {
+        return name;
+    }
+
+    /**
+     * Add a step that succeeds on any 2xx/3xx status
+     * @param endpoint label used in the report
+     * @param weight relative frequency of this step
+     * @param operation request to execute
+     * @return this workload
+     */
+    Workload step(String endpoint, int weight, Operation operation) {
+        return step(endpoint, weight, operation, status -> status < 400);
+    }
+
+    /**
+     * Add a step with its own notion of a successful status
+     * @param endpoint label used in the report
+     * @param weight relative frequency of this step
+     * @param operation request to execute
+     * @param success statuses that do not count as errors
+     * @return this workload
+     */
+    Workload step(String endpoint, int weight, Operation operation, IntPredicate success) {
+        steps.add(new Step(endpoint, weight, operation, success));
+        totalWeight += weight;
+        return this;
+    }
+
+    Step pick(ThreadLocalRandom random) {
+        int roll = random.nextInt(totalWeight);
+        for (Step step : steps) {
+            roll -= step.weight();
+            if (roll < 0) {
+                return step;
+            }
+        }
+        return steps.get(steps.size() - 1);
+    }
+
+    /**
+     * One request against the service, returning the HTTP status
+     */
+    @FunctionalInterface
+    interface Operation {
+        int execute(MockMvc mockMvc, ThreadLocalRandom random) throws Exception;
+    }
+
+    record Step(String endpoint, int weight, Operation operation, IntPredicate success) {
+    }
+}
@@ -0,0 +1,149 @@
+package in.osop.lms_user_service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Per-call-site rate limit: budget per message pattern, exempt levels and loggers, and no formatting of
+ * suppressed calls
+ */
+class CallSiteRateLimitFilterTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final CallSiteRateLimitFilter filter = new CallSiteRateLimitFilter();
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        filter.setLoggerPrefix("in.osop.lms_user_service");
+        filter.setPermitsPerSecond(3);
+        filter.setContext(context);
+        filter.start();
+        context.addTurboFilter(filter);
+
+        appender.setContext(context);
+        appender.start();
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.DEBUG);
+        root.addAppender(appender);
+        logger = context.getLogger("in.osop.lms_user_service.service.impl.UserServiceImpl");
+    }
+
+    @Test
+    void eachCallSiteGetsItsOwnBudgetPerSecond() {
+        long suppressedBefore = CallSiteRateLimitFilter.suppressedCount();
+
+        awaitFreshSecond();
+        for (int i = 0; i < 10; i++) {
+            logger.info("Fetching user by ID: {}", i);
+            logger.debug("Fetching users for course: {}", i);
+        }
+
+        assertThat(messages("Fetching user by ID")).isEqualTo(3);
+        assertThat(messages("Fetching users for course")).isEqualTo(3);
+        assertThat(CallSiteRateLimitFilter.suppressedCount() - suppressedBefore).isEqualTo(14);
+    }
+
+    @Test
+    void budgetIsRenewedEverySecond() throws InterruptedException {
+        awaitFreshSecond();
+        for (int i = 0; i < 5; i++) {
+            logger.info("Registered user: {}", i);
+        }
+        Thread.sleep(1_000);
+        for (int i = 0; i < 5; i++) {
+            logger.info("Registered user: {}", i);
+        }
+
+        assertThat(messages("Registered user")).isEqualTo(6);
+    }
+
+    @Test
+    void warningsAndOtherLoggersAreNeverLimited() {
+        Logger framework = context.getLogger("org.hibernate.SQL");
+
+        for (int i = 0; i < 10; i++) {
+            logger.warn("Slow lookup: {}", i);
+            logger.error("Lookup failed: {}", i);
+            framework.info("select from users: {}", i);
+        }
+
+        assertThat(messages("Slow lookup")).isEqualTo(10);
+        assertThat(messages("Lookup failed")).isEqualTo(10);
+        assertThat(messages("select from users")).isEqualTo(10);
+    }
+
+    @Test
+    void disabledLevelsDoNotSpendTheBudget() {
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+
+        awaitFreshSecond();
+        for (int i = 0; i < 10; i++) {
+            logger.debug("Deleted user: {}", i);
+        }
+        context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.DEBUG);
+        for (int i = 0; i < 3; i++) {
+            logger.debug("Deleted user: {}", i);
+        }
+
+        assertThat(messages("Deleted user")).isEqualTo(3);
+    }
+
+    @Test
+    void suppressedCallsAreNeverFormatted() {
+        AtomicInteger formatted = new AtomicInteger();
+        Object argument = new Object() {
+            @Override
+            public String toString() {
+                formatted.incrementAndGet();
+                return "argument";
+            }
+        };
+
+        awaitFreshSecond();
+        for (int i = 0; i < 10; i++) {
+            logger.info("Updated user: {}", argument);
+        }
+        appender.list.forEach(ILoggingEvent::getFormattedMessage);
+
+        assertThat(formatted).hasValue(3);
+    }
+
+    @Test
+    void callSitesBeyondTheCapAreNotLimited() {
+        filter.setMaxCallSites(1);
+
+        awaitFreshSecond();
+        for (int i = 0; i < 5; i++) {
+            logger.info("First call site: {}", i);
+            logger.info("Second call site: {}", i);
+        }
+
+        assertThat(messages("First call site")).isEqualTo(3);
+        assertThat(messages("Second call site")).isEqualTo(5);
+    }
+
+    private long messages(String prefix) {
+        return appender.list.stream().filter(event -> event.getMessage().startsWith(prefix)).count();
+    }
+
+    /**
+     * Wait until early in a wall-clock second so a loop of calls falls into one window
+     */
+    private static void awaitFreshSecond() {
+        while (System.nanoTime() / 1_000_000 % 1_000 > 500) {
+            Thread.onSpinWait();
+        }
+    }
+}
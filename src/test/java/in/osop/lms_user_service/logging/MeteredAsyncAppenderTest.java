@@ -0,0 +1,113 @@
+package in.osop.lms_user_service.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.LoggingEvent;
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import ch.qos.logback.core.AppenderBase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drop accounting of the async appender once its queue backs up, and the counters published from it
+ */
+class MeteredAsyncAppenderTest {
+
+    private final LoggerContext context = new LoggerContext();
+    private final Logger logger = context.getLogger("in.osop.lms_user_service.controller.UserController");
+    private final BlockingAppender downstream = new BlockingAppender();
+    private final MeteredAsyncAppender appender = new MeteredAsyncAppender();
+
+    @BeforeEach
+    void setUp() {
+        // Deferred processing copies the MDC, which a bare context has no adapter for
+        context.setMDCAdapter(new LogbackMDCAdapter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        downstream.release.countDown();
+        appender.stop();
+    }
+
+    @Test
+    void backedUpQueueDiscardsInfoFirstThenDropsEverythingWithoutBlocking() throws InterruptedException {
+        downstream.setContext(context);
+        downstream.start();
+        appender.setContext(context);
+        appender.setQueueSize(4);
+        appender.setDiscardingThreshold(2);
+        appender.setNeverBlock(true);
+        appender.addAppender(downstream);
+        appender.start();
+        long discardedBefore = MeteredAsyncAppender.discardedCount();
+        long queueFullBefore = MeteredAsyncAppender.queueFullCount();
+
+        // The worker takes the first event and stalls on it, so everything after stays queued
+        appender.doAppend(event(Level.INFO, "taken by the worker"));
+        assertThat(downstream.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        appender.doAppend(event(Level.WARN, "queued 1"));
+        appender.doAppend(event(Level.WARN, "queued 2"));
+        appender.doAppend(event(Level.WARN, "queued 3"));
+        appender.doAppend(event(Level.INFO, "discarded below the threshold"));
+        appender.doAppend(event(Level.WARN, "queued 4"));
+        appender.doAppend(event(Level.ERROR, "dropped on a full queue"));
+
+        assertThat(MeteredAsyncAppender.discardedCount() - discardedBefore).isEqualTo(1);
+        assertThat(MeteredAsyncAppender.queueFullCount() - queueFullBefore).isEqualTo(1);
+
+        downstream.release.countDown();
+        appender.stop();
+        assertThat(downstream.messages)
+                .containsExactly("taken by the worker", "queued 1", "queued 2", "queued 3", "queued 4");
+    }
+
+    @Test
+    void loggingMetricsPublishTheDropAndSuppressionCounts() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        new LoggingMetrics().bindTo(registry);
+
+        assertThat(registry.get("logging.events.dropped").tag("reason", "discarded").functionCounter().count())
+                .isEqualTo(MeteredAsyncAppender.discardedCount());
+        assertThat(registry.get("logging.events.dropped").tag("reason", "queue_full").functionCounter().count())
+                .isEqualTo(MeteredAsyncAppender.queueFullCount());
+        assertThat(registry.get("logging.events.suppressed").functionCounter().count())
+                .isEqualTo(CallSiteRateLimitFilter.suppressedCount());
+    }
+
+    private ILoggingEvent event(Level level, String message) {
+        return new LoggingEvent(Logger.FQCN, logger, level, message, null, null);
+    }
+
+    /**
+     * Downstream appender that stalls on its first event until released
+     */
+    private static final class BlockingAppender extends AppenderBase<ILoggingEvent> {
+
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            messages.add(event.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package in.osop.lms_user_service.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.dto.UserChangeEvent;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.exception.DuplicateResourceException;
+import in.osop.lms_user_service.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Outbox writes and relay, publishing to a file; the relay is run by hand instead of on its schedule
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_outbox;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.outbox.enabled=true",
+        "lms.outbox.publisher=file",
+        "lms.outbox.file.path=target/outbox-test/user-changes.jsonl",
+        "lms.outbox.relay-interval=PT1H",
+        "lms.outbox.batch-size=2"
+})
+@ActiveProfiles("test")
+class UserChangeOutboxTest {
+
+    private static final Path EVENTS = Path.of("target/outbox-test/user-changes.jsonl");
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private OutboxRelay relay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void drain() throws Exception {
+        relay.relay();
+        Files.deleteIfExists(EVENTS);
+    }
+
+    @Test
+    void publishesEachChangeOnceInCommitOrder() throws Exception {
+        UserResponse registered = userService.registerUser(request("outbox.order@example.com", "9000000001"));
+        Long userId = registered.getUserId();
+        VersionedUser updated = userService.updateUser(userId,
+                request("outbox.order.new@example.com", "9000000001"), 0L);
+        userService.updateUserStatus(userId, User.UserStatus.SUSPENDED, updated.version());
+        userService.deleteUser(userId);
+
+        assertThat(relay.relay()).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_outbox", Long.class)).isZero();
+
+        List<UserChangeEvent> events = readEvents();
+        assertThat(events).extracting(UserChangeEvent::getType).containsExactly(
+                UserChangeEvent.Type.REGISTERED, UserChangeEvent.Type.UPDATED,
+                UserChangeEvent.Type.STATUS_CHANGED, UserChangeEvent.Type.DELETED);
+        assertThat(events).extracting(UserChangeEvent::getUserId).containsOnly(userId);
+        assertThat(events).extracting(UserChangeEvent::getVersion).containsExactly(0L, 1L, 2L, 3L);
+        assertThat(events.get(1).getUser().getEmail()).isEqualTo("outbox.order.new@example.com");
+        assertThat(events.get(2).getUser().getStatus()).isEqualTo(User.UserStatus.SUSPENDED);
+        assertThat(events.get(3).getUser()).isNull();
+        assertThat(relay.relay()).isZero();
+    }
+
+    @Test
+    void rolledBackChangeLeavesNoEvent() throws Exception {
+        userService.registerUser(request("outbox.rollback@example.com", "9000000002"));
+        assertThatThrownBy(() -> userService.registerUser(request("outbox.rollback@example.com", "9000000003")))
+                .isInstanceOf(DuplicateResourceException.class);
+
+        relay.relay();
+        assertThat(readEvents()).hasSize(1);
+    }
+
+    private List<UserChangeEvent> readEvents() throws Exception {
+        List<UserChangeEvent> events = new ArrayList<>();
+        for (String line : Files.readAllLines(EVENTS)) {
+            events.add(objectMapper.readValue(line, UserChangeEvent.class));
+        }
+        return events;
+    }
+
+    private static UserRegistrationRequest request(String email, String phoneNumber) {
+        UserRegistrationRequest request = new UserRegistrationRequest();
+        request.setFullName("Outbox User");
+        request.setEmail(email);
+        request.setPhoneNumber(phoneNumber);
+        request.setCourseName("Java Programming");
+        return request;
+    }
+}
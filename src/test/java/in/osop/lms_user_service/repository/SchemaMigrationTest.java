@@ -0,0 +1,80 @@
+package in.osop.lms_user_service.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Migrates databases created by Hibernate before Flyway owned the schema, as the application does on start
+ */
+class SchemaMigrationTest {
+
+    private static final String PRE_MIGRATION_USERS = """
+            CREATE TABLE users (
+                user_id      BIGINT       NOT NULL AUTO_INCREMENT,
+                full_name    VARCHAR(100) NOT NULL,
+                phone_number VARCHAR(15)  NOT NULL,
+                email        VARCHAR(150) NOT NULL,
+                course_name  VARCHAR(100) NOT NULL,
+                status       ENUM('ACTIVE', 'INACTIVE', 'SUSPENDED', 'PENDING_VERIFICATION') NOT NULL,
+                created_at   DATETIME(6)  NOT NULL,
+                updated_at   DATETIME(6)  NOT NULL,
+                version      BIGINT,
+                PRIMARY KEY (user_id),
+                CONSTRAINT uk_users_email UNIQUE (email),
+                CONSTRAINT uk_users_phone_number UNIQUE (phone_number)
+            )""";
+
+    @Test
+    void baselinedDatabaseGetsTheKeysetIndexes() {
+        DataSource dataSource = dataSource("migrate_baselined");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(PRE_MIGRATION_USERS);
+
+        migrate(dataSource);
+
+        assertThat(indexes(jdbcTemplate)).contains(
+                "idx_users_created_at_user_id", "idx_users_course_created_at_user_id",
+                "idx_users_course_status", "idx_users_status");
+    }
+
+    @Test
+    void keysetIndexesCreatedBySchemaAutoUpdateAreKept() {
+        DataSource dataSource = dataSource("migrate_auto_updated");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(PRE_MIGRATION_USERS);
+        jdbcTemplate.execute("CREATE INDEX idx_users_created_at_user_id ON users (created_at, user_id)");
+
+        migrate(dataSource);
+
+        assertThat(indexes(jdbcTemplate))
+                .contains("idx_users_created_at_user_id", "idx_users_course_created_at_user_id");
+    }
+
+    private static DataSource dataSource(String name) {
+        return new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/common", "classpath:db/migration/h2")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+    }
+
+    private static List<String> indexes(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForList(
+                "SELECT LOWER(index_name) FROM information_schema.indexes WHERE LOWER(table_name) = 'users'",
+                String.class);
+    }
+}
@@ -0,0 +1,172 @@
+package in.osop.lms_user_service.repository;
+
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.loadtest.SyntheticUserGenerator;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Checks that every selective UserRepository query is planned against an index from the migrations
+ * Captures the SQL Hibernate actually generates and runs EXPLAIN on it in H2 (MySQL mode)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:explain;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "in.osop.lms_user_service.repository.UserRepositoryExplainTest$CapturingStatementInspector"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class UserRepositoryExplainTest {
+
+    private static final String EMAIL = SyntheticUserGenerator.email(1);
+    private static final String PHONE = SyntheticUserGenerator.phoneNumber(1);
+    private static final String COURSE = "Java Programming";
+    private static final Sort KEYSET_SORT = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("userId"));
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    void loadUsers() {
+        new SyntheticUserGenerator(jdbcTemplate, 7L).generate(5_000);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    static Stream<Arguments> queries() {
+        return Stream.of(
+                query("findById", "primary_key", repository -> repository.findById(1L)),
+                query("findResponsesByUserIdIn", "primary_key", repository -> repository.findResponsesByUserIdIn(List.of(1L, 2L))),
+                query("lockRowById", "primary_key", repository -> repository.lockRowById(1L)),
+                query("lockStatusKeysByUserIdIn", "primary_key",
+                        repository -> repository.lockStatusKeysByUserIdIn(List.of(1L, 2L))),
+                query("updateStatusByUserIdIn", "primary_key", repository -> repository.updateStatusByUserIdIn(
+                        List.of(1L, 2L), User.UserStatus.ACTIVE, LocalDateTime.now())),
+                query("deleteByUserIdIn", "primary_key", repository -> repository.deleteByUserIdIn(List.of(-1L))),
+                query("softDeleteByUserIdIn", "primary_key",
+                        repository -> repository.softDeleteByUserIdIn(List.of(-1L), LocalDateTime.now())),
+                query("findRowById", "primary_key", repository -> repository.findRowById(1L)),
+                query("findByEmail", "uk_users_email", repository -> repository.findByEmail(EMAIL)),
+                query("findRowByEmail", "uk_users_email", repository -> repository.findRowByEmail(EMAIL)),
+                query("findByPhoneNumber", "uk_users_phone_number", repository -> repository.findByPhoneNumber(PHONE)),
+                query("findRowsByUserIdIn", "primary_key", repository -> repository.findRowsByUserIdIn(List.of(1L, 2L))),
+                query("findRowsByEmailIn", "uk_users_email", repository -> repository.findRowsByEmailIn(List.of(EMAIL))),
+                query("findRowsByPhoneNumberIn", "uk_users_phone_number",
+                        repository -> repository.findRowsByPhoneNumberIn(List.of(PHONE))),
+                query("existsByEmail", "uk_users_email", repository -> repository.existsByEmail(EMAIL)),
+                query("existsByPhoneNumber", "uk_users_phone_number", repository -> repository.existsByPhoneNumber(PHONE)),
+                query("findExistingEmails", "uk_users_email", repository -> repository.findExistingEmails(List.of(EMAIL))),
+                query("findExistingPhoneNumbers", "uk_users_phone_number",
+                        repository -> repository.findExistingPhoneNumbers(List.of(PHONE))),
+                query("findByCourseName", "idx_users_course", repository -> repository.findByCourseName(COURSE)),
+                // H2 picks either course index for these; MySQL prefers the (course, created_at, user_id) one to skip the sort
+                query("findByCourseName(Pageable)", "idx_users_course",
+                        repository -> repository.findByCourseName(COURSE, PageRequest.of(0, 10, Sort.by("createdAt")))),
+                query("findCourseResponsePage", "idx_users_course",
+                        repository -> repository.findCourseResponsePage(COURSE, Limit.of(10), KEYSET_SORT)),
+                query("findCourseResponsePageAfter", "idx_users_course",
+                        repository -> repository.findCourseResponsePageAfter(
+                                COURSE, LocalDateTime.now(), 1L, Limit.of(10), KEYSET_SORT)),
+                query("streamResponsesByCourseName", "idx_users_course",
+                        repository -> {
+                            try (Stream<UserResponse> users = repository.streamResponsesByCourseName(COURSE)) {
+                                users.findFirst();
+                            }
+                        }),
+                query("findResponsesByCourseName", "idx_users_course",
+                        repository -> repository.findResponsesByCourseName(COURSE)),
+                query("findResponsesByCourseName(Pageable)", "idx_users_course",
+                        repository -> repository.findResponsesByCourseName(COURSE, PageRequest.of(0, 10, Sort.by("createdAt")))),
+                query("lockStatusKeysByCourseName", "idx_users_course",
+                        repository -> repository.lockStatusKeysByCourseName(
+                                COURSE, User.UserStatus.SUSPENDED, User.UserStatus.ACTIVE, 0L, Limit.of(10))),
+                query("lockStatusKeysByCourseNameAndStatus", "idx_users_course",
+                        repository -> repository.lockStatusKeysByCourseNameAndStatus(
+                                COURSE, User.UserStatus.INACTIVE, 0L, Limit.of(10))),
+                query("findResponsePage", "idx_users_created_at_user_id",
+                        repository -> repository.findResponsePage(Limit.of(10), KEYSET_SORT)),
+                query("findResponsePageAfter", "idx_users_created_at_user_id",
+                        repository -> repository.findResponsePageAfter(LocalDateTime.now(), 1L, Limit.of(10), KEYSET_SORT)),
+                query("findResponsePageBefore", "idx_users_created_at_user_id",
+                        repository -> repository.findResponsePageBefore(
+                                LocalDateTime.now(), 1L, Limit.of(10), KEYSET_SORT.descending())),
+                query("findByStatus", "idx_users_status", repository -> repository.findByStatus(User.UserStatus.SUSPENDED)),
+                query("findByCourseNameAndStatus", "idx_users_course_status",
+                        repository -> repository.findByCourseNameAndStatus(COURSE, User.UserStatus.ACTIVE)),
+                query("countByCourseName", "idx_users_course", repository -> repository.countByCourseName(COURSE)),
+                query("countByStatus", "idx_users_status", repository -> repository.countByStatus(User.UserStatus.ACTIVE)),
+                query("countGroupedByCourseNameAndStatus", "idx_users_course_status",
+                        UserRepository::countGroupedByCourseNameAndStatus));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("queries")
+    void usesIndex(String name, String expectedIndex, Consumer<UserRepository> invocation) {
+        CapturingStatementInspector.STATEMENTS.clear();
+        transactionTemplate.executeWithoutResult(status -> invocation.accept(userRepository));
+
+        List<String> statements = List.copyOf(CapturingStatementInspector.STATEMENTS);
+        assertThat(statements).as("SQL issued by %s", name).isNotEmpty();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertThat(plan).as("plan of %s", sql).containsIgnoringCase(expectedIndex).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    /**
+     * EXPLAIN with every bind parameter set to NULL; H2 chooses the index from the predicate shape, not the values
+     */
+    private String explain(String sql) {
+        return jdbcTemplate.query("EXPLAIN " + sql, statement -> {
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+        }, resultSet -> resultSet.next() ? resultSet.getString(1) : "");
+    }
+
+    private static Arguments query(String name, String expectedIndex, Consumer<UserRepository> invocation) {
+        return arguments(name, expectedIndex, invocation);
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
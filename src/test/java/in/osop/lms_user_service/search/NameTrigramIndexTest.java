@@ -0,0 +1,118 @@
+package in.osop.lms_user_service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Matching, ranking and paging of the trigram name index
+ */
+class NameTrigramIndexTest {
+
+    private final NameTrigramIndex index = new NameTrigramIndex();
+
+    @Test
+    void normalizesCaseAndWhitespace() {
+        assertThat(NameTrigramIndex.normalize("  John \t  SMITH ")).isEqualTo("john smith");
+
+        index.put(1, "John   Smith");
+        assertThat(ids("JOHN smith", false)).containsExactly(1L);
+        assertThat(ids("n sm", false)).containsExactly(1L);
+    }
+
+    @Test
+    void matchesSubstringsOrOnlyWordPrefixes() {
+        index.put(1, "Ann Jones");
+        index.put(2, "Joanna Smith");
+        index.put(3, "Hannah Kim");
+
+        assertThat(ids("ann", false)).containsExactlyInAnyOrder(1L, 2L, 3L);
+        assertThat(ids("ann", true)).containsExactly(1L);
+        assertThat(ids("smi", true)).containsExactly(2L);
+        assertThat(ids("mit", true)).isEmpty();
+    }
+
+    @Test
+    void shortQueriesMatchWordPrefixes() {
+        index.put(1, "Ann Jones");
+        index.put(2, "Joanna Smith");
+        index.put(3, "Bob Sjoberg");
+
+        assertThat(ids("j", false)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids("jo", false)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids("s", false)).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(ids("x", false)).isEmpty();
+    }
+
+    @Test
+    void ranksExactThenPrefixThenWordPrefixThenSubstring() {
+        index.put(1, "Mary Ann");
+        index.put(2, "Joanna");
+        index.put(3, "Ann");
+        index.put(4, "Anna Lee");
+        index.put(5, "Annabel");
+
+        // Equal scores are ordered by shorter name, then user ID
+        assertThat(ids("ann", false)).containsExactly(3L, 5L, 4L, 1L, 2L);
+    }
+
+    @Test
+    void followsRenamesAndRemovals() {
+        index.put(1, "Alice Brown");
+        index.put(2, "Alice Green");
+
+        index.put(1, "Carol Brown");
+        index.remove(2);
+
+        assertThat(ids("alice", false)).isEmpty();
+        assertThat(ids("carol", false)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.deletedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void scanDoesNotOverrideLiveWritesWhileLoading() {
+        index.put(1, "New Name");
+        index.remove(2);
+        index.load(1, "Old Name");
+        index.load(2, "Deleted User");
+        index.load(3, "Loaded User");
+        index.finishLoad();
+
+        assertThat(ids("name", false)).containsExactly(1L);
+        assertThat(ids("old", false)).isEmpty();
+        assertThat(ids("user", false)).containsExactly(3L);
+    }
+
+    @Test
+    void totalsAndRankingCoverEveryMatchAcrossPages() {
+        // Insertion order is shuffled so the best matches are not the first candidates scanned
+        List<Long> userIds = LongStream.rangeClosed(1, 5_000).boxed().collect(Collectors.toCollection(ArrayList::new));
+        Collections.shuffle(userIds, new Random(7));
+        for (long userId : userIds) {
+            index.put(userId, userId % 1_000 == 0 ? "Lee" : "Ashlee Person " + userId);
+        }
+
+        NameTrigramIndex.SearchResult first = index.search("lee", false, 0, 3);
+        assertThat(first.totalMatches()).isEqualTo(5_000);
+        assertThat(first.userIds()).containsExactly(1_000L, 2_000L, 3_000L);
+
+        NameTrigramIndex.SearchResult second = index.search("lee", false, 3, 3);
+        assertThat(second.totalMatches()).isEqualTo(5_000);
+        assertThat(second.userIds()).startsWith(4_000L, 5_000L).hasSize(3);
+
+        NameTrigramIndex.SearchResult last = index.search("lee", false, 4_998, 10);
+        assertThat(last.userIds()).hasSize(2);
+    }
+
+    private List<Long> ids(String query, boolean wordPrefixOnly) {
+        return index.search(query, wordPrefixOnly, 0, 100).userIds();
+    }
+}
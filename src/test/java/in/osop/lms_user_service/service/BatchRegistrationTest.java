@@ -0,0 +1,129 @@
+package in.osop.lms_user_service.service;
+
+import in.osop.lms_user_service.dto.BatchRegistrationResponse;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import org.flywaydb.core.Flyway;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch registration: duplicate resolution within the batch and against the table, JDBC insert batching,
+ * and user IDs from users_seq never reusing IDs written without it
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "in.osop.lms_user_service.service.BatchRegistrationTest$CapturingStatementInspector"
+})
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BatchRegistrationTest {
+
+    private static final long LEGACY_USER_ID = 10_000L;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Flyway flyway;
+
+    @BeforeAll
+    void insertLegacyUser() {
+        // A row written with an explicit ID, as AUTO_INCREMENT did before users_seq; migrate re-seeds the sequence
+        jdbcTemplate.update("INSERT INTO users (user_id, full_name, phone_number, email, course_name, status, "
+                        + "created_at, updated_at, version) VALUES (?, 'Legacy User', '9100000000', "
+                        + "'legacy@example.com', 'Java Programming', 'ACTIVE', NOW(), NOW(), 0)", LEGACY_USER_ID);
+        flyway.migrate();
+    }
+
+    @Test
+    void resolvesDuplicatesWithinTheBatchAndAgainstTheTable() {
+        userService.registerUser(request("batch.existing@example.com", "9100000001"));
+
+        BatchRegistrationResponse response = userService.registerUsers(List.of(
+                request("batch.new1@example.com", "9100000002"),
+                request("BATCH.EXISTING@example.com", "9100000003"),
+                request("batch.new2@example.com", "9100000001"),
+                request("batch.new1@example.com", "9100000004"),
+                request("batch.new3@example.com", "9100000002"),
+                request("batch.new4@example.com", "9100000005")));
+
+        assertThat(response.getTotal()).isEqualTo(6);
+        assertThat(response.getCreated()).isEqualTo(2);
+        assertThat(response.getConflicts()).isEqualTo(4);
+        assertThat(response.getResults()).extracting(BatchRegistrationResponse.Item::getOutcome).containsExactly(
+                BatchRegistrationResponse.Outcome.CREATED,
+                BatchRegistrationResponse.Outcome.CONFLICT,
+                BatchRegistrationResponse.Outcome.CONFLICT,
+                BatchRegistrationResponse.Outcome.CONFLICT,
+                BatchRegistrationResponse.Outcome.CONFLICT,
+                BatchRegistrationResponse.Outcome.CREATED);
+        assertThat(response.getResults()).extracting(BatchRegistrationResponse.Item::getIndex)
+                .containsExactly(0, 1, 2, 3, 4, 5);
+        assertThat(response.getResults().get(1).getMessage()).contains("already exists");
+        assertThat(response.getResults().get(3).getMessage()).contains("more than once");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE email LIKE 'batch.new%'", Long.class)).isEqualTo(2L);
+    }
+
+    @Test
+    void insertsInJdbcBatchesWithFreshIds() {
+        List<UserRegistrationRequest> requests = IntStream.range(0, 120)
+                .mapToObj(i -> request("batch.bulk" + i + "@example.com", String.valueOf(9200000000L + i)))
+                .collect(Collectors.toList());
+
+        CapturingStatementInspector.STATEMENTS.clear();
+        BatchRegistrationResponse response = userService.registerUsers(requests);
+
+        assertThat(response.getCreated()).isEqualTo(120);
+        // Unbatched, every row prepares its own INSERT; batched (batch_size=50) it is prepared at most once per batch
+        long insertsPrepared = CapturingStatementInspector.STATEMENTS.stream()
+                .filter(sql -> sql.toLowerCase().startsWith("insert into users"))
+                .count();
+        assertThat(insertsPrepared).isBetween(1L, 3L);
+        assertThat(response.getResults()).extracting(BatchRegistrationResponse.Item::getUser)
+                .extracting(UserResponse::getUserId)
+                .allMatch(userId -> userId > LEGACY_USER_ID)
+                .doesNotHaveDuplicates();
+    }
+
+    private static UserRegistrationRequest request(String email, String phoneNumber) {
+        return UserRegistrationRequest.builder()
+                .fullName("Batch User")
+                .email(email)
+                .phoneNumber(phoneNumber)
+                .courseName("Java Programming")
+                .build();
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares
+     */
+    public static class CapturingStatementInspector implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package in.osop.lms_user_service.service;
+
+import in.osop.lms_user_service.cache.EnrollmentCounters;
+import in.osop.lms_user_service.cache.UserResponseCache;
+import in.osop.lms_user_service.dto.BulkDeleteRequest;
+import in.osop.lms_user_service.dto.BulkDeleteResponse;
+import in.osop.lms_user_service.dto.BulkStatusUpdateRequest;
+import in.osop.lms_user_service.dto.BulkStatusUpdateResponse;
+import in.osop.lms_user_service.dto.UserChangeEvent;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.outbox.UserChangeOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+
+/**
+ * Bulk status changes and deletes in chunks of three: chunk boundaries, reported counts, cache and outbox
+ * writes per chunk, and chunks committed before a later chunk fails
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_bulk;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.bulk-write.chunk-size=3",
+        "lms.outbox.enabled=true",
+        "lms.outbox.relay-interval=PT1H"
+})
+@ActiveProfiles("test")
+class BulkWriteTest {
+
+    private static final long MISSING_USER_ID = 999_999L;
+    private static final AtomicInteger PHONE_NUMBERS = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserResponseCache userCache;
+
+    @Autowired
+    private EnrollmentCounters enrollmentCounters;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    private UserChangeOutbox changeOutbox;
+
+    @BeforeEach
+    void clearOutbox() {
+        reset(changeOutbox);
+        jdbcTemplate.update("DELETE FROM user_outbox");
+    }
+
+    @Test
+    void statusChangeByIdsReportsEveryChunk() {
+        List<Long> userIds = register("Bulk Status Ids", 7);
+        userService.updateUserStatus(userIds.get(6), User.UserStatus.SUSPENDED, 0L);
+        jdbcTemplate.update("DELETE FROM user_outbox");
+        userIds.forEach(userService::getUserById);
+
+        List<Long> requested = new ArrayList<>(userIds);
+        requested.add(userIds.get(0));
+        requested.add(MISSING_USER_ID);
+        BulkStatusUpdateResponse response = userService.updateUsersStatus(BulkStatusUpdateRequest.builder()
+                .userIds(requested)
+                .status(User.UserStatus.SUSPENDED)
+                .build());
+
+        assertThat(response.getUpdated()).isEqualTo(6);
+        assertThat(response.getUnchanged()).isEqualTo(1);
+        assertThat(response.getNotFound()).containsExactly(MISSING_USER_ID);
+        assertThat(response.getChunks()).isEqualTo(3);
+        assertThat(statuses(userIds)).containsOnly(User.UserStatus.SUSPENDED);
+        assertThat(outboxUserIds(UserChangeEvent.Type.STATUS_CHANGED))
+                .containsExactlyInAnyOrderElementsOf(userIds.subList(0, 6));
+        userIds.subList(0, 6).forEach(userId -> assertThat(userCache.getById(userId)).isEmpty());
+        assertThat(userService.getUserById(userIds.get(0)).user().getStatus()).isEqualTo(User.UserStatus.SUSPENDED);
+        assertCountersMatchTable("Bulk Status Ids");
+    }
+
+    @Test
+    void statusChangeByCourseStopsAtAnExactChunkBoundary() {
+        List<Long> userIds = register("Bulk Status Course", 7);
+        userService.updateUserStatus(userIds.get(3), User.UserStatus.INACTIVE, 0L);
+
+        BulkStatusUpdateResponse response = userService.updateUsersStatus(BulkStatusUpdateRequest.builder()
+                .courseName(" Bulk Status Course ")
+                .currentStatus(User.UserStatus.ACTIVE)
+                .status(User.UserStatus.SUSPENDED)
+                .build());
+
+        assertThat(response.getUpdated()).isEqualTo(6);
+        assertThat(response.getUnchanged()).isZero();
+        assertThat(response.getNotFound()).isEmpty();
+        assertThat(response.getChunks()).isEqualTo(2);
+        assertThat(statuses(List.of(userIds.get(3)))).containsExactly(User.UserStatus.INACTIVE);
+        assertCountersMatchTable("Bulk Status Course");
+    }
+
+    @Test
+    void statusChangeKeepsChunksCommittedBeforeAFailure() {
+        List<Long> userIds = register("Bulk Status Failure", 7);
+        userIds.forEach(userService::getUserById);
+        failOnSecondChunk();
+
+        assertThatThrownBy(() -> userService.updateUsersStatus(BulkStatusUpdateRequest.builder()
+                .userIds(userIds)
+                .status(User.UserStatus.SUSPENDED)
+                .build()))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(statuses(userIds.subList(0, 3))).containsOnly(User.UserStatus.SUSPENDED);
+        assertThat(statuses(userIds.subList(3, 7))).containsOnly(User.UserStatus.ACTIVE);
+        assertThat(outboxUserIds(UserChangeEvent.Type.STATUS_CHANGED))
+                .containsExactlyInAnyOrderElementsOf(userIds.subList(0, 3));
+        userIds.subList(0, 3).forEach(userId -> assertThat(userCache.getById(userId)).isEmpty());
+        userIds.subList(3, 7).forEach(userId -> assertThat(userCache.getById(userId)).isPresent());
+        assertCountersMatchTable("Bulk Status Failure");
+    }
+
+    @Test
+    void deleteByIdsSkipsOtherStatusesAndReportsMissingUsers() {
+        List<Long> userIds = register("Bulk Delete Ids", 5);
+        userService.updateUserStatus(userIds.get(1), User.UserStatus.INACTIVE, 0L);
+        jdbcTemplate.update("DELETE FROM user_outbox");
+        userIds.forEach(userService::getUserById);
+
+        List<Long> requested = new ArrayList<>(userIds);
+        requested.add(MISSING_USER_ID);
+        BulkDeleteResponse response = userService.deleteUsers(BulkDeleteRequest.builder()
+                .userIds(requested)
+                .status(User.UserStatus.ACTIVE)
+                .build());
+
+        assertThat(response.getDeleted()).isEqualTo(4);
+        assertThat(response.getSkipped()).isEqualTo(1);
+        assertThat(response.getNotFound()).containsExactly(MISSING_USER_ID);
+        assertThat(response.getChunks()).isEqualTo(2);
+        assertThat(existing(userIds)).containsExactly(userIds.get(1));
+        assertThat(outboxUserIds(UserChangeEvent.Type.DELETED))
+                .containsExactlyInAnyOrder(userIds.get(0), userIds.get(2), userIds.get(3), userIds.get(4));
+        assertThat(userCache.getById(userIds.get(0))).isEmpty();
+        assertCountersMatchTable("Bulk Delete Ids");
+    }
+
+    @Test
+    void deleteByCourseStopsAtAnExactChunkBoundary() {
+        List<Long> userIds = register("Bulk Delete Course", 6);
+
+        BulkDeleteResponse response = userService.deleteUsers(BulkDeleteRequest.builder()
+                .courseName("Bulk Delete Course")
+                .build());
+
+        assertThat(response.getDeleted()).isEqualTo(6);
+        assertThat(response.getSkipped()).isZero();
+        assertThat(response.getChunks()).isEqualTo(2);
+        assertThat(existing(userIds)).isEmpty();
+        assertThat(outboxUserIds(UserChangeEvent.Type.DELETED)).containsExactlyInAnyOrderElementsOf(userIds);
+        assertCountersMatchTable("Bulk Delete Course");
+    }
+
+    @Test
+    void deleteKeepsChunksCommittedBeforeAFailure() {
+        List<Long> userIds = register("Bulk Delete Failure", 7);
+        userIds.forEach(userService::getUserById);
+        failOnSecondChunk();
+
+        assertThatThrownBy(() -> userService.deleteUsers(BulkDeleteRequest.builder()
+                .courseName("Bulk Delete Failure")
+                .build()))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(existing(userIds)).containsExactlyElementsOf(userIds.subList(3, 7));
+        assertThat(outboxUserIds(UserChangeEvent.Type.DELETED))
+                .containsExactlyInAnyOrderElementsOf(userIds.subList(0, 3));
+        userIds.subList(0, 3).forEach(userId -> assertThat(userCache.getById(userId)).isEmpty());
+        userIds.subList(3, 7).forEach(userId -> assertThat(userCache.getById(userId)).isPresent());
+        assertCountersMatchTable("Bulk Delete Failure");
+    }
+
+    /**
+     * Make the outbox write of the second chunk fail, rolling back that chunk only
+     */
+    private void failOnSecondChunk() {
+        AtomicInteger calls = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("outbox unavailable");
+            }
+            return invocation.callRealMethod();
+        }).when(changeOutbox).append(eq(UserChangeEvent.Type.STATUS_CHANGED), any());
+        doAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new IllegalStateException("outbox unavailable");
+            }
+            return invocation.callRealMethod();
+        }).when(changeOutbox).appendDeleted(anyCollection());
+    }
+
+    private List<Long> register(String courseName, int count) {
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int n = PHONE_NUMBERS.incrementAndGet();
+            userIds.add(userService.registerUser(UserRegistrationRequest.builder()
+                    .fullName("Bulk User")
+                    .email("bulk" + n + "@example.com")
+                    .phoneNumber(String.valueOf(9_200_000_000L + n))
+                    .courseName(courseName)
+                    .build()).getUserId());
+        }
+        jdbcTemplate.update("DELETE FROM user_outbox");
+        return userIds;
+    }
+
+    private List<User.UserStatus> statuses(List<Long> userIds) {
+        return userIds.stream()
+                .map(userId -> User.UserStatus.valueOf(jdbcTemplate.queryForObject(
+                        "SELECT status FROM users WHERE user_id = ?", String.class, userId)))
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> existing(List<Long> userIds) {
+        return userIds.stream()
+                .filter(userId -> jdbcTemplate.queryForObject(
+                        "SELECT COUNT(*) FROM users WHERE user_id = ?", Long.class, userId) == 1)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> outboxUserIds(UserChangeEvent.Type type) {
+        return jdbcTemplate.queryForList(
+                "SELECT user_id FROM user_outbox WHERE event_type = ?", Long.class, type.name());
+    }
+
+    private void assertCountersMatchTable(String courseName) {
+        assertThat(enrollmentCounters.countByCourse(courseName)).hasValue(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE course_name = ?", Long.class, courseName));
+        for (User.UserStatus status : User.UserStatus.values()) {
+            assertThat(enrollmentCounters.countByStatus(status)).as(status.name()).hasValue(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM users WHERE status = ?", Long.class, status.name()));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package in.osop.lms_user_service.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import in.osop.lms_user_service.service.impl.RegistrationQueueServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Write-behind registration: queued registrations written by the background writer, shedding when the queue
+ * is full, and recovery of rows whose claim has lapsed; recovery runs by hand instead of on its schedule
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_registration_queue;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.registration-queue.enabled=true",
+        "lms.registration-queue.capacity=3",
+        "lms.registration-queue.batch-size=2",
+        "lms.registration-queue.recovery-interval=PT1H",
+        "lms.registration-queue.lease=PT2H",
+        "lms.registration-queue.instance-id=" + RegistrationQueueTest.INSTANCE_ID
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class RegistrationQueueTest {
+
+    static final String INSTANCE_ID = "queue-test";
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private RegistrationQueueServiceImpl queueService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @BeforeEach
+    void awaitIdleWriter() throws Exception {
+        // Permits are released just after the outcome commits
+        awaitPending(0);
+    }
+
+    @Test
+    void queuedRegistrationIsWrittenInTheBackground() throws Exception {
+        String email = nextEmail();
+
+        MvcResult accepted = mvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(email, nextPhoneNumber())))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.data.status").value("QUEUED"))
+                .andReturn();
+        String trackingId = data(accepted).get("trackingId").asText();
+        assertThat(accepted.getResponse().getHeader(HttpHeaders.LOCATION))
+                .isEqualTo("/api/v1/users/registrations/" + trackingId);
+
+        JsonNode completed = awaitCompletion(trackingId);
+        assertThat(completed.get("status").asText()).isEqualTo("CREATED");
+        mvc.perform(get("/api/v1/users/email/{email}", email))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.userId").value(completed.get("userId").asLong()));
+        mvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(email, nextPhoneNumber())))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void fullQueueShedsRegistrationsUntilTheWriterCatchesUp() throws Exception {
+        List<String> trackingIds = new ArrayList<>();
+        queueService.stop();
+        try {
+            for (int i = 0; i < 3; i++) {
+                trackingIds.add(data(mvc.perform(post("/api/v1/users")
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content(json(nextEmail(), nextPhoneNumber())))
+                        .andExpect(status().isAccepted())
+                        .andReturn()).get("trackingId").asText());
+            }
+            mvc.perform(post("/api/v1/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json(nextEmail(), nextPhoneNumber())))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+            assertThat(meterRegistry.get("users.registration.queue.rejected").counter().count()).isPositive();
+        } finally {
+            queueService.start();
+        }
+
+        for (String trackingId : trackingIds) {
+            assertThat(awaitCompletion(trackingId).get("status").asText()).isEqualTo("CREATED");
+        }
+        awaitPending(0);
+        mvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(nextEmail(), nextPhoneNumber())))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void heldRegistrationsHaveTheirClaimsRenewedInsteadOfRecovered() throws Exception {
+        queueService.stop();
+        String trackingId;
+        try {
+            trackingId = data(mvc.perform(post("/api/v1/users")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json(nextEmail(), nextPhoneNumber())))
+                    .andReturn()).get("trackingId").asText();
+            jdbcTemplate.update("UPDATE registration_queue SET claimed_at = ? WHERE tracking_id = ?",
+                    LocalDateTime.now().minusHours(3), trackingId);
+
+            assertThat(queueService.recover()).isZero();
+
+            assertThat(jdbcTemplate.queryForObject("SELECT claimed_at FROM registration_queue WHERE tracking_id = ?",
+                    LocalDateTime.class, trackingId)).isAfter(LocalDateTime.now().minusMinutes(1));
+        } finally {
+            queueService.start();
+        }
+        assertThat(awaitCompletion(trackingId).get("status").asText()).isEqualTo("CREATED");
+    }
+
+    @Test
+    void abandonedRegistrationsAreRecoveredAndLiveClaimsAreLeftAlone() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        String abandoned = insertQueued("crashed-instance", now.minusHours(3));
+        String unclaimed = insertQueued(null, null);
+        String live = insertQueued("live-instance", now);
+
+        assertThat(queueService.recover()).isEqualTo(2);
+
+        assertThat(awaitCompletion(abandoned).get("status").asText()).isEqualTo("CREATED");
+        assertThat(awaitCompletion(unclaimed).get("status").asText()).isEqualTo("CREATED");
+        assertThat(jdbcTemplate.queryForObject("SELECT status FROM registration_queue WHERE tracking_id = ?",
+                String.class, live)).isEqualTo("QUEUED");
+        assertThat(jdbcTemplate.queryForObject("SELECT claimed_by FROM registration_queue WHERE tracking_id = ?",
+                String.class, live)).isEqualTo("live-instance");
+        jdbcTemplate.update("DELETE FROM registration_queue WHERE tracking_id = ?", live);
+    }
+
+    @Test
+    void ownRegistrationsFromBeforeARestartAreRecoveredWithoutWaitingForTheLease() throws Exception {
+        // Claimed under this instance ID by an earlier run, well within the lease
+        String claimedBeforeRestart = insertQueued(INSTANCE_ID, LocalDateTime.now().minusMinutes(30));
+
+        assertThat(queueService.recover()).isEqualTo(1);
+
+        assertThat(awaitCompletion(claimedBeforeRestart).get("status").asText()).isEqualTo("CREATED");
+    }
+
+    private String insertQueued(String claimedBy, LocalDateTime claimedAt) {
+        String trackingId = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO registration_queue (tracking_id, full_name, phone_number, email, course_name, "
+                        + "status, enqueued_at, claimed_by, claimed_at) VALUES (?, 'Queued User', ?, ?, "
+                        + "'Java Programming', 'QUEUED', ?, ?, ?)",
+                trackingId, nextPhoneNumber(), nextEmail(), LocalDateTime.now().minusHours(3), claimedBy, claimedAt);
+        return trackingId;
+    }
+
+    private JsonNode awaitCompletion(String trackingId) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (true) {
+            JsonNode registration = data(mvc.perform(get("/api/v1/users/registrations/{trackingId}", trackingId))
+                    .andExpect(status().isOk())
+                    .andReturn());
+            if (!"QUEUED".equals(registration.get("status").asText()) || System.nanoTime() > deadline) {
+                return registration;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private void awaitPending(double expected) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (meterRegistry.get("users.registration.queue.pending").gauge().value() != expected
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(meterRegistry.get("users.registration.queue.pending").gauge().value()).isEqualTo(expected);
+    }
+
+    private JsonNode data(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("data");
+    }
+
+    private static String nextEmail() {
+        return "queued" + SEQUENCE.incrementAndGet() + "@example.com";
+    }
+
+    private static String nextPhoneNumber() {
+        return String.valueOf(9_500_000_000L + SEQUENCE.incrementAndGet());
+    }
+
+    private static String json(String email, String phoneNumber) {
+        return """
+                {"fullName": "Queued User", "email": "%s", "phoneNumber": "%s", "courseName": "Java Programming"}
+                """.formatted(email, phoneNumber);
+    }
+}
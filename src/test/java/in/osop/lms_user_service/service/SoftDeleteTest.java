@@ -0,0 +1,194 @@
+package in.osop.lms_user_service.service;
+
+import in.osop.lms_user_service.cache.UserExistenceFilter;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.repository.UserRepository;
+import in.osop.lms_user_service.service.impl.SoftDeletePurger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Soft delete: deleted users disappear from the API while their rows are kept, their email and phone number stay
+ * taken until purged, and the purge honours the retention period and chunk size
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_soft_delete;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.soft-delete.enabled=true",
+        "lms.soft-delete.retention=P7D",
+        "lms.soft-delete.purge-interval=PT1H"
+})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+class SoftDeleteTest {
+
+    private static final Duration RETENTION = Duration.ofDays(7);
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserExistenceFilter existenceFilter;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Test
+    void softDeletedUserIsHiddenFromLookupsPagesAndCounts() throws Exception {
+        String courseName = "Soft Delete Visibility";
+        UserResponse kept = register(courseName);
+        UserResponse deleted = register(courseName);
+        mvc.perform(get("/api/v1/users/{id}", deleted.getUserId())).andExpect(status().isOk());
+
+        mvc.perform(delete("/api/v1/users/{id}", deleted.getUserId())).andExpect(status().isOk());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT deleted_at FROM users WHERE user_id = ?",
+                LocalDateTime.class, deleted.getUserId())).isNotNull();
+        mvc.perform(get("/api/v1/users/{id}", deleted.getUserId())).andExpect(status().isNotFound());
+        mvc.perform(get("/api/v1/users/email/{email}", deleted.getEmail())).andExpect(status().isNotFound());
+        mvc.perform(get("/api/v1/users/course/{courseName}/paginated", courseName))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.totalElements").value(1))
+                .andExpect(jsonPath("$.data.content[0].userId").value(kept.getUserId()));
+        mvc.perform(get("/api/v1/users/count/course/{courseName}", courseName))
+                .andExpect(jsonPath("$.data").value(1));
+        assertThat(userRepository.countByCourseName(courseName)).isEqualTo(1);
+        mvc.perform(delete("/api/v1/users/{id}", deleted.getUserId())).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reRegisteringASoftDeletedEmailIsAConflict() throws Exception {
+        String courseName = "Soft Delete Conflict";
+        UserResponse deleted = register(courseName);
+        userService.deleteUser(deleted.getUserId());
+
+        mvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(deleted.getEmail(), nextPhoneNumber(), courseName)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.success").value(false));
+        mvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(nextEmail(), deleted.getPhoneNumber(), courseName)))
+                .andExpect(status().isConflict());
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE course_name = ?",
+                Long.class, courseName)).isEqualTo(1);
+        mvc.perform(get("/api/v1/users/count/course/{courseName}", courseName))
+                .andExpect(jsonPath("$.data").value(0));
+    }
+
+    @Test
+    void batchWithASoftDeletedEmailReportsThatItemAsAConflict() throws Exception {
+        String courseName = "Soft Delete Batch";
+        UserResponse deleted = register(courseName);
+        userService.deleteUser(deleted.getUserId());
+        String freshEmail = nextEmail();
+
+        mvc.perform(post("/api/v1/users/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"users\": [" + json(freshEmail, nextPhoneNumber(), courseName) + ", "
+                                + json(deleted.getEmail(), nextPhoneNumber(), courseName) + ", "
+                                + json(nextEmail(), deleted.getPhoneNumber(), courseName) + "]}"))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.data.created").value(1))
+                .andExpect(jsonPath("$.data.results[0].outcome").value("CREATED"))
+                .andExpect(jsonPath("$.data.results[1].outcome").value("CONFLICT"))
+                .andExpect(jsonPath("$.data.results[2].outcome").value("CONFLICT"));
+
+        mvc.perform(get("/api/v1/users/exists/email/{email}", deleted.getEmail()))
+                .andExpect(jsonPath("$.data").value(true));
+        mvc.perform(get("/api/v1/users/exists/phone/{phoneNumber}", deleted.getPhoneNumber()))
+                .andExpect(jsonPath("$.data").value(true));
+        assertThat(userService.existsByEmail(freshEmail)).isTrue();
+    }
+
+    @Test
+    void purgeRemovesOnlyUsersPastRetentionInChunks() throws Exception {
+        String courseName = "Soft Delete Purge";
+        List<UserResponse> users = List.of(register(courseName), register(courseName), register(courseName),
+                register(courseName), register(courseName));
+        users.forEach(user -> userService.deleteUser(user.getUserId()));
+        LocalDateTime expired = LocalDateTime.now().minus(RETENTION).minusHours(1);
+        for (UserResponse user : users.subList(0, 3)) {
+            jdbcTemplate.update("UPDATE users SET deleted_at = ? WHERE user_id = ?", expired, user.getUserId());
+        }
+        UserRepository repository = mock(UserRepository.class, delegatesTo(userRepository));
+        SoftDeletePurger purger = new SoftDeletePurger(repository, transactionTemplate, existenceFilter,
+                true, RETENTION, 2);
+
+        assertThat(purger.purge()).isEqualTo(3);
+
+        verify(repository, times(3)).findSoftDeletedUserIdsBefore(any(), eq(2));
+        verify(repository, times(2)).purgeSoftDeletedByUserIdIn(argThat((Collection<Long> ids) -> ids.size() <= 2));
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM users WHERE course_name = ?",
+                Long.class, courseName))
+                .containsExactlyInAnyOrder(users.get(3).getUserId(), users.get(4).getUserId());
+        assertThat(purger.purge()).isZero();
+
+        mvc.perform(post("/api/v1/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json(users.get(0).getEmail(), users.get(0).getPhoneNumber(), courseName)))
+                .andExpect(status().isCreated());
+    }
+
+    private UserResponse register(String courseName) {
+        return userService.registerUser(UserRegistrationRequest.builder()
+                .fullName("Soft Delete User")
+                .email(nextEmail())
+                .phoneNumber(nextPhoneNumber())
+                .courseName(courseName)
+                .build());
+    }
+
+    private static String nextEmail() {
+        return "soft" + SEQUENCE.incrementAndGet() + "@example.com";
+    }
+
+    private static String nextPhoneNumber() {
+        return String.valueOf(9_300_000_000L + SEQUENCE.incrementAndGet());
+    }
+
+    private static String json(String email, String phoneNumber, String courseName) {
+        return """
+                {"fullName": "Soft Delete User", "email": "%s", "phoneNumber": "%s", "courseName": "%s"}
+                """.formatted(email, phoneNumber, courseName);
+    }
+}
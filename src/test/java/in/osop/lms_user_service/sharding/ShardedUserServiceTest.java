@@ -0,0 +1,356 @@
+package in.osop.lms_user_service.sharding;
+
+import in.osop.lms_user_service.dto.BulkDeleteRequest;
+import in.osop.lms_user_service.dto.BulkDeleteResponse;
+import in.osop.lms_user_service.dto.BulkStatusUpdateRequest;
+import in.osop.lms_user_service.dto.BulkStatusUpdateResponse;
+import in.osop.lms_user_service.dto.CursorSlice;
+import in.osop.lms_user_service.dto.ExportFormat;
+import in.osop.lms_user_service.dto.UserLookupRequest;
+import in.osop.lms_user_service.dto.UserLookupResponse;
+import in.osop.lms_user_service.dto.UserRegistrationRequest;
+import in.osop.lms_user_service.dto.UserResponse;
+import in.osop.lms_user_service.dto.VersionedUser;
+import in.osop.lms_user_service.entity.User;
+import in.osop.lms_user_service.search.UserNameIndex;
+import in.osop.lms_user_service.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Sharded storage over three embedded H2 databases, with a fourth standing in for the primary
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:lms_sharded_primary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.sharding.enabled=true",
+        "lms.sharding.shards[0].jdbc-url=jdbc:h2:mem:lms_shard_0;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.sharding.shards[0].username=sa",
+        "lms.sharding.shards[1].jdbc-url=jdbc:h2:mem:lms_shard_1;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.sharding.shards[1].username=sa",
+        "lms.sharding.shards[2].jdbc-url=jdbc:h2:mem:lms_shard_2;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "lms.sharding.shards[2].username=sa",
+        "lms.user-cache.enabled=false",
+        "lms.existence-filter.enabled=false",
+        "lms.enrollment-counters.enabled=false",
+        "lms.bulk-write.chunk-size=4"
+})
+@ActiveProfiles("test")
+class ShardedUserServiceTest {
+
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ShardedUserStore store;
+
+    @Autowired
+    private ShardRouter router;
+
+    @Autowired
+    private UserShardDirectory directory;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private UserNameIndex nameIndex;
+
+    @Autowired
+    private JdbcTemplate primaryJdbc;
+
+    @Test
+    void usersAreSpreadByEmailHashAndFoundByIdEmailAndPhone() {
+        List<UserResponse> users = register("Spread", 30);
+
+        for (UserShard shard : store.shards()) {
+            assertThat(rowsOn(shard.index(), users)).isPositive();
+        }
+        for (UserResponse user : users) {
+            assertThat(store.findById(router.shardOf(user.getEmail()), user.getUserId())).isPresent();
+        }
+        assertThat(primaryJdbc.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isZero();
+
+        UserResponse user = users.get(7);
+        assertThat(userService.getUserById(user.getUserId()).user().getEmail()).isEqualTo(user.getEmail());
+        assertThat(userService.getUserByEmail(user.getEmail().toUpperCase()).user().getUserId())
+                .isEqualTo(user.getUserId());
+
+        UserLookupResponse lookup = userService.lookupUsers(UserLookupRequest.builder()
+                .userIds(List.of(users.get(0).getUserId(), -1L))
+                .phoneNumbers(List.of(users.get(1).getPhoneNumber(), users.get(2).getPhoneNumber()))
+                .build());
+        assertThat(lookup.getById()).containsOnlyKeys(users.get(0).getUserId());
+        assertThat(lookup.getMissingIds()).containsExactly(-1L);
+        assertThat(lookup.getByPhoneNumber()).hasSize(2);
+        assertThat(userService.existsByPhoneNumber(users.get(3).getPhoneNumber())).isTrue();
+    }
+
+    @Test
+    void pagesAreMergedFromEveryShardInGlobalOrder() {
+        List<UserResponse> users = register("Merge", 25);
+        String course = users.get(0).getCourseName();
+        List<String> emailsDescending = users.stream()
+                .map(UserResponse::getEmail)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+
+        Page<UserResponse> page = userService.getUsersByCourse(course, PageRequest.of(2, 7, Sort.by("email").descending()));
+
+        assertThat(page.getTotalElements()).isEqualTo(25);
+        assertThat(page.getTotalPages()).isEqualTo(4);
+        assertThat(page.getContent()).extracting(UserResponse::getEmail)
+                .containsExactlyElementsOf(emailsDescending.subList(14, 21));
+        assertThat(userService.getUserCountByCourse(course)).isEqualTo(25);
+        assertThat(userService.getUsersByCourse(course)).hasSize(25);
+
+        Sort byCreatedAt = Sort.by("createdAt").descending();
+        List<Long> all = userService.getAllUsers(PageRequest.of(0, 1000, byCreatedAt)).map(UserResponse::getUserId)
+                .getContent();
+        assertThat(userService.getAllUsers(PageRequest.of(3, 5, byCreatedAt)).map(UserResponse::getUserId).getContent())
+                .containsExactlyElementsOf(all.subList(15, 20));
+    }
+
+    @Test
+    void cursorPagesAreMergedFromEveryShardByCreationTime() {
+        List<UserResponse> users = register("Cursor", 13);
+        String course = users.get(0).getCourseName();
+        List<Long> ascending = users.stream()
+                .sorted(Comparator.comparing(UserResponse::getCreatedAt).thenComparing(UserResponse::getUserId))
+                .map(UserResponse::getUserId)
+                .collect(Collectors.toList());
+
+        List<Long> seen = new ArrayList<>();
+        List<Boolean> hasNext = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorSlice<UserResponse> slice = userService.getUsersByCourse(course, cursor, 5, Sort.Direction.ASC);
+            slice.getContent().forEach(user -> seen.add(user.getUserId()));
+            hasNext.add(slice.isHasNext());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(ascending);
+        assertThat(hasNext).containsExactly(true, true, false);
+
+        CursorSlice<UserResponse> newest = userService.getUsersByCourse(course, null, 4, Sort.Direction.DESC);
+        CursorSlice<UserResponse> older = userService.getUsersByCourse(course, newest.getNextCursor(), 4, null);
+        assertThat(older.getContent()).extracting(UserResponse::getUserId)
+                .containsExactlyElementsOf(ascending.reversed().subList(4, 8));
+    }
+
+    @Test
+    void nameSearchAndAutocompleteCoverEveryShard() {
+        List<UserResponse> users = register("Quillon", 9);
+        for (UserShard shard : store.shards()) {
+            assertThat(rowsOn(shard.index(), users)).isPositive();
+        }
+        // Reloads the index from the shards rather than relying on the registrations having updated it
+        nameIndex.rebuild();
+
+        Page<UserResponse> page = userService.searchUsersByName("quillon", PageRequest.of(1, 4));
+        assertThat(page.getTotalElements()).isEqualTo(9);
+        assertThat(page.getContent()).hasSize(4);
+        assertThat(userService.autocompleteUsersByName("Quil", 50)).hasSize(9);
+
+        UserResponse renamed = users.get(0);
+        userService.updateUser(renamed.getUserId(), request("Zanthe Quillon", renamed.getPhoneNumber(),
+                renamed.getEmail(), renamed.getCourseName()), null);
+        userService.deleteUser(users.get(1).getUserId());
+
+        assertThat(userService.searchUsersByName("zanthe")).extracting(UserResponse::getUserId)
+                .containsExactly(renamed.getUserId());
+        assertThat(userService.searchUsersByName("quillon")).hasSize(8)
+                .extracting(UserResponse::getUserId).doesNotContain(users.get(1).getUserId());
+    }
+
+    @Test
+    void bulkStatusChangesAndDeletesFanOutToEveryShard() {
+        List<UserResponse> users = register("Bulk", 10);
+        String course = users.get(0).getCourseName();
+
+        BulkStatusUpdateResponse byCourse = userService.updateUsersStatus(BulkStatusUpdateRequest.builder()
+                .courseName(course)
+                .status(User.UserStatus.INACTIVE)
+                .build());
+        assertThat(byCourse.getUpdated()).isEqualTo(10);
+        assertThat(byCourse.getChunks()).isGreaterThanOrEqualTo(3);
+        assertThat(userService.getUserById(users.get(5).getUserId()).version()).isEqualTo(1);
+
+        List<Long> suspended = List.of(users.get(0).getUserId(), users.get(4).getUserId(), users.get(8).getUserId());
+        BulkStatusUpdateRequest suspend = BulkStatusUpdateRequest.builder()
+                .userIds(List.of(suspended.get(0), suspended.get(1), suspended.get(2), -1L))
+                .status(User.UserStatus.SUSPENDED)
+                .build();
+        BulkStatusUpdateResponse byIds = userService.updateUsersStatus(suspend);
+        assertThat(byIds.getUpdated()).isEqualTo(3);
+        assertThat(byIds.getNotFound()).containsExactly(-1L);
+        assertThat(userService.updateUsersStatus(suspend).getUnchanged()).isEqualTo(3);
+
+        BulkDeleteResponse deleted = userService.deleteUsers(BulkDeleteRequest.builder()
+                .courseName(course)
+                .status(User.UserStatus.SUSPENDED)
+                .build());
+        assertThat(deleted.getDeleted()).isEqualTo(3);
+        assertThat(deleted.isSoftDelete()).isFalse();
+        assertThat(userService.getUserCountByCourse(course)).isEqualTo(7);
+        assertThat(userService.existsByEmail(users.get(4).getEmail())).isFalse();
+        assertThat(directory.findByUserId(suspended.get(2))).isEmpty();
+
+        BulkDeleteResponse byIdsDelete = userService.deleteUsers(BulkDeleteRequest.builder()
+                .userIds(List.of(users.get(1).getUserId(), users.get(2).getUserId(), suspended.get(0)))
+                .status(User.UserStatus.INACTIVE)
+                .build());
+        assertThat(byIdsDelete.getDeleted()).isEqualTo(2);
+        assertThat(byIdsDelete.getNotFound()).containsExactly(suspended.get(0));
+        assertThat(userService.getUserCountByStatus(User.UserStatus.SUSPENDED)).isZero();
+    }
+
+    @Test
+    void exportMergesChunkedShardReadsInUserIdOrder() throws IOException {
+        List<UserResponse> users = register("Export", 23);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long exported = userService.exportUsersByCourse(users.get(0).getCourseName(), ExportFormat.CSV, out);
+
+        assertThat(exported).isEqualTo(23);
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().skip(1).collect(Collectors.toList());
+        assertThat(lines).extracting(line -> Long.parseLong(line.substring(0, line.indexOf(','))))
+                .containsExactlyElementsOf(users.stream().map(UserResponse::getUserId).sorted().toList());
+    }
+
+    @Test
+    void lookupsCarryTheStoredVersion() {
+        UserResponse user = register("ETag", 1).get(0);
+        userService.updateUserStatus(user.getUserId(), User.UserStatus.INACTIVE, 0L);
+
+        assertThat(userService.getUserById(user.getUserId()).eTag()).isEqualTo(VersionedUser.eTag(user.getUserId(), 1));
+        assertThat(userService.getUserByEmail(user.getEmail().toUpperCase()).eTag())
+                .isEqualTo(VersionedUser.eTag(user.getUserId(), 1));
+    }
+
+    @Test
+    void changingTheEmailMovesTheUserToItsNewShard() {
+        UserResponse user = register("Move", 1).get(0);
+        int shard = router.shardOf(user.getEmail());
+        String movedEmail = IntStream.range(0, 100)
+                .mapToObj(i -> "moved." + i + "." + user.getEmail())
+                .filter(email -> router.shardOf(email) != shard)
+                .findFirst()
+                .orElseThrow();
+
+        VersionedUser updated = userService.updateUser(user.getUserId(), request("Moved User", user.getPhoneNumber(),
+                movedEmail, user.getCourseName()), 0L);
+
+        assertThat(updated.version()).isEqualTo(1);
+        assertThat(store.findById(shard, user.getUserId())).isEmpty();
+        assertThat(store.findById(router.shardOf(movedEmail), user.getUserId())).isPresent();
+        assertThat(userService.getUserById(user.getUserId()).user().getEmail()).isEqualTo(movedEmail);
+        assertThat(userService.existsByEmail(user.getEmail())).isFalse();
+
+        userService.deleteUser(user.getUserId());
+        assertThat(userService.existsByEmail(movedEmail)).isFalse();
+    }
+
+    @Test
+    void rebalancerImportsUnshardedUsersAndMovesMisplacedOnes() {
+        int n = SEQUENCE.incrementAndGet();
+        LocalDateTime now = LocalDateTime.now();
+        primaryJdbc.update("INSERT INTO users (user_id, full_name, phone_number, email, course_name, status, created_at, "
+                + "updated_at, version) VALUES (?, 'Legacy User', ?, ?, 'Legacy', 'ACTIVE', ?, ?, 0)",
+                900_000L + n, "+1555" + String.format("%07d", n), "legacy" + n + "@example.com", now, now);
+        rebalancer.importUnsharded(primaryJdbc.getDataSource());
+        assertThat(userService.getUserById(900_000L + n).user().getEmail()).isEqualTo("legacy" + n + "@example.com");
+        assertThat(userService.registerUser(request("After Import", "+1556" + String.format("%07d", n),
+                "after.import" + n + "@example.com", "Legacy")).getUserId()).isGreaterThan(900_000L + n);
+
+        // Rows left on the wrong shard, e.g. by a shard count change
+        List<User> misplaced = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String email = "misplaced" + n + "." + i + "@example.com";
+            int wrongShard = (router.shardOf(email) + 1) % router.shardCount();
+            User user = User.builder()
+                    .userId(800_000L + n * 100L + i)
+                    .fullName("Misplaced User")
+                    .phoneNumber("+1557" + String.format("%05d", n) + i)
+                    .email(email)
+                    .courseName("Misplaced")
+                    .status(User.UserStatus.ACTIVE)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .version(0L)
+                    .build();
+            store.insert(wrongShard, List.of(user));
+            directory.put(new UserShardDirectory.Entry(user.getUserId(), email, user.getPhoneNumber(), wrongShard));
+            misplaced.add(user);
+        }
+
+        ShardRebalancer.Result result = rebalancer.rebalance();
+
+        assertThat(result.moved()).isGreaterThanOrEqualTo(10);
+        for (User user : misplaced) {
+            assertThat(userService.getUserByEmail(user.getEmail()).user().getUserId()).isEqualTo(user.getUserId());
+            assertThat(directory.findByUserId(user.getUserId()).orElseThrow().shard())
+                    .isEqualTo(router.shardOf(user.getEmail()));
+        }
+        assertThat(userService.getUserCountByCourse("Misplaced")).isEqualTo(10);
+    }
+
+    @Test
+    void growingTheShardCountOnlyMovesUsersToTheNewShard() {
+        ShardRouter three = new ShardRouter(3);
+        ShardRouter four = new ShardRouter(4);
+        int moved = 0;
+        for (int i = 0; i < 10_000; i++) {
+            String email = "user" + i + "@example.com";
+            if (three.shardOf(email) != four.shardOf(email)) {
+                assertThat(four.shardOf(email)).isEqualTo(3);
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(2_200, 2_800);
+    }
+
+    private List<UserResponse> register(String prefix, int count) {
+        int n = SEQUENCE.incrementAndGet();
+        List<UserResponse> users = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            users.add(userService.registerUser(request(prefix + " User", "+1" + String.format("%04d%06d", n, i),
+                    prefix.toLowerCase() + n + "." + i + "@example.com", prefix + " Course " + n)));
+        }
+        return users;
+    }
+
+    private int rowsOn(int shard, List<UserResponse> users) {
+        return store.findByUserIdIn(shard, users.stream().map(UserResponse::getUserId).collect(Collectors.toList())).size();
+    }
+
+    private static UserRegistrationRequest request(String fullName, String phoneNumber, String email, String courseName) {
+        return UserRegistrationRequest.builder()
+                .fullName(fullName)
+                .phoneNumber(phoneNumber)
+                .email(email)
+                .courseName(courseName)
+                .build();
+    }
+}